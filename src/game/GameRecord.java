@@ -0,0 +1,119 @@
+package game;
+
+import game.action.Move;
+import game.material.Stone;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * The record of a played Go game: the {@code Board} dimension, the moves in order and the winner.
+ * Moves alternate between black and white, starting with black; a pass is recorded as {@code
+ * null}.
+ *
+ * <p>A record is stored as a single line of text, e.g., {@code "9 B 4,4 2,6 pass 6,2"}: the
+ * dimension, the winner ({@code B}, {@code W} or {@code ?} if unknown) and the playable indices of
+ * the moves, or {@code pass}.
+ */
+public class GameRecord {
+
+  /** The token of a pass. */
+  public static final String PASS = "pass";
+
+  /** The single-side dimension of the {@code Board}. */
+  private final int dim;
+
+  /** The moves, {@code null} for a pass. */
+  private final List<Move> moves;
+
+  /** The winner, or {@code null} if unknown. */
+  private final Stone winner;
+
+  /**
+   * Instantiate a new {@code GameRecord}.
+   *
+   * @param dim the single-side dimension of the {@code Board}.
+   * @param moves the moves, {@code null} for a pass.
+   * @param winner the winner, or {@code null} if unknown.
+   */
+  public GameRecord(int dim, List<Move> moves, Stone winner) {
+    this.dim = dim;
+    this.moves = Collections.unmodifiableList(new ArrayList<>(moves));
+    this.winner = winner;
+  }
+
+  /**
+   * Parse a {@code GameRecord} from its line of text, in which a pass may be in any case.
+   *
+   * @param line the line.
+   * @return the {@code GameRecord}.
+   * @throws IllegalArgumentException if the line is not a valid record.
+   */
+  public static GameRecord parse(String line) throws IllegalArgumentException {
+    try (Scanner scanner = new Scanner(line)) {
+      int dim = scanner.nextInt();
+      Stone winner;
+      switch (scanner.next()) {
+        case "B":
+          winner = Stone.BLACK;
+          break;
+        case "W":
+          winner = Stone.WHITE;
+          break;
+        case "?":
+          winner = null;
+          break;
+        default:
+          throw new IllegalArgumentException("invalid winner in game record: " + line);
+      }
+      List<Move> moves = new ArrayList<>();
+      Stone stone = Stone.BLACK;
+      while (scanner.hasNext()) {
+        String token = scanner.next();
+        if (token.equalsIgnoreCase(PASS)) {
+          moves.add(null);
+        } else {
+          String[] playable = token.split(",");
+          moves.add(new Move(Integer.parseInt(playable[0]), Integer.parseInt(playable[1]), stone));
+        }
+        stone = stone.other();
+      }
+      return new GameRecord(dim, moves, winner);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("invalid game record: " + line, e);
+    }
+  }
+
+  /** @return the single-side dimension of the {@code Board}. */
+  public int getDim() {
+    return dim;
+  }
+
+  /** @return the moves, {@code null} for a pass. */
+  public List<Move> getMoves() {
+    return moves;
+  }
+
+  /** @return the winner, or {@code null} if unknown. */
+  public Stone getWinner() {
+    return winner;
+  }
+
+  /** @return the record as a single line of text. */
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append(dim).append(' ');
+    builder.append(winner == Stone.BLACK ? "B" : winner == Stone.WHITE ? "W" : "?");
+    for (Move move : moves) {
+      builder.append(' ');
+      if (move == null) {
+        builder.append(PASS);
+      } else {
+        builder.append(move.getPlayableX()).append(',').append(move.getPlayableY());
+      }
+    }
+    return builder.toString();
+  }
+}
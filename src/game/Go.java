@@ -4,6 +4,7 @@ import game.action.Move;
 import game.action.Move.MoveType;
 import game.material.Stone;
 import game.material.board.Board;
+import game.material.board.Zobrist;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Observable;
@@ -24,10 +25,11 @@ public class Go extends Observable implements Runnable {
    */
   private final Player[] players;
   /**
-   * The board history as a {@code Collection} of the {@code hashCode} values of all previous {@code
-   * Board} layouts.
+   * The board history as a {@code Collection} of the {@code Zobrist} hashes of all previous {@code
+   * Board} layouts. Unlike the {@code hashCode} of a {@code Board}, which is a sum over its
+   * positions, these rarely collide, so a new layout is practically never taken for a repetition.
    */
-  private final Collection<Integer> boardHistory = new HashSet<Integer>();
+  private final Collection<Long> boardHistory = new HashSet<Long>();
   /** The Go game {@code Board}. */
   private Board board;
   /**
@@ -138,6 +140,34 @@ public class Go extends Observable implements Runnable {
     setBoard(nextBoard);
   }
 
+  /**
+   * Play the turn of the next player with the specified {@code Move}, which is fed to the game
+   * rather than asked from the player, e.g., a move received over the network. Unlike {@code
+   * run}, this never blocks: a move that is not valid by the rules is rejected and the turn is not
+   * played, so the player may try another.
+   *
+   * @param move the {@code Move}, or {@code null} to pass.
+   * @return {@code true} if the turn is played; {@code false} if the move is rejected.
+   */
+  public boolean play(Move move) {
+    Player player = getPlayers()[getCurrentPlayerIndex() ^ 1];
+    Board currentBoard = getBoard();
+    Board nextBoard = currentBoard;
+    if (move != null) {
+      if (move.getMaterial() != player.getStone()
+          || !Rules.isTechnicallyValid(currentBoard, move)
+          || Rules.isRepetition(currentBoard, move)) {
+        return false;
+      }
+      nextBoard = Rules.playWithDynamicalValidation(currentBoard, move);
+    }
+    nextPlayer();
+    player.setMoveType(move != null ? MoveType.MOVE : MoveType.PASS);
+    addHistoryRecord(currentBoard);
+    setBoard(nextBoard);
+    return true;
+  }
+
   /**
    * Notify all {@code Observer} instances of this {@code Go} game about the specified {@code
    * Object}.
@@ -155,7 +185,7 @@ public class Go extends Observable implements Runnable {
    * @param currentBoard the {@code Board}.
    */
   void addHistoryRecord(Board currentBoard) {
-    getBoardHistory().add(currentBoard.hashCode());
+    getBoardHistory().add(Zobrist.hash(currentBoard));
   }
 
   /** @return the {@code Board}. */
@@ -170,7 +200,7 @@ public class Go extends Observable implements Runnable {
   }
 
   /** @return the board history */
-  public Collection<Integer> getBoardHistory() {
+  public Collection<Long> getBoardHistory() {
     return boardHistory;
   }
 
@@ -8,11 +8,17 @@ import game.material.PositionedMaterial;
 import game.material.Stone;
 import game.material.board.Board;
 import game.material.board.Feature;
+import game.material.board.Zobrist;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 /**
  * A placed {@code Stone} is valid if:
@@ -80,6 +86,137 @@ public abstract class Rules {
     return isValid;
   }
 
+  /**
+   * Determine if the specified technically valid {@code Move} on the specified {@code Board} is
+   * suicide: the placed {@code Stone} would be part of a group without liberties while capturing
+   * no opponent group, so dynamical validation would remove it again.
+   *
+   * @param board the {@code Board}.
+   * @param move the {@code Move} of a {@code Stone} on an empty position.
+   * @return {@code true} if the {@code Move} is suicide; {@code false} otherwise.
+   */
+  public static boolean isSuicide(Board board, Move move) {
+    int index = board.playable2Ind(move.getPlayablePosition());
+    Material stone = move.getMaterial();
+    for (int neighborIndex : board.getNeighborsMap().get(index)) {
+      Material material = board.get(neighborIndex);
+      if (material == Feature.EMPTY) {
+        return false;
+      }
+      if (!(material instanceof Stone)) {
+        continue;
+      }
+      boolean hasOtherLiberty = hasLibertyExcept(board, neighborIndex, index);
+      if (material == stone && hasOtherLiberty) {
+        // Connects to a group that keeps a liberty
+        return false;
+      }
+      if (material != stone && !hasOtherLiberty) {
+        // Captures an opponent group
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Determine if the group at the specified linear index has a liberty other than the specified
+   * excluded linear index.
+   *
+   * @param board the {@code Board}.
+   * @param index the linear index of a {@code Stone} of the group.
+   * @param excludedIndex the linear index not to count as a liberty.
+   * @return {@code true} if the group has another liberty; {@code false} otherwise.
+   */
+  private static boolean hasLibertyExcept(Board board, int index, int excludedIndex) {
+    return hasLibertyExcept(board, index, excludedIndex, new HashSet<>());
+  }
+
+  /**
+   * Determine if the group at the specified linear index has a liberty other than the specified
+   * excluded linear index, collecting the linear indices of its stones until a liberty is found.
+   *
+   * @param board the {@code Board}.
+   * @param index the linear index of a {@code Stone} of the group.
+   * @param excludedIndex the linear index not to count as a liberty.
+   * @param group the empty {@code Set<Integer>} to collect the group in, which holds the entire
+   *     group only if it has no other liberty.
+   * @return {@code true} if the group has another liberty; {@code false} otherwise.
+   */
+  private static boolean hasLibertyExcept(
+      Board board, int index, int excludedIndex, Set<Integer> group) {
+    Material stone = board.get(index);
+    Deque<Integer> stack = new ArrayDeque<>();
+    group.add(index);
+    stack.push(index);
+    while (!stack.isEmpty()) {
+      for (int neighborIndex : board.getNeighborsMap().get(stack.pop())) {
+        Material material = board.get(neighborIndex);
+        if (material == Feature.EMPTY && neighborIndex != excludedIndex) {
+          return true;
+        }
+        if (material == stone && group.add(neighborIndex)) {
+          stack.push(neighborIndex);
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determine if playing the specified technically valid {@code Move} on the specified {@code
+   * Board} would repeat a layout in the board history of its {@code Go} game (super ko), without
+   * notifying any {@code Observer}. A {@code Board} without a game has no history.
+   *
+   * <p>The hash of the next layout is that of the board with the placed stone and the stones it
+   * captures toggled, or the group it kills by suicide, so only the groups next to the move are
+   * visited and the board is neither copied nor hashed in full.
+   *
+   * @param board the {@code Board}.
+   * @param move the {@code Move}.
+   * @return {@code true} if the {@code Move} repeats a layout; {@code false} otherwise.
+   */
+  public static boolean isRepetition(Board board, Move move) {
+    Go go = board.getGo();
+    if (go == null) {
+      return false;
+    }
+    int index = board.playable2Ind(move.getPlayablePosition());
+    Stone stone = (Stone) move.getMaterial();
+    long layoutHash = board.getLayoutHash() ^ Zobrist.key(stone, index);
+    Set<Integer> captured = new HashSet<>();
+    Set<Integer> connected = new HashSet<>();
+    boolean hasLiberty = false;
+    for (int neighborIndex : board.getNeighborsMap().get(index)) {
+      Material material = board.get(neighborIndex);
+      if (material == Feature.EMPTY) {
+        hasLiberty = true;
+      } else if (material instanceof Stone
+          && !captured.contains(neighborIndex)
+          && !connected.contains(neighborIndex)) {
+        Set<Integer> group = new HashSet<>();
+        boolean hasOtherLiberty = hasLibertyExcept(board, neighborIndex, index, group);
+        if (material == stone) {
+          hasLiberty |= hasOtherLiberty;
+          connected.addAll(group);
+        } else if (!hasOtherLiberty) {
+          for (int groupIndex : group) {
+            layoutHash ^= Zobrist.key((Stone) material, groupIndex);
+          }
+          captured.addAll(group);
+        }
+      }
+    }
+    if (captured.isEmpty() && !hasLiberty) {
+      // Suicide removes the placed stone along with the group it connects to
+      layoutHash ^= Zobrist.key(stone, index);
+      for (int groupIndex : connected) {
+        layoutHash ^= Zobrist.key(stone, groupIndex);
+      }
+    }
+    return go.getBoardHistory().contains(layoutHash);
+  }
+
   /**
    * Play the specified {@code Move} on the specified {@code Board} and ensure dynamical validity of
    * the {@code Board}. The specified {@code Board} is left untouched and a new {@code Board} is
@@ -120,7 +257,7 @@ public abstract class Rules {
    * @return {@code true} if the {@code Move} is historically valid; {@code false} otherwise.
    */
   public static boolean isHistoricallyValid(Go go, Board board) {
-    if (!go.getBoardHistory().contains(board.hashCode())) {
+    if (!go.getBoardHistory().contains(Zobrist.hash(board))) {
       return true;
     } else {
       System.out.println("This move would violate the super ko rule.");
@@ -167,53 +304,23 @@ public abstract class Rules {
     return go.getCurrentPlayer().getMoveType() == MoveType.TABLEFLIP;
   }
 
-  /** The dynamical validator class to dynamically validate boards with. */
+  /**
+   * The dynamical validator class to dynamically validate boards with. Starting from the placed
+   * {@code Stone}, every opponent group next to it without liberties is invalid, after which its
+   * own group is invalid if it has no liberties either. Groups are found by iterative flood fills,
+   * so crowded boards with large groups validate in linear time.
+   */
   public static class DynamicalValidator {
 
-    /**
-     * The status map contains the status of every board element mapped to its linear index. Status
-     * means the following:
-     *
-     * <dl>
-     * <dt>0: to do
-     * <dd>not yet validated,
-     * <dt>1: first
-     * <dd>the first stone starting validation,
-     * <dt>2: doing
-     * <dd>being validated,
-     * <dt>3: depends
-     * <dd>validity depends on neighbours,
-     * <dt>4: done
-     * <dd>done.
-     * </dl>
-     */
-    private final Map<Integer, Integer> status = new HashMap<>();
-
     /**
      * The {@code Map} of boolean flags, indicating dynamical validity of every position on the
      * board's full grid, indexed by linear indices.
      */
     private final Map<Integer, Boolean> valid = new HashMap<>();
 
-    private final int todo = 0;
-    private final int first = 1;
-    private final int doing = 2;
-    private final int depends = 3;
-    private final int done = 4;
-
-    /**
-     * A dynamically growing {@code Map} of neighbouring {@code PositionedMaterial} indexed by full
-     * grid linear indices. This map is used to quickly find neighbours and their positions during
-     * the validation algorithm.
-     */
-    private final Map<Integer, PositionedMaterial> neighborIndex2PositionedMaterialMap =
-        new HashMap<>();
-
     /** The {@code Board} being dynamically validated. */
     private final Board board;
 
-    private int firstIndex;
-
     /**
      * Instantiate a new {@code DynamicalValidator} of the specified {@code Board}.
      *
@@ -223,12 +330,6 @@ public abstract class Rules {
       this.board = board;
       for (int i = 0; i < (board.getDim() + 2) * (board.getDim() + 2); i++) {
         valid.put(i, true);
-        if (board.get(i) instanceof Feature) {
-          // Set either the board features to done; they are always valid
-          status.put(i, done);
-        } else { // The board has a stone at this index
-          status.put(i, todo);
-        }
       }
     }
 
@@ -238,133 +339,55 @@ public abstract class Rules {
      * @param positionedMaterial the {@code PositionedMaterial}.
      */
     void validate(PositionedMaterial positionedMaterial) {
-      List<Integer> playable = positionedMaterial.getPlayablePosition();
-      int index = board.playable2Ind(playable);
-
-      // Get neighbour indices and materials
-      List<Integer> neighborIndices = new LinkedList<>(board.getNeighborsMap().get(index));
-      List<PositionedMaterial> neighborMaterials =
-          new LinkedList<>(board.getNeighbors(positionedMaterial));
-
-      // Remove opponent neighbours if their status is done; this saves iterations later in the
-      // algorithm
-      for (int i = neighborIndices.size() - 1; i >= 0; i--) {
-        Material material = neighborMaterials.get(i).getMaterial();
-        if (material != Feature.EMPTY
-            && material != positionedMaterial.getMaterial()
-            && status.get(neighborIndices.get(i)) == done) {
-          neighborIndices.remove(i);
-          neighborMaterials.remove(i);
-        }
+      int index = board.playable2Ind(positionedMaterial.getPlayablePosition());
+      Material material = board.get(index);
+      if (!(material instanceof Stone)) {
+        return;
       }
 
-      // Add to the map of neighbouring indices to neighbouring positioned material
-      for (int i = 0; i < neighborIndices.size(); i++) {
-        if (!neighborIndex2PositionedMaterialMap.containsKey(neighborIndices.get(i))) {
-          neighborIndex2PositionedMaterialMap.put(neighborIndices.get(i), neighborMaterials.get(i));
+      // Capture opponent groups first, so their positions become liberties
+      for (int neighborIndex : board.getNeighborsMap().get(index)) {
+        Material neighborMaterial = board.get(neighborIndex);
+        if (neighborMaterial instanceof Stone
+            && neighborMaterial != material
+            && valid.get(neighborIndex)) {
+          invalidateWithoutLiberties(neighborIndex);
         }
       }
 
-      // Validate
-      do {
-        switchLabel:
-        switch (status.get(index)) {
-          case first:
-            for (int neighborIndex : neighborIndices) {
-              // Determine if the neighbour is to be validated
-              if (status.get(neighborIndex) < done) {
-                validate(neighborIndex2PositionedMaterialMap.get(neighborIndex));
-              }
-            }
-            if (status.get(index) < done) {
-              // Set the first stone's status to be validated
-              status.put(index, doing);
-            }
-            break;
-
-          case doing:
-            // Check neighbours until a liberty (empty neighbour) is found
-            for (int neighborIndex : neighborIndices) {
-              if (neighborIndex2PositionedMaterialMap
-                      .get(neighborIndex)
-                      .containsMaterial(Feature.EMPTY)
-                  || !valid.get(neighborIndex)) {
-                status.put(index, done);
-                break switchLabel;
-              }
-            }
-
-            // Check neighbours for stones of the same colour
-            for (PositionedMaterial neighborMaterial : neighborMaterials) {
-              if (neighborMaterial.containsMaterial(positionedMaterial.getMaterial())) {
-                status.put(index, depends);
-                break switchLabel;
-              }
-            }
-
-            /* Set this stone to be invalid as it has no liberties, because all its neighbours are
-             * either sides of the board or opponent stones
-             */
-            status.put(index, done);
-            valid.put(index, false);
-            break;
-
-          case depends:
-            // Determine if all neighbours have been checked already
-            for (int neighborIndex : neighborIndices) {
-              if (status.get(neighborIndex) <= doing // Not yet done and...
-                  && neighborIndex != firstIndex) /* ...not the first stone */ {
-                if (status.get(neighborIndex) == todo) {
-                  // Ensure first status is not reused in a recursive call to this method
-                  status.put(neighborIndex, doing);
-                }
-                validate(neighborIndex2PositionedMaterialMap.get(neighborIndex));
-                break switchLabel;
-              }
-
-              // Keep this stone as valid if a neighbouring stone is ...
-              if (valid.get(neighborIndex) // ... valid and...
-                  && status.get(neighborIndex) == done // ... done and ...
-                  && neighborIndex2PositionedMaterialMap.get(neighborIndex).getMaterial()
-                      == positionedMaterial.getMaterial()) /* ... of the same colour */ {
-                status.put(index, done);
-                break switchLabel;
-              }
-            }
-            /*
-            At this point all neighbours have been done, except maybe the first, so check this
-            and validate the first stone before this one if it's of the same colour
-            */
-            if (neighborIndex2PositionedMaterialMap.get(firstIndex).getMaterial()
-                == positionedMaterial.getMaterial()) {
-              // Validate the first before this one
-              status.put(firstIndex, doing);
-              validate(neighborIndex2PositionedMaterialMap.get(firstIndex));
-              if (valid.get(firstIndex)) {
-                status.put(index, done);
-              }
-              break;
-            }
-            status.put(index, done);
-            valid.put(index, false);
-            break;
-
-          case done:
-            // Do nothing, continue to return
-            break;
+      // Suicide
+      invalidateWithoutLiberties(index);
+    }
 
-          default: // Initially, status.get(.) returns 0, which is the default
-            // Set this stone's status to be the first
-            status.put(index, first);
-            firstIndex = index;
-            // Set neighbour status to doing
-            for (int neighborIndex : neighborIndices) {
-              if (status.get(neighborIndex) == todo) {
-                status.put(neighborIndex, doing);
-              }
-            }
+    /**
+     * Invalidate the group at the specified linear index if it has no liberties. Stones of invalid
+     * opponent groups count as liberties, because they are removed first.
+     *
+     * @param index the linear index of a {@code Stone} of the group.
+     */
+    private void invalidateWithoutLiberties(int index) {
+      Material material = board.get(index);
+      List<Integer> group = new ArrayList<>();
+      Set<Integer> visited = new HashSet<>();
+      group.add(index);
+      visited.add(index);
+      for (int i = 0; i < group.size(); i++) {
+        for (int neighborIndex : board.getNeighborsMap().get(group.get(i))) {
+          Material neighborMaterial = board.get(neighborIndex);
+          if (neighborMaterial == Feature.EMPTY
+              || (neighborMaterial instanceof Stone
+                  && neighborMaterial != material
+                  && !valid.get(neighborIndex))) {
+            return;
+          }
+          if (neighborMaterial == material && visited.add(neighborIndex)) {
+            group.add(neighborIndex);
+          }
         }
-      } while (status.get(index) < done);
+      }
+      for (int groupIndex : group) {
+        valid.put(groupIndex, false);
+      }
     }
 
     /**
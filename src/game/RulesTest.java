@@ -291,6 +291,7 @@ class RulesTest {
     }
 
     // Play an illegal move and assert that it is historically invalid
+    assertTrue(Rules.isRepetition(board, whiteIllegalKoMove));
     Board illegalBoard = Rules.playWithDynamicalValidation(board, whiteIllegalKoMove);
     assertFalse(Rules.isHistoricallyValid(go, illegalBoard));
     System.out.println("Illegal Ko move applied:");
@@ -298,6 +299,7 @@ class RulesTest {
 
     // Play legal different moves and assert that this is historically valid
     for (Move legalMoveAfterKo : legalMovesAfterKo) {
+      assertFalse(Rules.isRepetition(board, legalMoveAfterKo));
       board = Rules.playWithDynamicalValidation(board, legalMoveAfterKo);
       assertTrue(Rules.isHistoricallyValid(go, board));
       go.setBoard(board);
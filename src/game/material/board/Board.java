@@ -14,6 +14,9 @@ public class Board extends Grid {
 
   private Go go;
 
+  /** The Zobrist hash of the layout, kept up to date by {@code put}. */
+  private long layoutHash;
+
   /**
    * Instantiate a new Go {@code Board} with the specified single-side dimension of the playable
    * {@code Grid}.
@@ -22,6 +25,7 @@ public class Board extends Grid {
    */
   public Board(int dim) {
     super(dim);
+    layoutHash = Zobrist.dimensionKey(dim);
   }
 
   /**
@@ -33,6 +37,7 @@ public class Board extends Grid {
   public Board(Board board) {
     super(board);
     setGo(board.getGo());
+    layoutHash = board.getLayoutHash();
   }
 
   /**
@@ -41,12 +46,33 @@ public class Board extends Grid {
    * @param positionedMaterial the {@code PositionedMaterial}.
    */
   public void put(PositionedMaterial positionedMaterial) {
-    getGrid()
-        .put(
-            playable2Ind(
-                Arrays.asList(
-                    positionedMaterial.getPlayableX(), positionedMaterial.getPlayableY())),
-            positionedMaterial.getMaterial());
+    put(
+        playable2Ind(
+            Arrays.asList(positionedMaterial.getPlayableX(), positionedMaterial.getPlayableY())),
+        positionedMaterial.getMaterial());
+  }
+
+  /** {@inheritDoc} The hash of the layout is updated with the stones removed and placed. */
+  @Override
+  public void put(int ind, Material material) {
+    Material previous = get(ind);
+    super.put(ind, material);
+    if (previous instanceof Stone) {
+      layoutHash ^= Zobrist.key((Stone) previous, ind);
+    }
+    if (material instanceof Stone) {
+      layoutHash ^= Zobrist.key((Stone) material, ind);
+    }
+  }
+
+  /**
+   * Get the Zobrist hash of the layout, as {@link Zobrist#hash(Board)} calculates it, in constant
+   * time.
+   *
+   * @return the hash.
+   */
+  public long getLayoutHash() {
+    return layoutHash;
   }
 
   /**
@@ -56,6 +56,21 @@ public class BoardTest {
     assertNotEquals(board5.get(playableX0, playableY0), board5Copy.get(playableX0, playableY0));
   }
 
+  @Test
+  void testLayoutHash() {
+    assertEquals(Zobrist.hash(board5), board5.getLayoutHash());
+    board5.put(blackPositionedStone00);
+    board5.put(blackPositionedStone11);
+    board5Copy = new Board(board5);
+    assertEquals(Zobrist.hash(board5), board5Copy.getLayoutHash());
+
+    // Replacing and removing stones update the hash as well
+    board5Copy.put(new PositionedStone(0, 0, Stone.WHITE));
+    board5Copy.put(new PositionedFeature(1, 1, Feature.EMPTY));
+    assertEquals(Zobrist.hash(board5Copy), board5Copy.getLayoutHash());
+    assertNotEquals(board5.getLayoutHash(), board5Copy.getLayoutHash());
+  }
+
   @Test
   void testToString() {
     String board5FilePath = "src/game/material/board/BoardTestString5.txt";
@@ -0,0 +1,128 @@
+package game.material.board;
+
+import java.util.Arrays;
+
+/**
+ * The set of empty points of a board by full grid linear index, kept up to date as stones are put
+ * and removed. The points are stored densely in an array together with the position of every
+ * point in that array, so adding, removing, testing and picking the point at a position all take
+ * constant time: a removed point is replaced by the last point of the array.
+ *
+ * <p>The order of the points is unspecified. Samplers may reorder them with {@code swap}, e.g., to
+ * draw points without replacement by swapping rejected points to the end of the range they draw
+ * from.
+ */
+public class EmptyPointSet {
+
+  /** The position of a point that is not in the set. */
+  private static final int ABSENT = -1;
+
+  /** The points, of which the first {@code size} are in the set. */
+  private final int[] points;
+
+  /** The positions in {@code points} by linear index, or {@code ABSENT}. */
+  private final int[] positions;
+
+  /** The number of points in the set. */
+  private int size;
+
+  /**
+   * Instantiate a new empty {@code EmptyPointSet}.
+   *
+   * @param capacity the number of linear indices, i.e., the size of the full grid.
+   */
+  public EmptyPointSet(int capacity) {
+    points = new int[capacity];
+    positions = new int[capacity];
+    Arrays.fill(positions, ABSENT);
+  }
+
+  /**
+   * Instantiate a new {@code EmptyPointSet} as a copy of another.
+   *
+   * @param set the {@code EmptyPointSet} to copy.
+   */
+  public EmptyPointSet(EmptyPointSet set) {
+    points = set.points.clone();
+    positions = set.positions.clone();
+    size = set.size;
+  }
+
+  /**
+   * Copy the contents of the specified {@code EmptyPointSet} of the same capacity into this one.
+   *
+   * @param set the {@code EmptyPointSet} to copy.
+   */
+  public void copyFrom(EmptyPointSet set) {
+    System.arraycopy(set.points, 0, points, 0, points.length);
+    System.arraycopy(set.positions, 0, positions, 0, positions.length);
+    size = set.size;
+  }
+
+  /** @return the number of points in the set. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get the point at the specified position.
+   *
+   * @param i the position, less than {@code size()}.
+   * @return the linear index of the point.
+   */
+  public int get(int i) {
+    return points[i];
+  }
+
+  /**
+   * Determine if the specified point is in the set.
+   *
+   * @param ind the linear index of the point.
+   * @return {@code true} if the point is in the set; {@code false} otherwise.
+   */
+  public boolean contains(int ind) {
+    return positions[ind] != ABSENT;
+  }
+
+  /**
+   * Add the specified point, if not in the set yet.
+   *
+   * @param ind the linear index of the point.
+   */
+  public void add(int ind) {
+    if (positions[ind] == ABSENT) {
+      points[size] = ind;
+      positions[ind] = size++;
+    }
+  }
+
+  /**
+   * Remove the specified point, if in the set. The last point takes its position.
+   *
+   * @param ind the linear index of the point.
+   */
+  public void remove(int ind) {
+    int i = positions[ind];
+    if (i != ABSENT) {
+      int last = points[--size];
+      points[i] = last;
+      positions[last] = i;
+      positions[ind] = ABSENT;
+    }
+  }
+
+  /**
+   * Swap the points at the specified positions.
+   *
+   * @param i a position, less than {@code size()}.
+   * @param j a position, less than {@code size()}.
+   */
+  public void swap(int i, int j) {
+    int a = points[i];
+    int b = points[j];
+    points[i] = b;
+    points[j] = a;
+    positions[b] = i;
+    positions[a] = j;
+  }
+}
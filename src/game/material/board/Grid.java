@@ -38,6 +38,9 @@ public class Grid {
    */
   private final Map<Integer, List<Integer>> neighborsMap;
 
+  /** The empty points of the playable grid. */
+  private final EmptyPointSet emptyPoints;
+
   /** The single-side dimension of the playable square grid. */
   private final int dim;
 
@@ -63,6 +66,7 @@ public class Grid {
     ind2SubMap = new HashMap<>();
     grid = new HashMap<>();
     neighborsMap = new HashMap<>();
+    emptyPoints = new EmptyPointSet(getFullDim() * getFullDim());
     init();
   }
 
@@ -79,6 +83,7 @@ public class Grid {
     ind2SubMap = grid.getInd2SubMap();
     this.grid = new HashMap<>(grid.getGrid());
     neighborsMap = grid.getNeighborsMap();
+    emptyPoints = new EmptyPointSet(grid.getEmptyPoints());
   }
 
   /** @return the sub 2 ind map */
@@ -95,6 +100,16 @@ public class Grid {
     return neighborsMap;
   }
 
+  /**
+   * Get the empty points of the playable grid, which are kept up to date by {@code put}. The set
+   * may be reordered, but must not be modified otherwise.
+   *
+   * @return the {@code EmptyPointSet} of linear indices.
+   */
+  public EmptyPointSet getEmptyPoints() {
+    return emptyPoints;
+  }
+
   /** @return the single-side dimension of the playable grid. */
   public int getDim() {
     return dim;
@@ -121,7 +136,14 @@ public class Grid {
    * @param material the {@code Material}.
    */
   public void put(int ind, Material material) {
-    getGrid().put(ind, material);
+    Material previous = getGrid().put(ind, material);
+    if (previous != Feature.SIDE) {
+      if (material == Feature.EMPTY) {
+        emptyPoints.add(ind);
+      } else {
+        emptyPoints.remove(ind);
+      }
+    }
   }
 
   /**
@@ -143,6 +165,7 @@ public class Grid {
       } else {
         // Playable grid
         getGrid().put(ind, Feature.EMPTY);
+        emptyPoints.add(ind);
       }
     }
     for (int ind = 0; ind < getFullDim() * getFullDim(); ind++) {
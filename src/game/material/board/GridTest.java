@@ -126,6 +126,27 @@ public class GridTest {
     assertNotEquals(white, grid1.get(ind4));
   }
 
+  @Test
+  void emptyPoints() {
+    EmptyPointSet emptyPoints = grid3.getEmptyPoints();
+    assertEquals(9, emptyPoints.size());
+    int ind = grid3.playable2Ind(playable11);
+    grid3.put(ind, Stone.BLACK);
+    assertEquals(8, emptyPoints.size());
+    assertFalse(emptyPoints.contains(ind));
+    for (int i = 0; i < emptyPoints.size(); i++) {
+      assertEquals(Feature.EMPTY, grid3.get(emptyPoints.get(i)));
+    }
+    // Test w/ copy
+    Grid grid3Copy = new Grid(grid3);
+    grid3Copy.put(ind, Feature.EMPTY);
+    assertTrue(grid3Copy.getEmptyPoints().contains(ind));
+    assertFalse(emptyPoints.contains(ind));
+    emptyPoints.swap(0, emptyPoints.size() - 1);
+    grid3.put(emptyPoints.get(0), Stone.WHITE);
+    assertEquals(7, emptyPoints.size());
+  }
+
   @Test
   void testToString() {
     String grid1FilePath = "src/game/material/board/GridTestString1.txt";
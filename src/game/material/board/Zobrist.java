@@ -0,0 +1,139 @@
+package game.material.board;
+
+import game.material.Material;
+import game.material.Stone;
+
+/**
+ * Zobrist hashing of {@code Board} layouts. Every combination of a {@code Stone} and a full grid
+ * linear index has a fixed pseudo-random 64-bit key; the hash of a layout is the exclusive or of
+ * the keys of all stones on it, the key of the {@code Board} dimension and, optionally, the key of
+ * the {@code Stone} to play. Because of the exclusive or, the hash can be updated incrementally
+ * when a single stone is put or removed.
+ *
+ * <p>The keys are generated from a fixed seed, so hashes are stable between runs and may be
+ * stored, e.g., in an opening book.
+ */
+public final class Zobrist {
+
+  /** The largest full grid single-side dimension for which keys are kept in a table. */
+  private static final int TABLE_FULL_DIM = 133;
+
+  /** The seed of the key generator. */
+  private static final long SEED = 0x5448554e44455242L;
+
+  /** The stone keys indexed by {@code Stone} ordinal and full grid linear index. */
+  private static final long[][] STONE_KEYS = new long[2][TABLE_FULL_DIM * TABLE_FULL_DIM];
+
+  /** The key that is part of the hash if {@code Stone.WHITE} is to play. */
+  private static final long WHITE_TO_PLAY = mix(SEED - 1);
+
+  static {
+    for (int stone = 0; stone < STONE_KEYS.length; stone++) {
+      for (int ind = 0; ind < STONE_KEYS[stone].length; ind++) {
+        STONE_KEYS[stone][ind] = generate(stone, ind);
+      }
+    }
+  }
+
+  private Zobrist() {}
+
+  /**
+   * Get the key of the specified {@code Stone} at the specified full grid linear index.
+   *
+   * @param stone the {@code Stone}.
+   * @param ind the linear index.
+   * @return the key.
+   */
+  public static long key(Stone stone, int ind) {
+    return key(stone.ordinal(), ind);
+  }
+
+  /**
+   * Get the key of the {@code Stone} with the specified ordinal at the specified full grid linear
+   * index.
+   *
+   * @param stoneOrdinal the {@code Stone} ordinal.
+   * @param ind the linear index.
+   * @return the key.
+   */
+  public static long key(int stoneOrdinal, int ind) {
+    return ind < STONE_KEYS[stoneOrdinal].length
+        ? STONE_KEYS[stoneOrdinal][ind]
+        : generate(stoneOrdinal, ind);
+  }
+
+  /**
+   * Get the key of the specified playable grid single-side dimension, which is the hash of an empty
+   * {@code Board} of that dimension.
+   *
+   * @param dim the dimension.
+   * @return the key.
+   */
+  public static long dimensionKey(int dim) {
+    return mix(SEED + 0x100000000L * dim);
+  }
+
+  /**
+   * Get the key to include in a hash for the specified {@code Stone} to play.
+   *
+   * @param stone the {@code Stone} to play.
+   * @return the key, which is zero for {@code Stone.BLACK}.
+   */
+  public static long toPlayKey(Stone stone) {
+    return stone == Stone.WHITE ? WHITE_TO_PLAY : 0L;
+  }
+
+  /**
+   * Calculate the hash of the layout of the specified {@code Board}.
+   *
+   * @param board the {@code Board}.
+   * @return the hash.
+   */
+  public static long hash(Board board) {
+    int fullDim = board.getDim() + 2;
+    long hash = dimensionKey(board.getDim());
+    for (int ind = fullDim + 1; ind < fullDim * (fullDim - 1) - 1; ind++) {
+      Material material = board.get(ind);
+      if (material instanceof Stone) {
+        hash ^= key((Stone) material, ind);
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Calculate the hash of the layout of the specified {@code Board} with the specified {@code
+   * Stone} to play.
+   *
+   * @param board the {@code Board}.
+   * @param toPlay the {@code Stone} to play.
+   * @return the hash.
+   */
+  public static long hash(Board board, Stone toPlay) {
+    return hash(board) ^ toPlayKey(toPlay);
+  }
+
+  /**
+   * Generate the key of the {@code Stone} with the specified ordinal at the specified index.
+   *
+   * @param stoneOrdinal the {@code Stone} ordinal.
+   * @param ind the linear index.
+   * @return the key.
+   */
+  private static long generate(int stoneOrdinal, int ind) {
+    return mix(SEED + 2L * ind + stoneOrdinal + 1);
+  }
+
+  /**
+   * Scramble the specified value with the SplitMix64 finaliser.
+   *
+   * @param value the value.
+   * @return the scrambled value.
+   */
+  private static long mix(long value) {
+    long z = value * 0x9e3779b97f4a7c15L;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,82 @@
+package net;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An actor: an object whose state is only touched by the messages in its mailbox, which run one at
+ * a time, in order, on a shared {@code Executor}. An actor without messages holds no thread, so
+ * many actors share a small pool of threads without any locks on their state.
+ *
+ * <p>An actor is scheduled on the executor when a message arrives in its empty mailbox. It then
+ * runs a limited batch of messages and reschedules itself if more are left, so a busy actor does
+ * not starve the others.
+ */
+public abstract class Actor {
+
+  /** The maximum number of messages run per turn on the executor. */
+  private static final int BATCH_SIZE = 64;
+
+  /** The {@code Executor}. */
+  private final Executor executor;
+
+  /** The mailbox. */
+  private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+
+  /** The switch indicating whether or not the actor is scheduled on the executor. */
+  private final AtomicBoolean isScheduled = new AtomicBoolean();
+
+  /**
+   * Instantiate a new {@code Actor}.
+   *
+   * @param executor the {@code Executor} shared with other actors.
+   */
+  protected Actor(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Put the specified message in the mailbox, from any thread.
+   *
+   * @param message the message, which runs on the executor after every earlier message.
+   */
+  protected void tell(Runnable message) {
+    mailbox.add(message);
+    schedule();
+  }
+
+  /** Schedule the actor on the executor, unless it already is. */
+  private void schedule() {
+    if (!isScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(this::runBatch);
+    } catch (RejectedExecutionException e) {
+      // The executor is shut down; the messages are dropped
+      mailbox.clear();
+    }
+  }
+
+  /** Run a batch of messages, on the executor. */
+  private void runBatch() {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      Runnable message = mailbox.poll();
+      if (message == null) {
+        break;
+      }
+      try {
+        message.run();
+      } catch (RuntimeException e) {
+        e.printStackTrace();
+      }
+    }
+    isScheduled.set(false);
+    if (!mailbox.isEmpty()) {
+      schedule();
+    }
+  }
+}
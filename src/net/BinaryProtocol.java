@@ -0,0 +1,302 @@
+package net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import net.Protocol.ClientCommand;
+import net.Protocol.ProtocolCommand;
+import net.Protocol.ServerCommand;
+
+/**
+ * The binary framing of the {@code Protocol}, which a client negotiates by sending {@code BINARY}
+ * as its first line: the server answers {@code BINARY}, after which both send frames instead of
+ * lines. The client waits for the answer before it sends its first frame.
+ *
+ * <p>A frame is its length as a varint, followed by that many bytes: the opcode of the command and
+ * its arguments. Numbers, i.e., colours, playable indices and dimensions, are unsigned varints of
+ * seven bits per byte, least significant first, so a move takes four bytes. A colour is zero for
+ * black and one for white. Text, i.e., a player name, is UTF-8 and takes the rest of the frame, so
+ * it comes last, as do the points of a board, packed by {@code packPoints}. The arguments follow
+ * the order of the text protocol, except for the name:
+ *
+ * <ul>
+ *   <li>{@code PLAYER <name>}, {@code GO <dim>}, {@code MOVE <x> <y>}, {@code PASS}, {@code
+ *       TABLEFLIP}, {@code SPECTATE <name>}, {@code RESYNC} and {@code PONG} from the client;
+ *   <li>{@code WAITING}, {@code READY <colour> <dim> <opponent>}, {@code VALID <colour> <x> <y>},
+ *       {@code INVALID <colour>}, {@code PASSED <colour>}, {@code TABLEFLIPPED <colour>}, {@code
+ *       END <colour>}, {@code BOARD <dim> <colour> <sequence> <points>}, {@code NOGAME <name>},
+ *       {@code DELTA <colour> <sequence> [<x> <y> <captured>...]} and {@code PING} from the
+ *       server, where the frame of a {@code DELTA} ends after the sequence number for a pass.
+ * </ul>
+ *
+ * <p>The opcodes of the client commands count from one and those of the server commands from
+ * {@code 0x40}, in the order of declaration.
+ */
+public class BinaryProtocol {
+
+  /** The longest frame in bytes, without its length. */
+  public static final int MAX_FRAME_LENGTH = 1 << 13;
+
+  /** The opcode of the first client command. */
+  private static final int CLIENT_OPCODE_BASE = 0x01;
+
+  /** The opcode of the first server command. */
+  private static final int SERVER_OPCODE_BASE = 0x40;
+
+  /** The longest varint of an {@code int} in bytes. */
+  private static final int MAX_VARINT_LENGTH = 5;
+
+  /** The bits of a varint byte that hold the value. */
+  private static final int VARINT_VALUE_BITS = 0x7F;
+
+  /** The bit of a varint byte that indicates that more bytes follow. */
+  private static final int VARINT_MORE_BIT = 0x80;
+
+  /** The number of points packed in a byte. */
+  private static final int POINTS_PER_BYTE = 4;
+
+  /** The bits of a packed point. */
+  private static final int POINT_BITS = 0x03;
+
+  /**
+   * Get the opcode of the specified {@code ProtocolCommand}.
+   *
+   * @param protocolCommand the {@code ClientCommand} or {@code ServerCommand}.
+   * @return the opcode.
+   */
+  public static int opcode(ProtocolCommand protocolCommand) {
+    if (protocolCommand instanceof ClientCommand) {
+      return CLIENT_OPCODE_BASE + ((ClientCommand) protocolCommand).ordinal();
+    }
+    if (protocolCommand instanceof ServerCommand) {
+      return SERVER_OPCODE_BASE + ((ServerCommand) protocolCommand).ordinal();
+    }
+    throw new AssertionError("only client and server commands have opcodes");
+  }
+
+  /**
+   * Get the {@code ClientCommand} of the specified frame and advance past its opcode.
+   *
+   * @param frame the frame, positioned at its opcode.
+   * @return the {@code ClientCommand}, or {@code null} if the frame is empty or its opcode unknown.
+   */
+  public static ClientCommand getClientCommand(ByteBuffer frame) {
+    int index = getOpcode(frame) - CLIENT_OPCODE_BASE;
+    ClientCommand[] commands = ClientCommand.values();
+    return index >= 0 && index < commands.length ? commands[index] : null;
+  }
+
+  /**
+   * Get the {@code ServerCommand} of the specified frame and advance past its opcode.
+   *
+   * @param frame the frame, positioned at its opcode.
+   * @return the {@code ServerCommand}, or {@code null} if the frame is empty or its opcode unknown.
+   */
+  public static ServerCommand getServerCommand(ByteBuffer frame) {
+    int index = getOpcode(frame) - SERVER_OPCODE_BASE;
+    ServerCommand[] commands = ServerCommand.values();
+    return index >= 0 && index < commands.length ? commands[index] : null;
+  }
+
+  /**
+   * Encode the specified {@code ProtocolCommand} with the specified numbers as a frame.
+   *
+   * @param protocolCommand the {@code ClientCommand} or {@code ServerCommand}.
+   * @param args the numbers, which must not be negative.
+   * @return the frame, including its length.
+   */
+  public static byte[] encode(ProtocolCommand protocolCommand, int... args) {
+    return encode(protocolCommand, (byte[]) null, args);
+  }
+
+  /**
+   * Encode the specified {@code ProtocolCommand} with the specified numbers and text as a frame.
+   *
+   * @param protocolCommand the {@code ClientCommand} or {@code ServerCommand}.
+   * @param text the text after the numbers.
+   * @param args the numbers, which must not be negative.
+   * @return the frame, including its length.
+   */
+  public static byte[] encode(ProtocolCommand protocolCommand, String text, int... args) {
+    return encode(protocolCommand, text.getBytes(StandardCharsets.UTF_8), args);
+  }
+
+  /**
+   * Encode the specified {@code ProtocolCommand} with the specified numbers and bytes as a frame.
+   *
+   * @param protocolCommand the {@code ClientCommand} or {@code ServerCommand}.
+   * @param tail the bytes after the numbers, or {@code null} if there are none.
+   * @param args the numbers, which must not be negative.
+   * @return the frame, including its length.
+   */
+  public static byte[] encode(ProtocolCommand protocolCommand, byte[] tail, int... args) {
+    int tailLength = tail != null ? tail.length : 0;
+    int length = 1 + tailLength;
+    for (int arg : args) {
+      length += varintLength(arg);
+    }
+    if (length > MAX_FRAME_LENGTH) {
+      throw new AssertionError("frame must not be longer than " + MAX_FRAME_LENGTH + " bytes");
+    }
+    byte[] frame = new byte[varintLength(length) + length];
+    int offset = putVarint(frame, 0, length);
+    frame[offset++] = (byte) opcode(protocolCommand);
+    for (int arg : args) {
+      offset = putVarint(frame, offset, arg);
+    }
+    if (tail != null) {
+      System.arraycopy(tail, 0, frame, offset, tailLength);
+    }
+    return frame;
+  }
+
+  /**
+   * Pack the specified points of a board, four to a byte, the first in the lowest bits.
+   *
+   * @param points the points: zero if empty, one for black and two for white.
+   * @return the packed points.
+   */
+  public static byte[] packPoints(byte[] points) {
+    byte[] packed = new byte[(points.length + POINTS_PER_BYTE - 1) / POINTS_PER_BYTE];
+    for (int i = 0; i < points.length; i++) {
+      packed[i / POINTS_PER_BYTE] |= points[i] << (2 * (i % POINTS_PER_BYTE));
+    }
+    return packed;
+  }
+
+  /**
+   * Get the specified number of packed points from the rest of the specified frame.
+   *
+   * @param frame the frame.
+   * @param count the number of points.
+   * @return the points: zero if empty, one for black and two for white; or {@code null} if the
+   *     frame ends before them.
+   */
+  public static byte[] getPoints(ByteBuffer frame, int count) {
+    if (frame.remaining() < (count + POINTS_PER_BYTE - 1) / POINTS_PER_BYTE) {
+      return null;
+    }
+    byte[] points = new byte[count];
+    int packed = 0;
+    for (int i = 0; i < count; i++) {
+      if (i % POINTS_PER_BYTE == 0) {
+        packed = frame.get();
+      }
+      points[i] = (byte) ((packed >> (2 * (i % POINTS_PER_BYTE))) & POINT_BITS);
+    }
+    return points;
+  }
+
+  /**
+   * Get the number of bytes of the varint of the specified number.
+   *
+   * @param value the number, which must not be negative.
+   * @return the number of bytes.
+   */
+  public static int varintLength(int value) {
+    if (value < 0) {
+      throw new AssertionError("varint must not be negative");
+    }
+    int length = 1;
+    while ((value >>>= 7) != 0) {
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * Put the varint of the specified number in the specified array.
+   *
+   * @param bytes the array.
+   * @param offset the index of the first byte.
+   * @param value the number, which must not be negative.
+   * @return the index after the last byte.
+   */
+  public static int putVarint(byte[] bytes, int offset, int value) {
+    if (value < 0) {
+      throw new AssertionError("varint must not be negative");
+    }
+    while ((value & ~VARINT_VALUE_BITS) != 0) {
+      bytes[offset++] = (byte) ((value & VARINT_VALUE_BITS) | VARINT_MORE_BIT);
+      value >>>= 7;
+    }
+    bytes[offset++] = (byte) value;
+    return offset;
+  }
+
+  /**
+   * Get the next varint of the specified buffer. The buffer is only advanced past a whole varint.
+   *
+   * @param buffer the {@code ByteBuffer}.
+   * @return the number, or {@code -1} if the buffer ends before the varint or it is malformed.
+   */
+  public static int getVarint(ByteBuffer buffer) {
+    int position = buffer.position();
+    int value = 0;
+    for (int i = 0; i < MAX_VARINT_LENGTH && position + i < buffer.limit(); i++) {
+      int b = buffer.get(position + i);
+      value |= (b & VARINT_VALUE_BITS) << (7 * i);
+      if ((b & VARINT_MORE_BIT) == 0) {
+        if (value < 0) {
+          return -1;
+        }
+        buffer.position(position + i + 1);
+        return value;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Read the next varint of the specified stream.
+   *
+   * @param in the {@code InputStream}.
+   * @return the number, or {@code -1} if the stream ends before the varint.
+   * @throws IOException if reading fails or the varint is malformed.
+   */
+  public static int readVarint(InputStream in) throws IOException {
+    int value = 0;
+    for (int i = 0; i < MAX_VARINT_LENGTH; i++) {
+      int b = in.read();
+      if (b < 0) {
+        return -1;
+      }
+      value |= (b & VARINT_VALUE_BITS) << (7 * i);
+      if ((b & VARINT_MORE_BIT) == 0) {
+        if (value < 0) {
+          break;
+        }
+        return value;
+      }
+    }
+    throw new IOException("varint malformed by protocol");
+  }
+
+  /**
+   * Get the rest of the specified frame as text.
+   *
+   * @param frame the frame, which must be backed by an array.
+   * @return the text.
+   */
+  public static String getText(ByteBuffer frame) {
+    String text =
+        new String(
+            frame.array(),
+            frame.arrayOffset() + frame.position(),
+            frame.remaining(),
+            StandardCharsets.UTF_8);
+    frame.position(frame.limit());
+    return text;
+  }
+
+  /**
+   * Get the opcode of the specified frame and advance past it.
+   *
+   * @param frame the frame, positioned at its opcode.
+   * @return the opcode, or {@code -1} if the frame is empty.
+   */
+  private static int getOpcode(ByteBuffer frame) {
+    return frame.hasRemaining() ? frame.get() & 0xFF : -1;
+  }
+}
@@ -0,0 +1,65 @@
+package net;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import net.Protocol.ClientCommand;
+import net.Protocol.ServerCommand;
+import org.junit.jupiter.api.Test;
+
+class BinaryProtocolTest {
+
+  @Test
+  void testVarint() throws IOException {
+    int[] values = {0, 1, 127, 128, 300, 16_383, 16_384, Integer.MAX_VALUE};
+    for (int value : values) {
+      byte[] bytes = new byte[BinaryProtocol.varintLength(value)];
+      assertEquals(bytes.length, BinaryProtocol.putVarint(bytes, 0, value));
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      assertEquals(value, BinaryProtocol.getVarint(buffer));
+      assertEquals(bytes.length, buffer.position());
+      assertEquals(value, BinaryProtocol.readVarint(new ByteArrayInputStream(bytes)));
+    }
+    assertArrayEquals(new byte[] {(byte) 0xAC, 0x02}, encodeVarint(300));
+
+    // A truncated varint leaves the buffer where it was
+    ByteBuffer truncated = ByteBuffer.wrap(new byte[] {(byte) 0xAC});
+    assertEquals(-1, BinaryProtocol.getVarint(truncated));
+    assertEquals(0, truncated.position());
+    assertEquals(-1, BinaryProtocol.readVarint(new ByteArrayInputStream(new byte[0])));
+  }
+
+  @Test
+  void testEncode() {
+    // A move takes four bytes
+    byte[] move = BinaryProtocol.encode(ClientCommand.MOVE, 3, 4);
+    assertArrayEquals(new byte[] {3, (byte) BinaryProtocol.opcode(ClientCommand.MOVE), 3, 4}, move);
+    ByteBuffer frame = ByteBuffer.wrap(move, 1, move.length - 1);
+    assertEquals(ClientCommand.MOVE, BinaryProtocol.getClientCommand(frame));
+    assertEquals(3, BinaryProtocol.getVarint(frame));
+    assertEquals(4, BinaryProtocol.getVarint(frame));
+
+    byte[] ready = BinaryProtocol.encode(ServerCommand.READY, "Bob", 1, 19);
+    assertEquals(ready.length - 1, ready[0]);
+    frame = ByteBuffer.wrap(ready, 1, ready.length - 1);
+    assertEquals(ServerCommand.READY, BinaryProtocol.getServerCommand(frame));
+    assertEquals(1, BinaryProtocol.getVarint(frame));
+    assertEquals(19, BinaryProtocol.getVarint(frame));
+    assertEquals("Bob", BinaryProtocol.getText(frame));
+
+    // Client and server opcodes differ
+    frame = ByteBuffer.wrap(move, 1, move.length - 1);
+    assertNull(BinaryProtocol.getServerCommand(frame));
+    assertNull(BinaryProtocol.getClientCommand(ByteBuffer.allocate(0)));
+  }
+
+  private static byte[] encodeVarint(int value) {
+    byte[] bytes = new byte[BinaryProtocol.varintLength(value)];
+    BinaryProtocol.putVarint(bytes, 0, value);
+    return bytes;
+  }
+}
@@ -0,0 +1,246 @@
+package net;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * The board of a game as synchronised from a server to a client: a snapshot of the points, which
+ * is replaced by every {@code BOARD}, and the sequence number of the last change, which every
+ * {@code DELTA} advances by one with a move or a pass and the points it captured.
+ *
+ * <p>A delta is only applied if it is the next in sequence, its colour is to move, its point is
+ * empty and it only captures stones of the opponent. Otherwise the board is out of sync until the
+ * next snapshot, which the client asks for with {@code RESYNC}. The server keeps a board of its own
+ * to find the captured points of a move, so a delta costs the size of the change, not the board.
+ *
+ * <p>A point is indexed by {@code y * dim + x} and has the value {@code EMPTY}, {@code BLACK} or
+ * {@code WHITE}; a colour is zero for black and one for white.
+ */
+public class BoardSync {
+
+  /** The value of an empty point. */
+  public static final byte EMPTY = 0;
+
+  /** The value of a point with a black stone. */
+  public static final byte BLACK = 1;
+
+  /** The value of a point with a white stone. */
+  public static final byte WHITE = 2;
+
+  /** The single-side dimension of the board. */
+  private int dim;
+
+  /** The points. */
+  private byte[] points = new byte[0];
+
+  /** The sequence number of the last change. */
+  private int sequence;
+
+  /** The colour to move. */
+  private int color;
+
+  /** The switch indicating whether or not the board is in sync. */
+  private boolean isSynchronised;
+
+  /**
+   * Replace the board by the specified snapshot.
+   *
+   * @param sequence the sequence number of the last change.
+   * @param dim the single-side dimension of the board.
+   * @param color the colour to move.
+   * @param points the points, which are copied.
+   */
+  public void reset(int sequence, int dim, int color, byte[] points) {
+    if (points.length != dim * dim) {
+      throw new AssertionError("a board must have dim * dim points");
+    }
+    this.sequence = sequence;
+    this.dim = dim;
+    this.color = color;
+    this.points = points.clone();
+    isSynchronised = true;
+  }
+
+  /**
+   * Apply the specified change if it is consistent with the board.
+   *
+   * @param sequence the sequence number of the change.
+   * @param color the colour that moved.
+   * @param x the playable x index of the move, or {@code -1} for a pass.
+   * @param y the playable y index of the move, or {@code -1} for a pass.
+   * @param captured the indices of the captured points.
+   * @return {@code true} if applied; {@code false} if the board is out of sync.
+   */
+  public boolean apply(int sequence, int color, int x, int y, int[] captured) {
+    isSynchronised = isSynchronised && isConsistent(sequence, color, x, y, captured);
+    if (!isSynchronised) {
+      return false;
+    }
+    if (x >= 0) {
+      points[y * dim + x] = stone(color);
+    }
+    for (int index : captured) {
+      points[index] = EMPTY;
+    }
+    this.sequence = sequence;
+    this.color = color ^ 1;
+    return true;
+  }
+
+  /**
+   * Find the points the specified move captures, before it is applied: the groups of the opponent
+   * next to the move whose points are empty on the authoritative board after the move.
+   *
+   * @param x the playable x index of the move.
+   * @param y the playable y index of the move.
+   * @param color the colour that moved.
+   * @param isEmptyAfterMove the test of whether a point is empty after the move.
+   * @return the indices of the captured points.
+   */
+  public int[] findCaptured(int x, int y, int color, IntPredicate isEmptyAfterMove) {
+    byte opponent = stone(color ^ 1);
+    Set<Integer> captured = new LinkedHashSet<>();
+    for (int neighbor : neighbors(y * dim + x)) {
+      if (points[neighbor] != opponent
+          || captured.contains(neighbor)
+          || !isEmptyAfterMove.test(neighbor)) {
+        continue;
+      }
+      // Collect the whole group
+      List<Integer> stack = new ArrayList<>();
+      stack.add(neighbor);
+      captured.add(neighbor);
+      while (!stack.isEmpty()) {
+        for (int next : neighbors(stack.remove(stack.size() - 1))) {
+          if (points[next] == opponent && captured.add(next)) {
+            stack.add(next);
+          }
+        }
+      }
+    }
+    int[] indices = new int[captured.size()];
+    int i = 0;
+    for (int index : captured) {
+      indices[i++] = index;
+    }
+    return indices;
+  }
+
+  /** @return the single-side dimension of the board. */
+  public int getDim() {
+    return dim;
+  }
+
+  /** @return the sequence number of the last change. */
+  public int getSequence() {
+    return sequence;
+  }
+
+  /** @return the colour to move. */
+  public int getColor() {
+    return color;
+  }
+
+  /** @return a copy of the points. */
+  public byte[] getPoints() {
+    return points.clone();
+  }
+
+  /**
+   * Get the value of the specified point.
+   *
+   * @param x the playable x index.
+   * @param y the playable y index.
+   * @return the value.
+   */
+  public byte get(int x, int y) {
+    return points[y * dim + x];
+  }
+
+  /** @return {@code true} if the board is in sync; {@code false} otherwise. */
+  public boolean isSynchronised() {
+    return isSynchronised;
+  }
+
+  /** @return the board as a grid of the characters of {@code Protocol.POINTS}, row by row. */
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (int y = 0; y < dim; y++) {
+      for (int x = 0; x < dim; x++) {
+        builder.append(Protocol.POINTS.charAt(points[y * dim + x]));
+      }
+      builder.append(System.lineSeparator());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Check if the specified change is consistent with the board.
+   *
+   * @param sequence the sequence number of the change.
+   * @param color the colour that moved.
+   * @param x the playable x index of the move, or {@code -1} for a pass.
+   * @param y the playable y index of the move, or {@code -1} for a pass.
+   * @param captured the indices of the captured points.
+   * @return {@code true} if consistent; {@code false} otherwise.
+   */
+  private boolean isConsistent(int sequence, int color, int x, int y, int[] captured) {
+    if (sequence != this.sequence + 1 || color != this.color) {
+      return false;
+    }
+    if (x >= 0 && (x >= dim || y < 0 || y >= dim || points[y * dim + x] != EMPTY)) {
+      return false;
+    }
+    if (x < 0 && captured.length > 0) {
+      return false;
+    }
+    byte opponent = stone(color ^ 1);
+    for (int index : captured) {
+      if (index < 0 || index >= points.length || points[index] != opponent) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the indices of the neighbours of the specified point.
+   *
+   * @param index the index of the point.
+   * @return the indices.
+   */
+  private int[] neighbors(int index) {
+    int x = index % dim;
+    int y = index / dim;
+    int[] neighbors = new int[4];
+    int count = 0;
+    if (x > 0) {
+      neighbors[count++] = index - 1;
+    }
+    if (x < dim - 1) {
+      neighbors[count++] = index + 1;
+    }
+    if (y > 0) {
+      neighbors[count++] = index - dim;
+    }
+    if (y < dim - 1) {
+      neighbors[count++] = index + dim;
+    }
+    return count == neighbors.length ? neighbors : Arrays.copyOf(neighbors, count);
+  }
+
+  /**
+   * Get the value of a stone of the specified colour.
+   *
+   * @param color the colour.
+   * @return the value.
+   */
+  private static byte stone(int color) {
+    return color == 0 ? BLACK : WHITE;
+  }
+}
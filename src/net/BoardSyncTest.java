@@ -0,0 +1,69 @@
+package net;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BoardSyncTest {
+
+  private BoardSync sync;
+
+  @BeforeEach
+  void setUp() {
+    sync = new BoardSync();
+    sync.reset(0, 3, 0, new byte[9]);
+  }
+
+  @Test
+  void testApply() {
+    assertTrue(sync.apply(1, 0, 1, 0, new int[0]));
+    assertTrue(sync.apply(2, 1, 0, 0, new int[0]));
+    assertTrue(sync.apply(3, 0, 0, 1, new int[] {0}));
+    assertEquals(BoardSync.EMPTY, sync.get(0, 0));
+    assertEquals(BoardSync.BLACK, sync.get(0, 1));
+    assertEquals(3, sync.getSequence());
+    assertEquals(1, sync.getColor());
+
+    // A pass only advances the sequence and the colour
+    assertTrue(sync.apply(4, 1, -1, -1, new int[0]));
+    assertEquals(4, sync.getSequence());
+    assertEquals(0, sync.getColor());
+    assertEquals(".B.\nB..\n...\n", sync.toString().replace(System.lineSeparator(), "\n"));
+  }
+
+  @Test
+  void testFindCaptured() {
+    sync.reset(0, 3, 0, new byte[] {2, 2, 1, 1, 0, 0, 0, 0, 0});
+    int[] captured = sync.findCaptured(2, 1, 0, index -> index < 2);
+    assertEquals(0, captured.length);
+    captured = sync.findCaptured(1, 1, 0, index -> index < 2);
+    assertArrayEquals(new int[] {1, 0}, captured);
+  }
+
+  @Test
+  void testOutOfSync() {
+    // Out of sequence
+    assertFalse(sync.apply(2, 0, 1, 1, new int[0]));
+    assertFalse(sync.isSynchronised());
+    assertFalse(sync.apply(1, 0, 1, 1, new int[0]));
+
+    // A snapshot restores the sync
+    byte[] points = {0, 0, 0, 0, 1, 0, 0, 0, 0};
+    sync.reset(1, 3, 1, points);
+    assertTrue(sync.isSynchronised());
+    assertArrayEquals(points, sync.getPoints());
+
+    // Occupied point, wrong colour, capture of an empty point and capture by a pass
+    assertFalse(sync.apply(2, 1, 1, 1, new int[0]));
+    sync.reset(1, 3, 1, points);
+    assertFalse(sync.apply(2, 0, 0, 0, new int[0]));
+    sync.reset(1, 3, 1, points);
+    assertFalse(sync.apply(2, 1, 0, 0, new int[] {1}));
+    sync.reset(1, 3, 1, points);
+    assertFalse(sync.apply(2, 1, -1, -1, new int[] {4}));
+  }
+}
@@ -2,21 +2,31 @@ package net;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Observable;
+import java.util.concurrent.CountDownLatch;
 import net.Protocol.ClientCommand;
 import net.Protocol.MalformedCommandException;
 import net.Protocol.ProtocolCommand;
+import net.Protocol.ServerCommand;
 import util.Strings;
 
 /** Created by erik.huizinga on 2-2-17. */
 public class Client extends Observable {
 
   public static final String USAGE =
-      "usage: java " + Client.class.getName() + " <name> <address> <port>";
+      "usage: java " + Client.class.getName() + " <name> <address> <port> [<spectated name>]";
 
   private final String name;
   private final Peer peer;
 
+  /** The board of the spectated game, kept in sync by {@code BOARD} and {@code DELTA}. */
+  private final BoardSync sync = new BoardSync();
+
+  /** The latch released when the spectated game ends or there is none. */
+  private final CountDownLatch spectated = new CountDownLatch(1);
+
   public Client(String name, String address, int port) {
     this.name = name;
 
@@ -31,7 +41,7 @@ public class Client extends Observable {
   }
 
   public static void main(String[] args) {
-    if (args.length != 3) {
+    if (args.length != 3 && args.length != 4) {
       System.out.println("incorrect number of input arguments");
       System.out.println(USAGE);
       System.exit(0);
@@ -59,16 +69,104 @@ public class Client extends Observable {
     }
 
     Client client = new Client(name, address, port);
-    client.startClient();
+    if (args.length == 4) {
+      client.spectate(args[3]);
+    } else {
+      client.startClient();
+    }
     client.stopClient();
   }
 
   private void startClient() {
     addObserver(peer);
+    peer.setLineHandler(this::receive);
     peer.startPeer();
     play();
   }
 
+  /**
+   * Spectate the game of the player with the specified name until it ends, printing the board
+   * after every change.
+   *
+   * @param playerName the name of the player.
+   */
+  private void spectate(String playerName) {
+    addObserver(peer);
+    peer.setLineHandler(this::receive);
+    peer.startPeer();
+    sendCommand(ClientCommand.SPECTATE, playerName);
+    try {
+      spectated.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Receive the specified line from the server: answer a heartbeat, apply a board or a change of it
+   * while spectating, and ask for the board with {@code RESYNC} if a change is out of sync.
+   *
+   * @param line the line.
+   */
+  private void receive(String line) {
+    List<String> words = Arrays.asList(line.trim().split("\\s+"));
+    String command = words.get(0);
+    List<String> argList = words.subList(1, words.size());
+    if (command.equals(ServerCommand.PING.toString())) {
+      // Server: PING; Client: PONG
+      sendCommand(ClientCommand.PONG);
+    } else if (command.equals(ServerCommand.BOARD.toString()) && Protocol.isBoard(argList)) {
+      // Server: BOARD dim colour sequence points
+      String points = argList.get(3);
+      byte[] values = new byte[points.length()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = (byte) Protocol.POINTS.indexOf(points.charAt(i));
+      }
+      sync.reset(
+          Integer.parseInt(argList.get(2)),
+          Integer.parseInt(argList.get(0)),
+          toColor(argList.get(1)),
+          values);
+      println(sync.toString());
+    } else if (command.equals(ServerCommand.DELTA.toString()) && Protocol.isDelta(argList)) {
+      // Server: DELTA colour sequence [x y captured...]
+      int x = argList.size() > 2 ? Integer.parseInt(argList.get(2)) : -1;
+      int y = argList.size() > 2 ? Integer.parseInt(argList.get(3)) : -1;
+      int[] captured = new int[Math.max(argList.size() - 4, 0)];
+      for (int i = 0; i < captured.length; i++) {
+        captured[i] = Integer.parseInt(argList.get(4 + i));
+      }
+      boolean wasSynchronised = sync.isSynchronised();
+      int sequence = Integer.parseInt(argList.get(1));
+      if (sync.apply(sequence, toColor(argList.get(0)), x, y, captured)) {
+        println(sync.toString());
+      } else if (wasSynchronised) {
+        // Client: RESYNC, once per loss of sync; Server: BOARD dim colour sequence points
+        sendCommand(ClientCommand.RESYNC);
+      }
+    } else {
+      println(line);
+      if (command.equals(ServerCommand.END.toString())
+          || command.equals(ServerCommand.NOGAME.toString())) {
+        spectated.countDown();
+      }
+    }
+  }
+
+  /**
+   * Get the colour of the specified protocol colour.
+   *
+   * @param color the protocol colour.
+   * @return zero for black and one for white.
+   */
+  private static int toColor(String color) {
+    return color.equals(Protocol.BLACK) ? 0 : 1;
+  }
+
+  private void println(String string) {
+    peer.println(string);
+  }
+
   private void play() {
     announcePlayer();
 
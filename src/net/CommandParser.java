@@ -0,0 +1,294 @@
+package net;
+
+import java.nio.charset.StandardCharsets;
+import net.Protocol.ClientCommand;
+
+/**
+ * A parser of the text commands of clients, which parses a line straight from the bytes it was
+ * read into. A connection reuses its parser for every line, so parsing allocates nothing; only the
+ * name of {@code PLAYER} or {@code SPECTATE} becomes a {@code String}, when asked for.
+ *
+ * <p>The command and its arguments are separated by whitespace. A command is recognised by its
+ * bytes and its arguments are validated a byte at a time, in a single pass without regular
+ * expressions or recursion, as the {@code Protocol} defines them: a name is one to twenty word
+ * characters, a dimension is a valid board dimension and a position is two playable indices of one
+ * to three digits. Arguments after those a command takes are ignored, except after {@code MOVE}.
+ * A line that does not parse has a {@code ParseError}.
+ */
+public class CommandParser {
+
+  /** The longest player name. */
+  public static final int MAX_NAME_LENGTH = 20;
+
+  /** The most digits of a playable index. */
+  private static final int MAX_INDEX_DIGITS = 3;
+
+  /** The most digits of a dimension. */
+  private static final int MAX_DIMENSION_DIGITS = 3;
+
+  /** The {@code ClientCommand}s. */
+  private static final ClientCommand[] COMMANDS = ClientCommand.values();
+
+  /** The name of every {@code ClientCommand} in ASCII. */
+  private static final byte[][] COMMAND_NAMES = new byte[COMMANDS.length][];
+
+  static {
+    for (int i = 0; i < COMMANDS.length; i++) {
+      COMMAND_NAMES[i] = COMMANDS[i].toString().getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
+  /** The numeric arguments of the last line. */
+  private final int[] numbers = new int[2];
+
+  /** The bytes of the last line. */
+  private byte[] bytes;
+
+  /** The index after the last byte of the last line. */
+  private int end;
+
+  /** The index of the next byte to parse. */
+  private int position;
+
+  /** The index of the first byte of the current token. */
+  private int tokenStart;
+
+  /** The index after the last byte of the current token. */
+  private int tokenEnd;
+
+  /** The index of the first byte of the name of the last line. */
+  private int nameStart;
+
+  /** The number of bytes of the name of the last line. */
+  private int nameLength;
+
+  /** The {@code ClientCommand} of the last line, or {@code null} if unknown. */
+  private ClientCommand command;
+
+  /** The {@code ParseError} of the last line, or {@code null} if it parsed. */
+  private ParseError error;
+
+  /**
+   * Parse the specified line.
+   *
+   * @param bytes the array that holds the line.
+   * @param offset the index of the first byte of the line.
+   * @param length the number of bytes of the line, without line separator.
+   * @return {@code true} if the line is a valid command; {@code false} otherwise.
+   */
+  public boolean parse(byte[] bytes, int offset, int length) {
+    this.bytes = bytes;
+    end = offset + length;
+    position = offset;
+    nameLength = 0;
+    command = null;
+    error = null;
+    if (!nextToken()) {
+      error = ParseError.UNKNOWN_COMMAND;
+      return false;
+    }
+    for (int i = 0; i < COMMANDS.length && command == null; i++) {
+      if (isToken(COMMAND_NAMES[i])) {
+        command = COMMANDS[i];
+      }
+    }
+    if (command == null) {
+      error = ParseError.UNKNOWN_COMMAND;
+      return false;
+    }
+    switch (command) {
+      case PLAYER:
+      case SPECTATE:
+        error = parseName();
+        break;
+
+      case GO:
+        error = parseNumber(0, MAX_DIMENSION_DIGITS);
+        if (error == null && !Protocol.isValidDimension(numbers[0])) {
+          error = ParseError.MALFORMED_ARGUMENT;
+        }
+        break;
+
+      case MOVE:
+        error = parseNumber(0, MAX_INDEX_DIGITS);
+        if (error == null) {
+          error = parseNumber(1, MAX_INDEX_DIGITS);
+        }
+        if (error == null && nextToken()) {
+          error = ParseError.EXTRA_ARGUMENT;
+        }
+        break;
+
+      default:
+        break; // No arguments, ignore any
+    }
+    return error == null;
+  }
+
+  /** @return the {@code ClientCommand} of the last line, or {@code null} if unknown. */
+  public ClientCommand getCommand() {
+    return command;
+  }
+
+  /** @return the {@code ParseError} of the last line, or {@code null} if it parsed. */
+  public ParseError getError() {
+    return error;
+  }
+
+  /**
+   * Get the specified numeric argument of the last line, i.e., the dimension of {@code GO} or a
+   * playable index of {@code MOVE}.
+   *
+   * @param index the index of the numeric argument.
+   * @return the number.
+   */
+  public int getNumber(int index) {
+    return numbers[index];
+  }
+
+  /**
+   * @return the name of {@code PLAYER} or {@code SPECTATE} of the last line, or {@code null} if it
+   *     has none, while the bytes of the line are unchanged.
+   */
+  public String getName() {
+    return nameLength > 0
+        ? new String(bytes, nameStart, nameLength, StandardCharsets.US_ASCII)
+        : null;
+  }
+
+  /**
+   * Check if the specified name is a valid player name, i.e., one to twenty word characters.
+   *
+   * @param name the name.
+   * @return {@code true} if valid; {@code false} otherwise.
+   */
+  public static boolean isName(String name) {
+    if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      if (!isWordCharacter(name.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Advance to the next token of the line.
+   *
+   * @return {@code true} if there is one; {@code false} if the line ended.
+   */
+  private boolean nextToken() {
+    while (position < end && isWhitespace(bytes[position])) {
+      position++;
+    }
+    tokenStart = position;
+    while (position < end && !isWhitespace(bytes[position])) {
+      position++;
+    }
+    tokenEnd = position;
+    return tokenStart < tokenEnd;
+  }
+
+  /**
+   * Check if the current token is the specified word.
+   *
+   * @param word the word in ASCII.
+   * @return {@code true} if it is; {@code false} otherwise.
+   */
+  private boolean isToken(byte[] word) {
+    if (tokenEnd - tokenStart != word.length) {
+      return false;
+    }
+    for (int i = 0; i < word.length; i++) {
+      if (bytes[tokenStart + i] != word[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parse the next token as a player name.
+   *
+   * @return the {@code ParseError}, or {@code null} if the name parsed.
+   */
+  private ParseError parseName() {
+    if (!nextToken()) {
+      return ParseError.MISSING_ARGUMENT;
+    }
+    if (tokenEnd - tokenStart > MAX_NAME_LENGTH) {
+      return ParseError.MALFORMED_ARGUMENT;
+    }
+    for (int i = tokenStart; i < tokenEnd; i++) {
+      if (!isWordCharacter(bytes[i])) {
+        return ParseError.MALFORMED_ARGUMENT;
+      }
+    }
+    nameStart = tokenStart;
+    nameLength = tokenEnd - tokenStart;
+    return null;
+  }
+
+  /**
+   * Parse the next token as a non-negative number.
+   *
+   * @param index the index of the numeric argument.
+   * @param maxDigits the most digits.
+   * @return the {@code ParseError}, or {@code null} if the number parsed.
+   */
+  private ParseError parseNumber(int index, int maxDigits) {
+    if (!nextToken()) {
+      return ParseError.MISSING_ARGUMENT;
+    }
+    if (tokenEnd - tokenStart > maxDigits) {
+      return ParseError.MALFORMED_ARGUMENT;
+    }
+    int number = 0;
+    for (int i = tokenStart; i < tokenEnd; i++) {
+      if (bytes[i] < '0' || bytes[i] > '9') {
+        return ParseError.MALFORMED_ARGUMENT;
+      }
+      number = number * 10 + bytes[i] - '0';
+    }
+    numbers[index] = number;
+    return null;
+  }
+
+  /**
+   * Check if the specified byte separates tokens.
+   *
+   * @param b the byte.
+   * @return {@code true} if it does; {@code false} otherwise.
+   */
+  private static boolean isWhitespace(byte b) {
+    return b >= 0 && b <= ' ';
+  }
+
+  /**
+   * Check if the specified character is a word character, i.e., an ASCII letter, a digit or an
+   * underscore.
+   *
+   * @param c the character.
+   * @return {@code true} if it is; {@code false} otherwise.
+   */
+  private static boolean isWordCharacter(int c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '_';
+  }
+
+  /** The reasons a line does not parse. */
+  public enum ParseError {
+    /** The line is empty or its command is unknown. */
+    UNKNOWN_COMMAND,
+    /** The command lacks an argument. */
+    MISSING_ARGUMENT,
+    /** An argument is malformed or out of range. */
+    MALFORMED_ARGUMENT,
+    /** The command has an argument it does not take. */
+    EXTRA_ARGUMENT
+  }
+}
@@ -0,0 +1,88 @@
+package net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import net.CommandParser.ParseError;
+import net.Protocol.ClientCommand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CommandParserTest {
+
+  private CommandParser parser;
+
+  @BeforeEach
+  void setUp() {
+    parser = new CommandParser();
+  }
+
+  @Test
+  void testParse() {
+    assertTrue(parse("PLAYER Barry_1"));
+    assertEquals(ClientCommand.PLAYER, parser.getCommand());
+    assertEquals("Barry_1", parser.getName());
+    assertTrue(parse("GO 19"));
+    assertEquals(ClientCommand.GO, parser.getCommand());
+    assertEquals(19, parser.getNumber(0));
+    assertNull(parser.getName());
+    assertTrue(parse("  MOVE 0   12 "));
+    assertEquals(ClientCommand.MOVE, parser.getCommand());
+    assertEquals(0, parser.getNumber(0));
+    assertEquals(12, parser.getNumber(1));
+    assertTrue(parse("PASS"));
+    assertTrue(parse("TABLEFLIP now"));
+    assertEquals(ClientCommand.TABLEFLIP, parser.getCommand());
+    assertNull(parser.getError());
+  }
+
+  @Test
+  void testErrors() {
+    assertError(ParseError.UNKNOWN_COMMAND, "");
+    assertError(ParseError.UNKNOWN_COMMAND, "move 1 2");
+    assertError(ParseError.UNKNOWN_COMMAND, "MOVES 1 2");
+    assertError(ParseError.MISSING_ARGUMENT, "PLAYER");
+    assertError(ParseError.MALFORMED_ARGUMENT, "PLAYER this_name_is_far_too_long");
+    assertError(ParseError.MALFORMED_ARGUMENT, "PLAYER café");
+    assertError(ParseError.MALFORMED_ARGUMENT, "GO 4");
+    assertError(ParseError.MALFORMED_ARGUMENT, "GO 1001");
+    assertError(ParseError.MISSING_ARGUMENT, "MOVE 1");
+    assertError(ParseError.MALFORMED_ARGUMENT, "MOVE -1 2");
+    assertError(ParseError.MALFORMED_ARGUMENT, "MOVE 1234 2");
+    assertError(ParseError.EXTRA_ARGUMENT, "MOVE 1 2 3");
+
+    // The command of a malformed line is known
+    assertEquals(ClientCommand.MOVE, parser.getCommand());
+  }
+
+  @Test
+  void testOffset() {
+    byte[] bytes = "PLAYER A\nGO 9\n".getBytes(StandardCharsets.US_ASCII);
+    assertTrue(parser.parse(bytes, 0, 8));
+    assertEquals("A", parser.getName());
+    assertTrue(parser.parse(bytes, 9, 4));
+    assertEquals(9, parser.getNumber(0));
+    assertFalse(parser.parse(bytes, 9, 3));
+  }
+
+  @Test
+  void testIsName() {
+    assertTrue(CommandParser.isName("Alice"));
+    assertFalse(CommandParser.isName(""));
+    assertFalse(CommandParser.isName("Alice Bob"));
+    assertFalse(CommandParser.isName("a_name_of_twenty_ones"));
+  }
+
+  private boolean parse(String line) {
+    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+    return parser.parse(bytes, 0, bytes.length);
+  }
+
+  private void assertError(ParseError expected, String line) {
+    assertFalse(parse(line));
+    assertEquals(expected, parser.getError());
+  }
+}
@@ -0,0 +1,58 @@
+package net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A connection to a remote peer, over which protocol commands are sent one per line or, once
+ * negotiated, one per frame of the {@code BinaryProtocol}.
+ */
+public interface Connection {
+
+  /**
+   * Send the specified line to the remote peer. Lines sent from several threads are not
+   * interleaved.
+   *
+   * @param line the line, without line separator.
+   */
+  void send(String line);
+
+  /**
+   * Send the specified frame to the remote peer. Frames sent from several threads are not
+   * interleaved.
+   *
+   * @param frame the frame of the {@code BinaryProtocol}, including its length.
+   */
+  void send(byte[] frame);
+
+  /**
+   * Send the specified bytes to the remote peer, which are encoded lines or frames that may be
+   * shared with other connections. Bytes sent from several threads are not interleaved.
+   *
+   * @param bytes the {@code ByteBuffer}, from its position to its limit, which is left unchanged.
+   */
+  void send(ByteBuffer bytes);
+
+  /** @return the number of bytes sent and not yet written to the network. */
+  int getPendingBytes();
+
+  /**
+   * @return the {@code OutboundQueue} of the bytes sent and not yet written, whose policy and
+   *     metrics belong to this connection.
+   */
+  OutboundQueue getOutboundQueue();
+
+  /**
+   * @return {@code true} if the connection switched to frames of the {@code BinaryProtocol};
+   *     {@code false} if it carries lines.
+   */
+  boolean isBinary();
+
+  /**
+   * Switch the connection to frames of the {@code BinaryProtocol} in both directions, from the
+   * end of the line being received.
+   */
+  void switchToBinary();
+
+  /** Close the connection. */
+  void shutDown();
+}
@@ -0,0 +1,610 @@
+package net;
+
+import game.Go;
+import game.Rules;
+import game.action.Move;
+import game.material.Stone;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import net.Protocol.ClientCommand;
+import net.Protocol.MalformedCommandException;
+import net.Protocol.ServerCommand;
+import players.RemotePlayer;
+import players.strategy.search.SearchBoard;
+
+/**
+ * The authoritative host of a game between two clients of a {@code Server}: it keeps the {@code
+ * Go} game, validates every move it receives by the {@code Rules} and broadcasts the played moves
+ * to both clients.
+ *
+ * <p>A game is an {@code Actor}: the lines of its clients and their disconnections are messages in
+ * its mailbox, so the games of a server share a small pool of threads, however many there are.
+ *
+ * <p>When the game starts, each client receives {@code READY <colour> <opponent> <dim>}. The
+ * client to move sends {@code MOVE <x> <y>}, with playable indices counting from zero, or {@code
+ * PASS}; either client may send {@code TABLEFLIP} to resign. A played move is broadcast as {@code
+ * VALID <colour> <x> <y>} or {@code PASSED <colour>}, and the sender of a rejected move or a move
+ * out of turn receives {@code INVALID <colour>}. The game ends when white passes after black, won
+ * by area score, or when a client flips the table, loses its connection or lets its move clock
+ * expire, won by its opponent; both clients then receive {@code END <winner>}. The move clock of
+ * the client to move is a timer of a {@code HashedWheelTimer}, which every played move replaces.
+ *
+ * <p>A client that switched to the {@code BinaryProtocol} sends and receives the same commands as
+ * frames, which the game decodes and encodes without any text.
+ *
+ * <p>Any number of clients may spectate the game: a spectator receives the board as {@code BOARD
+ * <dim> <colour> <sequence> <points>}, then every move or pass as a {@code DELTA} of the {@code
+ * BoardSync} of the game, with a {@code BOARD} every {@code SNAPSHOT_INTERVAL} changes, and every
+ * other command broadcast to the players. A spectator that lost sync asks for the board with
+ * {@code RESYNC}. Every command is encoded once per encoding into a read-only buffer shared by all
+ * spectators. A spectator with more than {@code MAX_SPECTATOR_BACKLOG} bytes waiting to be written
+ * skips commands, and receives the board instead of the next command once it caught up, so slow
+ * spectators never hold up the game; only {@code END} is never skipped.
+ */
+public class GameHandler extends Actor {
+
+  /** The most bytes a spectator may have waiting to be written before it skips commands. */
+  public static final int MAX_SPECTATOR_BACKLOG = 1 << 14;
+
+  /** The number of changes of the board from one snapshot to the next sent to spectators. */
+  public static final int SNAPSHOT_INTERVAL = 64;
+
+  /** The protocol colours by player index. */
+  private static final String[] COLORS = {Protocol.BLACK, Protocol.WHITE};
+
+  /** The {@code Go} game. */
+  private final Go go;
+
+  /** The {@code Connection} of every player, black first. */
+  private final Connection[] connections;
+
+  /** The name of every player, black first. */
+  private final String[] names;
+
+  /** The callback run on the executor when the game ends. */
+  private final Consumer<GameHandler> onEnd;
+
+  /** The {@code HashedWheelTimer} of the move clock, or {@code null} if moves take any time. */
+  private final HashedWheelTimer timer;
+
+  /** The time a client has for a move in milliseconds. */
+  private final long moveTimeoutMillis;
+
+  /** The board as synchronised to the spectators. */
+  private final BoardSync sync = new BoardSync();
+
+  /** The spectators, in the order they joined. */
+  private final List<Spectator> spectators = new ArrayList<>();
+
+  /** The switch indicating whether or not the game ended. */
+  private volatile boolean isFinished;
+
+  /** The index of the winner, or {@code -1} while the game is played. */
+  private int winner = -1;
+
+  /** The number of spectators. */
+  private volatile int spectatorCount;
+
+  /** The number of commands skipped by slow spectators. */
+  private volatile long skippedCount;
+
+  /** The move clock of the client to move, or {@code null} if none runs. */
+  private HashedWheelTimer.Timeout moveClock;
+
+  /**
+   * Instantiate a new {@code GameHandler} without move clock, which waits for {@code start}.
+   *
+   * @param executor the {@code Executor} shared with other games.
+   * @param dim the single-side dimension of the board.
+   * @param black the {@code Connection} of black.
+   * @param blackName the name of black.
+   * @param white the {@code Connection} of white.
+   * @param whiteName the name of white.
+   * @param onEnd the callback run on the executor when the game ends.
+   */
+  public GameHandler(
+      Executor executor,
+      int dim,
+      Connection black,
+      String blackName,
+      Connection white,
+      String whiteName,
+      Consumer<GameHandler> onEnd) {
+    this(executor, dim, black, blackName, white, whiteName, onEnd, null, 0);
+  }
+
+  /**
+   * Instantiate a new {@code GameHandler}, which waits for {@code start}.
+   *
+   * @param executor the {@code Executor} shared with other games.
+   * @param dim the single-side dimension of the board.
+   * @param black the {@code Connection} of black.
+   * @param blackName the name of black.
+   * @param white the {@code Connection} of white.
+   * @param whiteName the name of white.
+   * @param onEnd the callback run on the executor when the game ends.
+   * @param timer the {@code HashedWheelTimer} of the move clock, or {@code null} for none.
+   * @param moveTimeoutMillis the time a client has for a move in milliseconds.
+   */
+  public GameHandler(
+      Executor executor,
+      int dim,
+      Connection black,
+      String blackName,
+      Connection white,
+      String whiteName,
+      Consumer<GameHandler> onEnd,
+      HashedWheelTimer timer,
+      long moveTimeoutMillis) {
+    super(executor);
+    this.timer = timer;
+    this.moveTimeoutMillis = moveTimeoutMillis;
+    connections = new Connection[] {black, white};
+    names = new String[] {blackName, whiteName};
+    this.onEnd = onEnd;
+    go =
+        new Go(
+            dim,
+            new RemotePlayer(blackName, Stone.BLACK),
+            new RemotePlayer(whiteName, Stone.WHITE));
+    sync.reset(0, dim, 0, new byte[dim * dim]);
+  }
+
+  /** Start the game by telling both clients their colour and opponent. */
+  public void start() {
+    tell(
+        () -> {
+          int dim = go.getBoard().getDim();
+          for (int i = 0; i < connections.length; i++) {
+            if (connections[i].isBinary()) {
+              connections[i].send(BinaryProtocol.encode(ServerCommand.READY, names[i ^ 1], i, dim));
+            } else {
+              send(
+                  connections[i],
+                  ServerCommand.READY,
+                  COLORS[i],
+                  names[i ^ 1],
+                  Integer.toString(dim));
+            }
+          }
+          startMoveClock();
+        });
+  }
+
+  /**
+   * Receive the specified command from the specified client, from any thread.
+   *
+   * @param connection the {@code Connection} of the client.
+   * @param command the {@code ClientCommand}.
+   * @param x the playable x index of a move, or {@code -1} if malformed.
+   * @param y the playable y index of a move, or {@code -1} if malformed.
+   */
+  public void receive(Connection connection, ClientCommand command, int x, int y) {
+    tell(() -> handle(connection, command, x, y));
+  }
+
+  /**
+   * Receive the specified frame from the specified client, from any thread. The frame is decoded
+   * on the calling thread.
+   *
+   * @param connection the {@code Connection} of the client.
+   * @param frame the frame of the {@code BinaryProtocol}, positioned at its opcode.
+   */
+  public void receive(Connection connection, ByteBuffer frame) {
+    ClientCommand command = BinaryProtocol.getClientCommand(frame);
+    if (command == null) {
+      return;
+    }
+    int x = command == ClientCommand.MOVE ? BinaryProtocol.getVarint(frame) : -1;
+    int y = command == ClientCommand.MOVE ? BinaryProtocol.getVarint(frame) : -1;
+    receive(connection, command, x, y);
+  }
+
+  /**
+   * Receive the loss of the connection of the specified client, from any thread.
+   *
+   * @param connection the {@code Connection} of the client.
+   */
+  public void disconnected(Connection connection) {
+    tell(
+        () -> {
+          if (!isFinished) {
+            end(indexOf(connection) ^ 1);
+          }
+        });
+  }
+
+  /**
+   * Let the specified client spectate the game, from any thread.
+   *
+   * @param connection the {@code Connection} of the client.
+   */
+  public void addSpectator(Connection connection) {
+    tell(
+        () -> {
+          if (isFinished) {
+            send(connection, ServerCommand.END, winner);
+            return;
+          }
+          spectators.add(new Spectator(connection));
+          spectatorCount = spectators.size();
+          connection.send(encodeBoard(connection.isBinary()));
+        });
+  }
+
+  /**
+   * Send the board again to the specified spectator, from any thread, e.g., when its board is out
+   * of sync.
+   *
+   * @param connection the {@code Connection} of the spectator.
+   */
+  public void resync(Connection connection) {
+    tell(
+        () -> {
+          for (Spectator spectator : spectators) {
+            if (spectator.connection == connection) {
+              connection.send(encodeBoard(connection.isBinary()));
+              spectator.isBehind = false;
+            }
+          }
+        });
+  }
+
+  /**
+   * Stop the specified client from spectating the game, from any thread.
+   *
+   * @param connection the {@code Connection} of the client.
+   */
+  public void removeSpectator(Connection connection) {
+    tell(
+        () -> {
+          spectators.removeIf(spectator -> spectator.connection == connection);
+          spectatorCount = spectators.size();
+        });
+  }
+
+  /**
+   * Check if the specified name is the name of a player, ignoring case.
+   *
+   * @param name the name.
+   * @return {@code true} if it is; {@code false} otherwise.
+   */
+  public boolean hasPlayer(String name) {
+    return names[0].equalsIgnoreCase(name) || names[1].equalsIgnoreCase(name);
+  }
+
+  /** @return the number of spectators. */
+  public int getSpectatorCount() {
+    return spectatorCount;
+  }
+
+  /** @return the number of commands skipped by slow spectators. */
+  public long getSkippedCount() {
+    return skippedCount;
+  }
+
+  /** @return {@code true} if the game ended; {@code false} otherwise. */
+  public boolean isFinished() {
+    return isFinished;
+  }
+
+  /**
+   * Handle the specified command from the specified client, on the executor.
+   *
+   * @param connection the {@code Connection} of the client.
+   * @param command the {@code ClientCommand}.
+   * @param x the playable x index of a move, or {@code -1} if malformed.
+   * @param y the playable y index of a move, or {@code -1} if malformed.
+   */
+  private void handle(Connection connection, ClientCommand command, int x, int y) {
+    if (isFinished) {
+      return;
+    }
+    int index = indexOf(connection);
+    switch (command) {
+      case MOVE:
+      case PASS:
+        Move move = null;
+        if (command == ClientCommand.MOVE && x >= 0 && y >= 0) {
+          move = new Move(x, y, index == 0 ? Stone.BLACK : Stone.WHITE);
+        }
+        boolean isTurn = index == (go.getCurrentPlayerIndex() ^ 1);
+        if (!isTurn || (command == ClientCommand.MOVE && move == null) || !go.play(move)) {
+          send(connection, ServerCommand.INVALID, index);
+        } else if (move != null) {
+          int[] captured = sync.findCaptured(x, y, index, this::isEmpty);
+          sync.apply(sync.getSequence() + 1, index, x, y, captured);
+          sendToPlayers(ServerCommand.VALID, index, x, y);
+          publishDelta(index, x, y, captured);
+          startMoveClock();
+        } else {
+          sync.apply(sync.getSequence() + 1, index, -1, -1, new int[0]);
+          sendToPlayers(ServerCommand.PASSED, index);
+          publishDelta(index, -1, -1, new int[0]);
+          if (Rules.isFinished(go)) {
+            end(new SearchBoard(go.getBoard(), Stone.BLACK).score() > 0 ? 0 : 1);
+          } else {
+            startMoveClock();
+          }
+        }
+        break;
+
+      case TABLEFLIP:
+        broadcast(ServerCommand.TABLEFLIPPED, index);
+        end(index ^ 1);
+        break;
+
+      default:
+        break;
+    }
+  }
+
+  /**
+   * End the game with the specified winner.
+   *
+   * @param winner the index of the winner.
+   */
+  private void end(int winner) {
+    if (moveClock != null) {
+      moveClock.cancel();
+    }
+    this.winner = winner;
+    isFinished = true;
+    broadcast(ServerCommand.END, winner);
+    spectators.clear();
+    spectatorCount = 0;
+    onEnd.accept(this);
+  }
+
+  /** Start the move clock of the client to move, which replaces the running one. */
+  private void startMoveClock() {
+    if (timer == null) {
+      return;
+    }
+    if (moveClock != null) {
+      moveClock.cancel();
+    }
+    int sequence = sync.getSequence();
+    moveClock = timer.schedule(() -> tell(() -> expireMoveClock(sequence)), moveTimeoutMillis);
+  }
+
+  /**
+   * End the game, won by the opponent of the client to move, if it did not move since the move
+   * clock started.
+   *
+   * @param sequence the sequence number of the last change when the move clock started.
+   */
+  private void expireMoveClock(int sequence) {
+    if (!isFinished && sync.getSequence() == sequence) {
+      end(go.getCurrentPlayerIndex());
+    }
+  }
+
+  /**
+   * Get the player index of the specified client.
+   *
+   * @param connection the {@code Connection} of the client.
+   * @return the index, zero for black.
+   */
+  private int indexOf(Connection connection) {
+    return connection == connections[0] ? 0 : 1;
+  }
+
+  /**
+   * Check if the specified point of the board of the game is empty.
+   *
+   * @param index the index of the point, {@code y * dim + x}.
+   * @return {@code true} if empty; {@code false} otherwise.
+   */
+  private boolean isEmpty(int index) {
+    int dim = sync.getDim();
+    return !(go.getBoard().get(index % dim, index / dim) instanceof Stone);
+  }
+
+  /**
+   * Send the specified command to both clients and the spectators.
+   *
+   * @param command the {@code ServerCommand}.
+   * @param args the arguments: the index of a colour, followed by any playable indices.
+   */
+  private void broadcast(ServerCommand command, int... args) {
+    sendToPlayers(command, args);
+    publish(false, command, args);
+  }
+
+  /**
+   * Send the specified command to both clients.
+   *
+   * @param command the {@code ServerCommand}.
+   * @param args the arguments: the index of a colour, followed by any playable indices.
+   */
+  private void sendToPlayers(ServerCommand command, int... args) {
+    for (Connection connection : connections) {
+      send(connection, command, args);
+    }
+  }
+
+  /**
+   * Send the last change of the board to the spectators as {@code DELTA}, or as {@code BOARD} every
+   * {@code SNAPSHOT_INTERVAL} changes.
+   *
+   * @param color the colour that moved.
+   * @param x the playable x index of the move, or {@code -1} for a pass.
+   * @param y the playable y index of the move, or {@code -1} for a pass.
+   * @param captured the indices of the captured points.
+   */
+  private void publishDelta(int color, int x, int y, int[] captured) {
+    int sequence = sync.getSequence();
+    int[] args = new int[x >= 0 ? 4 + captured.length : 2];
+    args[0] = color;
+    args[1] = sequence;
+    if (x >= 0) {
+      args[2] = x;
+      args[3] = y;
+      System.arraycopy(captured, 0, args, 4, captured.length);
+    }
+    publish(sequence % SNAPSHOT_INTERVAL == 0, ServerCommand.DELTA, args);
+  }
+
+  /**
+   * Send the specified command to the spectators, encoded once per encoding, and let the slow ones
+   * skip it.
+   *
+   * @param isSnapshot the switch indicating whether to send the board instead.
+   * @param command the {@code ServerCommand}.
+   * @param args the arguments: the index of a colour, followed by any numbers.
+   */
+  private void publish(boolean isSnapshot, ServerCommand command, int... args) {
+    // The shared buffers, as lines and as frames, encoded when first needed
+    ByteBuffer[] encoded = new ByteBuffer[2];
+    ByteBuffer[] boards = new ByteBuffer[2];
+    for (Spectator spectator : spectators) {
+      Connection connection = spectator.connection;
+      int encoding = connection.isBinary() ? 1 : 0;
+      if (command != ServerCommand.END) {
+        if (connection.getPendingBytes() > MAX_SPECTATOR_BACKLOG) {
+          spectator.isBehind = true;
+          skippedCount++;
+          continue;
+        }
+        if (spectator.isBehind || isSnapshot) {
+          // The board conflates the skipped commands and this one
+          if (boards[encoding] == null) {
+            boards[encoding] = encodeBoard(encoding == 1);
+          }
+          connection.send(boards[encoding]);
+          spectator.isBehind = false;
+          continue;
+        }
+      }
+      if (encoded[encoding] == null) {
+        encoded[encoding] =
+            encoding == 1
+                ? ByteBuffer.wrap(BinaryProtocol.encode(command, args)).asReadOnlyBuffer()
+                : encodeLine(format(command, args));
+      }
+      connection.send(encoded[encoding]);
+    }
+  }
+
+  /**
+   * Encode the board as {@code BOARD <dim> <colour> <sequence> <points>}, with the colour to move
+   * and the sequence number of the last change.
+   *
+   * @param isBinary the switch indicating whether to encode a frame or a line.
+   * @return the read-only {@code ByteBuffer}.
+   */
+  private ByteBuffer encodeBoard(boolean isBinary) {
+    int dim = sync.getDim();
+    int color = sync.getColor();
+    int sequence = sync.getSequence();
+    byte[] points = sync.getPoints();
+    if (isBinary) {
+      byte[] frame =
+          BinaryProtocol.encode(
+              ServerCommand.BOARD, BinaryProtocol.packPoints(points), dim, color, sequence);
+      return ByteBuffer.wrap(frame).asReadOnlyBuffer();
+    }
+    char[] chars = new char[points.length];
+    for (int i = 0; i < points.length; i++) {
+      chars[i] = Protocol.POINTS.charAt(points[i]);
+    }
+    return encodeLine(
+        format(
+            ServerCommand.BOARD,
+            Integer.toString(dim),
+            COLORS[color],
+            Integer.toString(sequence),
+            new String(chars)));
+  }
+
+  /**
+   * Encode the specified line with its line separator.
+   *
+   * @param line the line.
+   * @return the read-only {@code ByteBuffer}.
+   */
+  private static ByteBuffer encodeLine(String line) {
+    return ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+  }
+
+  /**
+   * Send the specified command to the specified client, as a frame or as a line.
+   *
+   * @param connection the {@code Connection} of the client.
+   * @param command the {@code ServerCommand}.
+   * @param args the arguments: the index of a colour, followed by any playable indices.
+   */
+  private static void send(Connection connection, ServerCommand command, int... args) {
+    if (connection.isBinary()) {
+      connection.send(BinaryProtocol.encode(command, args));
+    } else {
+      connection.send(format(command, args));
+    }
+  }
+
+  /**
+   * Send the specified command to the specified client as a line.
+   *
+   * @param connection the {@code Connection} of the client.
+   * @param command the {@code ServerCommand}.
+   * @param args the arguments.
+   */
+  private static void send(Connection connection, ServerCommand command, String... args) {
+    connection.send(format(command, args));
+  }
+
+  /**
+   * Format the specified command as a line.
+   *
+   * @param command the {@code ServerCommand}.
+   * @param args the arguments: the index of a colour, followed by any playable indices.
+   * @return the line.
+   */
+  private static String format(ServerCommand command, int... args) {
+    String[] textArgs = new String[args.length];
+    textArgs[0] = COLORS[args[0]];
+    for (int i = 1; i < args.length; i++) {
+      textArgs[i] = Integer.toString(args[i]);
+    }
+    return format(command, textArgs);
+  }
+
+  /**
+   * Format the specified command as a line.
+   *
+   * @param command the {@code ServerCommand}.
+   * @param args the arguments.
+   * @return the line.
+   */
+  private static String format(ServerCommand command, String... args) {
+    try {
+      return Protocol.validateAndFormatCommand(command, args);
+    } catch (MalformedCommandException e) {
+      throw new AssertionError("server commands must be well formed", e);
+    }
+  }
+
+  /** A client that spectates the game. */
+  private static class Spectator {
+
+    /** The {@code Connection} of the client. */
+    private final Connection connection;
+
+    /** The switch indicating whether or not the spectator skipped commands since the last board. */
+    private boolean isBehind;
+
+    /**
+     * Instantiate a new {@code Spectator}.
+     *
+     * @param connection the {@code Connection} of the client.
+     */
+    private Spectator(Connection connection) {
+      this.connection = connection;
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import net.Protocol.ClientCommand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GameHandlerTest {
+
+  private RecordingConnection black;
+
+  private RecordingConnection white;
+
+  private GameHandler game;
+
+  @BeforeEach
+  void setUp() {
+    black = new RecordingConnection();
+    white = new RecordingConnection();
+    // Messages run on the calling thread
+    game = new GameHandler(Runnable::run, 5, black, "ALICE", white, "BOB", ended -> {});
+    game.start();
+  }
+
+  @Test
+  void testSpectators() {
+    RecordingConnection first = new RecordingConnection();
+    RecordingConnection second = new RecordingConnection();
+    game.receive(black, ClientCommand.MOVE, 1, 0);
+    game.addSpectator(first);
+    game.addSpectator(second);
+    assertEquals(2, game.getSpectatorCount());
+    assertEquals("BOARD 5 WHITE 1 .B.......................", first.lines.get(0));
+
+    // Every change is encoded once for all spectators
+    game.receive(white, ClientCommand.MOVE, 2, 0);
+    assertEquals("DELTA WHITE 2 2 0", first.lines.get(1));
+    assertEquals("VALID WHITE 2 0", black.lines.get(black.lines.size() - 1));
+    assertSame(first.buffers.get(1), second.buffers.get(1));
+
+    // Rejected moves are not broadcast
+    game.receive(white, ClientCommand.MOVE, 3, 0);
+    assertEquals(2, first.lines.size());
+
+    game.removeSpectator(second);
+    assertEquals(1, game.getSpectatorCount());
+    game.receive(black, ClientCommand.TABLEFLIP, -1, -1);
+    assertEquals("TABLEFLIPPED BLACK", first.lines.get(2));
+    assertEquals("END WHITE", first.lines.get(3));
+    assertEquals(2, second.lines.size());
+    assertEquals(0, game.getSpectatorCount());
+
+    // A late spectator learns the winner
+    RecordingConnection late = new RecordingConnection();
+    game.addSpectator(late);
+    assertEquals("END WHITE", late.lines.get(0));
+  }
+
+  @Test
+  void testSlowSpectator() {
+    RecordingConnection slow = new RecordingConnection();
+    game.addSpectator(slow);
+    slow.pendingBytes = GameHandler.MAX_SPECTATOR_BACKLOG + 1;
+    game.receive(black, ClientCommand.MOVE, 0, 0);
+    game.receive(white, ClientCommand.PASS, -1, -1);
+    assertEquals(1, slow.lines.size());
+    assertEquals(2, game.getSkippedCount());
+
+    // The players are not held up
+    assertEquals("PASSED WHITE", black.lines.get(black.lines.size() - 1));
+
+    // Once caught up, the board replaces the skipped commands
+    slow.pendingBytes = 0;
+    game.receive(black, ClientCommand.MOVE, 1, 1);
+    assertEquals("BOARD 5 WHITE 3 B.....B..................", slow.lines.get(1));
+    game.receive(white, ClientCommand.MOVE, 2, 2);
+    assertEquals("DELTA WHITE 4 2 2", slow.lines.get(2));
+
+    // The end is never skipped
+    slow.pendingBytes = GameHandler.MAX_SPECTATOR_BACKLOG + 1;
+    game.receive(white, ClientCommand.TABLEFLIP, -1, -1);
+    assertEquals("END BLACK", slow.lines.get(3));
+  }
+
+  @Test
+  void testBinarySpectator() {
+    RecordingConnection spectator = new RecordingConnection();
+    spectator.switchToBinary();
+    game.addSpectator(spectator);
+    ByteBuffer frame = spectator.frames.get(0);
+    frame.get();
+    assertEquals(Protocol.ServerCommand.BOARD, BinaryProtocol.getServerCommand(frame));
+    assertEquals(5, BinaryProtocol.getVarint(frame));
+    assertEquals(0, BinaryProtocol.getVarint(frame));
+    assertEquals(0, BinaryProtocol.getVarint(frame));
+    assertEquals(25, BinaryProtocol.getPoints(frame, 25).length);
+    game.receive(black, ClientCommand.MOVE, 4, 3);
+    frame = spectator.frames.get(1);
+    assertEquals(5, frame.get());
+    assertEquals(Protocol.ServerCommand.DELTA, BinaryProtocol.getServerCommand(frame));
+    assertEquals(0, BinaryProtocol.getVarint(frame));
+    assertEquals(1, BinaryProtocol.getVarint(frame));
+    assertEquals(4, BinaryProtocol.getVarint(frame));
+    assertEquals(3, BinaryProtocol.getVarint(frame));
+    assertEquals(0, frame.remaining());
+  }
+
+  @Test
+  void testDeltas() {
+    RecordingConnection spectator = new RecordingConnection();
+    game.addSpectator(spectator);
+    assertEquals("BOARD 5 BLACK 0 .........................", spectator.lines.get(0));
+
+    // Black captures the white stone in the corner
+    game.receive(black, ClientCommand.MOVE, 1, 0);
+    game.receive(white, ClientCommand.MOVE, 0, 0);
+    game.receive(black, ClientCommand.MOVE, 0, 1);
+    assertEquals("DELTA BLACK 3 0 1 0", spectator.lines.get(3));
+    game.receive(white, ClientCommand.PASS, -1, -1);
+    assertEquals("DELTA WHITE 4", spectator.lines.get(4));
+
+    // A spectator that lost sync asks for the board
+    game.resync(spectator);
+    assertEquals("BOARD 5 BLACK 4 .B...B...................", spectator.lines.get(5));
+  }
+
+  @Test
+  void testSnapshots() {
+    game = new GameHandler(Runnable::run, 19, black, "ALICE", white, "BOB", ended -> {});
+    game.start();
+    RecordingConnection spectator = new RecordingConnection();
+    game.addSpectator(spectator);
+    for (int i = 0; i < GameHandler.SNAPSHOT_INTERVAL / 2; i++) {
+      game.receive(black, ClientCommand.MOVE, i % 19, i / 19);
+      game.receive(white, ClientCommand.MOVE, i % 19, 18 - i / 19);
+    }
+    int last = GameHandler.SNAPSHOT_INTERVAL;
+    assertEquals(last + 1, spectator.lines.size());
+    assertEquals("DELTA BLACK 63 12 1", spectator.lines.get(last - 1));
+    assertTrue(spectator.lines.get(last).startsWith("BOARD 19 BLACK 64 BBBBB"));
+  }
+
+  /** A {@code Connection} that records what it is sent. */
+  private static class RecordingConnection implements Connection {
+
+    private final List<String> lines = new ArrayList<>();
+
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+
+    private final List<ByteBuffer> frames = new ArrayList<>();
+
+    private final OutboundQueue queue =
+        new OutboundQueue(
+            OutboundQueue.DEFAULT_MAX_BYTES, OutboundQueue.SlowConsumerPolicy.DISCONNECT);
+
+    private int pendingBytes;
+
+    private boolean isBinary;
+
+    @Override
+    public void send(String line) {
+      lines.add(line);
+      buffers.add(null);
+    }
+
+    @Override
+    public void send(byte[] frame) {
+      frames.add(ByteBuffer.wrap(frame));
+    }
+
+    @Override
+    public void send(ByteBuffer bytes) {
+      byte[] array = new byte[bytes.remaining()];
+      bytes.duplicate().get(array);
+      if (isBinary) {
+        frames.add(ByteBuffer.wrap(array));
+      } else {
+        lines.add(new String(array, StandardCharsets.UTF_8).trim());
+        buffers.add(bytes);
+      }
+    }
+
+    @Override
+    public int getPendingBytes() {
+      return pendingBytes;
+    }
+
+    @Override
+    public OutboundQueue getOutboundQueue() {
+      return queue;
+    }
+
+    @Override
+    public boolean isBinary() {
+      return isBinary;
+    }
+
+    @Override
+    public void switchToBinary() {
+      isBinary = true;
+    }
+
+    @Override
+    public void shutDown() {}
+  }
+}
@@ -0,0 +1,279 @@
+package net;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A hashed timer wheel, which runs tasks after a delay for as many timers as fit in memory, with
+ * scheduling and cancellation in constant time.
+ *
+ * <p>The wheel is a ring of {@code wheelSize} buckets, of which a single timer thread expires one
+ * per tick of {@code tickMillis} milliseconds. A timer is hashed to the bucket of its deadline and
+ * carries the number of rounds of the wheel left until then, so a bucket holds the timers of many
+ * deadlines and a tick only visits one bucket. A bucket is a doubly linked list of its timers. New
+ * and cancelled timers pass through lock-free queues, which the timer thread drains every tick, so
+ * any thread schedules and cancels without contending with the others, and the timer thread links
+ * and unlinks them without any search.
+ *
+ * <p>A timer expires within a tick after its deadline. Its task is run on the {@code Executor}, so
+ * tasks that take long must hand off their work, e.g., to an {@code Actor}.
+ */
+public class HashedWheelTimer {
+
+  /** The state of a timer that is scheduled. */
+  private static final int PENDING = 0;
+
+  /** The state of a timer that is cancelled. */
+  private static final int CANCELLED = 1;
+
+  /** The state of a timer that expired. */
+  private static final int EXPIRED = 2;
+
+  /** The {@code Executor} of the tasks. */
+  private final Executor executor;
+
+  /** The duration of a tick in nanoseconds. */
+  private final long tickNanos;
+
+  /** The buckets, each the sentinel of a doubly linked list of timers. */
+  private final Timeout[] wheel;
+
+  /** The mask of the bucket index of a tick, as the number of buckets is a power of two. */
+  private final int mask;
+
+  /** The timers scheduled and not yet in their bucket. */
+  private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+
+  /** The timers cancelled and not yet removed from their bucket. */
+  private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+  /** The switch indicating whether or not the timer thread was started. */
+  private final AtomicBoolean isStarted = new AtomicBoolean();
+
+  /** The number of timers that are pending. */
+  private final AtomicLong pendingCount = new AtomicLong();
+
+  /** The number of timers that expired. */
+  private final AtomicLong expiredCount = new AtomicLong();
+
+  /** The time the wheel started in nanoseconds, the origin of all deadlines. */
+  private final long startTime = System.nanoTime();
+
+  /** The switch indicating whether or not the timer thread runs. */
+  private volatile boolean isRunning = true;
+
+  /** The number of ticks passed, used on the timer thread. */
+  private long tick;
+
+  /**
+   * Instantiate a new {@code HashedWheelTimer}, which waits for {@code start}.
+   *
+   * @param executor the {@code Executor} of the tasks.
+   * @param tickMillis the duration of a tick in milliseconds.
+   * @param wheelSize the number of buckets, which is rounded up to a power of two.
+   */
+  public HashedWheelTimer(Executor executor, long tickMillis, int wheelSize) {
+    if (tickMillis <= 0) {
+      throw new AssertionError("tick must be greater than zero");
+    }
+    if (wheelSize <= 0 || wheelSize > 1 << 30) {
+      throw new AssertionError("wheel size must be between one and 2^30");
+    }
+    this.executor = executor;
+    tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    int size = Integer.highestOneBit(wheelSize);
+    wheel = new Timeout[size < wheelSize ? size << 1 : size];
+    mask = wheel.length - 1;
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = new Timeout(null, 0);
+      wheel[i].previous = wheel[i];
+      wheel[i].next = wheel[i];
+    }
+  }
+
+  /** Start the timer thread, once. */
+  public void start() {
+    if (!isStarted.compareAndSet(false, true)) {
+      return;
+    }
+    Thread thread = new Thread(this::run, "hashed wheel timer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Stop the timer thread, after which no timer expires any more. */
+  public void stop() {
+    isRunning = false;
+  }
+
+  /**
+   * Run the specified task after the specified delay, from any thread.
+   *
+   * @param task the task.
+   * @param delayMillis the delay in milliseconds.
+   * @return the {@code Timeout}, which cancels the task.
+   */
+  public Timeout schedule(Runnable task, long delayMillis) {
+    long deadline =
+        System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+    Timeout timeout = new Timeout(task, deadline);
+    pendingCount.incrementAndGet();
+    scheduled.add(timeout);
+    return timeout;
+  }
+
+  /** @return the number of timers that are scheduled and neither expired nor cancelled. */
+  public long getPendingCount() {
+    return pendingCount.get();
+  }
+
+  /** @return the number of timers that expired. */
+  public long getExpiredCount() {
+    return expiredCount.get();
+  }
+
+  /** Expire a bucket per tick until stopped, on the timer thread. */
+  private void run() {
+    while (isRunning) {
+      long sleepNanos = (tick + 1) * tickNanos - (System.nanoTime() - startTime);
+      if (sleepNanos > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+          return;
+        }
+        continue;
+      }
+      removeCancelled();
+      addScheduled();
+      expire(wheel[(int) (tick & mask)]);
+      tick++;
+    }
+  }
+
+  /** Unlink the cancelled timers from their bucket. */
+  private void removeCancelled() {
+    Timeout timeout;
+    while ((timeout = cancelled.poll()) != null) {
+      timeout.unlink();
+    }
+  }
+
+  /** Link the scheduled timers into the bucket of their deadline. */
+  private void addScheduled() {
+    Timeout timeout;
+    while ((timeout = scheduled.poll()) != null) {
+      if (timeout.state.get() != PENDING) {
+        continue;
+      }
+      // Expire timers whose deadline passed at the current tick
+      long deadlineTick = Math.max(timeout.deadline / tickNanos, tick);
+      timeout.rounds = (deadlineTick - tick) / wheel.length;
+      Timeout bucket = wheel[(int) (deadlineTick & mask)];
+      timeout.previous = bucket.previous;
+      timeout.next = bucket;
+      bucket.previous.next = timeout;
+      bucket.previous = timeout;
+    }
+  }
+
+  /**
+   * Expire the timers of the specified bucket whose last round came, and count down the others.
+   *
+   * @param bucket the sentinel of the bucket.
+   */
+  private void expire(Timeout bucket) {
+    Timeout timeout = bucket.next;
+    while (timeout != bucket) {
+      Timeout next = timeout.next;
+      if (timeout.rounds > 0) {
+        timeout.rounds--;
+      } else {
+        timeout.unlink();
+        if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+          pendingCount.decrementAndGet();
+          expiredCount.incrementAndGet();
+          try {
+            executor.execute(timeout.task);
+          } catch (RuntimeException e) {
+            e.printStackTrace();
+          }
+        }
+      }
+      timeout = next;
+    }
+  }
+
+  /** A timer of a {@code HashedWheelTimer}, which cancels its task. */
+  public class Timeout {
+
+    /** The task. */
+    private final Runnable task;
+
+    /** The deadline relative to the start of the wheel in nanoseconds. */
+    private final long deadline;
+
+    /** The state: {@code PENDING}, {@code CANCELLED} or {@code EXPIRED}. */
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    /** The number of rounds of the wheel left, used on the timer thread. */
+    private long rounds;
+
+    /** The previous timer of the bucket, or {@code null} if unlinked, used on the timer thread. */
+    private Timeout previous;
+
+    /** The next timer of the bucket, or {@code null} if unlinked, used on the timer thread. */
+    private Timeout next;
+
+    /**
+     * Instantiate a new {@code Timeout}.
+     *
+     * @param task the task.
+     * @param deadline the deadline relative to the start of the wheel in nanoseconds.
+     */
+    private Timeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancel the task, from any thread.
+     *
+     * @return {@code true} if cancelled; {@code false} if it expired or was cancelled before.
+     */
+    public boolean cancel() {
+      if (!state.compareAndSet(PENDING, CANCELLED)) {
+        return false;
+      }
+      pendingCount.decrementAndGet();
+      cancelled.add(this);
+      return true;
+    }
+
+    /** @return {@code true} if cancelled; {@code false} otherwise. */
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+
+    /** @return {@code true} if expired; {@code false} otherwise. */
+    public boolean isExpired() {
+      return state.get() == EXPIRED;
+    }
+
+    /** Unlink the timer from its bucket, if linked. */
+    private void unlink() {
+      if (next == null) {
+        return;
+      }
+      previous.next = next;
+      next.previous = previous;
+      previous = null;
+      next = null;
+    }
+  }
+}
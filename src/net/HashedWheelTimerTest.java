@@ -0,0 +1,86 @@
+package net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class HashedWheelTimerTest {
+
+  @Test
+  void testExpiry() throws InterruptedException {
+    // Eight buckets of five milliseconds, so the last timer takes several rounds
+    HashedWheelTimer timer = new HashedWheelTimer(Runnable::run, 5, 7);
+    List<Integer> expired = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(3);
+    long start = System.nanoTime();
+    timer.schedule(
+        () -> {
+          expired.add(200);
+          latch.countDown();
+        },
+        200);
+    timer.schedule(
+        () -> {
+          expired.add(0);
+          latch.countDown();
+        },
+        0);
+    timer.schedule(
+        () -> {
+          expired.add(30);
+          latch.countDown();
+        },
+        30);
+    assertEquals(3, timer.getPendingCount());
+    timer.start();
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+    assertEquals(0, expired.get(0).intValue());
+    assertEquals(30, expired.get(1).intValue());
+    assertEquals(200, expired.get(2).intValue());
+    assertEquals(0, timer.getPendingCount());
+    assertEquals(3, timer.getExpiredCount());
+    timer.stop();
+  }
+
+  @Test
+  void testCancel() throws InterruptedException {
+    HashedWheelTimer timer = new HashedWheelTimer(Runnable::run, 1, 16);
+    timer.start();
+    CountDownLatch latch = new CountDownLatch(1);
+    HashedWheelTimer.Timeout cancelled = timer.schedule(HashedWheelTimerTest::mustNotExpire, 20);
+    HashedWheelTimer.Timeout expired = timer.schedule(latch::countDown, 40);
+    assertTrue(cancelled.cancel());
+    assertFalse(cancelled.cancel());
+    assertTrue(cancelled.isCancelled());
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertTrue(expired.isExpired());
+    assertFalse(expired.cancel());
+    assertEquals(1, timer.getExpiredCount());
+
+    // Many timers cancelled after they reached their bucket
+    List<HashedWheelTimer.Timeout> timeouts = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      timeouts.add(timer.schedule(HashedWheelTimerTest::mustNotExpire, 500 + i % 50));
+    }
+    Thread.sleep(20);
+    for (HashedWheelTimer.Timeout timeout : timeouts) {
+      assertTrue(timeout.cancel());
+    }
+    assertEquals(0, timer.getPendingCount());
+    Thread.sleep(600);
+    assertEquals(1, timer.getExpiredCount());
+    timer.stop();
+  }
+
+  private static void mustNotExpire() {
+    throw new AssertionError("cancelled timer must not expire");
+  }
+}
@@ -0,0 +1,156 @@
+package net;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The matchmaker of players that wait for an opponent on the same board dimension.
+ *
+ * <p>Every dimension has its own first-in, first-out queue with its own lock, so arrivals on
+ * different dimensions never contend. Adding, removing and matching a player take constant time:
+ * a queue is an insertion-ordered hash set, whose oldest player is matched first and plays black.
+ * An arrival is matched at once with the player waiting in its queue, if any, so a queue never
+ * holds more than one player after an arrival. The match is handed to the {@code MatchHandler}
+ * outside the lock.
+ *
+ * @param <T> the type of the players.
+ */
+public class Matchmaker<T> {
+
+  /** The {@code MatchHandler}. */
+  private final MatchHandler<T> handler;
+
+  /** The queue of every dimension a player ever waited for. */
+  private final ConcurrentHashMap<Integer, DimensionQueue> queues = new ConcurrentHashMap<>();
+
+  /** The number of waiting players over all dimensions. */
+  private final AtomicInteger queueDepth = new AtomicInteger();
+
+  /** The number of matches made. */
+  private final AtomicLong matchCount = new AtomicLong();
+
+  /**
+   * Instantiate a new {@code Matchmaker}.
+   *
+   * @param handler the {@code MatchHandler} of every match.
+   */
+  public Matchmaker(MatchHandler<T> handler) {
+    this.handler = handler;
+  }
+
+  /**
+   * Add the specified player to the queue of the specified dimension and match it with the player
+   * waiting there, if any. A player must not wait in several queues at once.
+   *
+   * @param player the player.
+   * @param dimension the board dimension.
+   */
+  public void add(T player, int dimension) {
+    DimensionQueue queue = queues.computeIfAbsent(dimension, key -> new DimensionQueue());
+    T black = null;
+    T white = null;
+    queue.lock.lock();
+    try {
+      if (queue.players.add(player)) {
+        queueDepth.incrementAndGet();
+      }
+      if (queue.players.size() >= 2) {
+        Iterator<T> iterator = queue.players.iterator();
+        black = iterator.next();
+        iterator.remove();
+        white = iterator.next();
+        iterator.remove();
+      }
+      queue.depth = queue.players.size();
+    } finally {
+      queue.lock.unlock();
+    }
+    if (black == null) {
+      return;
+    }
+    queueDepth.addAndGet(-2);
+    matchCount.incrementAndGet();
+    handler.match(black, white, dimension);
+  }
+
+  /**
+   * Remove the specified player from the queue of the specified dimension, e.g., when it leaves.
+   *
+   * @param player the player.
+   * @param dimension the board dimension.
+   * @return {@code true} if the player was waiting; {@code false} if it was matched or never added.
+   */
+  public boolean remove(T player, int dimension) {
+    DimensionQueue queue = queues.get(dimension);
+    if (queue == null) {
+      return false;
+    }
+    queue.lock.lock();
+    try {
+      if (!queue.players.remove(player)) {
+        return false;
+      }
+      queue.depth = queue.players.size();
+    } finally {
+      queue.lock.unlock();
+    }
+    queueDepth.decrementAndGet();
+    return true;
+  }
+
+  /** @return the number of waiting players over all dimensions. */
+  public int getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  /**
+   * Get the number of players waiting for the specified dimension.
+   *
+   * @param dimension the board dimension.
+   * @return the number of players.
+   */
+  public int getQueueDepth(int dimension) {
+    DimensionQueue queue = queues.get(dimension);
+    return queue != null ? queue.depth : 0;
+  }
+
+  /** @return the number of matches made. */
+  public long getMatchCount() {
+    return matchCount.get();
+  }
+
+  /**
+   * The handler of the matches of a {@code Matchmaker}.
+   *
+   * @param <T> the type of the players.
+   */
+  @FunctionalInterface
+  public interface MatchHandler<T> {
+
+    /**
+     * Handle the match of the specified players, on the thread of the last arrival.
+     *
+     * @param black the player that waited longest, which plays black.
+     * @param white the other player, which plays white.
+     * @param dimension the board dimension.
+     */
+    void match(T black, T white, int dimension);
+  }
+
+  /** The queue of a single dimension. */
+  private class DimensionQueue {
+
+    /** The lock of the queue. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** The waiting players, oldest first. */
+    private final LinkedHashSet<T> players = new LinkedHashSet<>();
+
+    /** The number of waiting players, readable without the lock. */
+    private volatile int depth;
+  }
+}
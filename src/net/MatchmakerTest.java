@@ -0,0 +1,90 @@
+package net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MatchmakerTest {
+
+  private List<int[]> matches;
+
+  private Matchmaker<Integer> matchmaker;
+
+  @BeforeEach
+  void setUp() {
+    matches = Collections.synchronizedList(new ArrayList<>());
+    matchmaker =
+        new Matchmaker<>(
+            (black, white, dimension) -> matches.add(new int[] {black, white, dimension}));
+  }
+
+  @Test
+  void testFirstInFirstOut() {
+    matchmaker.add(1, 9);
+    matchmaker.add(2, 19);
+    assertEquals(2, matchmaker.getQueueDepth());
+    assertEquals(1, matchmaker.getQueueDepth(9));
+    matchmaker.add(3, 9);
+    assertEquals(1, matches.size());
+    assertEquals(1, matches.get(0)[0]);
+    assertEquals(3, matches.get(0)[1]);
+    assertEquals(9, matches.get(0)[2]);
+    assertEquals(1, matchmaker.getQueueDepth());
+    assertEquals(0, matchmaker.getQueueDepth(9));
+    assertEquals(1, matchmaker.getMatchCount());
+  }
+
+  @Test
+  void testRemove() {
+    matchmaker.add(1, 9);
+    assertTrue(matchmaker.remove(1, 9));
+    assertFalse(matchmaker.remove(1, 9));
+    assertFalse(matchmaker.remove(1, 13));
+    matchmaker.add(2, 9);
+    assertEquals(0, matches.size());
+    assertEquals(1, matchmaker.getQueueDepth());
+  }
+
+  @Test
+  void testBurst() throws InterruptedException {
+    int threads = 8;
+    int playersPerThread = 1000;
+    int[] dimensions = {5, 9, 13, 19};
+    List<Thread> arrivals = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int first = t * playersPerThread;
+      Thread thread =
+          new Thread(
+              () -> {
+                for (int player = first; player < first + playersPerThread; player++) {
+                  matchmaker.add(player, dimensions[player % dimensions.length]);
+                }
+              });
+      arrivals.add(thread);
+      thread.start();
+    }
+    for (Thread thread : arrivals) {
+      thread.join();
+    }
+
+    // Every player is matched once, with a player of its own dimension
+    assertEquals(threads * playersPerThread / 2, matches.size());
+    assertEquals(matches.size(), matchmaker.getMatchCount());
+    assertEquals(0, matchmaker.getQueueDepth());
+    Set<Integer> players = new HashSet<>();
+    for (int[] match : matches) {
+      assertTrue(players.add(match[0]));
+      assertTrue(players.add(match[1]));
+      assertEquals(dimensions[match[0] % dimensions.length], match[2]);
+      assertEquals(dimensions[match[1] % dimensions.length], match[2]);
+    }
+  }
+}
@@ -0,0 +1,523 @@
+package net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A non-blocking server of line-based connections, which serves all connections from a few
+ * selector threads instead of a thread per connection.
+ *
+ * <p>Every accepted connection is a non-blocking {@code SocketChannel} registered with one of the
+ * selectors, round robin. It has its own read buffer, which starts small and grows up to the
+ * longest allowed line, so idle connections cost little memory. Complete lines, or frames of the
+ * {@code BinaryProtocol} once the connection switched, are passed to the {@code LineHandler} of the
+ * connection on its selector thread, so handlers must not block. Lines and frames sent are queued
+ * in the bounded {@code OutboundQueue} of the connection, without copying the bytes sent, which
+ * may be shared by many connections. The first message queued schedules a write on the selector
+ * thread, which writes all messages queued by then in a single gathering write, and the rest when
+ * the channel is writable again. A connection whose queue overflows is closed.
+ */
+public class NioServer {
+
+  /** The default number of selector threads. */
+  public static final int DEFAULT_SELECTOR_COUNT =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+  /** The longest line in bytes; a connection that sends a longer line is closed. */
+  public static final int MAX_LINE_LENGTH = 1 << 16;
+
+  /** The initial capacity of the read buffer of a connection in bytes. */
+  private static final int INITIAL_BUFFER_CAPACITY = 256;
+
+  /** The {@code ServerSocketChannel}. */
+  private final ServerSocketChannel serverChannel;
+
+  /** The factory of the {@code LineHandler} of every accepted {@code Connection}. */
+  private final Function<Connection, LineHandler> handlerFactory;
+
+  /** The selector loops, the first of which also accepts connections. */
+  private final List<SelectorLoop> loops = new ArrayList<>();
+
+  /** The number of open connections. */
+  private final AtomicInteger connectionCount = new AtomicInteger();
+
+  /** The index of the selector loop of the next accepted connection. */
+  private int nextLoop;
+
+  /** The switch indicating whether or not the server is open. */
+  private volatile boolean isOpen = true;
+
+  /**
+   * Instantiate a new {@code NioServer} that listens on the specified port.
+   *
+   * @param port the port, or zero for any free port.
+   * @param backlog the maximum number of connections waiting to be accepted.
+   * @param selectorCount the number of selector threads.
+   * @param handlerFactory the factory of the {@code LineHandler} of every accepted {@code
+   *     Connection}.
+   * @throws IOException if the port cannot be opened.
+   */
+  public NioServer(
+      int port, int backlog, int selectorCount, Function<Connection, LineHandler> handlerFactory)
+      throws IOException {
+    if (selectorCount <= 0) {
+      throw new AssertionError("selector count must be greater than zero");
+    }
+    this.handlerFactory = handlerFactory;
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(port), backlog);
+    serverChannel.configureBlocking(false);
+    for (int i = 0; i < selectorCount; i++) {
+      loops.add(new SelectorLoop(Selector.open()));
+    }
+    serverChannel.register(loops.get(0).selector, SelectionKey.OP_ACCEPT);
+  }
+
+  /** @return the port the server listens on. */
+  public int getPort() {
+    return serverChannel.socket().getLocalPort();
+  }
+
+  /** @return the number of open connections. */
+  public int getConnectionCount() {
+    return connectionCount.get();
+  }
+
+  /**
+   * Serve connections until closed, on the calling thread and on a new daemon thread for every
+   * other selector.
+   */
+  public void run() {
+    for (int i = 1; i < loops.size(); i++) {
+      Thread thread = new Thread(loops.get(i), "nio server selector " + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+    loops.get(0).run();
+  }
+
+  /** Stop accepting connections and close the open ones. */
+  public void close() {
+    isOpen = false;
+    try {
+      serverChannel.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    for (SelectorLoop loop : loops) {
+      loop.selector.wakeup();
+    }
+  }
+
+  /**
+   * Accept every pending connection and hand it to the next selector loop, on the first loop.
+   *
+   * @throws IOException if accepting fails.
+   */
+  private void accept() throws IOException {
+    SocketChannel channel;
+    while ((channel = serverChannel.accept()) != null) {
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      SelectorLoop loop = loops.get(nextLoop);
+      nextLoop = (nextLoop + 1) % loops.size();
+      SocketChannel accepted = channel;
+      loop.execute(() -> loop.register(accepted));
+    }
+  }
+
+  /**
+   * Get a buffer with the content of the specified buffer in fill mode and at least the specified
+   * number of bytes remaining.
+   *
+   * @param buffer the {@code ByteBuffer} in fill mode.
+   * @param remaining the number of bytes.
+   * @return the buffer itself if it has enough room; a larger copy otherwise.
+   */
+  private static ByteBuffer ensureRemaining(ByteBuffer buffer, int remaining) {
+    if (buffer.remaining() >= remaining) {
+      return buffer;
+    }
+    int capacity = buffer.capacity();
+    while (capacity - buffer.position() < remaining) {
+      capacity *= 2;
+    }
+    ByteBuffer grown = ByteBuffer.allocate(capacity);
+    buffer.flip();
+    grown.put(buffer);
+    return grown;
+  }
+
+  /**
+   * The handler of the lines, or the frames once switched, received over a {@code Connection} of a
+   * {@code NioServer}.
+   */
+  public interface LineHandler {
+
+    /**
+     * Handle the specified line, on the selector thread of the connection.
+     *
+     * @param bytes the array that holds the line, which is the read buffer and only valid during
+     *     the call.
+     * @param offset the index of the first byte of the line.
+     * @param length the number of bytes of the line, without line separator.
+     */
+    void receive(byte[] bytes, int offset, int length);
+
+    /**
+     * Handle the specified frame of the {@code BinaryProtocol}, on the selector thread of the
+     * connection.
+     *
+     * @param frame the frame, positioned at its opcode and limited to its end, which is a view of
+     *     the read buffer that is only valid during the call.
+     */
+    void receive(ByteBuffer frame);
+
+    /** Handle the closing of the connection, once, on the thread that closed it. */
+    void disconnected();
+  }
+
+  /** A selector thread and the connections registered with it. */
+  private class SelectorLoop implements Runnable {
+
+    /** The {@code Selector}. */
+    private final Selector selector;
+
+    /** The tasks to run on the selector thread. */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Instantiate a new {@code SelectorLoop}.
+     *
+     * @param selector the {@code Selector}.
+     */
+    private SelectorLoop(Selector selector) {
+      this.selector = selector;
+    }
+
+    /**
+     * Run the specified task on the selector thread.
+     *
+     * @param task the task.
+     */
+    private void execute(Runnable task) {
+      tasks.add(task);
+      selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (isOpen) {
+          selector.select();
+          Runnable task;
+          while ((task = tasks.poll()) != null) {
+            task.run();
+          }
+          Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            handle(key);
+          }
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+      } finally {
+        for (SelectionKey key : new ArrayList<>(selector.keys())) {
+          if (key.attachment() instanceof ChannelConnection) {
+            ((ChannelConnection) key.attachment()).shutDown();
+          }
+        }
+        try {
+          selector.close();
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+    }
+
+    /**
+     * Register the specified accepted channel with the selector and create its handler.
+     *
+     * @param channel the {@code SocketChannel}.
+     */
+    private void register(SocketChannel channel) {
+      ChannelConnection connection = new ChannelConnection(channel, this);
+      try {
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+      } catch (IOException e) {
+        connection.shutDown();
+        return;
+      }
+      connectionCount.incrementAndGet();
+      connection.handler = handlerFactory.apply(connection);
+    }
+
+    /**
+     * Handle the specified selected key.
+     *
+     * @param key the {@code SelectionKey}.
+     */
+    private void handle(SelectionKey key) {
+      if (!key.isValid()) {
+        return;
+      }
+      if (key.attachment() == null) {
+        try {
+          accept();
+        } catch (IOException e) {
+          if (isOpen) {
+            e.printStackTrace();
+          }
+        }
+        return;
+      }
+      ChannelConnection connection = (ChannelConnection) key.attachment();
+      try {
+        if (key.isWritable()) {
+          connection.write();
+        }
+        if (key.isValid() && key.isReadable()) {
+          connection.read();
+        }
+      } catch (IOException | CancelledKeyException e) {
+        connection.shutDown();
+      } catch (RuntimeException e) {
+        e.printStackTrace();
+        connection.shutDown();
+      }
+    }
+  }
+
+  /** A {@code Connection} over a non-blocking {@code SocketChannel}. */
+  private class ChannelConnection implements Connection {
+
+    /** The {@code SocketChannel}. */
+    private final SocketChannel channel;
+
+    /** The {@code SelectorLoop} the channel is registered with. */
+    private final SelectorLoop loop;
+
+    /** The switch indicating whether or not the connection is closed. */
+    private final AtomicBoolean isClosed = new AtomicBoolean();
+
+    /** The {@code SelectionKey} of the channel. */
+    private SelectionKey key;
+
+    /** The {@code LineHandler}. */
+    private LineHandler handler;
+
+    /** The bytes read and not yet handled as lines, in fill mode, used on the selector thread. */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_CAPACITY);
+
+    /** The bytes sent and not yet written. */
+    private final OutboundQueue queue =
+        new OutboundQueue(
+            OutboundQueue.DEFAULT_MAX_BYTES, OutboundQueue.SlowConsumerPolicy.DISCONNECT);
+
+    /** The switch indicating whether or not the connection carries binary frames. */
+    private volatile boolean isBinary;
+
+    /**
+     * Instantiate a new {@code ChannelConnection}.
+     *
+     * @param channel the {@code SocketChannel}.
+     * @param loop the {@code SelectorLoop}.
+     */
+    private ChannelConnection(SocketChannel channel, SelectorLoop loop) {
+      this.channel = channel;
+      this.loop = loop;
+    }
+
+    @Override
+    public void send(String line) {
+      send((line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void send(byte[] bytes) {
+      send(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public void send(ByteBuffer bytes) {
+      switch (queue.offer(bytes)) {
+        case SCHEDULED:
+          // The messages queued until the selector thread runs are written along
+          loop.execute(this::flush);
+          break;
+
+        case OVERFLOWED:
+          shutDown();
+          break;
+
+        default:
+          break;
+      }
+    }
+
+    @Override
+    public int getPendingBytes() {
+      return queue.getBytes();
+    }
+
+    @Override
+    public OutboundQueue getOutboundQueue() {
+      return queue;
+    }
+
+    @Override
+    public boolean isBinary() {
+      return isBinary;
+    }
+
+    @Override
+    public void switchToBinary() {
+      isBinary = true;
+    }
+
+    @Override
+    public void shutDown() {
+      if (!isClosed.compareAndSet(false, true)) {
+        return;
+      }
+      queue.close();
+      try {
+        channel.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      if (key != null) {
+        connectionCount.decrementAndGet();
+      }
+      if (handler != null) {
+        handler.disconnected();
+      }
+    }
+
+    /** Write the queued messages once per tick of the selector, on the selector thread. */
+    private void flush() {
+      if (isClosed.get() || !key.isValid()) {
+        return;
+      }
+      try {
+        write();
+      } catch (IOException | CancelledKeyException e) {
+        shutDown();
+      }
+    }
+
+    /**
+     * Write as much of the queued messages as the channel accepts in a single gathering write, and
+     * let the selector thread write the rest when the channel is writable again, on the selector
+     * thread.
+     *
+     * @throws IOException if writing fails.
+     */
+    private void write() throws IOException {
+      long count = channel.write(queue.peek());
+      if (queue.written(count)) {
+        key.interestOps(SelectionKey.OP_READ);
+      } else {
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+      }
+    }
+
+    /**
+     * Read what the channel has and handle the complete lines or frames, on the selector thread.
+     *
+     * @throws IOException if reading fails.
+     */
+    private void read() throws IOException {
+      if (channel.read(readBuffer) < 0) {
+        shutDown();
+        return;
+      }
+      int end = readBuffer.position();
+      int start = readLines(0, end);
+      if (isBinary && !isClosed.get()) {
+        start = readFrames(start, end);
+      }
+      readBuffer.flip();
+      readBuffer.position(start);
+      readBuffer.compact();
+      if (readBuffer.position() == 0 && readBuffer.capacity() > INITIAL_BUFFER_CAPACITY) {
+        readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_CAPACITY);
+      } else if (!readBuffer.hasRemaining()) {
+        if (readBuffer.capacity() >= MAX_LINE_LENGTH) {
+          shutDown();
+          return;
+        }
+        readBuffer = ensureRemaining(readBuffer, readBuffer.capacity());
+      }
+    }
+
+    /**
+     * Handle the complete lines in the specified range of the read buffer, until the connection
+     * switches to frames.
+     *
+     * @param start the index of the first byte.
+     * @param end the index after the last byte.
+     * @return the index of the first byte not handled.
+     */
+    private int readLines(int start, int end) {
+      byte[] bytes = readBuffer.array();
+      for (int i = start; i < end && !isBinary && !isClosed.get(); i++) {
+        if (bytes[i] == '\n') {
+          int length = i - start;
+          if (length > 0 && bytes[i - 1] == '\r') {
+            length--;
+          }
+          handler.receive(bytes, start, length);
+          start = i + 1;
+        }
+      }
+      return start;
+    }
+
+    /**
+     * Handle the complete frames in the specified range of the read buffer. A frame is handed to
+     * the {@code LineHandler} as a view of the read buffer.
+     *
+     * @param start the index of the first byte.
+     * @param end the index after the last byte.
+     * @return the index of the first byte not handled.
+     */
+    private int readFrames(int start, int end) {
+      ByteBuffer frame = ByteBuffer.wrap(readBuffer.array());
+      while (start < end && !isClosed.get()) {
+        frame.limit(end);
+        frame.position(start);
+        int length = BinaryProtocol.getVarint(frame);
+        if (length > BinaryProtocol.MAX_FRAME_LENGTH) {
+          shutDown();
+          break;
+        }
+        if (length < 0 || frame.remaining() < length) {
+          break;
+        }
+        start = frame.position() + length;
+        frame.limit(start);
+        handler.receive(frame);
+      }
+      return start;
+    }
+  }
+}
@@ -0,0 +1,247 @@
+package net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The bounded queue of the bytes sent over a {@code Connection} and not yet written to the
+ * network, which lets senders go on while a single writer writes the queued bytes of a connection
+ * in one go: every write takes all queued buffers, so the messages sent in the meantime are
+ * coalesced into a single flush.
+ *
+ * <p>The queue holds up to {@code maxBytes} bytes as duplicates of the buffers sent, which may be
+ * shared by many connections, so queueing copies nothing. A consumer that falls behind that far is
+ * handled by the {@code SlowConsumerPolicy} of its queue: it is disconnected, or the messages that
+ * do not fit are dropped. Senders that can conflate their messages, e.g., a game that replaces the
+ * commands a spectator skipped by the board, do so before the queue fills up, by watching {@code
+ * getBytes}.
+ *
+ * <p>The queue is guarded by a {@code ReentrantLock} rather than a monitor, so a writer that waits
+ * for bytes on a virtual thread does not pin its carrier thread.
+ */
+public class OutboundQueue {
+
+  /** The default maximum number of queued bytes. */
+  public static final int DEFAULT_MAX_BYTES = 1 << 16;
+
+  /** The maximum number of queued bytes. */
+  private final int maxBytes;
+
+  /** The lock that guards the queue. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** The condition signalled when bytes are queued or the queue is closed. */
+  private final Condition isReady = lock.newCondition();
+
+  /** The queued buffers, oldest first, guarded by the lock. */
+  private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>();
+
+  /** The number of dropped messages. */
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  /** The number of writes that emptied the queue. */
+  private final AtomicLong flushCount = new AtomicLong();
+
+  /** The {@code SlowConsumerPolicy}. */
+  private volatile SlowConsumerPolicy policy;
+
+  /** The number of queued bytes, including those being written. */
+  private volatile int bytes;
+
+  /** The most buffers ever queued at once. */
+  private volatile int maxDepth;
+
+  /** The switch indicating whether or not a write of the queued bytes is scheduled. */
+  private boolean isWriteScheduled;
+
+  /** The switch indicating whether or not the queue is closed. */
+  private boolean isClosed;
+
+  /**
+   * Instantiate a new {@code OutboundQueue}.
+   *
+   * @param maxBytes the maximum number of queued bytes.
+   * @param policy the {@code SlowConsumerPolicy}.
+   */
+  public OutboundQueue(int maxBytes, SlowConsumerPolicy policy) {
+    if (maxBytes <= 0) {
+      throw new AssertionError("maximum number of queued bytes must be greater than zero");
+    }
+    this.maxBytes = maxBytes;
+    this.policy = policy;
+  }
+
+  /**
+   * Queue the specified bytes, if they fit.
+   *
+   * @param bytes the {@code ByteBuffer}, from its position to its limit, which is left unchanged.
+   * @return the {@code Offer}, which tells the sender what to do next.
+   */
+  public Offer offer(ByteBuffer bytes) {
+    lock.lock();
+    try {
+      if (isClosed) {
+        return Offer.DROPPED;
+      }
+      int length = bytes.remaining();
+      if (this.bytes + length > maxBytes) {
+        if (policy == SlowConsumerPolicy.DISCONNECT) {
+          return Offer.OVERFLOWED;
+        }
+        droppedCount.incrementAndGet();
+        return Offer.DROPPED;
+      }
+      buffers.add(bytes.duplicate());
+      this.bytes += length;
+      maxDepth = Math.max(maxDepth, buffers.size());
+      if (isWriteScheduled) {
+        return Offer.QUEUED;
+      }
+      isWriteScheduled = true;
+      isReady.signalAll();
+      return Offer.SCHEDULED;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get the queued buffers for a write. The writer advances them and then reports the number of
+   * bytes it wrote with {@code written}.
+   *
+   * @return the buffers, oldest first, which are empty if nothing is queued.
+   */
+  public ByteBuffer[] peek() {
+    lock.lock();
+    try {
+      return buffers.toArray(new ByteBuffer[buffers.size()]);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Wait until bytes are queued or the queue is closed, and get the queued buffers for a write.
+   *
+   * @return the buffers, oldest first, or {@code null} if the queue is closed and empty.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public ByteBuffer[] take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (buffers.isEmpty() && !isClosed) {
+        isReady.await();
+      }
+      return buffers.isEmpty() ? null : peek();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Remove the buffers written in full after a write of the buffers of {@code peek} or {@code
+   * take}.
+   *
+   * @param count the number of bytes written.
+   * @return {@code true} if the queue is empty and no write is scheduled any more; {@code false}
+   *     if the writer must write again.
+   */
+  public boolean written(long count) {
+    lock.lock();
+    try {
+      bytes -= (int) count;
+      while (!buffers.isEmpty() && !buffers.peek().hasRemaining()) {
+        buffers.remove();
+      }
+      if (!buffers.isEmpty()) {
+        return false;
+      }
+      isWriteScheduled = false;
+      flushCount.incrementAndGet();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Close the queue, which drops the messages offered from then on and wakes up the writer. */
+  public void close() {
+    lock.lock();
+    try {
+      isClosed = true;
+      isReady.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Set the {@code SlowConsumerPolicy}, e.g., when a client starts to spectate.
+   *
+   * @param policy the {@code SlowConsumerPolicy}.
+   */
+  public void setPolicy(SlowConsumerPolicy policy) {
+    this.policy = policy;
+  }
+
+  /** @return the {@code SlowConsumerPolicy}. */
+  public SlowConsumerPolicy getPolicy() {
+    return policy;
+  }
+
+  /** @return the number of queued bytes, including those being written. */
+  public int getBytes() {
+    return bytes;
+  }
+
+  /** @return the number of queued messages. */
+  public int getDepth() {
+    lock.lock();
+    try {
+      return buffers.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** @return the most messages ever queued at once. */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /** @return the number of dropped messages. */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /** @return the number of writes that emptied the queue. */
+  public long getFlushCount() {
+    return flushCount.get();
+  }
+
+  /** The policies for consumers that fall behind until their queue is full. */
+  public enum SlowConsumerPolicy {
+    /** Disconnect the consumer, for connections whose every message is critical, e.g., players. */
+    DISCONNECT,
+    /**
+     * Drop the messages that do not fit, for connections that recover from lost messages, e.g.,
+     * spectators, which resynchronise their board.
+     */
+    DROP
+  }
+
+  /** The outcomes of an offer. */
+  public enum Offer {
+    /** The bytes are queued and a write was already scheduled. */
+    QUEUED,
+    /** The bytes are queued and the sender must schedule a write. */
+    SCHEDULED,
+    /** The bytes are dropped, as the queue is full or closed. */
+    DROPPED,
+    /** The bytes do not fit and the sender must disconnect the consumer. */
+    OVERFLOWED
+  }
+}
@@ -0,0 +1,69 @@
+package net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import net.OutboundQueue.Offer;
+import net.OutboundQueue.SlowConsumerPolicy;
+import org.junit.jupiter.api.Test;
+
+class OutboundQueueTest {
+
+  @Test
+  void testCoalescing() throws InterruptedException {
+    OutboundQueue queue = new OutboundQueue(16, SlowConsumerPolicy.DISCONNECT);
+    ByteBuffer shared = ByteBuffer.wrap(new byte[4]).asReadOnlyBuffer();
+
+    // Only the first message schedules a write, which takes every message queued by then
+    assertSame(Offer.SCHEDULED, queue.offer(shared));
+    assertSame(Offer.QUEUED, queue.offer(shared));
+    assertSame(Offer.QUEUED, queue.offer(shared));
+    assertEquals(12, queue.getBytes());
+    ByteBuffer[] buffers = queue.take();
+    assertEquals(3, buffers.length);
+    assertEquals(4, shared.remaining());
+
+    // A partial write keeps the rest queued
+    buffers[0].position(4);
+    buffers[1].position(2);
+    assertFalse(queue.written(6));
+    assertEquals(6, queue.getBytes());
+    assertEquals(2, queue.getDepth());
+    buffers = queue.peek();
+    for (ByteBuffer buffer : buffers) {
+      buffer.position(buffer.limit());
+    }
+    assertTrue(queue.written(6));
+    assertEquals(0, queue.getBytes());
+    assertEquals(1, queue.getFlushCount());
+    assertEquals(3, queue.getMaxDepth());
+    assertSame(Offer.SCHEDULED, queue.offer(shared));
+  }
+
+  @Test
+  void testSlowConsumerPolicy() throws InterruptedException {
+    OutboundQueue queue = new OutboundQueue(8, SlowConsumerPolicy.DISCONNECT);
+    ByteBuffer message = ByteBuffer.wrap(new byte[5]);
+    assertSame(Offer.SCHEDULED, queue.offer(message));
+    assertSame(Offer.OVERFLOWED, queue.offer(message));
+    queue.setPolicy(SlowConsumerPolicy.DROP);
+    assertSame(Offer.DROPPED, queue.offer(message));
+    assertEquals(1, queue.getDroppedCount());
+    assertSame(Offer.QUEUED, queue.offer(ByteBuffer.wrap(new byte[3])));
+
+    // A closed queue is drained and then ends the writer
+    queue.close();
+    assertSame(Offer.DROPPED, queue.offer(message));
+    ByteBuffer[] buffers = queue.take();
+    assertEquals(2, buffers.length);
+    for (ByteBuffer buffer : buffers) {
+      buffer.position(buffer.limit());
+    }
+    queue.written(8);
+    assertNull(queue.take());
+  }
+}
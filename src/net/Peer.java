@@ -1,35 +1,95 @@
 package net;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Scanner;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
-/** Created by erik.huizinga on 2-2-17. */
-public class Peer implements Runnable, Observer {
+/**
+ * Created by erik.huizinga on 2-2-17.
+ *
+ * <p>Lines and frames sent are queued in the bounded {@code OutboundQueue} of the peer, so a slow
+ * remote peer never blocks the sender. A writer thread, started by the thread starter of the
+ * peer, e.g., as a virtual thread, writes all messages queued by then and flushes them at once. A
+ * peer whose queue overflows is disconnected; on shutdown, the queued messages are written for at
+ * most {@code LINGER_MILLIS} milliseconds.
+ */
+public class Peer implements Runnable, Observer, Connection {
+
+  /** The longest time to write the queued messages on shutdown in milliseconds. */
+  public static final long LINGER_MILLIS = 500;
+
+  /** The capacity of the buffer of the output stream in bytes. */
+  private static final int OUTPUT_BUFFER_CAPACITY = 1 << 13;
 
-  // private final Socket socket;
   private final Socket socket;
   private final Scanner in;
-  private final PrintStream out;
+  private final OutputStream out;
+
+  /** The bytes sent and not yet written. */
+  private final OutboundQueue queue =
+      new OutboundQueue(
+          OutboundQueue.DEFAULT_MAX_BYTES, OutboundQueue.SlowConsumerPolicy.DISCONNECT);
+
+  /** The thread that writes the queued messages. */
+  private final Thread writer;
+
+  /** The switch indicating whether or not the connection carries binary frames. */
+  private volatile boolean isBinary;
+
+  /** The handler of the lines received, which prints them by default. */
+  private volatile Consumer<String> lineHandler = this::println;
 
   public Peer(Socket socket) {
-    // this.socket = socket;
+    this(socket, Peer::startDaemon);
+  }
+
+  /**
+   * Instantiate a new {@code Peer} whose writer thread is started by the specified thread starter.
+   *
+   * @param socket the {@code Socket}.
+   * @param threadStarter the starter of a thread that runs the specified task with the specified
+   *     name, which returns the started {@code Thread}.
+   */
+  public Peer(Socket socket, BiFunction<Runnable, String, Thread> threadStarter) {
     this.socket = socket;
 
     // Set I/O
     Scanner scanner = null;
-    PrintStream printStream = null;
+    OutputStream outputStream = null;
     try {
       scanner = new Scanner(socket.getInputStream());
-      printStream = new PrintStream(socket.getOutputStream(), true);
+      outputStream =
+          new BufferedOutputStream(socket.getOutputStream(), OUTPUT_BUFFER_CAPACITY);
     } catch (IOException e) {
       e.printStackTrace();
     }
     in = scanner;
-    out = printStream;
+    out = outputStream;
+    writer = threadStarter.apply(this::write, "peer writer");
+  }
+
+  /**
+   * Start a new platform daemon thread that runs the specified task.
+   *
+   * @param task the task.
+   * @param name the name of the thread.
+   * @return the started {@code Thread}.
+   */
+  private static Thread startDaemon(Runnable task, String name) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
   }
 
   public Scanner getIn() {
@@ -44,18 +104,63 @@ public class Peer implements Runnable, Observer {
   public void run() {
     String line;
     while (in.hasNextLine() && (line = in.nextLine()) != null) {
-      println(line);
+      lineHandler.accept(line);
     }
   }
 
+  /**
+   * Set the handler of the lines received, called on the thread of the peer.
+   *
+   * @param lineHandler the handler.
+   */
+  public void setLineHandler(Consumer<String> lineHandler) {
+    this.lineHandler = lineHandler;
+  }
+
+  @Override
   public void shutDown() {
-    in.close();
-    out.close();
+    // Let the writer write what is queued, for a while
+    queue.close();
+    if (Thread.currentThread() != writer) {
+      try {
+        writer.join(LINGER_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    close();
+  }
+
+  /** Close the socket, which unblocks the threads reading from and writing to it. */
+  private void close() {
+    queue.close();
     try {
       socket.close();
     } catch (IOException e) {
       e.printStackTrace();
     }
+    in.close();
+  }
+
+  /** Write the queued messages until the queue is closed and empty, on the writer thread. */
+  private void write() {
+    WritableByteChannel channel = Channels.newChannel(out);
+    try {
+      ByteBuffer[] buffers;
+      while ((buffers = queue.take()) != null) {
+        long count = 0;
+        for (ByteBuffer buffer : buffers) {
+          count += channel.write(buffer);
+        }
+        out.flush();
+        queue.written(count);
+      }
+    } catch (IOException e) {
+      // Closed
+      close();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 
   public void println(String string) {
@@ -66,10 +171,48 @@ public class Peer implements Runnable, Observer {
     new Thread(this).start();
   }
 
+  @Override
+  public void send(String line) {
+    send((line + "\n").getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public void send(byte[] frame) {
+    send(ByteBuffer.wrap(frame));
+  }
+
+  @Override
+  public void send(ByteBuffer bytes) {
+    if (queue.offer(bytes) == OutboundQueue.Offer.OVERFLOWED) {
+      // Too slow to keep up, so do not wait for the queued messages
+      close();
+    }
+  }
+
+  @Override
+  public int getPendingBytes() {
+    return queue.getBytes();
+  }
+
+  @Override
+  public OutboundQueue getOutboundQueue() {
+    return queue;
+  }
+
+  @Override
+  public boolean isBinary() {
+    return isBinary;
+  }
+
+  @Override
+  public void switchToBinary() {
+    isBinary = true;
+  }
+
   @Override
   public void update(Observable o, Object arg) {
     if (o instanceof Client && arg instanceof String) {
-      out.println((String) arg);
+      send((String) arg);
     }
   }
 }
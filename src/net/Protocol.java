@@ -2,6 +2,7 @@ package net;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /** Created by erik.huizinga on 2-2-17. */
 public class Protocol {
@@ -10,6 +11,27 @@ public class Protocol {
   public static final String BLACK = "BLACK";
   public static final String WHITE = "WHITE";
 
+  /** The characters of the points of a board by value: empty, black and white. */
+  public static final String POINTS = ".BW";
+
+  /** The pattern of a strategy configuration, e.g., {@code MCTS:2000}. */
+  public static final String STRATEGY_PATTERN = "^[\\w:.]{1,40}$";
+
+  /** The pattern of a playable index, which counts from zero. */
+  public static final String POSITION_PATTERN = "^\\d{1,3}$";
+
+  /** The pattern of a player name. */
+  public static final String NAME_PATTERN = "^\\w{1,20}$";
+
+  /** The compiled {@code STRATEGY_PATTERN}. */
+  private static final Pattern STRATEGY = Pattern.compile(STRATEGY_PATTERN);
+
+  /** The compiled {@code POSITION_PATTERN}. */
+  private static final Pattern POSITION = Pattern.compile(POSITION_PATTERN);
+
+  /** The compiled {@code NAME_PATTERN}. */
+  private static final Pattern NAME = Pattern.compile(NAME_PATTERN);
+
   /**
    * Validate and format the specified {@code ProtocolCommand} with the specified arguments.
    *
@@ -36,6 +58,106 @@ public class Protocol {
     return result;
   }
 
+  /**
+   * Check if the specified argument is a positive integer, e.g., a job number.
+   *
+   * @param arg the argument.
+   * @return {@code true} if valid; {@code false} otherwise.
+   */
+  public static boolean isPositiveInteger(String arg) {
+    try {
+      return Integer.parseInt(arg) > 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Check if the specified argument is a stone colour, i.e., {@code BLACK} or {@code WHITE}.
+   *
+   * @param arg the argument.
+   * @return {@code true} if valid; {@code false} otherwise.
+   */
+  public static boolean isColor(String arg) {
+    return BLACK.equals(arg) || WHITE.equals(arg);
+  }
+
+  /**
+   * Check if the specified arguments are the playable indices of a position, e.g., {@code 3 4}.
+   *
+   * @param argList the arguments.
+   * @return {@code true} if valid; {@code false} otherwise.
+   */
+  public static boolean isPosition(List<String> argList) {
+    return argList.size() == 2
+        && POSITION.matcher(argList.get(0)).matches()
+        && POSITION.matcher(argList.get(1)).matches();
+  }
+
+  /**
+   * Check if the specified arguments are a board, e.g., {@code 5 BLACK 12 ......B..W...}: the
+   * dimension, the colour to move, the sequence number of the last change and a character of
+   * {@code POINTS} for every point, for every y and for every x.
+   *
+   * @param argList the arguments.
+   * @return {@code true} if valid; {@code false} otherwise.
+   */
+  public static boolean isBoard(List<String> argList) {
+    if (argList.size() != 4 || !ClientCommand.GO.isValidArgList(argList.subList(0, 1))) {
+      return false;
+    }
+    int dimension = Integer.parseInt(argList.get(0));
+    String points = argList.get(3);
+    if (!isColor(argList.get(1))
+        || !isNumber(argList.get(2))
+        || points.length() != dimension * dimension) {
+      return false;
+    }
+    for (int i = 0; i < points.length(); i++) {
+      if (POINTS.indexOf(points.charAt(i)) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Check if the specified arguments are a change of a board, e.g., {@code BLACK 13 2 1 6 7}: the
+   * colour that moved, the sequence number of the change and, unless it passed, the playable
+   * indices of the move followed by the indices of the points it captured.
+   *
+   * @param argList the arguments.
+   * @return {@code true} if valid; {@code false} otherwise.
+   */
+  public static boolean isDelta(List<String> argList) {
+    if (argList.size() < 2 || argList.size() == 3 || !isColor(argList.get(0))) {
+      return false;
+    }
+    if (argList.size() > 2 && !isPosition(argList.subList(2, 4))) {
+      return false;
+    }
+    for (int i = 1; i < argList.size(); i++) {
+      if (!isNumber(argList.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Check if the specified argument is a non-negative integer, e.g., a sequence number.
+   *
+   * @param arg the argument.
+   * @return {@code true} if valid; {@code false} otherwise.
+   */
+  public static boolean isNumber(String arg) {
+    try {
+      return Integer.parseInt(arg) >= 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
   /**
    * Check if the specified dimension is valid conform protocol.
    *
@@ -49,15 +171,40 @@ public class Protocol {
   /** The {@code Client} protocol commands. */
   public enum ClientCommand implements ProtocolCommand {
     PLAYER,
-    GO;
+    GO,
+    MOVE,
+    PASS,
+    TABLEFLIP,
+    BINARY,
+    SPECTATE,
+    RESYNC,
+    PONG;
 
     @Override
     public boolean isValidArgList(List<String> argList) {
       boolean isValid;
       switch (this) {
+        case MOVE:
+          isValid = isPosition(argList);
+          break;
+
+        case SPECTATE:
+          isValid = PLAYER.isValidArgList(argList);
+          break;
+
+        case PASS:
+        case TABLEFLIP:
+        case BINARY:
+        case RESYNC:
+        case PONG:
+          isValid = true; // No arguments, ignore any
+          break;
+
         case PLAYER:
           isValid =
-              argList.size() > 0 && argList.get(0) != null && argList.get(0).matches("^\\w{1,20}$");
+              argList.size() > 0
+                  && argList.get(0) != null
+                  && NAME.matcher(argList.get(0)).matches();
           break;
 
         case GO:
@@ -84,13 +231,40 @@ public class Protocol {
   /** The {@code Server} protocol commands. */
   public enum ServerCommand implements ProtocolCommand {
     WAITING,
-    READY;
+    READY,
+    VALID,
+    INVALID,
+    PASSED,
+    TABLEFLIPPED,
+    END,
+    BINARY,
+    BOARD,
+    NOGAME,
+    DELTA,
+    PING;
 
     @Override
     public boolean isValidArgList(List<String> argList) {
       switch (this) {
         case WAITING:
+        case BINARY:
+        case PING:
           return true; // No arguments, ignore any
+        case VALID:
+          return argList.size() == 3
+              && isColor(argList.get(0))
+              && isPosition(argList.subList(1, 3));
+        case INVALID:
+        case PASSED:
+        case TABLEFLIPPED:
+        case END:
+          return argList.size() == 1 && isColor(argList.get(0));
+        case BOARD:
+          return isBoard(argList);
+        case DELTA:
+          return isDelta(argList);
+        case NOGAME:
+          return ClientCommand.PLAYER.isValidArgList(argList);
         case READY:
           return argList.size() == 3
               && (argList.get(0).equals(BLACK) || argList.get(0).equals(WHITE))
@@ -102,6 +276,53 @@ public class Protocol {
     }
   }
 
+  /** The {@code SelfPlayWorker} protocol commands. */
+  public enum WorkerCommand implements ProtocolCommand {
+    WORKER,
+    REQUEST,
+    RESULT;
+
+    @Override
+    public boolean isValidArgList(List<String> argList) {
+      switch (this) {
+        case WORKER:
+          return argList.size() == 2
+              && ClientCommand.PLAYER.isValidArgList(argList.subList(0, 1))
+              && isPositiveInteger(argList.get(1));
+        case REQUEST:
+          return true; // No arguments, ignore any
+        case RESULT:
+          return argList.size() >= 3
+              && isPositiveInteger(argList.get(0))
+              && ClientCommand.GO.isValidArgList(argList.subList(1, 2));
+        default:
+          return false;
+      }
+    }
+  }
+
+  /** The {@code SelfPlayCoordinator} protocol commands. */
+  public enum CoordinatorCommand implements ProtocolCommand {
+    JOB,
+    DONE;
+
+    @Override
+    public boolean isValidArgList(List<String> argList) {
+      switch (this) {
+        case JOB:
+          return argList.size() == 4
+              && isPositiveInteger(argList.get(0))
+              && ClientCommand.GO.isValidArgList(argList.subList(1, 2))
+              && STRATEGY.matcher(argList.get(2)).matches()
+              && STRATEGY.matcher(argList.get(3)).matches();
+        case DONE:
+          return true; // No arguments, ignore any
+        default:
+          return false;
+      }
+    }
+  }
+
   /** The general protocol commands for {@code Client}-{@code Server} communication. */
   public enum Command implements ProtocolCommand {
     CHAT;
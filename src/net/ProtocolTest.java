@@ -23,6 +23,20 @@ class ProtocolTest {
       assertEquals(
           "READY BLACK BARRYBADPAK 9",
           Protocol.validateAndFormatCommand(ServerCommand.READY, "black", "BarryBadpak", "9"));
+      assertEquals("MOVE 0 12", Protocol.validateAndFormatCommand(ClientCommand.MOVE, "0", "12"));
+      assertEquals(
+          "VALID WHITE 3 4",
+          Protocol.validateAndFormatCommand(ServerCommand.VALID, "white", "3", "4"));
+      assertEquals(
+          "BOARD 5 BLACK 12 ......B..W...............",
+          Protocol.validateAndFormatCommand(
+              ServerCommand.BOARD, "5", "black", "12", "......B..W..............."));
+      assertEquals(
+          "DELTA WHITE 13 2 1 6 7",
+          Protocol.validateAndFormatCommand(
+              ServerCommand.DELTA, "white", "13", "2", "1", "6", "7"));
+      assertEquals(
+          "DELTA BLACK 14", Protocol.validateAndFormatCommand(ServerCommand.DELTA, "black", "14"));
     } catch (MalformedCommandException e) {
       e.printStackTrace();
       fail("an Exception was thrown where it shouldn't");
@@ -36,5 +50,15 @@ class ProtocolTest {
     assertThrows(
         MalformedCommandException.class,
         () -> Protocol.validateAndFormatCommand(ServerCommand.READY, "gray", "somename", "19"));
+    assertThrows(
+        MalformedCommandException.class,
+        () -> Protocol.validateAndFormatCommand(ClientCommand.MOVE, "-1", "2"));
+    assertThrows(
+        MalformedCommandException.class,
+        () ->
+            Protocol.validateAndFormatCommand(ServerCommand.BOARD, "5", "black", "0", "......B"));
+    assertThrows(
+        MalformedCommandException.class,
+        () -> Protocol.validateAndFormatCommand(ServerCommand.DELTA, "white", "13", "2"));
   }
 }
@@ -0,0 +1,437 @@
+package net;
+
+import game.GameRecord;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import net.Protocol.CoordinatorCommand;
+import net.Protocol.MalformedCommandException;
+import net.Protocol.WorkerCommand;
+import players.strategy.Strategy;
+import players.tournament.Tournament;
+import players.tournament.Tournament.Mode;
+
+/**
+ * The coordinator of distributed self-play, which hands out the games of a {@code Tournament} as
+ * jobs to {@code SelfPlayWorker} processes and collects their results.
+ *
+ * <p>Workers pull jobs: a worker announces itself and sends a request for every game it can play
+ * at once, and a new request with every result, so faster workers get more jobs. The jobs of a
+ * worker whose connection is lost are handed out again, as is a job that is not finished within
+ * the job timeout, in case its worker hangs without disconnecting. A result that arrives for a job
+ * that was already finished elsewhere is ignored.
+ *
+ * <p>The protocol is line based: a worker sends {@code WORKER <name> <threads>}, {@code REQUEST}
+ * and {@code RESULT <job> <game record>}, the coordinator sends {@code JOB <job> <dim> <black>
+ * <white>}, in which the participants are strategy configurations, and {@code DONE} when every job
+ * is finished.
+ */
+public class SelfPlayCoordinator {
+
+  public static final String USAGE =
+      "usage: java "
+          + SelfPlayCoordinator.class.getName()
+          + " <port> <results file> <round-robin|gauntlet> <games per pairing>"
+          + " <dim>[,<dim>...] <strategy>...";
+
+  /** The default time a worker gets to finish a job in milliseconds. */
+  public static final long DEFAULT_JOB_TIMEOUT_MILLIS = 600_000;
+
+  /** The duration of a tick of the timer in milliseconds. */
+  private static final long TIMER_TICK_MILLIS = 100;
+
+  /** The number of buckets of the timer wheel. */
+  private static final int TIMER_WHEEL_SIZE = 512;
+
+  /** The {@code Tournament}, whose participant names are strategy configurations. */
+  private final Tournament tournament;
+
+  /** The games by job number minus one, each as black, white and dimension. */
+  private final List<int[]> games;
+
+  /** The {@code Writer} of the results. */
+  private final Writer results;
+
+  /** The {@code ServerSocket}. */
+  private final ServerSocket serverSocket;
+
+  /** The numbers of the jobs that are not assigned to a worker. */
+  private final Deque<Integer> pendingJobs = new ArrayDeque<>();
+
+  /** The numbers of the finished jobs. */
+  private final Set<Integer> finishedJobs = new HashSet<>();
+
+  /** The connected workers. */
+  private final List<WorkerHandler> workers = new LinkedList<>();
+
+  /** The time a worker gets to finish a job in milliseconds. */
+  private final long jobTimeoutMillis;
+
+  /** The {@code HashedWheelTimer} of the job timeouts, whose short tasks run on its thread. */
+  private final HashedWheelTimer timer =
+      new HashedWheelTimer(Runnable::run, TIMER_TICK_MILLIS, TIMER_WHEEL_SIZE);
+
+  /** The number of jobs handed out again after their worker was lost or timed out. */
+  private int retries;
+
+  /** The switch indicating whether or not the coordinator accepts new workers. */
+  private volatile boolean isOpen;
+
+  /**
+   * Instantiate a new {@code SelfPlayCoordinator} that listens on the specified port, with the
+   * default job timeout.
+   *
+   * @param tournament the {@code Tournament}, whose participant names are strategy
+   *     configurations.
+   * @param port the port, or zero for any free port.
+   * @param results the {@code Writer} to stream the results to.
+   * @throws IOException if the port cannot be opened.
+   */
+  public SelfPlayCoordinator(Tournament tournament, int port, Writer results) throws IOException {
+    this(tournament, port, results, DEFAULT_JOB_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Instantiate a new {@code SelfPlayCoordinator} that listens on the specified port.
+   *
+   * @param tournament the {@code Tournament}, whose participant names are strategy
+   *     configurations.
+   * @param port the port, or zero for any free port.
+   * @param results the {@code Writer} to stream the results to.
+   * @param jobTimeoutMillis the time a worker gets to finish a job in milliseconds, after which
+   *     the job is handed out again.
+   * @throws IOException if the port cannot be opened.
+   */
+  public SelfPlayCoordinator(
+      Tournament tournament, int port, Writer results, long jobTimeoutMillis) throws IOException {
+    if (jobTimeoutMillis <= 0) {
+      throw new AssertionError("job timeout must be greater than zero");
+    }
+    this.tournament = tournament;
+    this.results = results;
+    this.jobTimeoutMillis = jobTimeoutMillis;
+    games = tournament.schedule();
+    for (int job = 1; job <= games.size(); job++) {
+      pendingJobs.add(job);
+    }
+    serverSocket = new ServerSocket(port);
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 7) {
+      System.out.println("incorrect number of input arguments");
+      System.out.println(USAGE);
+      System.exit(0);
+    }
+
+    int port;
+    Tournament tournament;
+    try {
+      port = Integer.parseInt(args[0]);
+      String[] dimArgs = args[4].split(",");
+      int[] dims = new int[dimArgs.length];
+      for (int i = 0; i < dims.length; i++) {
+        dims[i] = Integer.parseInt(dimArgs[i]);
+        if (!Protocol.isValidDimension(dims[i])) {
+          throw new IllegalArgumentException("invalid board dimension: " + dims[i]);
+        }
+      }
+      List<String> names = Arrays.asList(args).subList(5, args.length);
+      List<Supplier<Strategy>> strategies = new ArrayList<>();
+      for (String name : names) {
+        strategies.add(Tournament.parseStrategy(name));
+      }
+      tournament =
+          new Tournament(
+              names,
+              strategies,
+              Mode.valueOf(args[2].toUpperCase().replace('-', '_')),
+              dims,
+              Integer.parseInt(args[3]),
+              1);
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+      System.out.println(USAGE);
+      System.exit(0);
+      return;
+    }
+
+    try (Writer results = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+      SelfPlayCoordinator coordinator = new SelfPlayCoordinator(tournament, port, results);
+      System.out.println("coordinating " + tournament.schedule().size() + " games on port " + port);
+      coordinator.start();
+      coordinator.awaitCompletion();
+      coordinator.close();
+      System.out.println(coordinator.getRetries() + " games were retried");
+    } catch (IOException | InterruptedException e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+    tournament.report(System.out);
+  }
+
+  /** @return the port the coordinator listens on. */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /** @return the number of jobs handed out again after their worker was lost or timed out. */
+  public synchronized int getRetries() {
+    return retries;
+  }
+
+  /** @return the number of finished jobs. */
+  public synchronized int getFinishedCount() {
+    return finishedJobs.size();
+  }
+
+  /** Start accepting workers on a background thread. */
+  public void start() {
+    isOpen = true;
+    tournament.start();
+    timer.start();
+    Thread thread = new Thread(this::acceptWorkers, "self-play coordinator");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Wait until every job is finished and tell the workers they are done.
+   *
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public synchronized void awaitCompletion() throws InterruptedException {
+    while (finishedJobs.size() < games.size()) {
+      wait();
+    }
+    for (WorkerHandler worker : workers) {
+      worker.send(CoordinatorCommand.DONE);
+    }
+  }
+
+  /** Stop accepting workers and disconnect the connected ones. */
+  public void close() {
+    isOpen = false;
+    timer.stop();
+    try {
+      serverSocket.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    List<WorkerHandler> connected;
+    synchronized (this) {
+      connected = new ArrayList<>(workers);
+    }
+    for (WorkerHandler worker : connected) {
+      worker.peer.shutDown();
+    }
+  }
+
+  /** Accept workers until closed, each handled by its own thread. */
+  private void acceptWorkers() {
+    while (isOpen) {
+      try {
+        Socket socket = serverSocket.accept();
+        WorkerHandler worker = new WorkerHandler(new Peer(socket));
+        synchronized (this) {
+          workers.add(worker);
+        }
+        new Thread(worker, "self-play worker handler").start();
+      } catch (SocketException e) {
+        // Closed
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /** Assign pending jobs to the workers that requested them. */
+  private synchronized void dispatch() {
+    for (WorkerHandler worker : workers) {
+      while (worker.requests > 0 && !pendingJobs.isEmpty()) {
+        int job = pendingJobs.poll();
+        int[] game = games.get(job - 1);
+        List<String> names = tournament.getNames();
+        worker.requests--;
+        worker.jobs.put(job, timer.schedule(() -> expire(worker, job), jobTimeoutMillis));
+        worker.send(
+            CoordinatorCommand.JOB,
+            Integer.toString(job),
+            Integer.toString(game[2]),
+            names.get(game[0]),
+            names.get(game[1]));
+      }
+    }
+  }
+
+  /**
+   * Finish the specified job of the specified worker with the specified result, unless it was
+   * already finished elsewhere.
+   *
+   * @param worker the worker.
+   * @param job the job number.
+   * @param record the {@code GameRecord}.
+   * @throws IOException if writing the result fails.
+   */
+  private synchronized void finish(WorkerHandler worker, int job, GameRecord record)
+      throws IOException {
+    HashedWheelTimer.Timeout timeout = worker.jobs.remove(job);
+    if (timeout != null) {
+      timeout.cancel();
+    }
+    if (job > games.size() || !finishedJobs.add(job)) {
+      return;
+    }
+    pendingJobs.remove(job);
+    int[] game = games.get(job - 1);
+    tournament.addResult(game[0], game[1], record, results);
+    if (finishedJobs.size() == games.size()) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Forget the specified lost worker and hand out its unfinished jobs again.
+   *
+   * @param worker the worker.
+   */
+  private synchronized void lose(WorkerHandler worker) {
+    workers.remove(worker);
+    int lostJobs = 0;
+    for (Map.Entry<Integer, HashedWheelTimer.Timeout> entry : worker.jobs.entrySet()) {
+      entry.getValue().cancel();
+      if (!finishedJobs.contains(entry.getKey())) {
+        pendingJobs.addFirst(entry.getKey());
+        lostJobs++;
+      }
+    }
+    worker.jobs.clear();
+    if (lostJobs > 0) {
+      retries += lostJobs;
+      System.out.println("lost worker " + worker.name + ", retrying " + lostJobs + " games");
+    }
+    dispatch();
+  }
+
+  /**
+   * Take the specified job from the specified worker that did not finish it in time and hand it out
+   * again. The worker keeps its connection, and its result is still taken if it comes first.
+   *
+   * @param worker the worker.
+   * @param job the job number.
+   */
+  private synchronized void expire(WorkerHandler worker, int job) {
+    if (worker.jobs.remove(job) == null || finishedJobs.contains(job)) {
+      return;
+    }
+    pendingJobs.addFirst(job);
+    retries++;
+    System.out.println("worker " + worker.name + " timed out on job " + job + ", retrying it");
+    dispatch();
+  }
+
+  /** The handler of the connection to a single worker. */
+  private class WorkerHandler implements Runnable {
+
+    /** The {@code Peer} of the worker. */
+    private final Peer peer;
+
+    /** The timeouts of the jobs assigned to the worker and not yet finished, by job number. */
+    private final Map<Integer, HashedWheelTimer.Timeout> jobs = new HashMap<>();
+
+    /** The number of requested jobs not yet assigned. */
+    private int requests;
+
+    /** The name of the worker. */
+    private String name = "unnamed";
+
+    /**
+     * Instantiate a new {@code WorkerHandler}.
+     *
+     * @param peer the {@code Peer} of the worker.
+     */
+    private WorkerHandler(Peer peer) {
+      this.peer = peer;
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (peer.getIn().hasNextLine()) {
+          List<String> tokens = Arrays.asList(peer.getIn().nextLine().trim().split(Protocol.SPACE));
+          List<String> args = tokens.subList(1, tokens.size());
+          WorkerCommand command;
+          try {
+            command = WorkerCommand.valueOf(tokens.get(0));
+          } catch (IllegalArgumentException e) {
+            continue;
+          }
+          if (!command.isValidArgList(args)) {
+            continue;
+          }
+          switch (command) {
+            case WORKER:
+              name = args.get(0);
+              break;
+            case REQUEST:
+              synchronized (SelfPlayCoordinator.this) {
+                requests++;
+                dispatch();
+              }
+              break;
+            case RESULT:
+              int job = Integer.parseInt(args.get(0));
+              String line = String.join(Protocol.SPACE, tokens.subList(2, tokens.size()));
+              GameRecord record;
+              try {
+                record = GameRecord.parse(line);
+              } catch (IllegalArgumentException e) {
+                continue;
+              }
+              finish(this, job, record);
+              break;
+            default:
+              break;
+          }
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+      } catch (IllegalStateException e) {
+        // Closed
+      } finally {
+        lose(this);
+        peer.shutDown();
+      }
+    }
+
+    /**
+     * Send the specified command to the worker.
+     *
+     * @param command the {@code CoordinatorCommand}.
+     * @param args the arguments.
+     */
+    private void send(CoordinatorCommand command, String... args) {
+      try {
+        peer.send(Protocol.validateAndFormatCommand(command, args));
+      } catch (MalformedCommandException e) {
+        throw new AssertionError("coordinator commands must be well formed", e);
+      }
+    }
+  }
+}
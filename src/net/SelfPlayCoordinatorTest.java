@@ -0,0 +1,170 @@
+package net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import players.strategy.Strategy;
+import players.tournament.Tournament;
+import players.tournament.Tournament.Mode;
+
+class SelfPlayCoordinatorTest {
+
+  private static Tournament tournament(String black, String white, int gamesPerPairing) {
+    List<String> names = Arrays.asList(black, white);
+    List<Supplier<Strategy>> strategies =
+        Arrays.asList(Tournament.parseStrategy(black), Tournament.parseStrategy(white));
+    return new Tournament(names, strategies, Mode.ROUND_ROBIN, new int[] {5}, gamesPerPairing, 1);
+  }
+
+  private static Process startWorker(String name, int port) throws IOException {
+    return new ProcessBuilder(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp",
+            System.getProperty("java.class.path"),
+            SelfPlayWorker.class.getName(),
+            name,
+            "localhost",
+            Integer.toString(port),
+            "1")
+        .inheritIO()
+        .start();
+  }
+
+  @Test
+  void testRetryLostJobs() throws IOException, InterruptedException {
+    List<String> names = Arrays.asList("random", "pass");
+    List<Supplier<Strategy>> strategies =
+        Arrays.asList(Tournament.parseStrategy("random"), Tournament.parseStrategy("pass"));
+    Tournament tournament =
+        new Tournament(names, strategies, Mode.ROUND_ROBIN, new int[] {5, 7}, 10, 1);
+    StringWriter results = new StringWriter();
+    SelfPlayCoordinator coordinator = new SelfPlayCoordinator(tournament, 0, results);
+    coordinator.start();
+
+    // A worker that takes two jobs and dies
+    try (Socket socket = new Socket("localhost", coordinator.getPort())) {
+      PrintStream out = new PrintStream(socket.getOutputStream(), true);
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+      out.println("WORKER FLAKY 2");
+      out.println("REQUEST");
+      out.println("REQUEST");
+      assertTrue(in.readLine().startsWith("JOB "));
+      assertTrue(in.readLine().startsWith("JOB "));
+    }
+
+    SelfPlayWorker[] workers = new SelfPlayWorker[2];
+    Thread[] threads = new Thread[workers.length];
+    for (int i = 0; i < workers.length; i++) {
+      SelfPlayWorker worker =
+          new SelfPlayWorker("worker" + i, "localhost", coordinator.getPort(), 2);
+      workers[i] = worker;
+      threads[i] =
+          new Thread(
+              () -> {
+                try {
+                  worker.run();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+              });
+      threads[i].start();
+    }
+    coordinator.awaitCompletion();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    coordinator.close();
+
+    assertEquals(2, coordinator.getRetries());
+    assertEquals(20, tournament.getGameCount());
+    assertEquals(20, results.toString().split(System.lineSeparator()).length);
+    assertEquals(20, workers[0].getGamesPlayed() + workers[1].getGamesPlayed());
+    assertTrue(tournament.getElo().getRating(0) > tournament.getElo().getRating(1));
+  }
+
+  @Test
+  void testRetryKilledWorkerProcess() throws IOException, InterruptedException {
+    Tournament tournament = tournament("mcts:200", "random", 8);
+    StringWriter results = new StringWriter();
+    SelfPlayCoordinator coordinator = new SelfPlayCoordinator(tournament, 0, results);
+    coordinator.start();
+
+    // A worker process that is killed while it plays its next game
+    Process flaky = startWorker("FLAKY", coordinator.getPort());
+    try {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+      while (coordinator.getFinishedCount() == 0 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertTrue(coordinator.getFinishedCount() > 0);
+
+      // Let the result be followed by the request of the next job
+      Thread.sleep(50);
+    } finally {
+      flaky.destroyForcibly().waitFor();
+    }
+
+    // A worker process that plays the rest, including the game of the killed one
+    Process steady = startWorker("STEADY", coordinator.getPort());
+    try {
+      coordinator.awaitCompletion();
+      assertTrue(steady.waitFor(60, TimeUnit.SECONDS));
+      assertEquals(0, steady.exitValue());
+    } finally {
+      steady.destroyForcibly();
+      coordinator.close();
+    }
+    assertTrue(coordinator.getRetries() > 0);
+    assertEquals(8, tournament.getGameCount());
+    assertEquals(8, results.toString().split(System.lineSeparator()).length);
+  }
+
+  @Test
+  void testRetryTimedOutJob() throws IOException, InterruptedException {
+    Tournament tournament = tournament("random", "pass", 2);
+    StringWriter results = new StringWriter();
+    SelfPlayCoordinator coordinator = new SelfPlayCoordinator(tournament, 0, results, 300);
+    coordinator.start();
+
+    // A worker that takes a job and hangs without disconnecting
+    try (Socket socket = new Socket("localhost", coordinator.getPort())) {
+      PrintStream out = new PrintStream(socket.getOutputStream(), true);
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+      out.println("WORKER HUNG 1");
+      out.println("REQUEST");
+      assertTrue(in.readLine().startsWith("JOB "));
+
+      SelfPlayWorker worker = new SelfPlayWorker("worker", "localhost", coordinator.getPort(), 1);
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  worker.run();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+              });
+      thread.start();
+      coordinator.awaitCompletion();
+      thread.join();
+      assertEquals("DONE", in.readLine());
+      assertEquals(1, coordinator.getRetries());
+      assertEquals(2, worker.getGamesPlayed());
+      assertEquals(2, tournament.getGameCount());
+    } finally {
+      coordinator.close();
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package net;
+
+import game.GameRecord;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.Protocol.CoordinatorCommand;
+import net.Protocol.MalformedCommandException;
+import net.Protocol.ProtocolCommand;
+import net.Protocol.WorkerCommand;
+import players.tournament.Tournament;
+
+/**
+ * A worker of distributed self-play, which plays headless games for a {@code SelfPlayCoordinator}
+ * on a number of threads and sends their records back, until the coordinator is done or the
+ * connection is lost.
+ */
+public class SelfPlayWorker {
+
+  public static final String USAGE =
+      "usage: java "
+          + SelfPlayWorker.class.getName()
+          + " <name> <address> <port> [<threads>]";
+
+  /** The name. */
+  private final String name;
+
+  /** The {@code Peer} of the coordinator. */
+  private final Peer peer;
+
+  /** The number of threads. */
+  private final int threads;
+
+  /** The executor of the games. */
+  private final ExecutorService executor;
+
+  /** The number of games played. */
+  private final AtomicInteger gamesPlayed = new AtomicInteger();
+
+  /**
+   * Instantiate a new {@code SelfPlayWorker} and connect to the coordinator.
+   *
+   * @param name the name.
+   * @param address the address of the coordinator.
+   * @param port the port of the coordinator.
+   * @param threads the number of games to play at once.
+   * @throws IOException if the connection fails.
+   */
+  public SelfPlayWorker(String name, String address, int port, int threads) throws IOException {
+    if (threads <= 0) {
+      throw new AssertionError("threads must be greater than zero");
+    }
+    this.name = name;
+    this.threads = threads;
+    peer = new Peer(new Socket(address, port));
+    executor = Executors.newFixedThreadPool(threads);
+  }
+
+  public static void main(String[] args) {
+    if (args.length != 3 && args.length != 4) {
+      System.out.println("incorrect number of input arguments");
+      System.out.println(USAGE);
+      System.exit(0);
+    }
+
+    String name = args[0];
+    if (!name.matches("^\\w{1,20}$")) {
+      System.out.println("first argument must be a name of at most 20 word characters");
+      System.out.println(USAGE);
+      System.exit(0);
+    }
+
+    int threads =
+        args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+    try {
+      SelfPlayWorker worker = new SelfPlayWorker(name, args[1], Integer.parseInt(args[2]), threads);
+      worker.run();
+      System.out.println("played " + worker.getGamesPlayed() + " games");
+    } catch (IOException | InterruptedException e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  /** @return the number of games played. */
+  public int getGamesPlayed() {
+    return gamesPlayed.get();
+  }
+
+  /**
+   * Announce this worker, request a job for every thread and play the jobs that come in, until the
+   * coordinator is done or the connection is lost.
+   *
+   * @throws InterruptedException if interrupted while finishing the last games.
+   */
+  public void run() throws InterruptedException {
+    send(WorkerCommand.WORKER, name, Integer.toString(threads));
+    for (int i = 0; i < threads; i++) {
+      send(WorkerCommand.REQUEST);
+    }
+    try {
+      while (peer.getIn().hasNextLine()) {
+        List<String> tokens = Arrays.asList(peer.getIn().nextLine().trim().split(Protocol.SPACE));
+        List<String> args = tokens.subList(1, tokens.size());
+        if (tokens.get(0).equals(CoordinatorCommand.DONE.toString())) {
+          break;
+        }
+        if (tokens.get(0).equals(CoordinatorCommand.JOB.toString())
+            && CoordinatorCommand.JOB.isValidArgList(args)) {
+          executor.execute(() -> play(args));
+        }
+      }
+    } catch (IllegalStateException e) {
+      // Closed
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      peer.shutDown();
+    }
+  }
+
+  /**
+   * Play the specified job, send its result and request the next one.
+   *
+   * @param args the arguments of the job: its number, the dimension and the strategy
+   *     configurations of black and white.
+   */
+  private void play(List<String> args) {
+    GameRecord record =
+        Tournament.play(
+            Tournament.parseStrategy(args.get(2)).get(),
+            Tournament.parseStrategy(args.get(3)).get(),
+            Integer.parseInt(args.get(1)));
+    gamesPlayed.incrementAndGet();
+    String[] result = (args.get(0) + Protocol.SPACE + record).split(Protocol.SPACE);
+    send(WorkerCommand.RESULT, result);
+    send(WorkerCommand.REQUEST);
+  }
+
+  /**
+   * Send the specified command to the coordinator.
+   *
+   * @param command the {@code ProtocolCommand}.
+   * @param args the arguments.
+   */
+  private void send(ProtocolCommand command, String... args) {
+    try {
+      peer.send(Protocol.validateAndFormatCommand(command, args));
+    } catch (MalformedCommandException e) {
+      throw new AssertionError("worker commands must be well formed", e);
+    }
+  }
+}
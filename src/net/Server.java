@@ -1,17 +1,20 @@
 package net;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Observable;
-import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import net.Protocol.ClientCommand;
 import net.Protocol.MalformedCommandException;
 import net.Protocol.ProtocolCommand;
@@ -20,42 +23,157 @@ import net.Protocol.ServerCommand;
 /** Created by erik.huizinga on 2-2-17. */
 public class Server {
 
-  public static final String USAGE = "usage: java " + Server.class.getName() + " <name> <port>";
+  public static final String USAGE =
+      "usage: java " + Server.class.getName() + " <name> <port> [thread|virtual|nio]";
+
+  /** The maximum number of connections waiting to be accepted. */
+  public static final int ACCEPT_BACKLOG = 1024;
+
+  /** The initial capacity of the line buffer of a client in thread mode in bytes. */
+  private static final int INITIAL_LINE_CAPACITY = 64;
+
+  /** The number of threads that host the games. */
+  public static final int GAME_THREADS = Runtime.getRuntime().availableProcessors();
+
+  /** The default time between heartbeats of a client in milliseconds. */
+  public static final long DEFAULT_HEARTBEAT_MILLIS = 15_000;
+
+  /** The default time after which a client that sent nothing is disconnected in milliseconds. */
+  public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60_000;
+
+  /** The default time a client has for a move in milliseconds. */
+  public static final long DEFAULT_MOVE_TIMEOUT_MILLIS = 300_000;
+
+  /** The duration of a tick of the timer in milliseconds. */
+  private static final long TIMER_TICK_MILLIS = 50;
+
+  /** The number of buckets of the timer wheel. */
+  private static final int TIMER_WHEEL_SIZE = 512;
 
   /** The name. */
   private final String name;
 
-  /** The {@code ServerSocket}. */
+  /** The {@code Mode}. */
+  private final Mode mode;
+
+  /** The {@code ServerSocket} in thread and virtual mode, or {@code null}. */
   private final ServerSocket serverSocket;
 
-  /** The list of client peers. */
-  private final Collection<Peer> clients = new LinkedList<>();
+  /** The {@code NioServer} in NIO mode, or {@code null}. */
+  private final NioServer nioServer;
+
+  /** The connected clients. */
+  private final Set<Connection> clients = ConcurrentHashMap.newKeySet();
 
-  /** The map of peers and their desired board dimensions. */
-  private final Map<Peer, Integer> waitingPeerDimensionMap = new HashMap<>();
+  /** The {@code Matchmaker} of the clients waiting for an opponent. */
+  private final Matchmaker<Lobby> matchmaker = new Matchmaker<>(this::startGame);
 
-  /** The list of matched peers playing games. */
-  private final List<List<Peer>> gameList = new LinkedList<>();
+  /** The games being played. */
+  private final Set<GameHandler> games = ConcurrentHashMap.newKeySet();
+
+  /** The {@code ExecutorService} shared by the games, which are actors, and the timer tasks. */
+  private final ExecutorService gameExecutor =
+      Executors.newFixedThreadPool(
+          GAME_THREADS,
+          task -> {
+            Thread thread = new Thread(task, "game host");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * The {@code HashedWheelTimer} of the heartbeats of the clients and the move clocks of the games,
+   * whose tasks run on the executor of the games.
+   */
+  private final HashedWheelTimer timer =
+      new HashedWheelTimer(gameExecutor, TIMER_TICK_MILLIS, TIMER_WHEEL_SIZE);
+
+  /** The time between heartbeats of a client in milliseconds. */
+  private final long heartbeatMillis;
+
+  /** The time after which a client that sent nothing is disconnected in milliseconds. */
+  private final long idleTimeoutMillis;
+
+  /** The time a client has for a move in milliseconds. */
+  private final long moveTimeoutMillis;
+
+  /** The number of clients disconnected for being idle. */
+  private final AtomicLong evictedCount = new AtomicLong();
 
   /**
    * The switch indicating whether or not the {@code Server} is open to accept new connections from
    * clients.
    */
-  private boolean isOpen;
+  private volatile boolean isOpen;
 
   public Server(String name, int port) {
+    this(name, port, Mode.THREAD);
+  }
+
+  /**
+   * Instantiate a new {@code Server} that listens on the specified port, with the default
+   * timeouts.
+   *
+   * @param name the name.
+   * @param port the port, or zero for any free port.
+   * @param mode the {@code Mode}.
+   */
+  public Server(String name, int port, Mode mode) {
+    this(
+        name,
+        port,
+        mode,
+        DEFAULT_HEARTBEAT_MILLIS,
+        DEFAULT_IDLE_TIMEOUT_MILLIS,
+        DEFAULT_MOVE_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Instantiate a new {@code Server} that listens on the specified port.
+   *
+   * <p>Every {@code heartbeatMillis}, a client that sent nothing since the last heartbeat receives
+   * {@code PING}, which it answers with {@code PONG}; a client that sent nothing for {@code
+   * idleTimeoutMillis} is disconnected. A client that takes longer than {@code moveTimeoutMillis}
+   * for a move loses its game.
+   *
+   * @param name the name.
+   * @param port the port, or zero for any free port.
+   * @param mode the {@code Mode}.
+   * @param heartbeatMillis the time between heartbeats of a client in milliseconds.
+   * @param idleTimeoutMillis the time after which a client that sent nothing is disconnected in
+   *     milliseconds.
+   * @param moveTimeoutMillis the time a client has for a move in milliseconds.
+   */
+  public Server(
+      String name,
+      int port,
+      Mode mode,
+      long heartbeatMillis,
+      long idleTimeoutMillis,
+      long moveTimeoutMillis) {
     this.name = name;
+    this.mode = mode;
+    this.heartbeatMillis = heartbeatMillis;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.moveTimeoutMillis = moveTimeoutMillis;
     ServerSocket serverSocket = null;
+    NioServer nioServer = null;
     try {
-      serverSocket = new ServerSocket(port);
+      if (mode == Mode.NIO) {
+        nioServer =
+            new NioServer(port, ACCEPT_BACKLOG, NioServer.DEFAULT_SELECTOR_COUNT, Lobby::new);
+      } else {
+        serverSocket = new ServerSocket(port, ACCEPT_BACKLOG);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
     this.serverSocket = serverSocket;
+    this.nioServer = nioServer;
   }
 
   public static void main(String[] args) {
-    if (args.length != 2) {
+    if (args.length < 2 || args.length > 3) {
       System.out.println("incorrect number of input arguments");
       System.out.println(USAGE);
       System.exit(0);
@@ -75,21 +193,109 @@ public class Server {
       System.exit(0);
     }
 
-    Server server = new Server(name, port);
+    Mode mode = Mode.THREAD;
+    if (args.length == 3) {
+      try {
+        mode = Mode.valueOf(args[2].toUpperCase());
+      } catch (IllegalArgumentException e) {
+        System.out.println("third argument must be thread, virtual or nio");
+        System.out.println(USAGE);
+        System.exit(0);
+      }
+    }
+
+    Server server = new Server(name, port, mode);
     server.startServer();
     server.stopServer();
   }
 
+  /** @return the port the server listens on. */
+  public int getPort() {
+    return mode == Mode.NIO ? nioServer.getPort() : serverSocket.getLocalPort();
+  }
+
+  /** @return the number of connected clients. */
+  public int getClientCount() {
+    return clients.size();
+  }
+
+  /** @return the number of clients waiting for an opponent. */
+  public int getWaitingCount() {
+    return matchmaker.getQueueDepth();
+  }
+
+  /**
+   * Get the number of clients waiting for an opponent on the specified board dimension.
+   *
+   * @param dimension the board dimension.
+   * @return the number of clients.
+   */
+  public int getWaitingCount(int dimension) {
+    return matchmaker.getQueueDepth(dimension);
+  }
+
+  /** @return the number of games started. */
+  public long getMatchCount() {
+    return matchmaker.getMatchCount();
+  }
+
+  /** @return the most messages queued for a connected client and not yet written. */
+  public int getMaxQueueDepth() {
+    int maxDepth = 0;
+    for (Connection client : clients) {
+      maxDepth = Math.max(maxDepth, client.getOutboundQueue().getDepth());
+    }
+    return maxDepth;
+  }
+
+  /** @return the number of messages dropped for slow clients that are connected. */
+  public long getDroppedCount() {
+    long droppedCount = 0;
+    for (Connection client : clients) {
+      droppedCount += client.getOutboundQueue().getDroppedCount();
+    }
+    return droppedCount;
+  }
+
+  /** @return the number of clients disconnected for being idle. */
+  public long getEvictedCount() {
+    return evictedCount.get();
+  }
+
+  /** @return the number of games being played. */
+  public int getGameCount() {
+    return games.size();
+  }
+
+  /** Start serving clients on a background thread. */
+  public void start() {
+    isOpen = true;
+    Thread thread = new Thread(this::startServer, "server " + name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Stop serving clients and disconnect the connected ones. */
+  public void close() {
+    stopServer();
+    timer.stop();
+    for (Connection client : clients) {
+      client.shutDown();
+    }
+    gameExecutor.shutdown();
+  }
+
   private void acceptClients() {
     Socket socket;
     Peer peer;
     while (isOpen) {
       try {
         socket = serverSocket.accept();
-        peer = new Peer(socket);
-        clients.add(peer);
+        peer = new Peer(socket, this::startThread);
         new ClientHandler(peer).start();
 
+      } catch (SocketException e) {
+        // Closed
       } catch (IOException e) {
         e.printStackTrace();
       }
@@ -98,11 +304,20 @@ public class Server {
 
   private void startServer() {
     isOpen = true;
-    acceptClients();
+    timer.start();
+    if (mode == Mode.NIO) {
+      nioServer.run();
+    } else {
+      acceptClients();
+    }
   }
 
   private void stopServer() {
     isOpen = false;
+    if (mode == Mode.NIO) {
+      nioServer.close();
+      return;
+    }
     try {
       serverSocket.close();
     } catch (IOException e) {
@@ -110,115 +325,400 @@ public class Server {
     }
   }
 
-  private synchronized void add2WaitingMap(Peer peer, int dimension) {
-    waitingPeerDimensionMap.put(peer, dimension);
-    checkWaitingPeerDimensionMap4DimensionMatch();
+  /**
+   * Start a new thread of the kind of the mode that runs the specified task.
+   *
+   * @param task the task.
+   * @param name the name of the thread.
+   * @return the started {@code Thread}.
+   */
+  private Thread startThread(Runnable task, String name) {
+    if (mode == Mode.VIRTUAL) {
+      return VirtualThreads.start(task, name);
+    }
+    Thread thread = new Thread(task, name);
+    thread.start();
+    return thread;
+  }
+
+  /**
+   * Send the specified command over the specified connection.
+   *
+   * @param connection the {@code Connection}.
+   * @param protocolCommand the {@code ProtocolCommand}.
+   * @param keys the arguments.
+   */
+  private void sendCommand(Connection connection, ProtocolCommand protocolCommand, String... keys) {
+    if (connection.isBinary()) {
+      if (keys.length > 0) {
+        throw new AssertionError("only commands without arguments are sent as frames here");
+      }
+      connection.send(BinaryProtocol.encode(protocolCommand));
+      return;
+    }
+    try {
+      connection.send(Protocol.validateAndFormatCommand(protocolCommand, keys));
+    } catch (MalformedCommandException e) {
+      e.printStackTrace();
+      connection.shutDown();
+    }
+  }
+
+  /**
+   * Start a game between the specified clients on the specified board dimension.
+   *
+   * @param black the {@code Lobby} of the client that plays black.
+   * @param white the {@code Lobby} of the client that plays white.
+   * @param dimension the board dimension.
+   */
+  private void startGame(Lobby black, Lobby white, int dimension) {
+    GameHandler game =
+        new GameHandler(
+            gameExecutor,
+            dimension,
+            black.connection,
+            black.playerName,
+            white.connection,
+            white.playerName,
+            games::remove,
+            timer,
+            moveTimeoutMillis);
+    games.add(game);
+    black.game = game;
+    white.game = game;
+    game.start();
   }
 
-  private synchronized void checkWaitingPeerDimensionMap4DimensionMatch() {
-    if (waitingPeerDimensionMap.size() >= 2) {
-      Map<Integer, Peer> waitingDimensionPeerMap = new HashMap<>();
-      Map<Peer, Integer> waitingPeerDimensionMapCopy = new HashMap<>(waitingPeerDimensionMap);
+  /** The modes of serving client connections. */
+  public enum Mode {
+    /** A blocking socket and a platform thread per connection. */
+    THREAD,
+    /**
+     * A blocking socket and a virtual thread per connection, or a platform thread on runtimes
+     * without virtual threads.
+     */
+    VIRTUAL,
+    /** Non-blocking channels served by a few selector threads. */
+    NIO
+  }
 
-      for (Entry<Peer, Integer> entry : waitingPeerDimensionMapCopy.entrySet()) {
-        if (waitingDimensionPeerMap.containsKey(
-            entry.getValue())) { // There is a match, match up the peers and handle their game
-          Peer peer1 = waitingDimensionPeerMap.get(entry.getValue());
-          Peer peer2 = entry.getKey();
-          List<Peer> peerList = Arrays.asList(peer1, peer2);
-          gameList.add(peerList);
+  /**
+   * The lobby of a single client, which takes the lines the client sends outside its games: the
+   * client announces itself with {@code PLAYER name} and its board dimension with {@code GO
+   * dimension}, after which it waits for an opponent. Lines that do not fit are ignored. The lines
+   * sent during a game are passed to its {@code GameHandler}; after the game, the client may ask
+   * for a new one with {@code GO dimension}.
+   *
+   * <p>Instead of playing, a client may spectate the game of a player with {@code SPECTATE name},
+   * answered with {@code NOGAME name} if the player plays none; the lines of a spectator are
+   * ignored until the game ends, except {@code RESYNC}, which asks for the board again.
+   *
+   * <p>A heartbeat on the {@code HashedWheelTimer} of the server checks the client every {@code
+   * heartbeatMillis}: it pings a client that sent nothing since the last heartbeat and disconnects
+   * one that sent nothing for {@code idleTimeoutMillis}, so dead connections do not pile up.
+   *
+   * <p>The lines are parsed by a {@code CommandParser} straight from the bytes they were read into.
+   * A client that sends {@code BINARY} before it announces itself is answered with {@code
+   * BINARY} and sends and receives frames of the {@code BinaryProtocol} from then on.
+   */
+  private class Lobby implements NioServer.LineHandler {
 
-          // Remove the peers from the waiting lists
-          waitingPeerDimensionMap.remove(entry.getKey());
-          waitingPeerDimensionMap.remove(waitingDimensionPeerMap.get(entry.getValue()));
-          waitingDimensionPeerMap.remove(entry.getValue());
+    /** The {@code Connection} of the client. */
+    private final Connection connection;
 
-          // Start a new game
-          new GameHandler(peerList).start();
+    /** The {@code CommandParser} of the lines of the client, used on its reading thread. */
+    private final CommandParser parser = new CommandParser();
 
-          // Break the loop; we know there cannot be any more matches until a new client connects
-          break;
+    /** The name of the client, or {@code null} until announced. */
+    private String playerName;
 
-        } else { // Store the unmatched dimension as a key to the unmatched peer
-          waitingDimensionPeerMap.put(entry.getValue(), entry.getKey());
-        }
-      }
-    }
-  }
+    /** The switch indicating whether or not the client waits for or plays a game. */
+    private volatile boolean isWaiting;
 
-  private class ClientHandler extends Observable implements Runnable {
+    /** The board dimension the client last asked for. */
+    private volatile int dimension;
 
-    private final Peer peer;
-    private Scanner in;
-    private Thread thread;
-    private boolean keepRunning = true;
+    /** The {@code GameHandler} of the game of the client, or {@code null} if it has none. */
+    private volatile GameHandler game;
 
-    public ClientHandler(Peer peer) {
-      this.peer = peer;
-      in = peer.getIn();
-      addObserver(peer);
+    /** The {@code GameHandler} of the game the client spectates, or {@code null} if none. */
+    private volatile GameHandler spectated;
+
+    /** The time the client last sent something, in nanoseconds. */
+    private volatile long lastReceived = System.nanoTime();
+
+    /** The timer of the next heartbeat. */
+    private volatile HashedWheelTimer.Timeout heartbeat;
+
+    /** The switch indicating whether or not the client disconnected. */
+    private volatile boolean isDisconnected;
+
+    /**
+     * Instantiate a new {@code Lobby}.
+     *
+     * @param connection the {@code Connection} of the client.
+     */
+    private Lobby(Connection connection) {
+      this.connection = connection;
+      clients.add(connection);
+      heartbeat = timer.schedule(this::heartbeat, heartbeatMillis);
     }
 
-    private void sendCommand(ProtocolCommand protocolCommand, String... keys) {
-      setChanged();
-      try {
-        notifyObservers(Protocol.validateAndFormatCommand(protocolCommand, keys));
-      } catch (MalformedCommandException e) {
-        e.printStackTrace();
-        stopClientHandler();
+    @Override
+    public void receive(byte[] bytes, int offset, int length) {
+      lastReceived = System.nanoTime();
+      boolean isValid = parser.parse(bytes, offset, length);
+      ClientCommand command = parser.getCommand();
+      if (isSpectating()) {
+        if (command == ClientCommand.RESYNC) {
+          spectated.resync(connection);
+        }
+        return;
+      }
+      GameHandler current = getGame();
+      if (current != null) {
+        if (command != null) {
+          int x = isValid ? parser.getNumber(0) : -1;
+          int y = isValid ? parser.getNumber(1) : -1;
+          current.receive(connection, command, x, y);
+        }
+        return;
+      }
+      if (isWaiting || !isValid) {
+        return;
+      }
+      if (playerName == null && command == ClientCommand.BINARY) {
+        // Client: BINARY; Server: BINARY, after which both send frames
+        sendCommand(connection, ServerCommand.BINARY);
+        connection.switchToBinary();
+      } else if (playerName == null && command == ClientCommand.PLAYER) {
+        // Client: PLAYER name
+        playerName = parser.getName();
+      } else if (playerName != null && command == ClientCommand.GO) {
+        waitForOpponent(parser.getNumber(0));
+      } else if (command == ClientCommand.SPECTATE) {
+        spectate(parser.getName());
       }
     }
 
-    private void stopClientHandler() {
-      peer.shutDown();
-      keepRunning = false;
+    @Override
+    public void receive(ByteBuffer frame) {
+      lastReceived = System.nanoTime();
+      if (isSpectating()) {
+        if (BinaryProtocol.getClientCommand(frame) == ClientCommand.RESYNC) {
+          spectated.resync(connection);
+        }
+        return;
+      }
+      GameHandler current = getGame();
+      if (current != null) {
+        current.receive(connection, frame);
+        return;
+      }
+      if (isWaiting) {
+        return;
+      }
+      ClientCommand command = BinaryProtocol.getClientCommand(frame);
+      if (command == ClientCommand.SPECTATE) {
+        String name = BinaryProtocol.getText(frame);
+        if (CommandParser.isName(name)) {
+          spectate(name);
+        }
+        return;
+      }
+      ClientCommand expected = playerName == null ? ClientCommand.PLAYER : ClientCommand.GO;
+      if (command != expected) {
+        return;
+      }
+      if (expected == ClientCommand.PLAYER) {
+        String name = BinaryProtocol.getText(frame);
+        if (CommandParser.isName(name)) {
+          playerName = name;
+        }
+      } else {
+        int dimension = BinaryProtocol.getVarint(frame);
+        if (Protocol.isValidDimension(dimension)) {
+          waitForOpponent(dimension);
+        }
+      }
     }
 
     @Override
-    public void run() {
-      do {
-        // Client: PLAYER name
-        List<String> argList = expect(ClientCommand.PLAYER);
-        String name = argList.get(0);
+    public void disconnected() {
+      isDisconnected = true;
+      heartbeat.cancel();
+      clients.remove(connection);
+      if (isWaiting) {
+        matchmaker.remove(this, dimension);
+      }
+      GameHandler current = game;
+      if (current != null) {
+        current.disconnected(connection);
+      }
+      GameHandler watched = spectated;
+      if (watched != null) {
+        watched.removeSpectator(connection);
+      }
+    }
 
-        // Client: GO dimension
-        List<String> args = expect(ClientCommand.GO);
-        int dimension = Integer.parseInt(args.get(0));
+    /** Ping the client if it was silent since the last heartbeat, or disconnect it if idle. */
+    private void heartbeat() {
+      if (isDisconnected) {
+        return;
+      }
+      long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReceived);
+      if (idleMillis >= idleTimeoutMillis) {
+        evictedCount.incrementAndGet();
+        connection.shutDown();
+        return;
+      }
+      if (idleMillis >= heartbeatMillis) {
+        // Server: PING; Client: PONG
+        sendCommand(connection, ServerCommand.PING);
+      }
+      heartbeat = timer.schedule(this::heartbeat, heartbeatMillis);
+    }
 
-        // Server: WAITING
-        sendCommand(ServerCommand.WAITING);
-        add2WaitingMap(peer, dimension);
+    /** @return {@code true} if the client spectates an unfinished game; {@code false} otherwise. */
+    private boolean isSpectating() {
+      GameHandler watched = spectated;
+      if (watched != null && watched.isFinished()) {
+        spectated = null;
+        return false;
+      }
+      return watched != null;
+    }
 
-      } while (keepRunning);
+    /**
+     * Let the client spectate the unfinished game of the player with the specified name.
+     *
+     * @param name the name of the player, in any case.
+     */
+    private void spectate(String name) {
+      for (GameHandler candidate : games) {
+        if (!candidate.isFinished() && candidate.hasPlayer(name)) {
+          // Client: SPECTATE name; Server: BOARD dim colour sequence points
+          spectated = candidate;
+          // A spectator recovers from dropped commands with RESYNC
+          connection.getOutboundQueue().setPolicy(OutboundQueue.SlowConsumerPolicy.DROP);
+          candidate.addSpectator(connection);
+          return;
+        }
+      }
+      // Server: NOGAME name
+      if (connection.isBinary()) {
+        connection.send(BinaryProtocol.encode(ServerCommand.NOGAME, name));
+      } else {
+        sendCommand(connection, ServerCommand.NOGAME, name);
+      }
     }
 
-    private List<String> expect(ClientCommand clientCommand) {
-      List<String> argList = null;
-      if (in.hasNext() && in.next().equals(clientCommand.toString())) {
-        argList = Arrays.asList(in.nextLine().trim().split(Protocol.SPACE));
+    /** @return the unfinished game of the client, or {@code null} if it has none. */
+    private GameHandler getGame() {
+      GameHandler current = game;
+      if (current != null && current.isFinished()) {
+        game = null;
+        isWaiting = false;
+        return null;
       }
-      return (clientCommand.isValidArgList(argList)) ? argList : expect(clientCommand);
+      return current;
     }
 
-    public void start() {
-      thread = new Thread(this);
-      thread.start();
+    /**
+     * Let the client wait for an opponent on the specified board dimension.
+     *
+     * @param dimension the board dimension.
+     */
+    private void waitForOpponent(int dimension) {
+      // Client: GO dimension; Server: WAITING
+      isWaiting = true;
+      this.dimension = dimension;
+      sendCommand(connection, ServerCommand.WAITING);
+      matchmaker.add(this, dimension);
     }
   }
 
-  private class GameHandler implements Runnable {
+  /** The handler of a single client in thread mode, which reads its lines on its own thread. */
+  private class ClientHandler implements Runnable {
 
-    private final List<Peer> peers;
+    private final Peer peer;
+    private final Lobby lobby;
+    private Thread thread;
 
-    public GameHandler(List<Peer> peers) {
-      this.peers = peers;
+    public ClientHandler(Peer peer) {
+      this.peer = peer;
+      lobby = new Lobby(peer);
     }
 
     @Override
-    public void run() {}
+    public void run() {
+      try {
+        InputStream in = new BufferedInputStream(peer.getSocket().getInputStream());
+        receiveLines(in);
+        if (peer.isBinary()) {
+          receiveFrames(in);
+        }
+      } catch (IOException e) {
+        // Closed
+      } finally {
+        lobby.disconnected();
+        peer.shutDown();
+      }
+    }
 
     public void start() {
-      new Thread(this).start();
+      thread = startThread(this, "client handler");
+    }
+
+    /**
+     * Read lines into a reusable buffer until the stream ends, a line is too long or the client
+     * switches to frames.
+     *
+     * @param in the {@code InputStream}.
+     * @throws IOException if reading fails.
+     */
+    private void receiveLines(InputStream in) throws IOException {
+      byte[] line = new byte[INITIAL_LINE_CAPACITY];
+      int length = 0;
+      int b;
+      while (!peer.isBinary() && (b = in.read()) >= 0) {
+        if (b != '\n') {
+          if (length == line.length) {
+            if (length >= NioServer.MAX_LINE_LENGTH) {
+              return;
+            }
+            line = Arrays.copyOf(line, 2 * length);
+          }
+          line[length++] = (byte) b;
+        } else {
+          if (length > 0 && line[length - 1] == '\r') {
+            length--;
+          }
+          lobby.receive(line, 0, length);
+          length = 0;
+        }
+      }
+    }
+
+    /**
+     * Read frames until the stream ends.
+     *
+     * @param in the {@code InputStream}, after the line that switched to frames.
+     * @throws IOException if reading fails.
+     */
+    private void receiveFrames(InputStream in) throws IOException {
+      DataInputStream frames = new DataInputStream(in);
+      ByteBuffer frame = ByteBuffer.allocate(BinaryProtocol.MAX_FRAME_LENGTH);
+      int length;
+      while ((length = BinaryProtocol.readVarint(frames)) >= 0) {
+        if (length > BinaryProtocol.MAX_FRAME_LENGTH) {
+          return;
+        }
+        frames.readFully(frame.array(), 0, length);
+        frame.clear();
+        frame.limit(length);
+        lobby.receive(frame);
+      }
     }
   }
 }
@@ -0,0 +1,197 @@
+package net;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.Server.Mode;
+
+/**
+ * A loopback load test of the {@code Server}: it connects many clients at once, lets every client
+ * announce itself and its board dimension, and reports how long the server took to answer all of
+ * them and how much heap and how many platform threads it used while they idle in the lobby.
+ *
+ * <p>The clients are served by a single non-blocking selector thread, so the load test itself
+ * stays cheap. A loopback address has room for some 28k client ports, so every 20k clients bind to
+ * the next loopback address, as Linux routes all of {@code 127.0.0.0/8} to the loopback device.
+ * Each connection takes two file descriptors in the process.
+ */
+public class ServerLoad {
+
+  public static final String USAGE =
+      "usage: java " + ServerLoad.class.getName() + " <thread|virtual|nio> <clients>";
+
+  /** The number of clients per loopback address. */
+  private static final int CLIENTS_PER_ADDRESS = 20_000;
+
+  /** The maximum number of clients connecting at once. */
+  private static final int MAX_CONNECTING = Server.ACCEPT_BACKLOG / 2;
+
+  /** The time to wait for the answers in seconds. */
+  private static final int TIMEOUT_SECONDS = 300;
+
+  /** The capacity of the buffer that receives the answer of the server in bytes. */
+  private static final int ANSWER_BUFFER_CAPACITY = 64;
+
+  /** The line the server answers the announcements with. */
+  private static final String ANSWER = Protocol.ServerCommand.WAITING.toString();
+
+  public static void main(String[] args) {
+    if (args.length != 2) {
+      System.out.println("incorrect number of input arguments");
+      System.out.println(USAGE);
+      System.exit(0);
+    }
+    Mode mode;
+    int clients;
+    try {
+      mode = Mode.valueOf(args[0].toUpperCase());
+      clients = Integer.parseInt(args[1]);
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+      System.out.println(USAGE);
+      System.exit(0);
+      return;
+    }
+
+    Server server = new Server("load", 0, mode);
+    server.start();
+    System.gc();
+    long heapBefore = getUsedHeap();
+    List<SocketChannel> channels = new ArrayList<>();
+    try {
+      long start = System.nanoTime();
+      int answered = connect(server.getPort(), clients, channels);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+      System.gc();
+      long heap = getUsedHeap() - heapBefore;
+      System.out.printf(
+          "%s: %d of %d clients answered in %.2f s (%.0f/s), %d clients connected, %d games,"
+              + " %d platform threads, %d bytes of heap per client%n",
+          mode.toString().toLowerCase(),
+          answered,
+          clients,
+          seconds,
+          answered / seconds,
+          server.getClientCount(),
+          server.getGameCount(),
+          threads,
+          heap / Math.max(clients, 1));
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      close(channels);
+      server.close();
+    }
+  }
+
+  /**
+   * Connect the specified number of clients to the server on the loopback port, announce every
+   * client with {@code PLAYER} and {@code GO}, and wait until the server answered all of them or
+   * the time is up. The connections are left open.
+   *
+   * @param port the port of the server.
+   * @param clients the number of clients.
+   * @param channels the {@code List} to add the {@code SocketChannel} of every client to.
+   * @return the number of clients answered with {@code WAITING}.
+   * @throws IOException if a client cannot be connected.
+   */
+  public static int connect(int port, int clients, List<SocketChannel> channels)
+      throws IOException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    int opened = 0;
+    int connecting = 0;
+    int answered = 0;
+    try (Selector selector = Selector.open()) {
+      while (answered < clients && System.nanoTime() < deadline) {
+        // Open clients until as many are connecting as the backlog of the server takes
+        while (opened < clients && connecting < MAX_CONNECTING) {
+          SocketChannel channel = SocketChannel.open();
+          channels.add(channel);
+          channel.configureBlocking(false);
+          if (opened >= CLIENTS_PER_ADDRESS) {
+            byte[] address = {127, 0, 0, (byte) (1 + opened / CLIENTS_PER_ADDRESS)};
+            channel.bind(new InetSocketAddress(InetAddress.getByAddress(address), 0));
+          }
+          channel.connect(new InetSocketAddress(loopback, port));
+          int dimension = opened % 2 == 0 ? 9 : 19;
+          String announcement = "PLAYER LOAD" + opened + "\nGO " + dimension + "\n";
+          channel.register(
+              selector,
+              SelectionKey.OP_CONNECT,
+              ByteBuffer.wrap(announcement.getBytes(StandardCharsets.UTF_8)));
+          opened++;
+          connecting++;
+        }
+
+        selector.select(100);
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          SocketChannel channel = (SocketChannel) key.channel();
+          ByteBuffer buffer = (ByteBuffer) key.attachment();
+          if (key.isConnectable() && channel.finishConnect()) {
+            connecting--;
+            key.interestOps(SelectionKey.OP_WRITE);
+          } else if (key.isWritable()) {
+            channel.write(buffer);
+            if (!buffer.hasRemaining()) {
+              key.attach(ByteBuffer.allocate(ANSWER_BUFFER_CAPACITY));
+              key.interestOps(SelectionKey.OP_READ);
+            }
+          } else if (key.isReadable()) {
+            if (channel.read(buffer) < 0) {
+              key.cancel();
+            } else {
+              // Only the first line is the answer; a game may start right after it
+              String lines =
+                  new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+              if (lines.indexOf('\n') >= 0) {
+                if (lines.startsWith(ANSWER + "\n")) {
+                  answered++;
+                }
+                key.interestOps(0);
+              } else if (!buffer.hasRemaining()) {
+                key.cancel();
+              }
+            }
+          }
+        }
+      }
+    }
+    return answered;
+  }
+
+  /**
+   * Close the specified channels.
+   *
+   * @param channels the {@code SocketChannel}s.
+   */
+  public static void close(List<SocketChannel> channels) {
+    for (SocketChannel channel : channels) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /** @return the number of bytes used of the heap. */
+  private static long getUsedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
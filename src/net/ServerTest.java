@@ -0,0 +1,449 @@
+package net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+import net.Protocol.ClientCommand;
+import net.Protocol.ServerCommand;
+import net.Server.Mode;
+import org.junit.jupiter.api.Test;
+
+class ServerTest {
+
+  /** The number of clients connected at once. */
+  private static final int CLIENTS = 200;
+
+  /** The number of clients connected at once in the load tests. */
+  private static final int LOAD_CLIENTS = 2000;
+
+  /** The most platform threads a server starts regardless of the number of clients. */
+  private static final int MAX_FIXED_THREADS = 16;
+
+  @Test
+  void testThreadModeMatches() throws IOException, InterruptedException {
+    testMatches(Mode.THREAD);
+  }
+
+  @Test
+  void testVirtualModeMatches() throws IOException, InterruptedException {
+    testMatches(Mode.VIRTUAL);
+  }
+
+  @Test
+  void testVirtualModeLoad() throws IOException, InterruptedException {
+    testLoad(Mode.VIRTUAL);
+  }
+
+  @Test
+  void testNioModeLoad() throws IOException, InterruptedException {
+    testLoad(Mode.NIO);
+  }
+
+  @Test
+  void testNioModeMatches() throws IOException, InterruptedException {
+    testMatches(Mode.NIO);
+  }
+
+  @Test
+  void testNioModeFraming() throws IOException, InterruptedException {
+    Server server = new Server("test", 0, Mode.NIO);
+    server.start();
+    try (Socket socket = new Socket("localhost", server.getPort())) {
+      OutputStream out = socket.getOutputStream();
+      BufferedReader in = reader(socket);
+      out.write("PLAY".getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      Thread.sleep(50);
+      out.write("ER SPLIT\r\nNONSENSE\nGO 4\nGO ".getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      Thread.sleep(50);
+      out.write("9\n".getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      assertEquals("WAITING", in.readLine());
+      awaitEquals(1, server::getWaitingCount);
+    }
+
+    // A lost client stops waiting
+    awaitEquals(0, server::getWaitingCount);
+    awaitEquals(0, server::getClientCount);
+    server.close();
+  }
+
+  @Test
+  void testGame() throws IOException, InterruptedException {
+    Server server = new Server("test", 0, Mode.NIO);
+    server.start();
+
+    // Alice leaves halfway, so her socket is closed explicitly rather than as a resource
+    Socket alice = new Socket("localhost", server.getPort());
+    try (Socket bob = new Socket("localhost", server.getPort())) {
+      PrintStream aliceOut = new PrintStream(alice.getOutputStream(), true);
+      PrintStream bobOut = new PrintStream(bob.getOutputStream(), true);
+      BufferedReader aliceIn = reader(alice);
+      BufferedReader bobIn = reader(bob);
+      aliceOut.println("PLAYER ALICE");
+      aliceOut.println("GO 5");
+      bobOut.println("PLAYER BOB");
+      bobOut.println("GO 5");
+      assertEquals("WAITING", aliceIn.readLine());
+      assertEquals("WAITING", bobIn.readLine());
+      String aliceReady = aliceIn.readLine();
+      String bobReady = bobIn.readLine();
+      assertEquals(1, server.getGameCount());
+      boolean isAliceBlack = aliceReady.startsWith("READY BLACK");
+      assertEquals(isAliceBlack ? "READY BLACK BOB 5" : "READY WHITE BOB 5", aliceReady);
+      assertEquals(isAliceBlack ? "READY WHITE ALICE 5" : "READY BLACK ALICE 5", bobReady);
+      PrintStream blackOut = isAliceBlack ? aliceOut : bobOut;
+      PrintStream whiteOut = isAliceBlack ? bobOut : aliceOut;
+      BufferedReader blackIn = isAliceBlack ? aliceIn : bobIn;
+      BufferedReader whiteIn = isAliceBlack ? bobIn : aliceIn;
+
+      // Moves out of turn and on occupied points are rejected for their sender only
+      whiteOut.println("MOVE 1 1");
+      assertEquals("INVALID WHITE", whiteIn.readLine());
+      blackOut.println("MOVE 2 2");
+      assertEquals("VALID BLACK 2 2", blackIn.readLine());
+      assertEquals("VALID BLACK 2 2", whiteIn.readLine());
+      whiteOut.println("MOVE 2 2");
+      assertEquals("INVALID WHITE", whiteIn.readLine());
+      whiteOut.println("MOVE 9 9");
+      assertEquals("INVALID WHITE", whiteIn.readLine());
+
+      // The game ends when white passes after black
+      whiteOut.println("PASS");
+      assertEquals("PASSED WHITE", blackIn.readLine());
+      assertEquals("PASSED WHITE", whiteIn.readLine());
+      blackOut.println("PASS");
+      assertEquals("PASSED BLACK", blackIn.readLine());
+      assertEquals("PASSED BLACK", whiteIn.readLine());
+      whiteOut.println("PASS");
+      assertEquals("PASSED WHITE", blackIn.readLine());
+      assertEquals("PASSED WHITE", whiteIn.readLine());
+      assertEquals("END BLACK", blackIn.readLine());
+      assertEquals("END BLACK", whiteIn.readLine());
+      awaitEquals(0, server::getGameCount);
+
+      // Both ask for a new game, which Alice loses by leaving
+      aliceOut.println("GO 7");
+      bobOut.println("GO 7");
+      assertEquals("WAITING", aliceIn.readLine());
+      assertEquals("WAITING", bobIn.readLine());
+      assertTrue(aliceIn.readLine().endsWith(" BOB 7"));
+      String ready = bobIn.readLine();
+      assertTrue(ready.endsWith(" ALICE 7"));
+      alice.close();
+      assertEquals(ready.startsWith("READY BLACK") ? "END BLACK" : "END WHITE", bobIn.readLine());
+      awaitEquals(0, server::getGameCount);
+    } finally {
+      alice.close();
+    }
+    server.close();
+  }
+
+  @Test
+  void testSpectate() throws IOException, InterruptedException {
+    Server server = new Server("test", 0, Mode.NIO);
+    server.start();
+    try (Socket alice = new Socket("localhost", server.getPort());
+        Socket bob = new Socket("localhost", server.getPort());
+        Socket carol = new Socket("localhost", server.getPort())) {
+      PrintStream aliceOut = new PrintStream(alice.getOutputStream(), true);
+      PrintStream bobOut = new PrintStream(bob.getOutputStream(), true);
+      PrintStream carolOut = new PrintStream(carol.getOutputStream(), true);
+      BufferedReader aliceIn = reader(alice);
+      BufferedReader carolIn = reader(carol);
+      carolOut.println("SPECTATE ALICE");
+      assertEquals("NOGAME ALICE", carolIn.readLine());
+      aliceOut.println("PLAYER Alice");
+      aliceOut.println("GO 5");
+      assertEquals("WAITING", aliceIn.readLine());
+      bobOut.println("PLAYER Bob");
+      bobOut.println("GO 5");
+      assertEquals("READY BLACK BOB 5", aliceIn.readLine());
+      aliceOut.println("MOVE 0 1");
+      assertEquals("VALID BLACK 0 1", aliceIn.readLine());
+
+      // The spectator receives the board and then the changes
+      carolOut.println("SPECTATE bob");
+      assertEquals("BOARD 5 WHITE 1 .....B...................", carolIn.readLine());
+      bobOut.println("MOVE 4 4");
+      assertEquals("DELTA WHITE 2 4 4", carolIn.readLine());
+      bobOut.println("TABLEFLIP");
+      assertEquals("TABLEFLIPPED WHITE", carolIn.readLine());
+      assertEquals("END BLACK", carolIn.readLine());
+      awaitEquals(0, server::getGameCount);
+      carolOut.println("SPECTATE ALICE");
+      assertEquals("NOGAME ALICE", carolIn.readLine());
+    }
+    server.close();
+  }
+
+  @Test
+  void testNioModeBinaryGame() throws IOException, InterruptedException {
+    testBinaryGame(Mode.NIO);
+  }
+
+  @Test
+  void testThreadModeBinaryGame() throws IOException, InterruptedException {
+    testBinaryGame(Mode.THREAD);
+  }
+
+  @Test
+  void testManyGames() throws IOException, InterruptedException {
+    Server server = new Server("test", 0, Mode.NIO);
+    server.start();
+    List<Socket> sockets = new ArrayList<>();
+    for (int i = 0; i < CLIENTS; i++) {
+      Socket socket = new Socket("localhost", server.getPort());
+      sockets.add(socket);
+      String announcement = "PLAYER P" + i + "\nGO 5\n";
+      socket.getOutputStream().write(announcement.getBytes(StandardCharsets.UTF_8));
+    }
+    awaitEquals(CLIENTS / 2, server::getGameCount);
+
+    // Every black resigns
+    List<BufferedReader> readers = new ArrayList<>();
+    for (Socket socket : sockets) {
+      BufferedReader in = reader(socket);
+      readers.add(in);
+      assertEquals("WAITING", in.readLine());
+      if (in.readLine().startsWith("READY BLACK")) {
+        socket.getOutputStream().write("TABLEFLIP\n".getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    for (BufferedReader in : readers) {
+      assertEquals("TABLEFLIPPED BLACK", in.readLine());
+      assertEquals("END WHITE", in.readLine());
+    }
+    awaitEquals(0, server::getGameCount);
+    server.close();
+    for (Socket socket : sockets) {
+      socket.close();
+    }
+  }
+
+  @Test
+  void testNioModeHeartbeat() throws IOException, InterruptedException {
+    testHeartbeat(Mode.NIO);
+  }
+
+  @Test
+  void testThreadModeHeartbeat() throws IOException, InterruptedException {
+    testHeartbeat(Mode.THREAD);
+  }
+
+  @Test
+  void testMoveTimeout() throws IOException, InterruptedException {
+    Server server =
+        new Server("test", 0, Mode.NIO, Server.DEFAULT_HEARTBEAT_MILLIS, 60_000, 200);
+    server.start();
+    try (Socket alice = new Socket("localhost", server.getPort());
+        Socket bob = new Socket("localhost", server.getPort())) {
+      PrintStream aliceOut = new PrintStream(alice.getOutputStream(), true);
+      PrintStream bobOut = new PrintStream(bob.getOutputStream(), true);
+      BufferedReader aliceIn = reader(alice);
+      aliceOut.println("PLAYER Alice");
+      aliceOut.println("GO 5");
+      assertEquals("WAITING", aliceIn.readLine());
+      bobOut.println("PLAYER Bob");
+      bobOut.println("GO 5");
+      assertEquals("READY BLACK BOB 5", aliceIn.readLine());
+      aliceOut.println("MOVE 0 0");
+      assertEquals("VALID BLACK 0 0", aliceIn.readLine());
+
+      // Bob lets his move clock expire
+      assertEquals("END BLACK", aliceIn.readLine());
+      awaitEquals(0, server::getGameCount);
+    }
+    server.close();
+  }
+
+  private void testHeartbeat(Mode mode) throws IOException, InterruptedException {
+    Server server = new Server("test", 0, mode, 100, 500, Server.DEFAULT_MOVE_TIMEOUT_MILLIS);
+    server.start();
+    try (Socket lively = new Socket("localhost", server.getPort());
+        Socket idle = new Socket("localhost", server.getPort())) {
+      lively.setSoTimeout(10_000);
+      idle.setSoTimeout(10_000);
+      PrintStream livelyOut = new PrintStream(lively.getOutputStream(), true);
+      BufferedReader livelyIn = reader(lively);
+      BufferedReader idleIn = reader(idle);
+
+      // A client that answers the heartbeats outlives the idle timeout
+      for (int i = 0; i < 4; i++) {
+        assertEquals("PING", livelyIn.readLine());
+        livelyOut.println("PONG");
+      }
+
+      // A client that does not is disconnected
+      String line;
+      while ((line = idleIn.readLine()) != null) {
+        assertEquals("PING", line);
+      }
+      awaitEquals(1, server::getClientCount);
+      assertEquals(1, (int) server.getEvictedCount());
+    }
+    server.close();
+  }
+
+  private void testMatches(Mode mode) throws IOException, InterruptedException {
+    Server server = new Server("test", 0, mode);
+    server.start();
+    List<Socket> sockets = new ArrayList<>();
+    for (int i = 0; i < CLIENTS; i++) {
+      Socket socket = new Socket("localhost", server.getPort());
+      sockets.add(socket);
+      int dimension = i % 2 == 0 ? 9 : 19;
+      socket
+          .getOutputStream()
+          .write(("PLAYER P" + i + "\nGO " + dimension + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+    List<BufferedReader> readers = new ArrayList<>();
+    for (Socket socket : sockets) {
+      BufferedReader in = reader(socket);
+      readers.add(in);
+      assertEquals("WAITING", in.readLine());
+      assertTrue(in.readLine().startsWith("READY "));
+    }
+    awaitEquals(CLIENTS / 2, server::getGameCount);
+    assertEquals(0, server.getWaitingCount());
+    assertEquals(CLIENTS, server.getClientCount());
+
+    // The games of the disconnected clients may still end before the connections are closed
+    server.close();
+    for (int i = 0; i < CLIENTS; i++) {
+      String line;
+      while ((line = readers.get(i).readLine()) != null) {
+        assertTrue(line.startsWith("END "));
+      }
+      sockets.get(i).close();
+    }
+  }
+
+  /**
+   * Play a game between a client that negotiated binary frames and a client that sends lines.
+   *
+   * @param mode the {@code Mode}.
+   */
+  private void testBinaryGame(Mode mode) throws IOException, InterruptedException {
+    Server server = new Server("test", 0, mode);
+    server.start();
+    try (Socket alice = new Socket("localhost", server.getPort());
+        Socket bob = new Socket("localhost", server.getPort())) {
+      OutputStream aliceOut = alice.getOutputStream();
+      DataInputStream aliceIn = new DataInputStream(alice.getInputStream());
+      aliceOut.write("BINARY\n".getBytes(StandardCharsets.UTF_8));
+      assertEquals("BINARY", readLine(aliceIn));
+      aliceOut.write(BinaryProtocol.encode(ClientCommand.PLAYER, "Alice"));
+      aliceOut.write(BinaryProtocol.encode(ClientCommand.GO, 5));
+      ByteBuffer frame = readFrame(aliceIn);
+      assertEquals(ServerCommand.WAITING, BinaryProtocol.getServerCommand(frame));
+      awaitEquals(1, server::getWaitingCount);
+
+      // Alice waited longest, so she plays black
+      PrintStream bobOut = new PrintStream(bob.getOutputStream(), true);
+      BufferedReader bobIn = reader(bob);
+      bobOut.println("PLAYER BOB");
+      bobOut.println("GO 5");
+      assertEquals("WAITING", bobIn.readLine());
+      assertEquals("READY WHITE ALICE 5", bobIn.readLine());
+      frame = readFrame(aliceIn);
+      assertEquals(ServerCommand.READY, BinaryProtocol.getServerCommand(frame));
+      assertEquals(0, BinaryProtocol.getVarint(frame));
+      assertEquals(5, BinaryProtocol.getVarint(frame));
+      assertEquals("BOB", BinaryProtocol.getText(frame));
+
+      aliceOut.write(BinaryProtocol.encode(ClientCommand.MOVE, 2, 3));
+      assertEquals("VALID BLACK 2 3", bobIn.readLine());
+      frame = readFrame(aliceIn);
+      assertEquals(ServerCommand.VALID, BinaryProtocol.getServerCommand(frame));
+      assertEquals(0, BinaryProtocol.getVarint(frame));
+      assertEquals(2, BinaryProtocol.getVarint(frame));
+      assertEquals(3, BinaryProtocol.getVarint(frame));
+      bobOut.println("MOVE 2 3");
+      assertEquals("INVALID WHITE", bobIn.readLine());
+      bobOut.println("TABLEFLIP");
+      frame = readFrame(aliceIn);
+      assertEquals(ServerCommand.TABLEFLIPPED, BinaryProtocol.getServerCommand(frame));
+      assertEquals(1, BinaryProtocol.getVarint(frame));
+      frame = readFrame(aliceIn);
+      assertEquals(ServerCommand.END, BinaryProtocol.getServerCommand(frame));
+      assertEquals(0, BinaryProtocol.getVarint(frame));
+      awaitEquals(0, server::getGameCount);
+    }
+    server.close();
+  }
+
+  private void testLoad(Mode mode) throws IOException, InterruptedException {
+    int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+    Server server = new Server("test", 0, mode);
+    server.start();
+    List<SocketChannel> channels = new ArrayList<>();
+    try {
+      assertEquals(LOAD_CLIENTS, ServerLoad.connect(server.getPort(), LOAD_CLIENTS, channels));
+      awaitEquals(LOAD_CLIENTS / 2, server::getGameCount);
+      assertEquals(LOAD_CLIENTS, server.getClientCount());
+
+      // The platform threads do not grow with the clients: game hosts, virtual thread carriers,
+      // selectors, the timer and the load test itself
+      if (mode == Mode.NIO || VirtualThreads.isAvailable()) {
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+        assertTrue(threads <= 2 * Server.GAME_THREADS + MAX_FIXED_THREADS, threads + " threads");
+      }
+    } finally {
+      ServerLoad.close(channels);
+    }
+    awaitEquals(0, server::getClientCount);
+    server.close();
+  }
+
+  private static String readLine(InputStream in) throws IOException {
+    StringBuilder line = new StringBuilder();
+    int b;
+    while ((b = in.read()) >= 0 && b != '\n') {
+      line.append((char) b);
+    }
+    return line.toString();
+  }
+
+  private static ByteBuffer readFrame(DataInputStream in) throws IOException {
+    byte[] frame = new byte[BinaryProtocol.readVarint(in)];
+    in.readFully(frame);
+    return ByteBuffer.wrap(frame);
+  }
+
+  private static BufferedReader reader(Socket socket) throws IOException {
+    return new BufferedReader(
+        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Wait up to ten seconds for the specified count to reach the specified value.
+   *
+   * @param expected the expected value.
+   * @param count the count.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  private static void awaitEquals(int expected, IntSupplier count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (count.getAsInt() != expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(expected, count.getAsInt());
+  }
+}
@@ -0,0 +1,46 @@
+package net;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The starter of virtual threads, which are cheap enough to run one per connection, when the
+ * runtime has them; on older runtimes it starts platform threads instead. The virtual thread
+ * factory is looked up reflectively, so the code still runs on Java 8.
+ */
+final class VirtualThreads {
+
+  /** The factory of virtual threads, or {@code null} if the runtime has none. */
+  private static final ThreadFactory FACTORY = lookUpFactory();
+
+  private VirtualThreads() {}
+
+  /** @return {@code true} if threads are virtual; {@code false} if they are platform threads. */
+  static boolean isAvailable() {
+    return FACTORY != null;
+  }
+
+  /**
+   * Start a new virtual thread, or platform thread if there are none, that runs the specified task.
+   *
+   * @param task the task.
+   * @param name the name of the thread.
+   * @return the started {@code Thread}.
+   */
+  static Thread start(Runnable task, String name) {
+    Thread thread = FACTORY != null ? FACTORY.newThread(task) : new Thread(task);
+    thread.setName(name);
+    thread.start();
+    return thread;
+  }
+
+  /** @return the factory of virtual threads, or {@code null} if the runtime has none. */
+  private static ThreadFactory lookUpFactory() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      return (ThreadFactory)
+          Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
@@ -6,7 +6,10 @@ import game.material.Stone;
 import game.material.board.Board;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import players.strategy.RandomStrategy;
+import players.strategy.SearchBudget;
+import players.strategy.SearchService;
 import players.strategy.Strategy;
 
 /** Created by erik.huizinga on 24-1-17. */
@@ -38,6 +41,21 @@ public class ComputerPlayer extends Player {
   /** The {@code Strategy} of the {@code ComputerPlayer}. */
   private Strategy strategy;
 
+  /** The {@code TimeControl}, or {@code null} if the time per move is not limited. */
+  private TimeControl timeControl;
+
+  /** The maximum number of nodes or playouts per move. */
+  private long nodeLimit = SearchBudget.UNLIMITED;
+
+  /** The maximum memory of the search per move in bytes. */
+  private long memoryBytes = SearchBudget.UNLIMITED;
+
+  /** The {@code SearchService} to search with, or {@code null} to search on the calling thread. */
+  private SearchService searchService;
+
+  /** The {@code SearchBudget} of the current move, or {@code null} if not searching. */
+  private volatile SearchBudget budget;
+
   /**
    * Instantiate a new {@code ComputerPlayer} with the specified {@code Stone} and the {@code
    * RandomStrategy} strategy.
@@ -109,7 +127,22 @@ public class ComputerPlayer extends Player {
 
   @Override
   public Move nextMove(Board board) {
-    Move move = getStrategy().nextMove(board, getStone());
+    Move move;
+    if (timeControl == null
+        && nodeLimit == SearchBudget.UNLIMITED
+        && memoryBytes == SearchBudget.UNLIMITED) {
+      move = search(board, null);
+    } else {
+      long start = System.nanoTime();
+      long timeLimitMillis =
+          timeControl != null ? timeControl.allot(board) : SearchBudget.UNLIMITED;
+      budget = new SearchBudget(timeLimitMillis, nodeLimit, memoryBytes);
+      move = search(board, budget);
+      budget = null;
+      if (timeControl != null) {
+        timeControl.consume(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      }
+    }
     if (move != null) {
       setMoveType(MoveType.MOVE);
     } else {
@@ -118,6 +151,25 @@ public class ComputerPlayer extends Player {
     return move;
   }
 
+  /**
+   * Search the next {@code Move} with the {@code Strategy}, through the {@code SearchService} if
+   * there is one.
+   *
+   * @param board the {@code Board}.
+   * @param budget the {@code SearchBudget}, or {@code null} to search within the configuration of
+   *     the {@code Strategy}.
+   * @return the {@code Move}, or {@code null} to pass.
+   */
+  private Move search(Board board, SearchBudget budget) {
+    if (searchService != null) {
+      return searchService.search(getStrategy(), board, getStone(), budget);
+    }
+    if (budget == null) {
+      return getStrategy().nextMove(board, getStone());
+    }
+    return getStrategy().nextMove(board, getStone(), budget);
+  }
+
   /** @return the {@code Strategy} of this {@code ComputerPlayer}. */
   public Strategy getStrategy() {
     return strategy;
@@ -127,4 +179,58 @@ public class ComputerPlayer extends Player {
   public void setStrategy(Strategy strategy) {
     this.strategy = strategy;
   }
+
+  /** @return the {@code TimeControl}, or {@code null} if the time per move is not limited. */
+  public TimeControl getTimeControl() {
+    return timeControl;
+  }
+
+  /**
+   * Set the {@code TimeControl} that allots the time of every move to the {@code Strategy}.
+   *
+   * @param timeControl the {@code TimeControl}, or {@code null} to not limit the time per move.
+   */
+  public void setTimeControl(TimeControl timeControl) {
+    this.timeControl = timeControl;
+  }
+
+  /**
+   * Set the limits of the search of every move besides the time. Without a {@code TimeControl}
+   * and limits, the {@code Strategy} searches within its own configuration.
+   *
+   * @param nodeLimit the maximum number of nodes or playouts, or {@code SearchBudget.UNLIMITED}.
+   * @param memoryBytes the maximum memory in bytes, or {@code SearchBudget.UNLIMITED}.
+   */
+  public void setSearchLimits(long nodeLimit, long memoryBytes) {
+    this.nodeLimit = nodeLimit;
+    this.memoryBytes = memoryBytes;
+  }
+
+  /** @return the {@code SearchService}, or {@code null} if searching on the calling thread. */
+  public SearchService getSearchService() {
+    return searchService;
+  }
+
+  /**
+   * Set the {@code SearchService} to search every move with, which shares its workers between
+   * the players of many games.
+   *
+   * @param searchService the {@code SearchService}, or {@code null} to search on the calling
+   *     thread.
+   */
+  public void setSearchService(SearchService searchService) {
+    this.searchService = searchService;
+  }
+
+  /**
+   * Cancel the search of the current move, if any, from another thread: the {@code Strategy}
+   * returns the best move found so far as soon as possible.
+   */
+  public void cancel() {
+    SearchBudget current = budget;
+    if (current != null) {
+      current.cancel();
+    }
+    getStrategy().cancel();
+  }
 }
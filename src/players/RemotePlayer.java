@@ -0,0 +1,42 @@
+package players;
+
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+
+/**
+ * A player whose moves are made elsewhere, e.g., by a client on the other side of a network
+ * connection, and fed to its {@code Go} game through {@code Go.play} rather than asked for.
+ */
+public class RemotePlayer extends Player {
+
+  /** The type of {@code Player}. */
+  private static final String generalization = "remote";
+
+  /**
+   * Instantiate a new {@code RemotePlayer} with the specified name and {@code Stone}.
+   *
+   * @param name the name.
+   * @param stone the {@code Stone}.
+   */
+  public RemotePlayer(String name, Stone stone) {
+    super(stone, name);
+  }
+
+  @Override
+  public String getGeneralization() {
+    return generalization;
+  }
+
+  /**
+   * A {@code RemotePlayer} is never asked for its moves.
+   *
+   * @param board the {@code Board}.
+   * @return never.
+   * @throws UnsupportedOperationException always.
+   */
+  @Override
+  public Move nextMove(Board board) {
+    throw new UnsupportedOperationException("the moves of a remote player are fed to its game");
+  }
+}
@@ -0,0 +1,70 @@
+package players;
+
+import game.material.board.Board;
+
+/**
+ * The clock of a {@code Player} under a Fischer time control: a main time and an increment that is
+ * added after every move. The time allotted to a move is the remaining time spread over the moves
+ * still expected, which are estimated from the number of empty positions on the {@code Board},
+ * plus the increment. A small reserve is never allotted, so the clock does not run out through
+ * the overhead around a search.
+ */
+public class TimeControl {
+
+  /** The minimum number of moves the remaining time is spread over. */
+  private static final int MIN_MOVES_TO_GO = 10;
+
+  /** The reserve of the remaining time that is never allotted in milliseconds. */
+  private static final long RESERVE_MILLIS = 50;
+
+  /** The increment per move in milliseconds. */
+  private final long incrementMillis;
+
+  /** The remaining time in milliseconds. */
+  private long remainingMillis;
+
+  /**
+   * Instantiate a new {@code TimeControl}.
+   *
+   * @param mainTimeMillis the main time in milliseconds.
+   * @param incrementMillis the increment per move in milliseconds.
+   */
+  public TimeControl(long mainTimeMillis, long incrementMillis) {
+    if (mainTimeMillis < 0 || incrementMillis < 0) {
+      throw new AssertionError("time control must not be negative");
+    }
+    remainingMillis = mainTimeMillis;
+    this.incrementMillis = incrementMillis;
+  }
+
+  /**
+   * Get the time to spend on the next move on the specified {@code Board}.
+   *
+   * @param board the {@code Board}.
+   * @return the time in milliseconds.
+   */
+  public long allot(Board board) {
+    int movesToGo = Math.max(board.getEmptyPoints().size() / 2, MIN_MOVES_TO_GO);
+    long available = Math.max(remainingMillis - RESERVE_MILLIS, 0);
+    return Math.min(available, available / movesToGo + incrementMillis);
+  }
+
+  /**
+   * Take the specified time spent on a move off the clock and add the increment.
+   *
+   * @param elapsedMillis the time spent in milliseconds.
+   */
+  public void consume(long elapsedMillis) {
+    remainingMillis = Math.max(remainingMillis - elapsedMillis, 0) + incrementMillis;
+  }
+
+  /** @return the remaining time in milliseconds. */
+  public long getRemainingMillis() {
+    return remainingMillis;
+  }
+
+  /** @return the increment per move in milliseconds. */
+  public long getIncrementMillis() {
+    return incrementMillis;
+  }
+}
@@ -0,0 +1,30 @@
+package players;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import game.material.board.Board;
+import org.junit.jupiter.api.Test;
+
+class TimeControlTest {
+
+  @Test
+  void testAllot() {
+    TimeControl timeControl = new TimeControl(10_050, 100);
+    Board board = new Board(9);
+
+    // 81 empty positions, so the time is spread over 40 moves
+    assertEquals(10_000 / 40 + 100, timeControl.allot(board));
+    timeControl.consume(350);
+    assertEquals(9_800, timeControl.getRemainingMillis());
+  }
+
+  @Test
+  void testReserve() {
+    TimeControl timeControl = new TimeControl(60, 1000);
+    assertEquals(10, timeControl.allot(new Board(9)));
+    timeControl.consume(1000);
+    assertEquals(1000, timeControl.getRemainingMillis());
+    assertTrue(timeControl.allot(new Board(9)) < timeControl.getRemainingMillis());
+  }
+}
@@ -0,0 +1,492 @@
+package players.strategy;
+
+import game.Go;
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import java.util.HashSet;
+import java.util.Set;
+import players.strategy.search.SearchBoard;
+import players.strategy.search.TranspositionTable;
+import players.strategy.search.TranspositionTable.Bound;
+import players.strategy.search.TranspositionTable.Entry;
+
+/**
+ * A {@code Strategy} that searches the game tree with negamax alpha-beta and iterative deepening,
+ * meant for small boards, where it can solve positions or come close, and as a strong reference
+ * opponent to benchmark other strategies against.
+ *
+ * <p>Every iteration searches one ply deeper until the time limit is reached or the value is
+ * exact, i.e., every line ended with two passes. Leaves at the depth limit are evaluated by their
+ * area score. Results are stored in a {@code TranspositionTable}, whose best moves are searched
+ * first; the remaining moves are ordered by the killer and history heuristics. A stored result is
+ * marked proven if no leaf below it was valued heuristically, and only proven results keep a
+ * search that cuts off on them exact, as the table outlives the search of a single move.
+ *
+ * <p>A move that repeats a layout of the game or of the current search path is skipped
+ * (positional superko). Since the moves that are skipped depend on the layouts played before, the
+ * table is keyed on the position together with the set of layouts of the game and the search path,
+ * so a result is only reused where the same moves are forbidden.
+ *
+ * <p>Within a {@code SearchBudget}, the search stops at the deadline, after the node limit or when
+ * cancelled, and plays the best move of the last completed iteration. The memory cap does not
+ * apply, as the memory of the search is allocated up front by the {@code TranspositionTable}.
+ */
+public class AlphaBetaStrategy implements Strategy, SearchStatistics {
+
+  /** The default time limit per move in milliseconds. */
+  public static final long DEFAULT_TIME_LIMIT_MILLIS = 1000;
+
+  /** The default maximum search depth. */
+  public static final int DEFAULT_MAX_DEPTH = 64;
+
+  /** The default size of the {@code TranspositionTable} in megabytes. */
+  public static final int DEFAULT_TABLE_MEGABYTES = 32;
+
+  /** The number of killer moves per ply. */
+  private static final int KILLERS = 2;
+
+  /** The number of nodes between two checks of the {@code SearchBudget}. */
+  private static final int CLOCK_CHECK_INTERVAL = 1024;
+
+  /** The key that distinguishes positions in which a pass ends the game. */
+  private static final long PASSED_KEY = 0x2545f4914f6cdd1dL;
+
+  /** The ordering score of the best move of the {@code TranspositionTable}. */
+  private static final int TABLE_MOVE_SCORE = Integer.MAX_VALUE;
+
+  /** The ordering score of a killer move. */
+  private static final int KILLER_SCORE = Integer.MAX_VALUE - KILLERS;
+
+  /** The time limit per move in milliseconds. */
+  private final long timeLimitMillis;
+
+  /** The maximum search depth. */
+  private final int maxDepth;
+
+  /** The {@code TranspositionTable}. */
+  private final TranspositionTable table;
+
+  /** The reused {@code TranspositionTable} entry. */
+  private final Entry entry = new Entry();
+
+  /** The layout hashes of the positions of the current game. */
+  private final Set<Long> history = new HashSet<>();
+
+  /** The {@code Go} game of the last searched position. */
+  private Go go;
+
+  /** The boards by ply. */
+  private SearchBoard[] boards;
+
+  /** The layout hashes of the search path by ply. */
+  private long[] path;
+
+  /** The keys of the sets of layouts of the game and the search path up to a ply, by ply. */
+  private long[] pathKeys;
+
+  /** The move lists by ply. */
+  private int[][] moves;
+
+  /** The move ordering scores by ply. */
+  private int[][] scores;
+
+  /** The killer moves by ply. */
+  private int[][] killers;
+
+  /** The history heuristic by colour and move. */
+  private int[][] historyScores;
+
+  /** The {@code SearchBudget} of the current search, or {@code null} if not searching. */
+  private volatile SearchBudget budget;
+
+  /** The switch indicating the current iteration ran out of budget. */
+  private boolean isAborted;
+
+  /** The number of leaves of the current iteration evaluated at the depth limit. */
+  private long heuristicLeaves;
+
+  /** The best root move of the current iteration. */
+  private int iterationBestMove;
+
+  /** The number of nodes searched for the last move. */
+  private long nodes;
+
+  /** The depth of the last completed iteration. */
+  private int lastDepth;
+
+  /** The value of the last completed iteration for the player to move. */
+  private double lastValue;
+
+  /** The switch indicating the last value is exact. */
+  private boolean isLastSolved;
+
+  /** Instantiate a new {@code AlphaBetaStrategy} with the default settings. */
+  public AlphaBetaStrategy() {
+    this(DEFAULT_TIME_LIMIT_MILLIS);
+  }
+
+  /**
+   * Instantiate a new {@code AlphaBetaStrategy} with the specified time limit per move.
+   *
+   * @param timeLimitMillis the time limit in milliseconds.
+   */
+  public AlphaBetaStrategy(long timeLimitMillis) {
+    this(
+        timeLimitMillis,
+        DEFAULT_MAX_DEPTH,
+        TranspositionTable.ofMegabytes(DEFAULT_TABLE_MEGABYTES));
+  }
+
+  /**
+   * Instantiate a new {@code AlphaBetaStrategy}.
+   *
+   * @param timeLimitMillis the time limit per move in milliseconds.
+   * @param maxDepth the maximum search depth.
+   * @param table the {@code TranspositionTable}.
+   */
+  public AlphaBetaStrategy(long timeLimitMillis, int maxDepth, TranspositionTable table) {
+    if (maxDepth <= 0) {
+      throw new AssertionError("max depth must be greater than zero");
+    }
+    this.timeLimitMillis = timeLimitMillis;
+    this.maxDepth = maxDepth;
+    this.table = table;
+  }
+
+  @Override
+  public String getName() {
+    return "alphabeta";
+  }
+
+  @Override
+  public Move nextMove(Board board, Stone stone) {
+    return nextMove(board, stone, SearchBudget.ofMillis(timeLimitMillis));
+  }
+
+  @Override
+  public Move nextMove(Board board, Stone stone, SearchBudget budget) {
+    this.budget = budget;
+    int bestMove = search(prepare(board, stone));
+    this.budget = null;
+    if (bestMove == SearchBoard.PASS) {
+      return null;
+    }
+    SearchBoard after = new SearchBoard(boards[0]);
+    after.play(bestMove);
+    history.add(after.getLayoutHash());
+    return boards[0].toMove(bestMove, stone);
+  }
+
+  @Override
+  public void cancel() {
+    SearchBudget current = budget;
+    if (current != null) {
+      current.cancel();
+    }
+  }
+
+  /** @return the number of nodes searched for the last move. */
+  public long getNodes() {
+    return nodes;
+  }
+
+  @Override
+  public long getSearchedNodes() {
+    return nodes;
+  }
+
+  /** @return zero, as the search has no playouts. */
+  @Override
+  public long getSearchedPlayouts() {
+    return 0;
+  }
+
+  /** {@inheritDoc} Only the {@code TranspositionTable} is counted. */
+  @Override
+  public long getSearchMemory() {
+    return table.getMemoryUsage();
+  }
+
+  /** @return the depth of the last completed iteration. */
+  public int getLastDepth() {
+    return lastDepth;
+  }
+
+  /** @return the value of the last completed iteration for the player to move, in points. */
+  public double getLastValue() {
+    return lastValue;
+  }
+
+  /** @return {@code true} if the last value is exact, i.e., the position is solved. */
+  public boolean isLastSolved() {
+    return isLastSolved;
+  }
+
+  /**
+   * Prepare the search of the specified position: reset the game state if the position belongs to
+   * a new game and set up the boards of every ply.
+   *
+   * @param board the {@code Board}.
+   * @param stone the {@code Stone} to play.
+   * @return the {@code SearchBoard} of the root.
+   */
+  private SearchBoard prepare(Board board, Stone stone) {
+    if (board.getGo() != go || boards == null || boards[0].getDim() != board.getDim()) {
+      go = board.getGo();
+      history.clear();
+      boards = new SearchBoard[maxDepth + 1];
+      for (int ply = 0; ply <= maxDepth; ply++) {
+        boards[ply] = new SearchBoard(board.getDim());
+      }
+      path = new long[maxDepth + 1];
+      pathKeys = new long[maxDepth + 1];
+      moves = new int[maxDepth + 1][boards[0].getSize()];
+      scores = new int[maxDepth + 1][boards[0].getSize()];
+      killers = new int[maxDepth + 1][KILLERS];
+      historyScores = new int[SearchBoard.WHITE + 1][boards[0].getSize()];
+    }
+    SearchBoard root = new SearchBoard(board, stone);
+    boards[0].copyFrom(root);
+    history.add(root.getLayoutHash());
+    path[0] = root.getLayoutHash();
+    pathKeys[0] = 0;
+    for (long layoutHash : history) {
+      pathKeys[0] ^= layoutKey(layoutHash);
+    }
+    return boards[0];
+  }
+
+  /**
+   * Search the specified root by iterative deepening.
+   *
+   * @param root the {@code SearchBoard} of the root.
+   * @return the best move.
+   */
+  private int search(SearchBoard root) {
+    table.newSearch();
+    for (int[] plyKillers : killers) {
+      plyKillers[0] = SearchBoard.PASS;
+      plyKillers[1] = SearchBoard.PASS;
+    }
+    nodes = 0;
+    lastDepth = 0;
+    isLastSolved = false;
+    isAborted = false;
+    int bestMove = SearchBoard.PASS;
+    for (int depth = 1; depth <= maxDepth; depth++) {
+      heuristicLeaves = 0;
+      iterationBestMove = SearchBoard.PASS;
+      double value = search(0, depth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+      if (isAborted) {
+        break;
+      }
+      bestMove = iterationBestMove;
+      lastDepth = depth;
+      lastValue = value;
+      if (heuristicLeaves == 0) {
+        isLastSolved = true;
+        break;
+      }
+    }
+    return bestMove;
+  }
+
+  /**
+   * Search the position at the specified ply with negamax alpha-beta.
+   *
+   * @param ply the ply.
+   * @param depth the remaining depth.
+   * @param alpha the lower bound of the search window.
+   * @param beta the upper bound of the search window.
+   * @return the value for the player to move.
+   */
+  private double search(int ply, int depth, double alpha, double beta) {
+    SearchBoard board = boards[ply];
+    nodes++;
+    double sign = board.getToPlay() == SearchBoard.BLACK ? 1 : -1;
+    if (board.isFinished()) {
+      return sign * board.score();
+    }
+    if (depth == 0 || ply == maxDepth) {
+      heuristicLeaves++;
+      return sign * board.score();
+    }
+    if (nodes % CLOCK_CHECK_INTERVAL == 0 && budget.isExhausted(nodes)) {
+      isAborted = true;
+    }
+    if (isAborted) {
+      return 0;
+    }
+
+    // Look up the position
+    long key =
+        board.getPositionHash() ^ (board.getPasses() > 0 ? PASSED_KEY : 0) ^ pathKeys[ply];
+    int tableMove = TranspositionTable.NO_MOVE;
+    if (table.probe(key, entry)) {
+      tableMove = entry.getBestMove();
+      if (ply > 0 && (entry.getDepth() >= depth || entry.isProven())) {
+        double value = entry.getValue();
+        // A cutoff on a heuristic result makes the value of the iteration heuristic as well
+        long cutoffLeaves = entry.isProven() ? 0 : 1;
+        switch (entry.getBound()) {
+          case EXACT:
+            heuristicLeaves += cutoffLeaves;
+            return value;
+          case LOWER:
+            alpha = Math.max(alpha, value);
+            break;
+          case UPPER:
+            beta = Math.min(beta, value);
+            break;
+          default:
+            break;
+        }
+        if (alpha >= beta) {
+          heuristicLeaves += cutoffLeaves;
+          return value;
+        }
+      }
+    }
+
+    long initialHeuristicLeaves = heuristicLeaves;
+    int count = generateMoves(ply, tableMove);
+    int color = board.getToPlay();
+    double originalAlpha = alpha;
+    double best = Double.NEGATIVE_INFINITY;
+    int bestMove = TranspositionTable.NO_MOVE;
+    SearchBoard child = boards[ply + 1];
+    for (int i = 0; i < count; i++) {
+      int move = nextMove(ply, i, count);
+      child.copyFrom(board);
+      if (!child.play(move)
+          || (move != SearchBoard.PASS && repeatsLayout(ply, child.getLayoutHash()))) {
+        continue;
+      }
+      path[ply + 1] = child.getLayoutHash();
+      pathKeys[ply + 1] =
+          move != SearchBoard.PASS ? pathKeys[ply] ^ layoutKey(path[ply + 1]) : pathKeys[ply];
+      double value = -search(ply + 1, depth - 1, -beta, -alpha);
+      if (isAborted) {
+        return 0;
+      }
+      if (value > best) {
+        best = value;
+        bestMove = move;
+      }
+      if (value > alpha) {
+        alpha = value;
+      }
+      if (alpha >= beta) {
+        if (move != SearchBoard.PASS && killers[ply][0] != move) {
+          killers[ply][1] = killers[ply][0];
+          killers[ply][0] = move;
+        }
+        historyScores[color][move] += depth * depth;
+        break;
+      }
+    }
+    if (ply == 0) {
+      iterationBestMove = bestMove;
+    }
+    Bound bound = best <= originalAlpha ? Bound.UPPER : best >= beta ? Bound.LOWER : Bound.EXACT;
+    table.store(key, depth, best, bound, bestMove, heuristicLeaves == initialHeuristicLeaves);
+    return best;
+  }
+
+  /**
+   * Generate the moves of the position at the specified ply with their ordering scores: the best
+   * move of the {@code TranspositionTable} first, then killer moves, then moves by history score
+   * and a pass last.
+   *
+   * @param ply the ply.
+   * @param tableMove the best move of the {@code TranspositionTable}, or {@code NO_MOVE}.
+   * @return the number of moves.
+   */
+  private int generateMoves(int ply, int tableMove) {
+    SearchBoard board = boards[ply];
+    int color = board.getToPlay();
+    int[] plyMoves = moves[ply];
+    int[] plyScores = scores[ply];
+    int count = 0;
+    for (int ind = 0; ind < board.getSize(); ind++) {
+      if (board.get(ind) == SearchBoard.EMPTY && !board.isEye(ind, color) && board.isLegal(ind)) {
+        plyMoves[count] = ind;
+        plyScores[count++] = historyScores[color][ind];
+      }
+    }
+    plyMoves[count] = SearchBoard.PASS;
+    plyScores[count++] = Integer.MIN_VALUE;
+    for (int i = 0; i < count; i++) {
+      if (plyMoves[i] == tableMove) {
+        plyScores[i] = TABLE_MOVE_SCORE;
+      } else if (plyMoves[i] != SearchBoard.PASS) {
+        for (int k = 0; k < KILLERS; k++) {
+          if (plyMoves[i] == killers[ply][k]) {
+            plyScores[i] = KILLER_SCORE - k;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Select the move with the highest ordering score among the moves at the specified index and
+   * beyond, and swap it to that index. Selecting lazily is cheaper than sorting when a cutoff
+   * comes early.
+   *
+   * @param ply the ply.
+   * @param i the index.
+   * @param count the number of moves.
+   * @return the move.
+   */
+  private int nextMove(int ply, int i, int count) {
+    int[] plyMoves = moves[ply];
+    int[] plyScores = scores[ply];
+    int best = i;
+    for (int j = i + 1; j < count; j++) {
+      if (plyScores[j] > plyScores[best]) {
+        best = j;
+      }
+    }
+    int move = plyMoves[best];
+    int score = plyScores[best];
+    plyMoves[best] = plyMoves[i];
+    plyScores[best] = plyScores[i];
+    plyMoves[i] = move;
+    plyScores[i] = score;
+    return move;
+  }
+
+  /**
+   * Get the key of the specified layout in the key of a set of layouts, which is the exclusive or
+   * of the keys of its layouts. The layout hash is scrambled first, so the key of a set does not
+   * cancel out the layout of a position hash it is combined with.
+   *
+   * @param layoutHash the layout hash.
+   * @return the key.
+   */
+  private static long layoutKey(long layoutHash) {
+    long z = (layoutHash ^ (layoutHash >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return z ^ (z >>> 33);
+  }
+
+  /**
+   * Determine if the specified layout occurred in the game or on the search path up to the
+   * specified ply.
+   *
+   * @param ply the ply.
+   * @param layoutHash the layout hash.
+   * @return {@code true} if the layout is a repetition; {@code false} otherwise.
+   */
+  private boolean repeatsLayout(int ply, long layoutHash) {
+    for (int i = ply; i >= 0; i--) {
+      if (path[i] == layoutHash) {
+        return true;
+      }
+    }
+    return history.contains(layoutHash);
+  }
+}
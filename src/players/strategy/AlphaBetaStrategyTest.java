@@ -0,0 +1,110 @@
+package players.strategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import players.strategy.search.SearchBoard;
+import players.strategy.search.TranspositionTable;
+
+class AlphaBetaStrategyTest {
+
+  private AlphaBetaStrategy strategy;
+  private Board board;
+
+  @BeforeEach
+  void setUp() {
+    strategy = new AlphaBetaStrategy(500, 16, TranspositionTable.ofMegabytes(4));
+    board = new Board(5);
+  }
+
+  @Test
+  void testCapture() {
+    board = new Move(0, 0, Stone.WHITE).apply(board);
+    board = new Move(0, 1, Stone.BLACK).apply(board);
+    Move move = strategy.nextMove(board, Stone.BLACK);
+    assertNotNull(move);
+    assertEquals(1, move.getPlayableX());
+    assertEquals(0, move.getPlayableY());
+    assertTrue(strategy.getLastDepth() > 0);
+  }
+
+  @Test
+  void testSolve() {
+    // Black fills the board except for two eyes, so both players can only pass
+    for (int x = 0; x < 5; x++) {
+      for (int y = 0; y < 5; y++) {
+        if ((x != 0 || y != 0) && (x != 4 || y != 4)) {
+          board = new Move(x, y, Stone.BLACK).apply(board);
+        }
+      }
+    }
+    assertNull(strategy.nextMove(board, Stone.BLACK));
+    assertTrue(strategy.isLastSolved());
+    assertEquals(25 - SearchBoard.DEFAULT_KOMI, strategy.getLastValue(), 1e-9);
+  }
+
+  @Test
+  void testSolveTwice() {
+    // An open board is not solved, also not after the search of an earlier move filled the table
+    Move move = strategy.nextMove(board, Stone.BLACK);
+    assertFalse(strategy.isLastSolved());
+    board = move.apply(board);
+    board = strategy.nextMove(board, Stone.WHITE).apply(board);
+    strategy.nextMove(board, Stone.BLACK);
+    assertFalse(strategy.isLastSolved());
+
+    // An endgame of two living groups and one neutral point keeps its value along the solution
+    board = new Board(5);
+    for (int x = 0; x < 5; x++) {
+      for (int y = 0; y < 5; y++) {
+        if ((x < 2 || x == 2 && y < 2) && (x != 0 || y % 2 == 0)) {
+          board = new Move(x, y, Stone.BLACK).apply(board);
+        } else if ((x > 2 || x == 2 && y > 2) && (x != 4 || y % 2 == 0)) {
+          board = new Move(x, y, Stone.WHITE).apply(board);
+        }
+      }
+    }
+    move = strategy.nextMove(board, Stone.BLACK);
+    assertNotNull(move);
+    assertTrue(strategy.isLastSolved());
+    double value = strategy.getLastValue();
+    board = move.apply(board);
+    assertNull(strategy.nextMove(board, Stone.WHITE));
+    assertTrue(strategy.isLastSolved());
+    assertEquals(-value, strategy.getLastValue(), 1e-9);
+    assertNull(strategy.nextMove(board, Stone.BLACK));
+    assertTrue(strategy.isLastSolved());
+    assertEquals(value, strategy.getLastValue(), 1e-9);
+  }
+
+  @Test
+  void testCancel() throws InterruptedException {
+    SearchBudget budget = SearchBudget.unlimited();
+    Thread canceller =
+        new Thread(
+            () -> {
+              try {
+                Thread.sleep(100);
+              } catch (InterruptedException e) {
+                return;
+              }
+              strategy.cancel();
+            });
+    canceller.start();
+    long start = System.nanoTime();
+    Move move = strategy.nextMove(new Board(9), Stone.BLACK, budget);
+    canceller.join();
+    assertTrue(budget.isCancelled());
+    assertTrue(System.nanoTime() - start < 5_000_000_000L);
+    assertNotNull(move);
+    assertTrue(strategy.getLastDepth() > 0);
+  }
+}
@@ -0,0 +1,96 @@
+package players.strategy;
+
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import game.material.board.Zobrist;
+import players.strategy.book.OpeningBook;
+import players.strategy.search.SearchBoard;
+
+/**
+ * A {@code Strategy} decorator that plays the most played move of an {@code OpeningBook} while the
+ * position is in the book, and asks the wrapped {@code Strategy} otherwise.
+ */
+public class BookStrategy implements Strategy {
+
+  /** The default minimum number of games of a book move to be played. */
+  public static final int DEFAULT_MIN_GAMES = 3;
+
+  /** The {@code OpeningBook}. */
+  private final OpeningBook book;
+
+  /** The wrapped {@code Strategy}. */
+  private final Strategy strategy;
+
+  /** The minimum number of games of a book move to be played. */
+  private final int minGames;
+
+  /**
+   * Instantiate a new {@code BookStrategy} with the default minimum number of games.
+   *
+   * @param book the {@code OpeningBook}.
+   * @param strategy the {@code Strategy} to fall back to.
+   */
+  public BookStrategy(OpeningBook book, Strategy strategy) {
+    this(book, strategy, DEFAULT_MIN_GAMES);
+  }
+
+  /**
+   * Instantiate a new {@code BookStrategy}.
+   *
+   * @param book the {@code OpeningBook}.
+   * @param strategy the {@code Strategy} to fall back to.
+   * @param minGames the minimum number of games of a book move to be played.
+   */
+  public BookStrategy(OpeningBook book, Strategy strategy, int minGames) {
+    this.book = book;
+    this.strategy = strategy;
+    this.minGames = minGames;
+  }
+
+  @Override
+  public String getName() {
+    return "book+" + strategy.getName();
+  }
+
+  @Override
+  public Move nextMove(Board board, Stone stone) {
+    return nextMove(board, stone, null);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The budget applies to the wrapped {@code Strategy} only. Without a budget, i.e., {@code
+   * null}, the wrapped {@code Strategy} searches within its own limits.
+   */
+  @Override
+  public Move nextMove(Board board, Stone stone, SearchBudget budget) {
+    int entry = book.probe(board.getLayoutHash() ^ Zobrist.toPlayKey(stone));
+    if (entry >= 0 && book.getGames(entry) >= minGames) {
+      int move = book.getMove(entry);
+      if (move == SearchBoard.PASS) {
+        return null;
+      }
+      int fullDim = board.getDim() + 2;
+      Move bookMove = new Move(move / fullDim - 1, move % fullDim - 1, stone);
+      if (board.get(bookMove.getPlayableX(), bookMove.getPlayableY()).isPlayable()) {
+        return bookMove;
+      }
+    }
+    if (budget == null) {
+      return strategy.nextMove(board, stone);
+    }
+    return strategy.nextMove(board, stone, budget);
+  }
+
+  @Override
+  public void cancel() {
+    strategy.cancel();
+  }
+
+  /** @return the wrapped {@code Strategy}. */
+  public Strategy getStrategy() {
+    return strategy;
+  }
+}
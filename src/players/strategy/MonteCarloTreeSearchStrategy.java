@@ -0,0 +1,803 @@
+package players.strategy;
+
+import game.Go;
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import game.material.board.Zobrist;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import players.strategy.network.Evaluator;
+import players.strategy.search.Playout;
+import players.strategy.search.SearchBoard;
+import players.strategy.search.SearchTree;
+import players.strategy.search.TranspositionTable;
+import players.strategy.search.TranspositionTable.Entry;
+
+/**
+ * A {@code Strategy} that selects moves by Monte Carlo tree search with the UCT selection rule and
+ * random playouts.
+ *
+ * <p>The search tree is kept between turns. When the next position arrives, the node of the
+ * opponent's reply to the previous move is looked up among the grandchildren of the previous root
+ * and becomes the new root, so the statistics of that subtree are reused and the rest of the tree
+ * is released. The tree is discarded when a new {@code Go} game starts or the position is not
+ * found.
+ *
+ * <p>The tree is a {@code SearchTree} of preallocated arrays with a fixed capacity, so the search
+ * allocates next to nothing. When it is nearly full, the subtrees of the least visited nodes are
+ * recycled and the search goes on, so a search, or pondering, can run for minutes in flat memory.
+ *
+ * <p>Positions of the game and of the path in the tree are remembered by their {@code Zobrist}
+ * hash, so the search never plays a move that repeats a layout (positional superko).
+ *
+ * <p>The strategy can ponder: after it has selected a move, a background thread keeps searching
+ * the position after that move, i.e., all replies of the opponent, while the opponent thinks. The
+ * next call to {@code nextMove} stops pondering and reuses its results through the tree. The share
+ * of a processor the pondering thread may use is configurable, so pondering can be limited on
+ * shared machines.
+ *
+ * <p>The playouts are those of a configurable {@code Playout}, e.g., a {@code PatternPlayout},
+ * which plays tactical moves and avoids bad shapes at some cost per playout.
+ *
+ * <p>With an {@code Evaluator}, e.g., a policy/value network, leaves are valued by the evaluator
+ * instead of a playout, new moves are expanded in the order of their prior probabilities and
+ * children are selected by the PUCT rule, which weighs exploration by those priors.
+ *
+ * <p>The search is anytime: within a {@code SearchBudget} it runs until the deadline, the playout
+ * limit or the memory cap of the tree is reached, or until it is cancelled, and then plays the most
+ * visited move so far. Without a budget it runs the configured number of playouts.
+ */
+public class MonteCarloTreeSearchStrategy implements Strategy, SearchStatistics {
+
+  /** The default number of playouts per move. */
+  public static final int DEFAULT_PLAYOUTS = 2000;
+
+  /** The default exploration constant of the UCT selection rule. */
+  public static final double DEFAULT_EXPLORATION = 0.7;
+
+  /** The default share of a processor used for pondering, which disables pondering. */
+  public static final double DEFAULT_PONDER_CPU_SHARE = 0;
+
+  /** The default maximum number of nodes of the search tree. */
+  public static final int DEFAULT_TREE_CAPACITY = 1 << 16;
+
+  /** The number of untried moves the search tree has room for per node. */
+  private static final int UNTRIED_MOVES_PER_NODE = 16;
+
+  /** The maximum number of visits a new node inherits from a {@code TranspositionTable}. */
+  private static final int MAX_INHERITED_VISITS = 16;
+
+  /** The duration of a pondering time slice, after which the thread idles for its CPU share. */
+  private static final long PONDER_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /**
+   * The maximum number of pondering playouts as a multiple of the playouts per move, which stops
+   * pondering once the game has ended without another call.
+   */
+  private static final int MAX_PONDER_FACTOR = 20;
+
+  /** The number of playouts per move. */
+  private final int playoutsPerMove;
+
+  /** The exploration constant. */
+  private final double exploration;
+
+  /** The {@code TranspositionTable}, or {@code null} if transpositions are not shared. */
+  private final TranspositionTable table;
+
+  /** The {@code Evaluator}, or {@code null} to value leaves by playouts. */
+  private final Evaluator evaluator;
+
+  /** The search tree. */
+  private final SearchTree tree;
+
+  /** The reused {@code TranspositionTable} entry. */
+  private final Entry entry = new Entry();
+
+  /** The random number generator for expansion. */
+  private final SplittableRandom random = new SplittableRandom();
+
+  /** The playout engine. */
+  private final Playout playout;
+
+  /** The layout hashes of the positions of the current game. */
+  private final Set<Long> history = new HashSet<>();
+
+  /** The {@code Go} game of the last searched position. */
+  private Go go;
+
+  /** The board the iterations play on. */
+  private SearchBoard scratch;
+
+  /** The policy of the last evaluation. */
+  private float[] policy;
+
+  /** The reused buffer of generated moves. */
+  private int[] moves;
+
+  /** The reused buffer of the priors of generated moves. */
+  private float[] priors;
+
+  /** The reused buffer of the moves on a path through the tree. */
+  private int[] path;
+
+  /** The number of visits of the root that were reused at the start of the last search. */
+  private int reusedVisits;
+
+  /** The number of playouts of the last search. */
+  private int lastPlayouts;
+
+  /** The number of nodes added to the tree by the last search. */
+  private long lastNodes;
+
+  /** The {@code SearchBudget} of the current search, or {@code null} if not searching. */
+  private volatile SearchBudget budget;
+
+  /** The share of a processor used for pondering, between zero (disabled) and one. */
+  private volatile double ponderCpuShare = DEFAULT_PONDER_CPU_SHARE;
+
+  /** The switch that keeps the pondering thread running. */
+  private volatile boolean isPondering;
+
+  /** The pondering thread, or {@code null} if not pondering. */
+  private Thread ponderThread;
+
+  /** The node after the last selected move, to ponder from, or {@code SearchTree.NONE}. */
+  private int ponderNode = SearchTree.NONE;
+
+  /** The board of {@code ponderNode}. */
+  private SearchBoard ponderBoard;
+
+  /** The number of playouts of the last pondering session. */
+  private volatile int ponderedPlayouts;
+
+  /** Instantiate a new {@code MonteCarloTreeSearchStrategy} with the default settings. */
+  public MonteCarloTreeSearchStrategy() {
+    this(DEFAULT_PLAYOUTS);
+  }
+
+  /**
+   * Instantiate a new {@code MonteCarloTreeSearchStrategy} with the specified number of playouts
+   * per move.
+   *
+   * @param playoutsPerMove the number of playouts per move.
+   */
+  public MonteCarloTreeSearchStrategy(int playoutsPerMove) {
+    this(playoutsPerMove, DEFAULT_EXPLORATION, null);
+  }
+
+  /**
+   * Instantiate a new {@code MonteCarloTreeSearchStrategy}.
+   *
+   * @param playoutsPerMove the number of playouts per move.
+   * @param exploration the exploration constant of the UCT selection rule.
+   * @param table the {@code TranspositionTable} to share statistics of transpositions through, or
+   *     {@code null}.
+   */
+  public MonteCarloTreeSearchStrategy(
+      int playoutsPerMove, double exploration, TranspositionTable table) {
+    this(playoutsPerMove, exploration, table, null);
+  }
+
+  /**
+   * Instantiate a new {@code MonteCarloTreeSearchStrategy}.
+   *
+   * @param playoutsPerMove the number of playouts, or evaluations, per move.
+   * @param exploration the exploration constant of the UCT, or with an evaluator PUCT, selection
+   *     rule.
+   * @param table the {@code TranspositionTable} to share statistics of transpositions through, or
+   *     {@code null}.
+   * @param evaluator the {@code Evaluator} to value leaves and order moves with, or {@code null}
+   *     to value leaves by playouts.
+   */
+  public MonteCarloTreeSearchStrategy(
+      int playoutsPerMove, double exploration, TranspositionTable table, Evaluator evaluator) {
+    this(playoutsPerMove, exploration, table, evaluator, DEFAULT_TREE_CAPACITY);
+  }
+
+  /**
+   * Instantiate a new {@code MonteCarloTreeSearchStrategy}.
+   *
+   * @param playoutsPerMove the number of playouts, or evaluations, per move.
+   * @param exploration the exploration constant of the UCT, or with an evaluator PUCT, selection
+   *     rule.
+   * @param table the {@code TranspositionTable} to share statistics of transpositions through, or
+   *     {@code null}.
+   * @param evaluator the {@code Evaluator} to value leaves and order moves with, or {@code null}
+   *     to value leaves by playouts.
+   * @param treeCapacity the maximum number of nodes of the search tree.
+   */
+  public MonteCarloTreeSearchStrategy(
+      int playoutsPerMove,
+      double exploration,
+      TranspositionTable table,
+      Evaluator evaluator,
+      int treeCapacity) {
+    this(playoutsPerMove, exploration, table, evaluator, treeCapacity, Playout::new);
+  }
+
+  /**
+   * Instantiate a new {@code MonteCarloTreeSearchStrategy}.
+   *
+   * @param playoutsPerMove the number of playouts, or evaluations, per move.
+   * @param exploration the exploration constant of the UCT, or with an evaluator PUCT, selection
+   *     rule.
+   * @param table the {@code TranspositionTable} to share statistics of transpositions through, or
+   *     {@code null}.
+   * @param evaluator the {@code Evaluator} to value leaves and order moves with, or {@code null}
+   *     to value leaves by playouts.
+   * @param treeCapacity the maximum number of nodes of the search tree.
+   * @param playoutFactory the factory of the {@code Playout} from its random number generator,
+   *     e.g., {@code PatternPlayout::new}.
+   */
+  public MonteCarloTreeSearchStrategy(
+      int playoutsPerMove,
+      double exploration,
+      TranspositionTable table,
+      Evaluator evaluator,
+      int treeCapacity,
+      Function<SplittableRandom, ? extends Playout> playoutFactory) {
+    if (playoutsPerMove <= 0) {
+      throw new AssertionError("playouts per move must be greater than zero");
+    }
+    this.playoutsPerMove = playoutsPerMove;
+    this.exploration = exploration;
+    this.table = table;
+    this.evaluator = evaluator;
+    playout = playoutFactory.apply(random.split());
+    tree = new SearchTree(treeCapacity, treeCapacity * UNTRIED_MOVES_PER_NODE);
+  }
+
+  @Override
+  public String getName() {
+    return "mcts";
+  }
+
+  @Override
+  public Move nextMove(Board board, Stone stone) {
+    return nextMove(board, stone, SearchBudget.ofNodes(playoutsPerMove));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The node limit of the budget limits the number of playouts, or evaluations, and the memory
+   * cap limits the memory of the tree in use, including the part reused from the previous search.
+   * At least one playout is run. Pondering starts after the search, unless the budget is that of a
+   * slice, which defers it to {@code finishSearch}.
+   */
+  @Override
+  public Move nextMove(Board board, Stone stone, SearchBudget budget) {
+    stopPondering();
+    this.budget = budget;
+    SearchBoard rootBoard = prepare(board, stone);
+    long initialAddedCount = tree.getAddedCount();
+    int playouts = 0;
+    do {
+      if (tree.isFull(scratch.getSize() + 1)) {
+        tree.recycle();
+      }
+      iterate(tree.getRoot(), rootBoard, scratch);
+      playouts++;
+    } while (!budget.isExhausted(playouts) && tree.getUsedMemory() < budget.getMemoryBytes());
+    lastPlayouts = playouts;
+    lastNodes = tree.getAddedCount() - initialAddedCount;
+    this.budget = null;
+    Move move = decide(rootBoard, stone);
+    if (!budget.isSlice()) {
+      startPondering();
+    }
+    return move;
+  }
+
+  /** {@inheritDoc} Pondering starts from the position after the move of the last slice. */
+  @Override
+  public void finishSearch() {
+    startPondering();
+  }
+
+  @Override
+  public void cancel() {
+    SearchBudget current = budget;
+    if (current != null) {
+      current.cancel();
+    }
+  }
+
+  /** {@inheritDoc} The search continues from the tree, which is kept for the same position. */
+  @Override
+  public boolean isResumable() {
+    return true;
+  }
+
+  /** @return the number of playouts, or evaluations, of the last search. */
+  public int getLastPlayouts() {
+    return lastPlayouts;
+  }
+
+  @Override
+  public long getSearchedNodes() {
+    return lastNodes;
+  }
+
+  @Override
+  public long getSearchedPlayouts() {
+    return lastPlayouts;
+  }
+
+  /** {@inheritDoc} Only the tree is counted, which is allocated up front. */
+  @Override
+  public long getSearchMemory() {
+    return tree.getMemoryUsage();
+  }
+
+  /** @return the share of a processor used for pondering. */
+  public double getPonderCpuShare() {
+    return ponderCpuShare;
+  }
+
+  /**
+   * Set the share of a processor used for pondering on the opponent's time. The pondering thread
+   * searches for a time slice and then idles long enough to stay within the share.
+   *
+   * @param ponderCpuShare the share, between zero (pondering disabled) and one.
+   */
+  public void setPonderCpuShare(double ponderCpuShare) {
+    if (ponderCpuShare < 0 || ponderCpuShare > 1) {
+      throw new AssertionError("ponder CPU share must be between zero and one");
+    }
+    this.ponderCpuShare = ponderCpuShare;
+    if (ponderCpuShare == 0) {
+      stopPondering();
+    }
+  }
+
+  /** @return the number of playouts of the last pondering session. */
+  public int getPonderedPlayouts() {
+    return ponderedPlayouts;
+  }
+
+  /** Stop the pondering thread, if any, and wait for it to finish its current playout. */
+  public void stopPondering() {
+    isPondering = false;
+    Thread thread = ponderThread;
+    if (thread != null) {
+      thread.interrupt();
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      ponderThread = null;
+    }
+  }
+
+  /** Start pondering from the position after the last selected move, if enabled. */
+  private void startPondering() {
+    if (ponderCpuShare <= 0 || ponderNode == SearchTree.NONE || ponderBoard.isFinished()) {
+      return;
+    }
+    final int node = ponderNode;
+    final SearchBoard nodeBoard = ponderBoard;
+    isPondering = true;
+    ponderedPlayouts = 0;
+    ponderThread = new Thread(() -> ponder(node, nodeBoard), getName() + " ponder");
+    ponderThread.setDaemon(true);
+    ponderThread.start();
+  }
+
+  /**
+   * Search from the specified node until pondering is stopped or the playout limit is reached,
+   * idling between time slices according to the CPU share.
+   *
+   * @param node the node to search from.
+   * @param nodeBoard the {@code SearchBoard} of the node.
+   */
+  private void ponder(int node, SearchBoard nodeBoard) {
+    SearchBoard board = new SearchBoard(nodeBoard);
+    int maxPlayouts = MAX_PONDER_FACTOR * playoutsPerMove;
+    while (isPondering && ponderedPlayouts < maxPlayouts) {
+      long start = System.nanoTime();
+      do {
+        if (tree.isFull(board.getSize() + 1)) {
+          tree.recycle();
+          node = tree.forward(node);
+        }
+        iterate(node, nodeBoard, board);
+        ponderedPlayouts++;
+      } while (isPondering && System.nanoTime() - start < PONDER_SLICE_NANOS);
+      double share = ponderCpuShare;
+      if (share < 1) {
+        long idleNanos = (long) ((System.nanoTime() - start) * (1 - share) / Math.max(share, 1e-3));
+        try {
+          TimeUnit.NANOSECONDS.sleep(idleNanos);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Get the search tree, which must not be modified and is only consistent while neither searching
+   * nor pondering.
+   *
+   * @return the {@code SearchTree}, which is empty before the first search.
+   */
+  public SearchTree getTree() {
+    return tree;
+  }
+
+  /** @return the number of layouts in the superko history of the current game. */
+  public int getHistorySize() {
+    return history.size();
+  }
+
+  /** @return the number of root visits that were reused from the previous search. */
+  public int getReusedVisits() {
+    return reusedVisits;
+  }
+
+  /**
+   * Prepare the search of the specified position: reset the game state if the position belongs to
+   * a new game and set the root of the tree.
+   *
+   * @param board the {@code Board}.
+   * @param stone the {@code Stone} to play.
+   * @return the {@code SearchBoard} of the root.
+   */
+  private SearchBoard prepare(Board board, Stone stone) {
+    if (board.getGo() != go || scratch == null || scratch.getDim() != board.getDim()) {
+      go = board.getGo();
+      history.clear();
+      tree.clear();
+      scratch = new SearchBoard(board.getDim());
+      policy = new float[scratch.getSize()];
+      moves = new int[scratch.getSize() + 1];
+      priors = new float[scratch.getSize() + 1];
+      path = new int[scratch.getSize()];
+      ponderNode = SearchTree.NONE;
+      ponderBoard = null;
+    }
+    SearchBoard rootBoard = new SearchBoard(board, stone);
+
+    // The move decided at the previous root was played once the root moved on, so only then does
+    // its layout join the history, and the moves decided by the slices of a search never do
+    if (ponderBoard != null
+        && tree.getPositionHash(tree.getRoot()) != rootBoard.getPositionHash()) {
+      history.add(ponderBoard.getLayoutHash());
+    }
+    history.add(rootBoard.getLayoutHash());
+    if (reuse(rootBoard.getPositionHash())) {
+      reusedVisits = tree.getVisits(tree.getRoot());
+    } else {
+      reusedVisits = 0;
+      tree.setRoot(rootBoard.getPositionHash(), rootBoard.getToPlay());
+    }
+    if (table != null) {
+      table.newSearch();
+    }
+    return rootBoard;
+  }
+
+  /**
+   * Find the node of the specified position in the current tree, i.e., the root itself or one of
+   * its grandchildren, and make it the root.
+   *
+   * @param positionHash the position hash.
+   * @return {@code true} if found; {@code false} otherwise.
+   */
+  private boolean reuse(long positionHash) {
+    int root = tree.getRoot();
+    if (root == SearchTree.NONE) {
+      return false;
+    }
+    if (tree.getPositionHash(root) == positionHash) {
+      return true;
+    }
+    for (int child = tree.getFirstChild(root);
+        child != SearchTree.NONE;
+        child = tree.getNextSibling(child)) {
+      for (int grandchild = tree.getFirstChild(child);
+          grandchild != SearchTree.NONE;
+          grandchild = tree.getNextSibling(grandchild)) {
+        if (tree.getPositionHash(grandchild) == positionHash) {
+          tree.reroot(grandchild);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Select the most visited move of the root, remember its board to ponder from and convert it to
+   * a {@code Move}.
+   *
+   * @param rootBoard the {@code SearchBoard} of the root.
+   * @param stone the {@code Stone} to play.
+   * @return the {@code Move}, or {@code null} to pass.
+   */
+  private Move decide(SearchBoard rootBoard, Stone stone) {
+    int best = SearchTree.NONE;
+    for (int child = tree.getFirstChild(tree.getRoot());
+        child != SearchTree.NONE;
+        child = tree.getNextSibling(child)) {
+      if (best == SearchTree.NONE
+          || tree.getVisits(child) > tree.getVisits(best)
+          || (tree.getVisits(child) == tree.getVisits(best)
+              && tree.getMeanValue(child) > tree.getMeanValue(best))) {
+        best = child;
+      }
+    }
+    ponderNode = best;
+    if (best == SearchTree.NONE) {
+      return null;
+    }
+    ponderBoard = new SearchBoard(rootBoard);
+    ponderBoard.play(tree.getMove(best));
+    if (tree.getMove(best) == SearchBoard.PASS) {
+      return null;
+    }
+    return rootBoard.toMove(tree.getMove(best), stone);
+  }
+
+  /**
+   * Run a single iteration of the search from the specified node: select a path through the tree,
+   * expand it by one node, value it by a playout or the evaluator and back up the result. The
+   * moves of a node are only generated while the tree has room for them, so a descent that meets
+   * several unexpanded nodes, e.g., after superko rejections, stops at a leaf rather than overrun
+   * the capacity.
+   *
+   * @param start the node to start from, usually the root.
+   * @param startBoard the {@code SearchBoard} of the start node.
+   * @param board the {@code SearchBoard} to play the iteration on.
+   */
+  private void iterate(int start, SearchBoard startBoard, SearchBoard board) {
+    board.copyFrom(startBoard);
+    int node = start;
+    while (!board.isFinished()) {
+      if (!tree.isGenerated(node)) {
+        if (evaluator != null) {
+          // A leaf, valued and generated by the evaluator below
+          break;
+        }
+        if (tree.isFull(board.getSize() + 1)) {
+          // No room for the moves of another node: the leaf is valued by a playout
+          break;
+        }
+        generateMoves(node, board, null);
+      }
+      if (tree.hasUntriedMoves(node) && isExpanding(node)) {
+        int child = expand(node, board, start, startBoard);
+        if (child != SearchTree.NONE) {
+          node = child;
+          break;
+        }
+      }
+      if (!tree.hasChildren(node)) {
+        break;
+      }
+      node = select(node);
+      board.play(tree.getMove(node));
+    }
+    double blackValue;
+    if (board.isFinished()) {
+      blackValue = board.score() > 0 ? 1 : 0;
+    } else if (evaluator != null && !tree.isGenerated(node)) {
+      float value = evaluator.evaluate(board, policy);
+      if (!tree.isFull(board.getSize() + 1)) {
+        generateMoves(node, board, policy);
+      }
+      blackValue = (1 + (board.getToPlay() == SearchBoard.BLACK ? value : -value)) / 2;
+    } else {
+      blackValue = playout.run(board) > 0 ? 1 : 0;
+    }
+    backPropagate(node, blackValue);
+  }
+
+  /**
+   * Generate the moves to expand the specified node with: every legal move that does not fill an
+   * own eye, and a pass. With a policy, the priors of the moves are normalised to sum to one.
+   *
+   * @param node the node.
+   * @param board the {@code SearchBoard} in the position of the node.
+   * @param policy the move probabilities by linear index, or {@code null}.
+   */
+  private void generateMoves(int node, SearchBoard board, float[] policy) {
+    int count = 0;
+    int color = board.getToPlay();
+    for (int ind = 0; ind < board.getSize(); ind++) {
+      if (board.get(ind) == SearchBoard.EMPTY && !board.isEye(ind, color) && board.isLegal(ind)) {
+        moves[count++] = ind;
+      }
+    }
+    moves[count++] = SearchBoard.PASS;
+    if (policy == null) {
+      tree.setUntriedMoves(node, moves, null, count);
+      return;
+    }
+    float sum = 0;
+    for (int i = 0; i < count; i++) {
+      priors[i] = policy[moves[i]];
+      sum += priors[i];
+    }
+    for (int i = 0; i < count; i++) {
+      priors[i] = sum > 0 ? priors[i] / sum : 1f / count;
+    }
+    tree.setUntriedMoves(node, moves, priors, count);
+  }
+
+  /**
+   * Expand the specified node with an untried move that does not violate superko and play it on
+   * the specified board. The move is random, or with an evaluator the one with the highest prior.
+   *
+   * @param node the node.
+   * @param board the {@code SearchBoard} in the position of the node.
+   * @param start the start node of the iteration, to restore from after a violation.
+   * @param startBoard the {@code SearchBoard} of the start node.
+   * @return the new child, or {@code SearchTree.NONE} if all untried moves violate superko.
+   */
+  private int expand(int node, SearchBoard board, int start, SearchBoard startBoard) {
+    while (tree.hasUntriedMoves(node)) {
+      int i =
+          evaluator != null
+              ? tree.getBestUntriedIndex(node)
+              : random.nextInt(tree.getUntriedCount(node));
+      float prior = tree.getUntriedPrior(node, i);
+      int move = tree.takeUntriedMove(node, i);
+      board.play(move);
+      if (move != SearchBoard.PASS && repeatsLayout(node, board.getLayoutHash())) {
+        replay(board, start, startBoard, node);
+        continue;
+      }
+      int child = tree.addChild(node, move, board.getPositionHash());
+      tree.setPrior(child, prior);
+      if (table != null && table.probe(tree.getPositionHash(child), entry)) {
+        int visits = Math.min(entry.getVisits(), MAX_INHERITED_VISITS);
+        tree.add(child, visits, visits * entry.getMeanValue());
+      }
+      return child;
+    }
+    return SearchTree.NONE;
+  }
+
+  /**
+   * Determine if the specified layout occurred in the game or on the path to the specified node.
+   *
+   * @param node the node.
+   * @param layoutHash the layout hash.
+   * @return {@code true} if the layout is a repetition; {@code false} otherwise.
+   */
+  private boolean repeatsLayout(int node, long layoutHash) {
+    if (history.contains(layoutHash)) {
+      return true;
+    }
+    for (int ancestor = node; ancestor != SearchTree.NONE; ancestor = tree.getParent(ancestor)) {
+      long ancestorLayoutHash =
+          tree.getPositionHash(ancestor)
+              ^ Zobrist.toPlayKey(SearchBoard.stone(tree.getToPlay(ancestor)));
+      if (ancestorLayoutHash == layoutHash) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Restore the specified board to the position of the specified node by replaying the path from
+   * the specified start node.
+   *
+   * @param board the {@code SearchBoard} to restore.
+   * @param start the start node, an ancestor of the node.
+   * @param startBoard the {@code SearchBoard} of the start node.
+   * @param node the node.
+   */
+  private void replay(SearchBoard board, int start, SearchBoard startBoard, int node) {
+    board.copyFrom(startBoard);
+    int depth = 0;
+    for (int ancestor = node; ancestor != start; ancestor = tree.getParent(ancestor)) {
+      depth++;
+    }
+    if (depth > path.length) {
+      path = new int[2 * depth];
+    }
+    int i = depth;
+    for (int ancestor = node; ancestor != start; ancestor = tree.getParent(ancestor)) {
+      path[--i] = tree.getMove(ancestor);
+    }
+    for (i = 0; i < depth; i++) {
+      board.play(path[i]);
+    }
+  }
+
+  /**
+   * Determine if the specified node, which has untried moves, should be expanded rather than
+   * descended into: always with the UCT rule, which tries every move once first, and with the PUCT
+   * rule if the best untried move would be selected over every child.
+   *
+   * @param node the node.
+   * @return {@code true} if the node should be expanded; {@code false} otherwise.
+   */
+  private boolean isExpanding(int node) {
+    if (evaluator == null || !tree.hasChildren(node)) {
+      return true;
+    }
+    double sqrtVisits = Math.sqrt(tree.getVisits(node));
+    float untriedPrior = tree.getUntriedPrior(node, tree.getBestUntriedIndex(node));
+    double untriedBound = 0.5 + exploration * untriedPrior * sqrtVisits;
+    return untriedBound > priorBound(select(node), sqrtVisits);
+  }
+
+  /**
+   * Get the PUCT bound of the specified child.
+   *
+   * @param child the child.
+   * @param sqrtVisits the square root of the number of visits of the parent.
+   * @return the bound.
+   */
+  private double priorBound(int child, double sqrtVisits) {
+    return tree.getMeanValue(child)
+        + exploration * tree.getPrior(child) * sqrtVisits / (1 + tree.getVisits(child));
+  }
+
+  /**
+   * Select the child of the specified node with the highest upper confidence bound, or with an
+   * evaluator the highest PUCT bound.
+   *
+   * @param node the node.
+   * @return the child.
+   */
+  private int select(int node) {
+    int best = SearchTree.NONE;
+    double bestBound = Double.NEGATIVE_INFINITY;
+    if (evaluator != null) {
+      double sqrtVisits = Math.sqrt(tree.getVisits(node));
+      for (int child = tree.getFirstChild(node);
+          child != SearchTree.NONE;
+          child = tree.getNextSibling(child)) {
+        double bound = priorBound(child, sqrtVisits);
+        if (bound > bestBound) {
+          bestBound = bound;
+          best = child;
+        }
+      }
+      return best;
+    }
+    double logVisits = Math.log(Math.max(tree.getVisits(node), 1));
+    for (int child = tree.getFirstChild(node);
+        child != SearchTree.NONE;
+        child = tree.getNextSibling(child)) {
+      int visits = tree.getVisits(child);
+      double bound =
+          visits == 0
+              ? Double.POSITIVE_INFINITY
+              : tree.getMeanValue(child) + exploration * Math.sqrt(logVisits / visits);
+      if (bound > bestBound) {
+        bestBound = bound;
+        best = child;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Update the statistics of the specified node and all its ancestors with the specified value.
+   *
+   * @param node the node.
+   * @param blackValue the value for black, between zero (loss) and one (win).
+   */
+  private void backPropagate(int node, double blackValue) {
+    for (; node != SearchTree.NONE; node = tree.getParent(node)) {
+      double value = tree.getToPlay(node) == SearchBoard.WHITE ? blackValue : 1 - blackValue;
+      tree.update(node, value);
+      if (table != null) {
+        table.add(tree.getPositionHash(node), 1, value);
+      }
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package players.strategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import org.junit.jupiter.api.BeforeEach;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import players.strategy.search.PatternPlayout;
+import players.strategy.search.SearchBoard;
+import players.strategy.search.SearchTree;
+
+class MonteCarloTreeSearchStrategyTest {
+
+  private MonteCarloTreeSearchStrategy strategy;
+  private Board board;
+
+  @BeforeEach
+  void setUp() {
+    strategy = new MonteCarloTreeSearchStrategy(500);
+    board = new Board(5);
+  }
+
+  @Test
+  void testNextMove() {
+    Move move = strategy.nextMove(board, Stone.BLACK);
+    assertNotNull(move);
+    assertEquals(Stone.BLACK, move.getMaterial());
+    assertTrue(board.get(move.getPlayableX(), move.getPlayableY()).isPlayable());
+  }
+
+  @Test
+  void testTreeReuse() {
+    Move move = strategy.nextMove(board, Stone.BLACK);
+    assertEquals(0, strategy.getReusedVisits());
+
+    // Let the opponent answer with the reply that was searched most
+    SearchBoard searchBoard = new SearchBoard(board, Stone.BLACK);
+    int moveIndex = searchBoard.toIndex(move);
+    SearchTree tree = strategy.getTree();
+    int played = SearchTree.NONE;
+    for (int child = tree.getFirstChild(tree.getRoot());
+        child != SearchTree.NONE;
+        child = tree.getNextSibling(child)) {
+      if (tree.getMove(child) == moveIndex) {
+        played = child;
+      }
+    }
+    assertNotEquals(SearchTree.NONE, played);
+    int reply = tree.getFirstChild(played);
+    for (int child = reply; child != SearchTree.NONE; child = tree.getNextSibling(child)) {
+      if (tree.getVisits(child) > tree.getVisits(reply)) {
+        reply = child;
+      }
+    }
+    int replyVisits = tree.getVisits(reply);
+    searchBoard.play(moveIndex);
+    searchBoard.play(tree.getMove(reply));
+    board = searchBoard.toBoard();
+
+    strategy.nextMove(board, Stone.BLACK);
+    assertTrue(replyVisits > 0);
+    assertEquals(replyVisits, strategy.getReusedVisits());
+    assertEquals(replyVisits + 500, tree.getVisits(tree.getRoot()));
+    assertEquals(SearchTree.NONE, tree.getParent(tree.getRoot()));
+  }
+
+  @Test
+  void testUnknownPositionStartsFresh() {
+    strategy.nextMove(board, Stone.BLACK);
+    Board other = new Board(7);
+    strategy.nextMove(other, Stone.WHITE);
+    assertEquals(0, strategy.getReusedVisits());
+    assertEquals(500, strategy.getTree().getVisits(strategy.getTree().getRoot()));
+  }
+
+  @Test
+  void testPondering() throws InterruptedException {
+    strategy.setPonderCpuShare(0.5);
+    Move move = strategy.nextMove(board, Stone.BLACK);
+    Thread.sleep(100);
+    strategy.stopPondering();
+    int ponderedPlayouts = strategy.getPonderedPlayouts();
+    assertTrue(ponderedPlayouts > 0);
+
+    // The pondered playouts are found in the subtree of the selected move
+    SearchBoard searchBoard = new SearchBoard(board, Stone.BLACK);
+    int moveIndex = searchBoard.toIndex(move);
+    SearchTree tree = strategy.getTree();
+    for (int child = tree.getFirstChild(tree.getRoot());
+        child != SearchTree.NONE;
+        child = tree.getNextSibling(child)) {
+      if (tree.getMove(child) == moveIndex) {
+        assertTrue(tree.getVisits(child) >= ponderedPlayouts);
+      }
+    }
+    strategy.setPonderCpuShare(0);
+  }
+
+  @Test
+  void testNodeBudget() {
+    assertNotNull(strategy.nextMove(board, Stone.BLACK, SearchBudget.ofNodes(123)));
+    assertEquals(123, strategy.getLastPlayouts());
+    assertEquals(123, strategy.getTree().getVisits(strategy.getTree().getRoot()));
+  }
+
+  @Test
+  void testMemoryBudget() {
+    strategy.nextMove(board, Stone.BLACK, new SearchBudget(SearchBudget.UNLIMITED, 100_000, 0));
+    assertEquals(1, strategy.getLastPlayouts());
+  }
+
+  @Test
+  void testPlayoutFactory() {
+    List<PatternPlayout> playouts = new ArrayList<>();
+    strategy =
+        new MonteCarloTreeSearchStrategy(
+            200,
+            0.7,
+            null,
+            null,
+            MonteCarloTreeSearchStrategy.DEFAULT_TREE_CAPACITY,
+            random -> {
+              PatternPlayout playout = new PatternPlayout(random);
+              playouts.add(playout);
+              return playout;
+            });
+    assertNotNull(strategy.nextMove(board, Stone.BLACK));
+    assertEquals(1, playouts.size());
+    assertTrue(playouts.get(0).getMoveCount() > 0);
+  }
+
+  @Test
+  void testRecycling() {
+    strategy = new MonteCarloTreeSearchStrategy(5000, 0.7, null, null, 256);
+    Move move = strategy.nextMove(board, Stone.BLACK);
+    SearchTree tree = strategy.getTree();
+    assertTrue(tree.getRecycleCount() > 0);
+    assertTrue(tree.size() <= 256);
+    assertEquals(5000, tree.getVisits(tree.getRoot()));
+    assertNotNull(move);
+  }
+
+  @Test
+  void testRecyclingNearCapacity() {
+    // On a tiny board most moves repeat a layout, while the tree is always nearly full
+    strategy = new MonteCarloTreeSearchStrategy(2000, 0.7, null, null, 16);
+    SearchBoard searchBoard = new SearchBoard(new Board(2), Stone.BLACK);
+    Stone stone = Stone.BLACK;
+    for (int turn = 0; turn < 8 && !searchBoard.isFinished(); turn++) {
+      Move move = strategy.nextMove(searchBoard.toBoard(), stone);
+      searchBoard.play(move != null ? searchBoard.toIndex(move) : SearchBoard.PASS);
+      stone = stone.other();
+      assertTrue(strategy.getTree().size() <= 16);
+    }
+  }
+
+  @Test
+  void testCancel() throws InterruptedException {
+    SearchBudget budget = SearchBudget.unlimited();
+    Thread canceller =
+        new Thread(
+            () -> {
+              try {
+                Thread.sleep(100);
+              } catch (InterruptedException e) {
+                return;
+              }
+              strategy.cancel();
+            });
+    canceller.start();
+    Move move = strategy.nextMove(board, Stone.BLACK, budget);
+    canceller.join();
+    assertTrue(budget.isCancelled());
+    assertNotNull(move);
+    assertTrue(strategy.getLastPlayouts() > 0);
+  }
+}
@@ -4,13 +4,20 @@ import game.Rules;
 import game.action.Move;
 import game.material.Stone;
 import game.material.board.Board;
+import game.material.board.EmptyPointSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
-/** Created by erik.huizinga on 24-1-17. */
+/**
+ * A {@code Strategy} that plays a uniformly random empty position that is neither suicide nor a
+ * repetition of an earlier layout, and passes only if there is none. Positions are drawn from the
+ * {@code EmptyPointSet} of the {@code Board} without replacement: a rejected position is swapped
+ * out of the range drawn from, so every draw takes constant time and no position is tried twice.
+ *
+ * <p>Created by erik.huizinga on 24-1-17.
+ */
 public class RandomStrategy implements Strategy {
 
-  private static int maxInvalidMoves = 3; //TODO set 25 or so? Maybe set depending on board dim?
-  private int invalidMoveCounter;
-
   @Override
   public String getName() {
     return "random";
@@ -18,20 +25,17 @@ public class RandomStrategy implements Strategy {
 
   @Override
   public Move nextMove(Board board, Stone stone) {
-    Move move;
-    int playableRow;
-    int playableCol;
-    do {
-      playableRow = (int) (Math.random() * board.getDim());
-      playableCol = (int) (Math.random() * board.getDim());
-      move = new Move(playableRow, playableCol, stone);
-      if (!Rules.isTechnicallyValid(board, move)) {
-        invalidMoveCounter++;
-      } else {
-        invalidMoveCounter = 0;
-        break;
+    EmptyPointSet emptyPoints = board.getEmptyPoints();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int count = emptyPoints.size(); count > 0; count--) {
+      int i = random.nextInt(count);
+      List<Integer> playable = board.ind2Playable(emptyPoints.get(i));
+      Move move = new Move(playable.get(0), playable.get(1), stone);
+      if (!Rules.isSuicide(board, move) && !Rules.isRepetition(board, move)) {
+        return move;
       }
-    } while (invalidMoveCounter < maxInvalidMoves);
-    return Rules.isTechnicallyValid(board, move) ? move : null;
+      emptyPoints.swap(i, count - 1);
+    }
+    return null;
   }
 }
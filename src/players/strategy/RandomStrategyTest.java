@@ -0,0 +1,37 @@
+package players.strategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import org.junit.jupiter.api.Test;
+
+class RandomStrategyTest {
+
+  private final RandomStrategy strategy = new RandomStrategy();
+
+  @Test
+  void testCrowdedBoard() {
+    // White fills the board except (0, 0) and (4, 4), where black would commit suicide
+    Board board = new Board(5);
+    for (int x = 0; x < 5; x++) {
+      for (int y = 0; y < 5; y++) {
+        if ((x != 0 || y != 0) && (x != 4 || y != 4)) {
+          board = new Move(x, y, Stone.WHITE).apply(board);
+        }
+      }
+    }
+    assertNull(strategy.nextMove(board, Stone.BLACK));
+    assertNotNull(strategy.nextMove(board, Stone.WHITE));
+
+    // With one liberty left, black captures
+    board = new Move(4, 4, Stone.WHITE).apply(board);
+    Move move = strategy.nextMove(board, Stone.BLACK);
+    assertNotNull(move);
+    assertEquals(0, move.getPlayableX());
+    assertEquals(0, move.getPlayableY());
+  }
+}
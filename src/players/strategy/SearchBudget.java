@@ -0,0 +1,162 @@
+package players.strategy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The budget of the search for a single move: a wall-clock deadline, a limit on the number of
+ * nodes or playouts and a cap on the memory of the search. A {@code Strategy} that honours a budget
+ * stops searching when any of its limits is reached, or when the budget is cancelled, and plays the
+ * best move found so far. A budget starts its clock when it is instantiated, so a new budget is
+ * needed for every move.
+ */
+public class SearchBudget {
+
+  /** The value of a limit that does not limit the search. */
+  public static final long UNLIMITED = Long.MAX_VALUE;
+
+  /** The time at which the search must stop, in {@link System#nanoTime()} time. */
+  private final long deadline;
+
+  /** The switch indicating the budget has a deadline. */
+  private final boolean hasDeadline;
+
+  /** The maximum number of nodes or playouts. */
+  private final long nodeLimit;
+
+  /** The maximum memory of the search in bytes. */
+  private final long memoryBytes;
+
+  /** The switch indicating the budget is that of a slice of a longer search. */
+  private final boolean isSlice;
+
+  /** The switch indicating the search was cancelled. */
+  private volatile boolean isCancelled;
+
+  /** The most nodes or playouts checked by the searching thread, read by that thread only. */
+  private long checkedNodes;
+
+  /**
+   * Instantiate a new {@code SearchBudget}, whose clock starts now.
+   *
+   * @param timeLimitMillis the time limit in milliseconds, or {@code UNLIMITED}.
+   * @param nodeLimit the maximum number of nodes or playouts, or {@code UNLIMITED}.
+   * @param memoryBytes the maximum memory of the search in bytes, or {@code UNLIMITED}.
+   */
+  public SearchBudget(long timeLimitMillis, long nodeLimit, long memoryBytes) {
+    this(timeLimitMillis, nodeLimit, memoryBytes, false);
+  }
+
+  /**
+   * Instantiate a new {@code SearchBudget}, whose clock starts now.
+   *
+   * @param timeLimitMillis the time limit in milliseconds, or {@code UNLIMITED}.
+   * @param nodeLimit the maximum number of nodes or playouts, or {@code UNLIMITED}.
+   * @param memoryBytes the maximum memory of the search in bytes, or {@code UNLIMITED}.
+   * @param isSlice the switch indicating the budget is that of a slice of a longer search.
+   */
+  SearchBudget(long timeLimitMillis, long nodeLimit, long memoryBytes, boolean isSlice) {
+    if (timeLimitMillis < 0 || nodeLimit < 0 || memoryBytes < 0) {
+      throw new AssertionError("limits must not be negative");
+    }
+    hasDeadline = timeLimitMillis != UNLIMITED;
+    deadline = hasDeadline ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimitMillis) : 0;
+    this.nodeLimit = nodeLimit;
+    this.memoryBytes = memoryBytes;
+    this.isSlice = isSlice;
+  }
+
+  /**
+   * Get a {@code SearchBudget} with only a time limit.
+   *
+   * @param timeLimitMillis the time limit in milliseconds.
+   * @return the {@code SearchBudget}.
+   */
+  public static SearchBudget ofMillis(long timeLimitMillis) {
+    return new SearchBudget(timeLimitMillis, UNLIMITED, UNLIMITED);
+  }
+
+  /**
+   * Get a {@code SearchBudget} with only a node or playout limit.
+   *
+   * @param nodeLimit the maximum number of nodes or playouts.
+   * @return the {@code SearchBudget}.
+   */
+  public static SearchBudget ofNodes(long nodeLimit) {
+    return new SearchBudget(UNLIMITED, nodeLimit, UNLIMITED);
+  }
+
+  /** @return a {@code SearchBudget} without limits, which only ends when cancelled. */
+  public static SearchBudget unlimited() {
+    return new SearchBudget(UNLIMITED, UNLIMITED, UNLIMITED);
+  }
+
+  /** @return the maximum number of nodes or playouts, or {@code UNLIMITED}. */
+  public long getNodeLimit() {
+    return nodeLimit;
+  }
+
+  /** @return the maximum memory of the search in bytes, or {@code UNLIMITED}. */
+  public long getMemoryBytes() {
+    return memoryBytes;
+  }
+
+  /** @return the remaining time in nanoseconds, or {@code UNLIMITED} if there is no deadline. */
+  public long getRemainingNanos() {
+    return hasDeadline ? Math.max(deadline - System.nanoTime(), 0) : UNLIMITED;
+  }
+
+  /**
+   * Determine if the search must stop regardless of its progress, i.e., the deadline has passed or
+   * the budget was cancelled.
+   *
+   * @return {@code true} if the search must stop; {@code false} otherwise.
+   */
+  public boolean isExpired() {
+    return isCancelled || (hasDeadline && System.nanoTime() - deadline >= 0);
+  }
+
+  /**
+   * Determine if the search must stop after the specified number of nodes or playouts.
+   *
+   * @param nodes the number of nodes or playouts searched.
+   * @return {@code true} if the search must stop; {@code false} otherwise.
+   */
+  public boolean isExhausted(long nodes) {
+    checkedNodes = Math.max(checkedNodes, nodes);
+    return nodes >= nodeLimit || isExpired();
+  }
+
+  /**
+   * Get the most nodes or playouts the search checked with {@code isExhausted}, i.e., a lower
+   * bound of its progress, e.g., after a slice of a strategy without {@code SearchStatistics}.
+   * This method must be called by the searching thread.
+   *
+   * @return the number of nodes or playouts.
+   */
+  public long getCheckedNodes() {
+    return checkedNodes;
+  }
+
+  /**
+   * Determine if the budget is that of a slice of a longer search, e.g., of a {@code
+   * SearchService}, which is resumed or finished with {@link Strategy#finishSearch()} later.
+   *
+   * @return {@code true} if the budget is that of a slice; {@code false} otherwise.
+   */
+  public boolean isSlice() {
+    return isSlice;
+  }
+
+  /** @return {@code true} if the budget was cancelled; {@code false} otherwise. */
+  public boolean isCancelled() {
+    return isCancelled;
+  }
+
+  /**
+   * Cancel the search. The searching thread stops at its next check of the budget and plays the
+   * best move found so far. This method may be called from any thread.
+   */
+  public void cancel() {
+    isCancelled = true;
+  }
+}
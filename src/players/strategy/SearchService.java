@@ -0,0 +1,419 @@
+package players.strategy;
+
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A search service shared by many players, e.g., the computer players of all games hosted by a
+ * server, so the host runs a fixed number of search threads however many games are played.
+ *
+ * <p>Searches are requested with the {@code Strategy}, the position and the {@code SearchBudget}
+ * of a move. The workers run searches of resumable strategies in time slices, picking the request
+ * with the earliest deadline for every slice, so all games make progress and urgent moves come
+ * first. A request without a deadline is due {@code NO_DEADLINE_DELAY_MILLIS} after it is queued,
+ * so it ages and is not starved by requests with deadlines. Searches of other strategies run in a
+ * single slice.
+ *
+ * <p>Admission control keeps the deadlines: a slice is never longer than the share of the time left
+ * to its deadline that the request gets when all active requests share the workers, or the
+ * processors if there are fewer, equally, and a search returns its best move when it could not be
+ * served again before its deadline. When the host is overloaded, every search thus gets less time
+ * than its budget, but still returns before its deadline.
+ */
+public class SearchService {
+
+  /** The default duration of a time slice in milliseconds. */
+  public static final long DEFAULT_SLICE_MILLIS = 20;
+
+  /** The shortest time slice in milliseconds. */
+  private static final long MIN_SLICE_MILLIS = 1;
+
+  /** The time kept free before a deadline to return the move in milliseconds. */
+  private static final long DEADLINE_MARGIN_MILLIS = 10;
+
+  /** The time after which a queued request without a deadline is due in milliseconds. */
+  private static final long NO_DEADLINE_DELAY_MILLIS = 1000;
+
+  /** The duration of a time slice in nanoseconds. */
+  private final long sliceNanos;
+
+  /** The workers. */
+  private final List<Thread> workers = new ArrayList<>();
+
+  /** The lock of the queue and the counters. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** The {@code Condition} signalled when a request is queued or the service shuts down. */
+  private final Condition queued = lock.newCondition();
+
+  /** The requests waiting for a slice, earliest due first. */
+  private final PriorityQueue<Request> queue = new PriorityQueue<>();
+
+  /** The number of requests queued or being served. */
+  private int activeCount;
+
+  /** The sequence number of the last queued request, which breaks ties in the queue. */
+  private long sequence;
+
+  /** The number of slices run. */
+  private long sliceCount;
+
+  /** The number of searches that got less time than their budget. */
+  private long degradedCount;
+
+  /** The number of searches that returned after their deadline. */
+  private long missedDeadlineCount;
+
+  /** The switch indicating whether or not the service accepts requests. */
+  private boolean isRunning = true;
+
+  /**
+   * Instantiate and start a new {@code SearchService} with the default time slice.
+   *
+   * @param threads the number of worker threads.
+   */
+  public SearchService(int threads) {
+    this(threads, DEFAULT_SLICE_MILLIS);
+  }
+
+  /**
+   * Instantiate and start a new {@code SearchService}.
+   *
+   * @param threads the number of worker threads.
+   * @param sliceMillis the duration of a time slice in milliseconds.
+   */
+  public SearchService(int threads, long sliceMillis) {
+    if (threads <= 0) {
+      throw new AssertionError("threads must be greater than zero");
+    }
+    if (sliceMillis < MIN_SLICE_MILLIS) {
+      throw new AssertionError("slices must last at least " + MIN_SLICE_MILLIS + " ms");
+    }
+    sliceNanos = TimeUnit.MILLISECONDS.toNanos(sliceMillis);
+    for (int i = 0; i < threads; i++) {
+      Thread worker = new Thread(this::work, "search service " + i);
+      worker.setDaemon(true);
+      workers.add(worker);
+      worker.start();
+    }
+  }
+
+  /**
+   * Request a search and wait for its move.
+   *
+   * @param strategy the {@code Strategy}, which must not search elsewhere until the move returns.
+   * @param board the {@code Board}.
+   * @param stone the {@code Stone} to play.
+   * @param budget the {@code SearchBudget}, or {@code null} to search within the configuration of
+   *     the {@code Strategy} in a single slice.
+   * @return the {@code Move}, or {@code null} to pass.
+   */
+  public Move search(Strategy strategy, Board board, Stone stone, SearchBudget budget) {
+    return submit(strategy, board, stone, budget).join();
+  }
+
+  /**
+   * Request a search.
+   *
+   * @param strategy the {@code Strategy}, which must not search elsewhere until the move is
+   *     complete.
+   * @param board the {@code Board}.
+   * @param stone the {@code Stone} to play.
+   * @param budget the {@code SearchBudget}, or {@code null} to search within the configuration of
+   *     the {@code Strategy} in a single slice.
+   * @return the {@code CompletableFuture} of the {@code Move}, completed with {@code null} to pass.
+   * @throws IllegalStateException if the service is shut down.
+   */
+  public CompletableFuture<Move> submit(
+      Strategy strategy, Board board, Stone stone, SearchBudget budget) {
+    Request request = new Request(strategy, board, stone, budget);
+    lock.lock();
+    try {
+      if (!isRunning) {
+        throw new IllegalStateException("search service is shut down");
+      }
+      activeCount++;
+      enqueue(request);
+    } finally {
+      lock.unlock();
+    }
+    return request.future;
+  }
+
+  /** Stop the workers after their current slices; queued searches complete exceptionally. */
+  public void shutDown() {
+    List<Request> dropped;
+    lock.lock();
+    try {
+      isRunning = false;
+      dropped = new ArrayList<>(queue);
+      queue.clear();
+      activeCount -= dropped.size();
+      queued.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    for (Request request : dropped) {
+      request.future.completeExceptionally(
+          new IllegalStateException("search service is shut down"));
+    }
+  }
+
+  /** @return the number of worker threads. */
+  public int getThreadCount() {
+    return workers.size();
+  }
+
+  /** @return the number of requests queued or being served. */
+  public int getActiveCount() {
+    lock.lock();
+    try {
+      return activeCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** @return the number of slices run. */
+  public long getSliceCount() {
+    lock.lock();
+    try {
+      return sliceCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** @return the number of searches that got less time than their budget. */
+  public long getDegradedCount() {
+    lock.lock();
+    try {
+      return degradedCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** @return the number of searches that returned after their deadline. */
+  public long getMissedDeadlineCount() {
+    lock.lock();
+    try {
+      return missedDeadlineCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Queue the specified request for its next slice, while holding the lock.
+   *
+   * @param request the request.
+   */
+  private void enqueue(Request request) {
+    request.sequence = ++sequence;
+    request.due =
+        request.deadline != Long.MAX_VALUE
+            ? request.deadline
+            : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(NO_DEADLINE_DELAY_MILLIS);
+    queue.add(request);
+    queued.signal();
+  }
+
+  /** Serve slices until the service shuts down. */
+  private void work() {
+    while (true) {
+      Request request;
+      int active;
+      lock.lock();
+      try {
+        while (isRunning && queue.isEmpty()) {
+          queued.awaitUninterruptibly();
+        }
+        if (!isRunning) {
+          return;
+        }
+        request = queue.poll();
+        active = activeCount;
+        sliceCount++;
+      } finally {
+        lock.unlock();
+      }
+
+      boolean isDone;
+      try {
+        isDone = request.runSlice(active);
+      } catch (Throwable e) {
+        finish(request);
+        request.future.completeExceptionally(e);
+        continue;
+      }
+      if (isDone) {
+        finish(request);
+        request.future.complete(request.move);
+      } else {
+        lock.lock();
+        try {
+          enqueue(request);
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
+  /**
+   * Count the specified finished request out.
+   *
+   * @param request the request.
+   */
+  private void finish(Request request) {
+    lock.lock();
+    try {
+      activeCount--;
+      if (request.isDegraded) {
+        degradedCount++;
+      }
+      if (request.deadline != Long.MAX_VALUE && System.nanoTime() > request.deadline) {
+        missedDeadlineCount++;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** A requested search. */
+  private class Request implements Comparable<Request> {
+
+    /** The {@code Strategy}. */
+    private final Strategy strategy;
+
+    /** The {@code Board}. */
+    private final Board board;
+
+    /** The {@code Stone} to play. */
+    private final Stone stone;
+
+    /** The {@code SearchBudget}, or {@code null} for the configuration of the strategy. */
+    private final SearchBudget budget;
+
+    /** The deadline by {@code System.nanoTime}, or {@code Long.MAX_VALUE} if there is none. */
+    private final long deadline;
+
+    /** The {@code CompletableFuture} of the move. */
+    private final CompletableFuture<Move> future = new CompletableFuture<>();
+
+    /** The sequence number of the last time the request was queued. */
+    private long sequence;
+
+    /** The time by {@code System.nanoTime} the request is due for its next slice. */
+    private long due;
+
+    /** The number of nodes searched so far. */
+    private long nodes;
+
+    /** The best move so far, or {@code null} to pass. */
+    private Move move;
+
+    /** The switch indicating whether or not the search got less time than its budget. */
+    private boolean isDegraded;
+
+    /**
+     * Instantiate a new {@code Request}.
+     *
+     * @param strategy the {@code Strategy}.
+     * @param board the {@code Board}.
+     * @param stone the {@code Stone} to play.
+     * @param budget the {@code SearchBudget}, or {@code null}.
+     */
+    private Request(Strategy strategy, Board board, Stone stone, SearchBudget budget) {
+      this.strategy = strategy;
+      this.board = board;
+      this.stone = stone;
+      this.budget = budget;
+      long remaining = budget != null ? budget.getRemainingNanos() : Long.MAX_VALUE;
+      deadline = remaining == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + remaining;
+    }
+
+    /**
+     * Run the next slice of the search.
+     *
+     * @param active the number of active requests, including this one.
+     * @return {@code true} if the search is done; {@code false} if it needs another slice.
+     */
+    private boolean runSlice(int active) {
+      if (budget == null) {
+        move = strategy.nextMove(board, stone);
+        return true;
+      }
+      long remaining = budget.getRemainingNanos();
+      long usable =
+          remaining == Long.MAX_VALUE
+              ? Long.MAX_VALUE
+              : remaining - TimeUnit.MILLISECONDS.toNanos(DEADLINE_MARGIN_MILLIS);
+      int parallelism = Math.min(getThreadCount(), Runtime.getRuntime().availableProcessors());
+      long share = usable == Long.MAX_VALUE ? Long.MAX_VALUE : usable / active * parallelism;
+      if (share < usable) {
+        isDegraded = true;
+      }
+      if (!strategy.isResumable()) {
+        move = strategy.nextMove(board, stone, sliceBudget(Math.min(share, usable), false));
+        return true;
+      }
+
+      // The search is done if it cannot be served again before its deadline
+      long slice = Math.min(sliceNanos, share);
+      long round = slice * ((active + parallelism - 1) / parallelism);
+      long start = System.nanoTime();
+      SearchBudget current = sliceBudget(slice, true);
+      move = strategy.nextMove(board, stone, current);
+      long elapsed = System.nanoTime() - start;
+      nodes +=
+          strategy instanceof SearchStatistics
+              ? ((SearchStatistics) strategy).getSearchedPlayouts()
+              : current.getCheckedNodes();
+      boolean isDone =
+          budget.isCancelled()
+              || budget.isExhausted(nodes)
+              || usable - elapsed < round
+              || elapsed < slice / 2;
+      if (isDone) {
+        strategy.finishSearch();
+      }
+      return isDone;
+    }
+
+    /**
+     * Get the {@code SearchBudget} of a slice of the specified duration, with the nodes and
+     * memory left of the budget of the search.
+     *
+     * @param nanos the duration in nanoseconds, or {@code Long.MAX_VALUE}.
+     * @param isSlice the switch indicating the search is resumed after the slice.
+     * @return the {@code SearchBudget}.
+     */
+    private SearchBudget sliceBudget(long nanos, boolean isSlice) {
+      long millis =
+          nanos == Long.MAX_VALUE
+              ? SearchBudget.UNLIMITED
+              : Math.max(TimeUnit.NANOSECONDS.toMillis(nanos), MIN_SLICE_MILLIS);
+      long nodeLimit =
+          budget.getNodeLimit() == SearchBudget.UNLIMITED
+              ? SearchBudget.UNLIMITED
+              : Math.max(budget.getNodeLimit() - nodes, 1);
+      return new SearchBudget(millis, nodeLimit, budget.getMemoryBytes(), isSlice);
+    }
+
+    @Override
+    public int compareTo(Request other) {
+      int order = Long.compare(due - other.due, 0);
+      return order != 0 ? order : Long.compare(sequence, other.sequence);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package players.strategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import players.strategy.search.SearchBoard;
+import players.strategy.search.SearchTree;
+
+class SearchServiceTest {
+
+  private SearchService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new SearchService(2, 10);
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutDown();
+  }
+
+  @Test
+  void testNodeBudgetAcrossSlices() {
+    MonteCarloTreeSearchStrategy strategy = new MonteCarloTreeSearchStrategy();
+    service.search(strategy, new Board(9), Stone.BLACK, SearchBudget.ofNodes(3000));
+    SearchTree tree = strategy.getTree();
+    assertEquals(3000, tree.getVisits(tree.getRoot()));
+    assertTrue(service.getSliceCount() > 1);
+    assertEquals(0, service.getActiveCount());
+  }
+
+  @Test
+  void testOverloadKeepsDeadlines() {
+    List<CompletableFuture<?>> moves = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      moves.add(
+          service.submit(
+              new MonteCarloTreeSearchStrategy(),
+              new Board(9),
+              Stone.BLACK,
+              SearchBudget.ofMillis(300)));
+    }
+    for (CompletableFuture<?> move : moves) {
+      move.join();
+    }
+    assertEquals(0, service.getMissedDeadlineCount());
+    assertTrue(service.getDegradedCount() > 0);
+    assertTrue(service.getSliceCount() > 8);
+  }
+
+  @Test
+  void testSlicedSearchSideEffects() throws InterruptedException {
+    MonteCarloTreeSearchStrategy strategy = new MonteCarloTreeSearchStrategy();
+    strategy.setPonderCpuShare(0.5);
+
+    // A slice neither ponders nor records the layout of its move
+    Board board = new Board(9);
+    SearchBudget slice =
+        new SearchBudget(SearchBudget.UNLIMITED, 500, SearchBudget.UNLIMITED, true);
+    strategy.nextMove(board, Stone.BLACK, slice);
+    Thread.sleep(50);
+    assertEquals(0, strategy.getPonderedPlayouts());
+    assertEquals(1, strategy.getHistorySize());
+
+    // Only the finished search ponders, and the layouts of the moves of its slices stay out
+    Move move = service.search(strategy, board, Stone.BLACK, SearchBudget.ofNodes(3000));
+    assertTrue(service.getSliceCount() > 1);
+    Thread.sleep(100);
+    strategy.stopPondering();
+    assertTrue(strategy.getPonderedPlayouts() > 0);
+    assertEquals(1, strategy.getHistorySize());
+
+    // The layout of the move played joins the history with the next position
+    SearchBoard searchBoard = new SearchBoard(board, Stone.BLACK);
+    searchBoard.play(searchBoard.toIndex(move));
+    searchBoard.play(SearchBoard.PASS);
+    strategy.setPonderCpuShare(0);
+    service.search(strategy, searchBoard.toBoard(), Stone.BLACK, SearchBudget.ofNodes(1000));
+    assertEquals(2, strategy.getHistorySize());
+  }
+
+  @Test
+  void testNodeBudgetWithoutStatistics() {
+    CountingStrategy strategy = new CountingStrategy();
+    service.search(strategy, new Board(5), Stone.BLACK, SearchBudget.ofNodes(50));
+    assertEquals(50, strategy.nodes);
+    assertTrue(service.getSliceCount() > 1);
+  }
+
+  @Test
+  void testRequestWithoutDeadlineAges() {
+    // With a single worker, the request without a deadline is served before the others are done
+    service.shutDown();
+    service = new SearchService(1, 10);
+    for (int i = 0; i < 2; i++) {
+      service.submit(
+          new CountingStrategy(), new Board(5), Stone.BLACK, SearchBudget.ofMillis(3000));
+    }
+    service.search(new CountingStrategy(), new Board(5), Stone.BLACK, SearchBudget.ofNodes(50));
+    assertEquals(2, service.getActiveCount());
+  }
+
+  @Test
+  void testErrorFailsSearch() {
+    service.shutDown();
+    service = new SearchService(1, 10);
+    Strategy failing =
+        new CountingStrategy() {
+          @Override
+          public Move nextMove(Board board, Stone stone, SearchBudget budget) {
+            throw new StackOverflowError();
+          }
+        };
+    CompletableFuture<Move> move =
+        service.submit(failing, new Board(5), Stone.BLACK, SearchBudget.ofNodes(50));
+    assertThrows(CompletionException.class, move::join);
+
+    // The worker survives the error
+    service.search(new CountingStrategy(), new Board(5), Stone.BLACK, SearchBudget.ofNodes(5));
+    assertEquals(0, service.getActiveCount());
+  }
+
+  /** A resumable {@code Strategy} without {@code SearchStatistics} that searches a node per ms. */
+  private static class CountingStrategy implements Strategy {
+
+    /** The number of nodes searched. */
+    private long nodes;
+
+    @Override
+    public String getName() {
+      return "counting";
+    }
+
+    @Override
+    public Move nextMove(Board board, Stone stone) {
+      return null;
+    }
+
+    @Override
+    public Move nextMove(Board board, Stone stone, SearchBudget budget) {
+      long searched = 0;
+      while (!budget.isExhausted(searched)) {
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return null;
+        }
+        searched++;
+        nodes++;
+      }
+      return null;
+    }
+
+    @Override
+    public boolean isResumable() {
+      return true;
+    }
+  }
+}
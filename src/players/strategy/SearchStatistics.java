@@ -0,0 +1,17 @@
+package players.strategy;
+
+/**
+ * The statistics of the last search of a searching {@code Strategy}, e.g., to profile it with. The
+ * statistics are only meaningful between two calls of {@code nextMove}.
+ */
+public interface SearchStatistics {
+
+  /** @return the number of nodes searched, or added to a search tree, for the last move. */
+  long getSearchedNodes();
+
+  /** @return the number of playouts, or evaluations, for the last move. */
+  long getSearchedPlayouts();
+
+  /** @return the estimated memory of the search structures after the last move in bytes. */
+  long getSearchMemory();
+}
@@ -12,11 +12,52 @@ public interface Strategy {
 
   /**
    * Get the next {@code Move} with the specified {@code Stone} to play on the specified {@code
-   * Board} as determined by this {@code Strategy}.
+   * Board} as determined by this {@code Strategy}. A {@code Strategy} is asked for every turn of
+   * its player, so it may keep state between calls, e.g., a search tree to continue from.
    *
    * @param board the {@code Board}.
    * @param stone the {@code Stone}.
    * @return the next {@code Move}.
    */
   Move nextMove(Board board, Stone stone);
+
+  /**
+   * Get the next {@code Move} as {@link #nextMove(Board, Stone)} does, within the specified {@code
+   * SearchBudget}. A searching {@code Strategy} stops when the budget is exhausted or cancelled and
+   * returns the best move found so far. By default the budget is ignored, which suits strategies
+   * that do not search.
+   *
+   * @param board the {@code Board}.
+   * @param stone the {@code Stone}.
+   * @param budget the {@code SearchBudget}.
+   * @return the next {@code Move}.
+   */
+  default Move nextMove(Board board, Stone stone, SearchBudget budget) {
+    return nextMove(board, stone);
+  }
+
+  /**
+   * Cancel the current search, if any, from another thread: the searching call of {@code
+   * nextMove} returns the best move found so far as soon as possible. By default nothing happens.
+   */
+  default void cancel() {}
+
+  /**
+   * Determine if the searches of this {@code Strategy} can be resumed: a call of {@code nextMove}
+   * for the position of the previous call continues that search instead of starting over, so a
+   * search can be split into slices, e.g., by a {@code SearchService}. By default they cannot.
+   *
+   * @return {@code true} if searches can be resumed; {@code false} otherwise.
+   */
+  default boolean isResumable() {
+    return false;
+  }
+
+  /**
+   * Finish a search that was split into slices, after its last slice returned the move that is
+   * played. The slices of such a search get a budget that {@link SearchBudget#isSlice() is a
+   * slice}, so a resumable {@code Strategy} defers the work that follows a move to this call, e.g.,
+   * pondering on the opponent's time. By default nothing happens.
+   */
+  default void finishSearch() {}
 }
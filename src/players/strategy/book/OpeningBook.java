@@ -0,0 +1,160 @@
+package players.strategy.book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only opening book: a memory-mapped file of entries that map a position hash to a move
+ * and its statistics. The entries are sorted by hash, so all moves of a position are adjacent and
+ * found by binary search. Looking up a position allocates nothing; it only reads the mapped file,
+ * which the operating system pages in on demand and shares between processes.
+ *
+ * <p>The file starts with a header of {@code HEADER_SIZE} bytes: the {@code MAGIC} number, the
+ * {@code VERSION} and the number of entries, each a big-endian {@code int}, followed by a reserved
+ * {@code int}. Each entry of {@code ENTRY_SIZE} bytes holds the position hash ({@code long}), the
+ * move as a full grid linear index ({@code int}, zero for a pass), the number of games the move
+ * was played in ({@code int}) and the number of those games won by the player of the move ({@code
+ * int}). Entries of a position are sorted by descending number of games. Files are written by
+ * {@code OpeningBookBuilder}.
+ */
+public class OpeningBook implements Closeable {
+
+  /** The magic number at the start of a book file. */
+  public static final int MAGIC = 0x54424f42;
+
+  /** The version of the file format. */
+  public static final int VERSION = 1;
+
+  /** The size of the header in bytes. */
+  public static final int HEADER_SIZE = 16;
+
+  /** The size of an entry in bytes. */
+  public static final int ENTRY_SIZE = 20;
+
+  /** The channel of the book file. */
+  private final FileChannel channel;
+
+  /** The mapped book file. */
+  private final MappedByteBuffer buffer;
+
+  /** The number of entries. */
+  private final int entryCount;
+
+  /**
+   * Open the opening book in the specified file.
+   *
+   * @param path the path of the book file.
+   * @throws IOException if the file cannot be read or is not a valid book.
+   */
+  public OpeningBook(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("invalid opening book size: " + path);
+      }
+      buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      buffer.order(ByteOrder.BIG_ENDIAN);
+      if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+        throw new IOException("not an opening book of version " + VERSION + ": " + path);
+      }
+      entryCount = buffer.getInt(8);
+      if ((long) HEADER_SIZE + (long) entryCount * ENTRY_SIZE != channel.size()) {
+        throw new IOException("truncated opening book: " + path);
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** @return the number of entries. */
+  public int getEntryCount() {
+    return entryCount;
+  }
+
+  /**
+   * Find the first entry of the specified position, which holds its most played move.
+   *
+   * @param positionHash the position hash.
+   * @return the entry index, or -1 if the position is not in the book.
+   */
+  public int probe(long positionHash) {
+    int low = 0;
+    int high = entryCount - 1;
+    int found = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      long key = getKey(middle);
+      if (key < positionHash) {
+        low = middle + 1;
+      } else {
+        if (key == positionHash) {
+          found = middle;
+        }
+        high = middle - 1;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Get the position hash of the specified entry.
+   *
+   * @param entry the entry index.
+   * @return the position hash.
+   */
+  public long getKey(int entry) {
+    return buffer.getLong(offset(entry));
+  }
+
+  /**
+   * Get the move of the specified entry.
+   *
+   * @param entry the entry index.
+   * @return the move as a full grid linear index, zero for a pass.
+   */
+  public int getMove(int entry) {
+    return buffer.getInt(offset(entry) + 8);
+  }
+
+  /**
+   * Get the number of games the move of the specified entry was played in.
+   *
+   * @param entry the entry index.
+   * @return the number of games.
+   */
+  public int getGames(int entry) {
+    return buffer.getInt(offset(entry) + 12);
+  }
+
+  /**
+   * Get the number of games the move of the specified entry was played in and won.
+   *
+   * @param entry the entry index.
+   * @return the number of games won.
+   */
+  public int getWins(int entry) {
+    return buffer.getInt(offset(entry) + 16);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Get the byte offset of the specified entry.
+   *
+   * @param entry the entry index.
+   * @return the offset.
+   */
+  private static int offset(int entry) {
+    return HEADER_SIZE + entry * ENTRY_SIZE;
+  }
+}
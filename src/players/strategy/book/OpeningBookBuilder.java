@@ -0,0 +1,169 @@
+package players.strategy.book;
+
+import game.GameRecord;
+import game.action.Move;
+import game.material.Stone;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import players.strategy.search.SearchBoard;
+
+/**
+ * The builder of {@code OpeningBook} files from recorded games. Every game is replayed and the
+ * positions of its first moves are counted together with the move played and whether its player
+ * won. Moves played in fewer games than a minimum are left out of the book.
+ */
+public class OpeningBookBuilder {
+
+  public static final String USAGE =
+      "usage: java "
+          + OpeningBookBuilder.class.getName()
+          + " <book file> <max moves> <min games> <game record file>...";
+
+  /** The number of moves per game that are added to the book. */
+  private final int maxMoves;
+
+  /** The minimum number of games of a move to be written to the book. */
+  private final int minGames;
+
+  /** The statistics by position hash and move: the number of games and wins. */
+  private final Map<Long, Map<Integer, int[]>> statistics = new HashMap<>();
+
+  /** The number of games added. */
+  private int gameCount;
+
+  /**
+   * Instantiate a new {@code OpeningBookBuilder}.
+   *
+   * @param maxMoves the number of moves per game to add to the book.
+   * @param minGames the minimum number of games of a move to be written to the book.
+   */
+  public OpeningBookBuilder(int maxMoves, int minGames) {
+    this.maxMoves = maxMoves;
+    this.minGames = minGames;
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 4) {
+      System.out.println("incorrect number of input arguments");
+      System.out.println(USAGE);
+      System.exit(0);
+    }
+
+    OpeningBookBuilder builder =
+        new OpeningBookBuilder(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+    try {
+      for (int i = 3; i < args.length; i++) {
+        builder.addGames(Paths.get(args[i]));
+      }
+      int entries = builder.write(Paths.get(args[0]));
+      System.out.println(
+          "wrote " + entries + " entries from " + builder.getGameCount() + " games to " + args[0]);
+    } catch (IOException e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  /** @return the number of games added. */
+  public int getGameCount() {
+    return gameCount;
+  }
+
+  /**
+   * Add all games in the specified file of {@code GameRecord} lines. Empty lines and lines starting
+   * with {@code #} are skipped.
+   *
+   * @param path the path of the file.
+   * @throws IOException if the file cannot be read.
+   */
+  public void addGames(Path path) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (!line.isEmpty() && !line.startsWith("#")) {
+          addGame(GameRecord.parse(line));
+        }
+      }
+    }
+  }
+
+  /**
+   * Add the specified game. Games without a winner are skipped. Replaying stops at the first move
+   * that is not legal on a {@code SearchBoard}, e.g., a suicide.
+   *
+   * @param record the {@code GameRecord}.
+   */
+  public void addGame(GameRecord record) {
+    if (record.getWinner() == null) {
+      return;
+    }
+    gameCount++;
+    SearchBoard board = new SearchBoard(record.getDim());
+    List<Move> moves = record.getMoves();
+    for (int i = 0; i < Math.min(maxMoves, moves.size()); i++) {
+      int move = board.toIndex(moves.get(i));
+      Stone stone = SearchBoard.stone(board.getToPlay());
+      int[] games =
+          statistics
+              .computeIfAbsent(board.getPositionHash(), key -> new HashMap<>())
+              .computeIfAbsent(move, key -> new int[2]);
+      games[0]++;
+      if (stone == record.getWinner()) {
+        games[1]++;
+      }
+      if (!board.play(move)) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Write the book to the specified file, replacing any existing file.
+   *
+   * @param path the path of the book file.
+   * @return the number of entries written.
+   * @throws IOException if the file cannot be written.
+   */
+  public int write(Path path) throws IOException {
+    List<long[]> entries = new ArrayList<>();
+    for (Map.Entry<Long, Map<Integer, int[]>> position : statistics.entrySet()) {
+      for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+        int[] games = move.getValue();
+        if (games[0] >= minGames) {
+          entries.add(new long[] {position.getKey(), move.getKey(), games[0], games[1]});
+        }
+      }
+    }
+    entries.sort(
+        (a, b) -> {
+          int byKey = Long.compare(a[0], b[0]);
+          return byKey != 0 ? byKey : Long.compare(b[2], a[2]);
+        });
+    try (OutputStream outputStream = Files.newOutputStream(path);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+      out.writeInt(OpeningBook.MAGIC);
+      out.writeInt(OpeningBook.VERSION);
+      out.writeInt(entries.size());
+      out.writeInt(0);
+      for (long[] entry : entries) {
+        out.writeLong(entry[0]);
+        out.writeInt((int) entry[1]);
+        out.writeInt((int) entry[2]);
+        out.writeInt((int) entry[3]);
+      }
+    }
+    return entries.size();
+  }
+}
@@ -0,0 +1,83 @@
+package players.strategy.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import game.GameRecord;
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import game.material.board.Zobrist;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import players.strategy.BookStrategy;
+import players.strategy.PassStrategy;
+
+class OpeningBookTest {
+
+  private Path path;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    path = Files.createTempFile("book", ".bin");
+    OpeningBookBuilder builder = new OpeningBookBuilder(2, 2);
+    builder.addGame(GameRecord.parse("5 B 2,2 1,1 pass"));
+    builder.addGame(GameRecord.parse("5 W 2,2 3,3"));
+    builder.addGame(GameRecord.parse("5 B 2,2 1,1"));
+    builder.addGame(GameRecord.parse("5 B 1,2 1,1"));
+    builder.write(path);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  @Test
+  void testParseRecord() {
+    String line = "9 ? 4,4 pass 2,6";
+    GameRecord record = GameRecord.parse(line);
+    assertEquals(9, record.getDim());
+    assertEquals(null, record.getMoves().get(1));
+    assertEquals(Stone.BLACK, record.getMoves().get(2).getMaterial());
+    assertEquals(line, record.toString());
+  }
+
+  @Test
+  void testProbe() throws IOException {
+    try (OpeningBook book = new OpeningBook(path)) {
+      // 2,2 (three games) and 1,1 after 2,2 (two games); other moves were played once
+      assertEquals(2, book.getEntryCount());
+      int entry = book.probe(Zobrist.hash(new Board(5), Stone.BLACK));
+      assertTrue(entry >= 0);
+      assertEquals(3, book.getGames(entry));
+      assertEquals(2, book.getWins(entry));
+      assertEquals(-1, book.probe(Zobrist.hash(new Board(5), Stone.WHITE)));
+      assertEquals(-1, book.probe(Zobrist.hash(new Board(7), Stone.BLACK)));
+    }
+  }
+
+  @Test
+  void testBookStrategy() throws IOException {
+    try (OpeningBook book = new OpeningBook(path)) {
+      BookStrategy strategy = new BookStrategy(book, new PassStrategy(), 2);
+      Board board = new Board(5);
+      Move move = strategy.nextMove(board, Stone.BLACK);
+      assertEquals(2, move.getPlayableX());
+      assertEquals(2, move.getPlayableY());
+
+      board = move.apply(board);
+      move = strategy.nextMove(board, Stone.WHITE);
+      assertEquals(1, move.getPlayableX());
+      assertEquals(1, move.getPlayableY());
+
+      // Out of book: the wrapped strategy passes
+      board = move.apply(board);
+      assertEquals(null, strategy.nextMove(board, Stone.BLACK));
+    }
+  }
+}
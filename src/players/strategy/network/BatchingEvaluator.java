@@ -0,0 +1,266 @@
+package players.strategy.network;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import players.strategy.search.SearchBoard;
+
+/**
+ * An {@code Evaluator} that lets many search threads share one {@code Network}. Every thread
+ * encodes its position and submits it to a queue; a single worker thread collects the queued
+ * positions into a batch, waiting a short while for the batch to fill, and evaluates the batch in
+ * one pass through the network. Throughput therefore grows with the number of submitting threads,
+ * while each thread only pays for encoding and decoding its own position. A batch the network
+ * fails to evaluate only fails the evaluations of its own positions.
+ *
+ * <p>The worker only waits for threads that are evaluating, i.e., that may still submit a position:
+ * once every one of them is in the batch, the batch is evaluated at once. A single search thread
+ * therefore never waits for a batch to fill.
+ */
+public class BatchingEvaluator implements Evaluator, Closeable {
+
+  /** The default maximum number of positions per batch. */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 16;
+
+  /** The default maximum time to wait for a batch to fill in microseconds. */
+  public static final long DEFAULT_MAX_WAIT_MICROS = 200;
+
+  /** The {@code Network}. */
+  private final Network network;
+
+  /** The maximum number of positions per batch. */
+  private final int maxBatchSize;
+
+  /** The maximum time to wait for a batch to fill in nanoseconds. */
+  private final long maxWaitNanos;
+
+  /** The number of threads evaluating a position, which the worker waits for at most. */
+  private final AtomicInteger callerCount = new AtomicInteger();
+
+  /** The submitted requests. */
+  private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+
+  /** The worker thread. */
+  private final Thread worker;
+
+  /** The switch that keeps the worker thread running. */
+  private volatile boolean isRunning = true;
+
+  /** The number of batches evaluated. */
+  private volatile long batchCount;
+
+  /** The number of positions evaluated. */
+  private volatile long evaluationCount;
+
+  /**
+   * Instantiate a new {@code BatchingEvaluator} with the default batch settings.
+   *
+   * @param network the {@code Network}, which must not be used elsewhere while this evaluator is
+   *     open.
+   */
+  public BatchingEvaluator(Network network) {
+    this(network, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_WAIT_MICROS);
+  }
+
+  /**
+   * Instantiate a new {@code BatchingEvaluator} and start its worker thread.
+   *
+   * @param network the {@code Network}, which must not be used elsewhere while this evaluator is
+   *     open.
+   * @param maxBatchSize the maximum number of positions per batch.
+   * @param maxWaitMicros the maximum time to wait for a batch to fill in microseconds.
+   */
+  public BatchingEvaluator(Network network, int maxBatchSize, long maxWaitMicros) {
+    if (maxBatchSize <= 0) {
+      throw new AssertionError("max batch size must be greater than zero");
+    }
+    this.network = network;
+    this.maxBatchSize = maxBatchSize;
+    maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+    worker = new Thread(this::run, "network evaluator");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Submit the position to the worker thread and wait for its evaluation.
+   *
+   * @throws IllegalStateException if this evaluator is closed or the network failed to evaluate
+   *     the batch of the position.
+   */
+  @Override
+  public float evaluate(SearchBoard board, float[] policy) {
+    Request request = new Request(network, Thread.currentThread());
+    callerCount.incrementAndGet();
+    try {
+      network.encode(board, request.input, 0);
+      queue.add(request);
+      if (!isRunning && queue.remove(request)) {
+        throw new IllegalStateException("evaluator is closed");
+      }
+      while (!request.isDone) {
+        LockSupport.park(this);
+      }
+    } finally {
+      callerCount.decrementAndGet();
+    }
+    if (request.isFailed) {
+      throw request.failure != null
+          ? new IllegalStateException("network evaluation failed", request.failure)
+          : new IllegalStateException("evaluator is closed");
+    }
+    network.decode(request.logits, 0, board, policy);
+    return request.value;
+  }
+
+  /** @return the number of batches evaluated. */
+  public long getBatchCount() {
+    return batchCount;
+  }
+
+  /** @return the number of positions evaluated. */
+  public long getEvaluationCount() {
+    return evaluationCount;
+  }
+
+  /** @return the mean number of positions per batch, or zero if none were evaluated. */
+  public double getMeanBatchSize() {
+    long batches = batchCount;
+    return batches > 0 ? (double) evaluationCount / batches : 0;
+  }
+
+  /** Stop the worker thread. Pending and later evaluations fail. */
+  @Override
+  public void close() {
+    isRunning = false;
+    worker.interrupt();
+    try {
+      worker.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    Request request;
+    while ((request = queue.poll()) != null) {
+      request.fail(null);
+    }
+  }
+
+  /** Collect and evaluate batches until closed. */
+  private void run() {
+    List<Request> batch = new ArrayList<>(maxBatchSize);
+    int inputSize = network.getInputSize();
+    int policySize = network.getPolicySize();
+    float[] input = new float[maxBatchSize * inputSize];
+    float[] logits = new float[maxBatchSize * policySize];
+    float[] values = new float[maxBatchSize];
+    try {
+      while (isRunning) {
+        batch.add(queue.take());
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+          queue.drainTo(batch, maxBatchSize - batch.size());
+          long remaining = deadline - System.nanoTime();
+          if (batch.size() == maxBatchSize
+              || batch.size() >= callerCount.get()
+              || remaining <= 0) {
+            break;
+          }
+          Request request = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (request == null) {
+            break;
+          }
+          batch.add(request);
+        }
+
+        int size = batch.size();
+        for (int b = 0; b < size; b++) {
+          System.arraycopy(batch.get(b).input, 0, input, b * inputSize, inputSize);
+        }
+        try {
+          network.forward(input, size, logits, values);
+        } catch (RuntimeException e) {
+          // Only the requests of the failed batch fail; the worker goes on with the next
+          for (Request request : batch) {
+            request.fail(e);
+          }
+          batch.clear();
+          continue;
+        }
+        batchCount++;
+        evaluationCount += size;
+        for (int b = 0; b < size; b++) {
+          Request request = batch.get(b);
+          System.arraycopy(logits, b * policySize, request.logits, 0, policySize);
+          request.value = values[b];
+          request.complete();
+        }
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      // Closed
+    } finally {
+      for (Request request : batch) {
+        request.fail(null);
+      }
+    }
+  }
+
+  /** A position submitted for evaluation and, once done, its result. */
+  private static class Request {
+
+    /** The encoded position. */
+    private final float[] input;
+
+    /** The policy logits. */
+    private final float[] logits;
+
+    /** The submitting thread, to wake up when done. */
+    private final Thread caller;
+
+    /** The value. */
+    private float value;
+
+    /** The switch indicating the evaluation failed. */
+    private boolean isFailed;
+
+    /** The exception of the network that failed the evaluation, or {@code null} if closed. */
+    private RuntimeException failure;
+
+    /** The switch indicating the request is done, which publishes the result. */
+    private volatile boolean isDone;
+
+    /**
+     * Instantiate a new {@code Request}.
+     *
+     * @param network the {@code Network}.
+     * @param caller the submitting thread.
+     */
+    private Request(Network network, Thread caller) {
+      input = new float[network.getInputSize()];
+      logits = new float[network.getPolicySize()];
+      this.caller = caller;
+    }
+
+    /** Mark this request done and wake up the submitting thread. */
+    private void complete() {
+      isDone = true;
+      LockSupport.unpark(caller);
+    }
+
+    /**
+     * Mark this request failed and wake up the submitting thread.
+     *
+     * @param failure the exception of the network, or {@code null} if the evaluator is closed.
+     */
+    private void fail(RuntimeException failure) {
+      this.failure = failure;
+      isFailed = true;
+      complete();
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package players.strategy.network;
+
+import players.strategy.search.SearchBoard;
+
+/**
+ * An evaluator of positions for tree searches: it estimates the value of a position for the
+ * colour to play and a probability distribution over the moves, the policy, that guides which
+ * moves are searched first.
+ */
+public interface Evaluator {
+
+  /**
+   * Evaluate the position of the specified {@code SearchBoard}.
+   *
+   * @param board the {@code SearchBoard}, which is not modified.
+   * @param policy the array to store the move probabilities in, indexed by the full grid linear
+   *     index of the move, with the probability of a pass at {@code SearchBoard.PASS}; its length
+   *     is at least {@code board.getSize()}.
+   * @return the value for the colour to play, between -1 (loss) and 1 (win).
+   */
+  float evaluate(SearchBoard board, float[] policy);
+}
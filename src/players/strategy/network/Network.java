@@ -0,0 +1,495 @@
+package players.strategy.network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import players.strategy.search.SearchBoard;
+
+/**
+ * A small convolutional policy/value network that runs on the CPU with {@code float} arrays.
+ *
+ * <p>The input of a position is {@code INPUT_PLANES} planes of the playable grid: the stones of
+ * the colour to play, the stones of the opponent, the empty points and the simple ko point. A
+ * trunk of 3x3 convolutions with ReLU activations, zero padded to keep the grid size, feeds two
+ * heads. The policy head is a 1x1 convolution to one logit per point plus a pass logit computed
+ * from the mean of every trunk channel. The value head is a hidden ReLU layer on those means and a
+ * {@code tanh} output.
+ *
+ * <p>Positions are evaluated in batches: every weight is loaded once per batch and applied to all
+ * its positions in a tight loop over a grid row, which the JIT compiler can vectorise. A {@code
+ * Network} can be used directly as an {@code Evaluator}, one position at a time, or shared by
+ * search threads through a {@code BatchingEvaluator}.
+ *
+ * <p>A weights file starts with the {@code MAGIC} number, the {@code VERSION}, the dimension, the
+ * number of trunk channels, the number of trunk layers and the size of the hidden value layer,
+ * each a big-endian {@code int}. Then follow big-endian {@code float} values: for each trunk layer
+ * the weights by output channel, input channel, row and column, and the biases by output channel;
+ * the policy weights and bias; the pass weights and bias; the hidden value weights by hidden unit
+ * and channel and the hidden biases; the output value weights and bias.
+ */
+public class Network implements Evaluator {
+
+  /** The magic number at the start of a weights file. */
+  public static final int MAGIC = 0x544e4554;
+
+  /** The version of the file format. */
+  public static final int VERSION = 1;
+
+  /** The number of input planes. */
+  public static final int INPUT_PLANES = 4;
+
+  /** The single-side size of a convolution kernel. */
+  private static final int KERNEL = 3;
+
+  /** The single-side dimension of the playable grid. */
+  private final int dim;
+
+  /** The number of trunk channels. */
+  private final int channels;
+
+  /** The number of trunk layers. */
+  private final int layers;
+
+  /** The size of the hidden value layer. */
+  private final int hidden;
+
+  /** The convolution weights by trunk layer. */
+  private final float[][] convWeights;
+
+  /** The convolution biases by trunk layer. */
+  private final float[][] convBiases;
+
+  /** The policy weights by channel. */
+  private final float[] policyWeights;
+
+  /** The pass weights by channel. */
+  private final float[] passWeights;
+
+  /** The hidden value weights by hidden unit and channel. */
+  private final float[] valueWeights;
+
+  /** The hidden value biases. */
+  private final float[] valueBiases;
+
+  /** The output value weights. */
+  private final float[] outputWeights;
+
+  /** The policy bias. */
+  private float policyBias;
+
+  /** The pass bias. */
+  private float passBias;
+
+  /** The output value bias. */
+  private float outputBias;
+
+  /** The batch size the workspaces are allocated for. */
+  private int workspaceBatch;
+
+  /** The trunk activations of the even layers. */
+  private float[] activations;
+
+  /** The trunk activations of the odd layers. */
+  private float[] nextActivations;
+
+  /** The channel means. */
+  private float[] means;
+
+  /** The input of a single evaluation. */
+  private final float[] singleInput;
+
+  /** The policy logits of a single evaluation. */
+  private final float[] singleLogits;
+
+  /** The value of a single evaluation. */
+  private final float[] singleValue = new float[1];
+
+  /**
+   * Instantiate a new {@code Network} with all weights zero.
+   *
+   * @param dim the single-side dimension of the playable grid.
+   * @param channels the number of trunk channels.
+   * @param layers the number of trunk layers.
+   * @param hidden the size of the hidden value layer.
+   */
+  public Network(int dim, int channels, int layers, int hidden) {
+    if (dim <= 0 || channels <= 0 || layers <= 0 || hidden <= 0) {
+      throw new AssertionError("network dimensions must be greater than zero");
+    }
+    this.dim = dim;
+    this.channels = channels;
+    this.layers = layers;
+    this.hidden = hidden;
+    convWeights = new float[layers][];
+    convBiases = new float[layers][];
+    for (int layer = 0; layer < layers; layer++) {
+      convWeights[layer] = new float[channels * inputChannels(layer) * KERNEL * KERNEL];
+      convBiases[layer] = new float[channels];
+    }
+    policyWeights = new float[channels];
+    passWeights = new float[channels];
+    valueWeights = new float[hidden * channels];
+    valueBiases = new float[hidden];
+    outputWeights = new float[hidden];
+    singleInput = new float[getInputSize()];
+    singleLogits = new float[getPolicySize()];
+  }
+
+  /**
+   * Instantiate a new {@code Network} with small random weights, e.g., to start training from or
+   * to benchmark with.
+   *
+   * @param dim the single-side dimension of the playable grid.
+   * @param channels the number of trunk channels.
+   * @param layers the number of trunk layers.
+   * @param hidden the size of the hidden value layer.
+   * @param random the random number generator.
+   * @return the {@code Network}.
+   */
+  public static Network random(
+      int dim, int channels, int layers, int hidden, SplittableRandom random) {
+    Network network = new Network(dim, channels, layers, hidden);
+    for (int layer = 0; layer < layers; layer++) {
+      fill(network.convWeights[layer], random, network.inputChannels(layer) * KERNEL * KERNEL);
+    }
+    fill(network.policyWeights, random, channels);
+    fill(network.passWeights, random, channels);
+    fill(network.valueWeights, random, channels);
+    fill(network.outputWeights, random, hidden);
+    return network;
+  }
+
+  /**
+   * Fill the specified weights with uniform random values scaled to the specified fan-in.
+   *
+   * @param weights the weights.
+   * @param random the random number generator.
+   * @param fanIn the number of inputs of a unit.
+   */
+  private static void fill(float[] weights, SplittableRandom random, int fanIn) {
+    double scale = Math.sqrt(3.0 / fanIn);
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = (float) ((2 * random.nextDouble() - 1) * scale);
+    }
+  }
+
+  /**
+   * Load a {@code Network} from the specified weights file.
+   *
+   * @param path the path of the weights file.
+   * @return the {@code Network}.
+   * @throws IOException if the file cannot be read or is not a valid weights file.
+   */
+  public static Network load(Path path) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(path);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("not a network of version " + VERSION + ": " + path);
+      }
+      int dim = in.readInt();
+      int channels = in.readInt();
+      int layers = in.readInt();
+      int hidden = in.readInt();
+      if (dim <= 0 || channels <= 0 || layers <= 0 || hidden <= 0) {
+        throw new IOException("invalid network dimensions: " + path);
+      }
+      Network network = new Network(dim, channels, layers, hidden);
+      for (int layer = 0; layer < layers; layer++) {
+        read(in, network.convWeights[layer]);
+        read(in, network.convBiases[layer]);
+      }
+      read(in, network.policyWeights);
+      network.policyBias = in.readFloat();
+      read(in, network.passWeights);
+      network.passBias = in.readFloat();
+      read(in, network.valueWeights);
+      read(in, network.valueBiases);
+      read(in, network.outputWeights);
+      network.outputBias = in.readFloat();
+      if (in.read() != -1) {
+        throw new IOException("trailing data in network: " + path);
+      }
+      return network;
+    } catch (EOFException e) {
+      throw new IOException("truncated network: " + path, e);
+    }
+  }
+
+  /**
+   * Read the specified number of {@code float} values.
+   *
+   * @param in the input stream.
+   * @param values the array to read into.
+   * @throws IOException if the values cannot be read.
+   */
+  private static void read(DataInputStream in, float[] values) throws IOException {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = in.readFloat();
+    }
+  }
+
+  /**
+   * Save this {@code Network} to the specified weights file, replacing any existing file.
+   *
+   * @param path the path of the weights file.
+   * @throws IOException if the file cannot be written.
+   */
+  public void save(Path path) throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(path);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(dim);
+      out.writeInt(channels);
+      out.writeInt(layers);
+      out.writeInt(hidden);
+      for (int layer = 0; layer < layers; layer++) {
+        write(out, convWeights[layer]);
+        write(out, convBiases[layer]);
+      }
+      write(out, policyWeights);
+      out.writeFloat(policyBias);
+      write(out, passWeights);
+      out.writeFloat(passBias);
+      write(out, valueWeights);
+      write(out, valueBiases);
+      write(out, outputWeights);
+      out.writeFloat(outputBias);
+    }
+  }
+
+  /**
+   * Write the specified {@code float} values.
+   *
+   * @param out the output stream.
+   * @param values the values.
+   * @throws IOException if the values cannot be written.
+   */
+  private static void write(DataOutputStream out, float[] values) throws IOException {
+    for (float value : values) {
+      out.writeFloat(value);
+    }
+  }
+
+  /** @return the single-side dimension of the playable grid. */
+  public int getDim() {
+    return dim;
+  }
+
+  /** @return the number of input values of a position. */
+  public int getInputSize() {
+    return INPUT_PLANES * dim * dim;
+  }
+
+  /** @return the number of policy logits of a position: one per point and one for a pass. */
+  public int getPolicySize() {
+    return dim * dim + 1;
+  }
+
+  /**
+   * Encode the position of the specified {@code SearchBoard} as network input.
+   *
+   * @param board the {@code SearchBoard}, of the dimension of this {@code Network}.
+   * @param input the input array.
+   * @param offset the offset of the position in the input array.
+   */
+  public void encode(SearchBoard board, float[] input, int offset) {
+    if (board.getDim() != dim) {
+      throw new AssertionError("board dimension does not match the network");
+    }
+    int area = dim * dim;
+    Arrays.fill(input, offset, offset + getInputSize(), 0);
+    int toPlay = board.getToPlay();
+    for (int x = 0; x < dim; x++) {
+      for (int y = 0; y < dim; y++) {
+        int ind = board.index(x, y);
+        int point = board.get(ind);
+        int plane = point == SearchBoard.EMPTY ? 2 : point == toPlay ? 0 : 1;
+        input[offset + plane * area + x * dim + y] = 1;
+        if (ind == board.getKoPoint()) {
+          input[offset + 3 * area + x * dim + y] = 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Convert the specified policy logits of a position to move probabilities.
+   *
+   * @param logits the logits array.
+   * @param offset the offset of the position in the logits array.
+   * @param board the {@code SearchBoard} of the position.
+   * @param policy the array to store the probabilities in, indexed by full grid linear index.
+   */
+  public void decode(float[] logits, int offset, SearchBoard board, float[] policy) {
+    int area = dim * dim;
+    float max = logits[offset + area];
+    for (int i = 0; i < area; i++) {
+      max = Math.max(max, logits[offset + i]);
+    }
+    double sum = 0;
+    for (int i = 0; i <= area; i++) {
+      sum += Math.exp(logits[offset + i] - max);
+    }
+    for (int x = 0; x < dim; x++) {
+      for (int y = 0; y < dim; y++) {
+        policy[board.index(x, y)] = (float) (Math.exp(logits[offset + x * dim + y] - max) / sum);
+      }
+    }
+    policy[SearchBoard.PASS] = (float) (Math.exp(logits[offset + area] - max) / sum);
+  }
+
+  /**
+   * Evaluate a single position. Calls are serialised; use a {@code BatchingEvaluator} to share a
+   * {@code Network} between search threads efficiently.
+   */
+  @Override
+  public synchronized float evaluate(SearchBoard board, float[] policy) {
+    encode(board, singleInput, 0);
+    forward(singleInput, 1, singleLogits, singleValue);
+    decode(singleLogits, 0, board, policy);
+    return singleValue[0];
+  }
+
+  /**
+   * Run the network on a batch of encoded positions. This method is not thread safe: it uses
+   * workspaces that are allocated for the largest batch so far.
+   *
+   * @param input the encoded positions, {@code getInputSize()} values each.
+   * @param batch the number of positions.
+   * @param logits the array to store the policy logits in, {@code getPolicySize()} values per
+   *     position.
+   * @param values the array to store the values in, one per position.
+   */
+  public void forward(float[] input, int batch, float[] logits, float[] values) {
+    int area = dim * dim;
+    if (batch > workspaceBatch) {
+      workspaceBatch = batch;
+      activations = new float[batch * channels * area];
+      nextActivations = new float[batch * channels * area];
+      means = new float[batch * channels];
+    }
+
+    // Trunk
+    float[] in = input;
+    for (int layer = 0; layer < layers; layer++) {
+      float[] out = in == activations ? nextActivations : activations;
+      convolve(in, inputChannels(layer), convWeights[layer], convBiases[layer], out, batch);
+      in = out;
+    }
+
+    // Channel means
+    for (int b = 0; b < batch; b++) {
+      for (int c = 0; c < channels; c++) {
+        int base = (b * channels + c) * area;
+        float sum = 0;
+        for (int i = 0; i < area; i++) {
+          sum += in[base + i];
+        }
+        means[b * channels + c] = sum / area;
+      }
+    }
+
+    int policySize = getPolicySize();
+    for (int b = 0; b < batch; b++) {
+      // Policy head
+      int logitBase = b * policySize;
+      Arrays.fill(logits, logitBase, logitBase + area, policyBias);
+      for (int c = 0; c < channels; c++) {
+        float weight = policyWeights[c];
+        int base = (b * channels + c) * area;
+        for (int i = 0; i < area; i++) {
+          logits[logitBase + i] += weight * in[base + i];
+        }
+      }
+      float pass = passBias;
+      for (int c = 0; c < channels; c++) {
+        pass += passWeights[c] * means[b * channels + c];
+      }
+      logits[logitBase + area] = pass;
+
+      // Value head
+      float value = outputBias;
+      for (int h = 0; h < hidden; h++) {
+        float unit = valueBiases[h];
+        for (int c = 0; c < channels; c++) {
+          unit += valueWeights[h * channels + c] * means[b * channels + c];
+        }
+        value += outputWeights[h] * Math.max(unit, 0);
+      }
+      values[b] = (float) Math.tanh(value);
+    }
+  }
+
+  /**
+   * Apply a zero-padded 3x3 convolution with a ReLU activation to a batch of planes.
+   *
+   * @param in the input planes by position and channel.
+   * @param inChannels the number of input channels.
+   * @param weights the weights by output channel, input channel, row and column.
+   * @param biases the biases by output channel.
+   * @param out the array to store the output planes in, {@code channels} per position.
+   * @param batch the number of positions.
+   */
+  private void convolve(
+      float[] in, int inChannels, float[] weights, float[] biases, float[] out, int batch) {
+    int area = dim * dim;
+    for (int b = 0; b < batch; b++) {
+      for (int c = 0; c < channels; c++) {
+        int base = (b * channels + c) * area;
+        Arrays.fill(out, base, base + area, biases[c]);
+      }
+    }
+    for (int c = 0; c < channels; c++) {
+      for (int ic = 0; ic < inChannels; ic++) {
+        for (int ky = 0; ky < KERNEL; ky++) {
+          int dx = ky - 1;
+          int xFrom = Math.max(0, -dx);
+          int xTo = Math.min(dim, dim - dx);
+          for (int kx = 0; kx < KERNEL; kx++) {
+            float weight = weights[((c * inChannels + ic) * KERNEL + ky) * KERNEL + kx];
+            if (weight == 0) {
+              continue;
+            }
+            int dy = kx - 1;
+            int yFrom = Math.max(0, -dy);
+            int yTo = Math.min(dim, dim - dy);
+            for (int b = 0; b < batch; b++) {
+              int outBase = (b * channels + c) * area;
+              int inBase = (b * inChannels + ic) * area + dx * dim + dy;
+              for (int x = xFrom; x < xTo; x++) {
+                int row = x * dim;
+                for (int y = yFrom; y < yTo; y++) {
+                  out[outBase + row + y] += weight * in[inBase + row + y];
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+    int size = batch * channels * area;
+    for (int i = 0; i < size; i++) {
+      out[i] = Math.max(out[i], 0);
+    }
+  }
+
+  /**
+   * Get the number of input channels of the specified trunk layer.
+   *
+   * @param layer the layer.
+   * @return the number of input channels.
+   */
+  private int inputChannels(int layer) {
+    return layer == 0 ? INPUT_PLANES : channels;
+  }
+}
@@ -0,0 +1,225 @@
+package players.strategy.network;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import players.strategy.MonteCarloTreeSearchStrategy;
+import players.strategy.search.SearchBoard;
+
+class NetworkTest {
+
+  private Network network;
+  private SearchBoard board;
+
+  @BeforeEach
+  void setUp() {
+    network = Network.random(5, 8, 2, 8, new SplittableRandom(42));
+    board = new SearchBoard(5);
+    board.play(board.index(2, 2));
+    board.play(board.index(1, 2));
+  }
+
+  @Test
+  void testEvaluate() {
+    float[] policy = new float[board.getSize()];
+    float value = network.evaluate(board, policy);
+    assertTrue(value >= -1 && value <= 1);
+    float sum = 0;
+    for (float probability : policy) {
+      sum += probability;
+    }
+    assertEquals(1, sum, 1e-5);
+  }
+
+  @Test
+  void testSaveAndLoad() throws IOException {
+    Path path = Files.createTempFile("network", ".bin");
+    try {
+      network.save(path);
+      Network loaded = Network.load(path);
+      float[] policy = new float[board.getSize()];
+      float[] loadedPolicy = new float[board.getSize()];
+      assertEquals(network.evaluate(board, policy), loaded.evaluate(board, loadedPolicy));
+      assertArrayEquals(policy, loadedPolicy);
+
+      Files.write(path, new byte[] {1, 2, 3, 4});
+      assertThrows(IOException.class, () -> Network.load(path));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  void testBatchMatchesSingle() {
+    SearchBoard other = new SearchBoard(board);
+    other.play(board.index(0, 0));
+    float[] input = new float[2 * network.getInputSize()];
+    network.encode(board, input, 0);
+    network.encode(other, input, network.getInputSize());
+    float[] logits = new float[2 * network.getPolicySize()];
+    float[] values = new float[2];
+    network.forward(input, 2, logits, values);
+
+    float[] policy = new float[board.getSize()];
+    float[] batchPolicy = new float[board.getSize()];
+    assertEquals(network.evaluate(other, policy), values[1], 1e-6);
+    network.decode(logits, network.getPolicySize(), other, batchPolicy);
+    assertArrayEquals(policy, batchPolicy, 1e-6f);
+  }
+
+  @Test
+  void testBatchingEvaluator() throws InterruptedException {
+    float[] expectedPolicy = new float[board.getSize()];
+    float expectedValue = network.evaluate(board, expectedPolicy);
+    List<Thread> threads = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    try (BatchingEvaluator evaluator = new BatchingEvaluator(network, 4, 1000)) {
+      for (int t = 0; t < 4; t++) {
+        Thread thread =
+            new Thread(
+                () -> {
+                  SearchBoard copy = new SearchBoard(board);
+                  float[] policy = new float[copy.getSize()];
+                  for (int i = 0; i < 50; i++) {
+                    try {
+                      assertEquals(expectedValue, evaluator.evaluate(copy, policy), 1e-6);
+                      assertArrayEquals(expectedPolicy, policy, 1e-6f);
+                    } catch (Throwable e) {
+                      synchronized (failures) {
+                        failures.add(e);
+                      }
+                    }
+                  }
+                });
+        threads.add(thread);
+        thread.start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      assertEquals(200, evaluator.getEvaluationCount());
+      assertTrue(evaluator.getMeanBatchSize() >= 1);
+    }
+    assertTrue(failures.isEmpty());
+  }
+
+  @Test
+  void testBatchingEvaluatorSingleCaller() {
+    // A single caller is evaluated at once, however long the batch may wait to fill
+    float[] policy = new float[board.getSize()];
+    try (BatchingEvaluator evaluator = new BatchingEvaluator(network, 4, 1_000_000)) {
+      long start = System.nanoTime();
+      for (int i = 0; i < 10; i++) {
+        evaluator.evaluate(board, policy);
+      }
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+      assertEquals(10, evaluator.getBatchCount());
+    }
+  }
+
+  @Test
+  void testBatchingEvaluatorThroughput() throws InterruptedException {
+    // A network with a fixed cost per batch, as on an accelerator, gains from many callers
+    Network slow =
+        new Network(5, 8, 2, 8) {
+          @Override
+          public void forward(float[] input, int batch, float[] logits, float[] values) {
+            try {
+              Thread.sleep(5);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            super.forward(input, batch, logits, values);
+          }
+        };
+    try (BatchingEvaluator evaluator = new BatchingEvaluator(slow, 8, 1000)) {
+      double single = evaluationsPerSecond(evaluator, 1, 40);
+      double multiple = evaluationsPerSecond(evaluator, 8, 40);
+      assertTrue(multiple > 2 * single);
+      assertTrue(evaluator.getMeanBatchSize() > 1);
+    }
+  }
+
+  /**
+   * Evaluate the board with the specified number of threads and measure the throughput.
+   *
+   * @param evaluator the {@code Evaluator}.
+   * @param threadCount the number of threads.
+   * @param evaluations the number of evaluations per thread.
+   * @return the number of evaluations per second.
+   * @throws InterruptedException if interrupted while waiting for the threads.
+   */
+  private double evaluationsPerSecond(Evaluator evaluator, int threadCount, int evaluations)
+      throws InterruptedException {
+    List<Thread> threads = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int t = 0; t < threadCount; t++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                SearchBoard copy = new SearchBoard(board);
+                float[] policy = new float[copy.getSize()];
+                for (int i = 0; i < evaluations; i++) {
+                  evaluator.evaluate(copy, policy);
+                }
+              });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return threadCount * evaluations * 1e9 / (System.nanoTime() - start);
+  }
+
+  @Test
+  void testBatchingEvaluatorFailure() {
+    Network failing =
+        new Network(5, 8, 2, 8) {
+          private boolean hasFailed;
+
+          @Override
+          public void forward(float[] input, int batch, float[] logits, float[] values) {
+            if (!hasFailed) {
+              hasFailed = true;
+              throw new IllegalArgumentException("broken batch");
+            }
+            super.forward(input, batch, logits, values);
+          }
+        };
+    float[] policy = new float[board.getSize()];
+    try (BatchingEvaluator evaluator = new BatchingEvaluator(failing, 4, 0)) {
+      // The failed batch fails its evaluation, after which the worker goes on
+      assertThrows(IllegalStateException.class, () -> evaluator.evaluate(board, policy));
+      float value = evaluator.evaluate(board, policy);
+      assertTrue(value >= -1 && value <= 1);
+      assertEquals(1, evaluator.getBatchCount());
+    }
+  }
+
+  @Test
+  void testSearchWithEvaluator() {
+    MonteCarloTreeSearchStrategy strategy =
+        new MonteCarloTreeSearchStrategy(200, 1.5, null, network);
+    Board gameBoard = new Board(5);
+    Move move = strategy.nextMove(gameBoard, Stone.BLACK);
+    if (move != null) {
+      assertTrue(gameBoard.get(move.getPlayableX(), move.getPlayableY()).isPlayable());
+    }
+    assertEquals(200, strategy.getTree().getVisits(strategy.getTree().getRoot()));
+  }
+}
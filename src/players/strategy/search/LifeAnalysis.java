@@ -0,0 +1,284 @@
+package players.strategy.search;
+
+import java.util.Arrays;
+
+/**
+ * An analysis of unconditional life by Benson's algorithm: it finds the chains of a colour that
+ * can never be captured, even if the colour always passes, and the regions they enclose as eyes.
+ *
+ * <p>A region is a maximal connected set of points without stones of the colour. It is vital to an
+ * enclosing chain if every empty point of the region is a liberty of that chain. Starting from all
+ * chains, the algorithm repeatedly drops every chain with fewer than two vital regions that are
+ * enclosed by remaining chains only; the chains left are unconditionally alive.
+ *
+ * <p>The buffers of the analysis are reused, so a {@code LifeAnalysis} allocates nothing once it
+ * has seen the largest board. It is not thread safe.
+ */
+public class LifeAnalysis {
+
+  /** The chain of every point, or -1 if it is not a stone of the analysed colour. */
+  private int[] chains = new int[0];
+
+  /** The region of every point, or -1 if it is a stone of the analysed colour or a side. */
+  private int[] regions = new int[0];
+
+  /** The number of stones of every chain. */
+  private int[] chainSizes = new int[0];
+
+  /** The switches indicating whether or not every chain is still considered alive. */
+  private boolean[] alive = new boolean[0];
+
+  /** The number of healthy vital regions of every chain. */
+  private int[] vitalCounts = new int[0];
+
+  /** The number of empty points of every region next to the chain being counted. */
+  private int[] adjacentCounts = new int[0];
+
+  /** The number of points of every region. */
+  private int[] regionSizes = new int[0];
+
+  /** The switches indicating whether or not every region contains opponent stones. */
+  private boolean[] occupied = new boolean[0];
+
+  /** The start of the bordering chains of every region in the pair arrays. */
+  private int[] pairStarts = new int[0];
+
+  /** The bordering chain of every region-chain pair. */
+  private int[] pairChains = new int[0];
+
+  /** The switches indicating whether or not the region of every pair is vital to its chain. */
+  private boolean[] pairVital = new boolean[0];
+
+  /** The stack of flood fills and the points of the current region. */
+  private int[] stack = new int[0];
+
+  /** The bordering chains of the current region. */
+  private int[] borders = new int[0];
+
+  /**
+   * Get the area the specified colour is sure to own at the end of the game: the stones of its
+   * unconditionally alive chains and the vital regions they enclose that hold no opponent stones.
+   *
+   * @param board the {@code SearchBoard}.
+   * @param color the colour.
+   * @return the number of points.
+   */
+  public int getSafeArea(SearchBoard board, int color) {
+    ensureCapacity(board.getSize());
+    int chainCount = labelChains(board, color);
+    int regionCount = labelRegions(board, color);
+
+    // Drop chains with fewer than two healthy vital regions until none are left to drop
+    Arrays.fill(alive, 0, chainCount, true);
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      Arrays.fill(vitalCounts, 0, chainCount, 0);
+      for (int region = 0; region < regionCount; region++) {
+        if (isHealthy(region)) {
+          for (int pair = pairStarts[region]; pair < pairStarts[region + 1]; pair++) {
+            if (pairVital[pair]) {
+              vitalCounts[pairChains[pair]]++;
+            }
+          }
+        }
+      }
+      for (int chain = 0; chain < chainCount; chain++) {
+        if (alive[chain] && vitalCounts[chain] < 2) {
+          alive[chain] = false;
+          changed = true;
+        }
+      }
+    }
+
+    int area = 0;
+    for (int chain = 0; chain < chainCount; chain++) {
+      if (alive[chain]) {
+        area += chainSizes[chain];
+      }
+    }
+    for (int region = 0; region < regionCount; region++) {
+      if (!occupied[region] && isHealthy(region)) {
+        for (int pair = pairStarts[region]; pair < pairStarts[region + 1]; pair++) {
+          if (pairVital[pair]) {
+            area += regionSizes[region];
+            break;
+          }
+        }
+      }
+    }
+    return area;
+  }
+
+  /**
+   * Determine if every chain bordering the specified region is still considered alive.
+   *
+   * @param region the region.
+   * @return {@code true} if the region is healthy; {@code false} otherwise.
+   */
+  private boolean isHealthy(int region) {
+    for (int pair = pairStarts[region]; pair < pairStarts[region + 1]; pair++) {
+      if (!alive[pairChains[pair]]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Label the chains of the specified colour.
+   *
+   * @param board the {@code SearchBoard}.
+   * @param color the colour.
+   * @return the number of chains.
+   */
+  private int labelChains(SearchBoard board, int color) {
+    Arrays.fill(chains, 0, board.getSize(), -1);
+    int chainCount = 0;
+    for (int ind = 0; ind < board.getSize(); ind++) {
+      if (board.get(ind) != color || chains[ind] != -1) {
+        continue;
+      }
+      int chain = chainCount++;
+      int size = 0;
+      int top = 0;
+      stack[top++] = ind;
+      chains[ind] = chain;
+      while (top > 0) {
+        int current = stack[--top];
+        size++;
+        for (int direction = 0; direction < 4; direction++) {
+          int neighbor = board.neighbor(current, direction);
+          if (board.get(neighbor) == color && chains[neighbor] == -1) {
+            chains[neighbor] = chain;
+            stack[top++] = neighbor;
+          }
+        }
+      }
+      chainSizes[chain] = size;
+    }
+    return chainCount;
+  }
+
+  /**
+   * Label the regions enclosed by the specified colour and record, for every region, its bordering
+   * chains and whether it is vital to each of them.
+   *
+   * @param board the {@code SearchBoard}.
+   * @param color the colour.
+   * @return the number of regions.
+   */
+  private int labelRegions(SearchBoard board, int color) {
+    Arrays.fill(regions, 0, board.getSize(), -1);
+    int regionCount = 0;
+    int pairCount = 0;
+    for (int ind = 0; ind < board.getSize(); ind++) {
+      int point = board.get(ind);
+      if (point == color || point == SearchBoard.SIDE || regions[ind] != -1) {
+        continue;
+      }
+
+      // Flood fill the region, keeping its points on the stack
+      int region = regionCount++;
+      int size = 0;
+      stack[size++] = ind;
+      regions[ind] = region;
+      occupied[region] = false;
+      int borderCount = 0;
+      int emptyCount = 0;
+      for (int i = 0; i < size; i++) {
+        int current = stack[i];
+        if (board.get(current) == SearchBoard.EMPTY) {
+          emptyCount++;
+        } else {
+          occupied[region] = true;
+        }
+        for (int direction = 0; direction < 4; direction++) {
+          int neighbor = board.neighbor(current, direction);
+          int neighborPoint = board.get(neighbor);
+          if (neighborPoint == color) {
+            int chain = chains[neighbor];
+            if (adjacentCounts[chain] == 0) {
+              borders[borderCount++] = chain;
+              adjacentCounts[chain] = -1;
+            }
+          } else if (neighborPoint != SearchBoard.SIDE && regions[neighbor] == -1) {
+            regions[neighbor] = region;
+            stack[size++] = neighbor;
+          }
+        }
+      }
+      regionSizes[region] = size;
+
+      // Count the empty points of the region next to each bordering chain
+      for (int i = 0; i < borderCount; i++) {
+        adjacentCounts[borders[i]] = 0;
+      }
+      for (int i = 0; i < size; i++) {
+        int current = stack[i];
+        if (board.get(current) != SearchBoard.EMPTY) {
+          continue;
+        }
+        for (int direction = 0; direction < 4; direction++) {
+          int neighbor = board.neighbor(current, direction);
+          if (board.get(neighbor) == color && !isCounted(board, current, direction)) {
+            adjacentCounts[chains[neighbor]]++;
+          }
+        }
+      }
+      pairStarts[region] = pairCount;
+      for (int i = 0; i < borderCount; i++) {
+        int chain = borders[i];
+        pairChains[pairCount] = chain;
+        pairVital[pairCount] = emptyCount > 0 && adjacentCounts[chain] == emptyCount;
+        pairCount++;
+        adjacentCounts[chain] = 0;
+      }
+    }
+    pairStarts[regionCount] = pairCount;
+    return regionCount;
+  }
+
+  /**
+   * Determine if the chain of the neighbour of the specified point in the specified direction was
+   * already counted for that point through a neighbour in an earlier direction.
+   *
+   * @param board the {@code SearchBoard}.
+   * @param ind the linear index of the point.
+   * @param direction the direction of the neighbour.
+   * @return {@code true} if already counted; {@code false} otherwise.
+   */
+  private boolean isCounted(SearchBoard board, int ind, int direction) {
+    int chain = chains[board.neighbor(ind, direction)];
+    for (int earlier = 0; earlier < direction; earlier++) {
+      if (chains[board.neighbor(ind, earlier)] == chain) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Grow the buffers to the specified number of points, if needed.
+   *
+   * @param size the number of points of the full grid.
+   */
+  private void ensureCapacity(int size) {
+    if (chains.length >= size) {
+      return;
+    }
+    chains = new int[size];
+    regions = new int[size];
+    chainSizes = new int[size];
+    alive = new boolean[size];
+    vitalCounts = new int[size];
+    adjacentCounts = new int[size];
+    regionSizes = new int[size];
+    occupied = new boolean[size];
+    pairStarts = new int[size + 1];
+    pairChains = new int[4 * size];
+    pairVital = new boolean[4 * size];
+    stack = new int[size];
+    borders = new int[size];
+  }
+}
@@ -0,0 +1,48 @@
+package players.strategy.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LifeAnalysisTest {
+
+  private LifeAnalysis analysis;
+  private SearchBoard board;
+
+  @BeforeEach
+  void setUp() {
+    analysis = new LifeAnalysis();
+    board = new SearchBoard(5);
+  }
+
+  /**
+   * Play black stones at the specified points, with white passing in between.
+   *
+   * @param points the coordinates of the points, as pairs of x and y.
+   */
+  private void playBlack(int... points) {
+    for (int i = 0; i < points.length; i += 2) {
+      board.play(board.index(points[i], points[i + 1]));
+      board.play(SearchBoard.PASS);
+    }
+  }
+
+  @Test
+  void testOneEyeIsNotAlive() {
+    playBlack(1, 0, 1, 1, 1, 2, 1, 3, 1, 4);
+    assertEquals(0, analysis.getSafeArea(board, SearchBoard.BLACK));
+  }
+
+  @Test
+  void testTwoEyesAreAlive() {
+    playBlack(1, 0, 1, 1, 1, 2, 1, 3, 1, 4, 0, 2);
+    assertEquals(10, analysis.getSafeArea(board, SearchBoard.BLACK));
+    assertEquals(0, analysis.getSafeArea(board, SearchBoard.WHITE));
+
+    // An opponent stone in an eye leaves the group alive, but the eye is not yet owned
+    board.setToPlay(SearchBoard.WHITE);
+    board.play(board.index(0, 0));
+    assertEquals(8, analysis.getSafeArea(board, SearchBoard.BLACK));
+  }
+}
@@ -0,0 +1,413 @@
+package players.strategy.search;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A {@code Playout} that samples moves in proportion to weights from fast features instead of
+ * uniformly: the 3x3 pattern around a point, captures and atari escapes of the groups next to the
+ * last move, and proximity to the last move.
+ *
+ * <p>The weight of every 3x3 pattern is precomputed for both colours, so the weight of a point is
+ * a single table read of its pattern. Weights are kept per point and per row and are updated
+ * incrementally: after a move only the points around the move and around captured stones change.
+ * Sampling a move therefore walks the row sums and a single row, and the tactical features only
+ * look at the last move.
+ */
+public class PatternPlayout extends Playout {
+
+  /** The number of 3x3 patterns: the eight neighbours of a point with four values each. */
+  private static final int PATTERN_COUNT = 1 << 16;
+
+  /** The weight added to the liberty of a group in atari next to the last move. */
+  private static final double CAPTURE_WEIGHT = 40;
+
+  /** The weight added to the liberty of an own group put in atari by the last move. */
+  private static final double ESCAPE_WEIGHT = 20;
+
+  /** The factor of the pattern weight of a point next to the last move. */
+  private static final double NEAR_FACTOR = 3;
+
+  /** The factor of a pattern weight for a contact move. */
+  private static final double CONTACT_FACTOR = 2;
+
+  /** The factor of a pattern weight for a hane. */
+  private static final double HANE_FACTOR = 3;
+
+  /** The factor of a pattern weight for a cut. */
+  private static final double CUT_FACTOR = 4;
+
+  /** The factor of a pattern weight for a bad shape, i.e., an empty triangle or an empty edge. */
+  private static final double BAD_SHAPE_FACTOR = 0.3;
+
+  /** The weight of a point surrounded by the opponent, which is legal only if it captures. */
+  private static final float OPPONENT_EYE_WEIGHT = 0.1f;
+
+  /** The total weight below which no move is left to sample. */
+  private static final double MIN_TOTAL = 1e-6;
+
+  /** The pattern weights by colour to play, black first, and pattern. */
+  private static final float[][] PATTERN_WEIGHTS = createPatternWeights();
+
+  /** The point weights by colour to play, black first, and linear index. */
+  private float[][] weights = new float[2][0];
+
+  /** The sums of the point weights by colour to play and row. */
+  private double[][] rowSums = new double[2][0];
+
+  /** The sums of all point weights by colour to play. */
+  private final double[] totals = new double[2];
+
+  /** The single-side dimension of the full grid of the current playout. */
+  private int fullDim;
+
+  /** The tactical candidate moves of the current playout move. */
+  private final int[] candidates = new int[16];
+
+  /** The weights of the tactical candidate moves. */
+  private final double[] candidateWeights = new double[candidates.length];
+
+  /** The number of tactical candidate moves. */
+  private int candidateCount;
+
+  /** The points rejected for the current playout move, whose weights must be restored. */
+  private int[] rejected = new int[0];
+
+  /** Instantiate a new {@code PatternPlayout} with a random seed. */
+  public PatternPlayout() {
+    super();
+  }
+
+  /**
+   * Instantiate a new {@code PatternPlayout} with the specified random number generator.
+   *
+   * @param random the random number generator.
+   */
+  public PatternPlayout(SplittableRandom random) {
+    super(random);
+  }
+
+  /**
+   * Get the pattern of the specified point: the values of its four neighbours and then its four
+   * diagonal neighbours, two bits each.
+   *
+   * @param board the {@code SearchBoard}.
+   * @param ind the linear index of the point.
+   * @return the pattern.
+   */
+  public static int pattern(SearchBoard board, int ind) {
+    int pattern = 0;
+    for (int direction = 0; direction < 4; direction++) {
+      pattern |= board.get(board.neighbor(ind, direction)) << (2 * direction);
+      pattern |= board.get(board.diagonal(ind, direction)) << (2 * (4 + direction));
+    }
+    return pattern;
+  }
+
+  /**
+   * Get the weight of the specified pattern.
+   *
+   * @param pattern the pattern.
+   * @param color the colour to play.
+   * @return the weight.
+   */
+  public static float patternWeight(int pattern, int color) {
+    return PATTERN_WEIGHTS[color - 1][pattern];
+  }
+
+  /** @return the pattern weights by colour to play and pattern. */
+  private static float[][] createPatternWeights() {
+    float[][] patternWeights = new float[2][PATTERN_COUNT];
+    int[] relative = new int[8];
+    for (int color = SearchBoard.BLACK; color <= SearchBoard.WHITE; color++) {
+      for (int pattern = 0; pattern < PATTERN_COUNT; pattern++) {
+        for (int k = 0; k < 8; k++) {
+          int point = (pattern >> (2 * k)) & 3;
+          // Relative to the colour to play: own stones 1, opponent stones 2
+          relative[k] =
+              point == SearchBoard.EMPTY || point == SearchBoard.SIDE
+                  ? point
+                  : point == color ? 1 : 2;
+        }
+        patternWeights[color - 1][pattern] = weight(relative);
+      }
+    }
+    return patternWeights;
+  }
+
+  /**
+   * Calculate the weight of a pattern by hand-made shape rules.
+   *
+   * @param relative the values of the neighbours and then the diagonal neighbours of the point,
+   *     relative to the colour to play: empty 0, own 1, opponent 2 and side 3.
+   * @return the weight.
+   */
+  private static float weight(int[] relative) {
+    int own = 0;
+    int opponent = 0;
+    int side = 0;
+    for (int k = 0; k < 4; k++) {
+      own += relative[k] == 1 ? 1 : 0;
+      opponent += relative[k] == 2 ? 1 : 0;
+      side += relative[k] == 3 ? 1 : 0;
+    }
+    if (own + side == 4) {
+      return 0;
+    }
+    if (opponent + side == 4) {
+      return OPPONENT_EYE_WEIGHT;
+    }
+    double weight = own + opponent > 0 ? CONTACT_FACTOR : 1;
+    boolean isHane = false;
+    boolean isCut = false;
+    boolean isTriangle = false;
+    int diagonalStones = 0;
+    for (int direction = 0; direction < 4; direction++) {
+      // The diagonal neighbour lies between two neighbours
+      int a = relative[(direction + 3) % 4];
+      int b = relative[direction];
+      int diagonal = relative[4 + direction];
+      diagonalStones += diagonal == 1 || diagonal == 2 ? 1 : 0;
+      isHane |= diagonal == 1 && ((a == 2 && b == 0) || (a == 0 && b == 2));
+      isCut |= diagonal == 1 && a == 2 && b == 2;
+      isTriangle |= diagonal == 0 && a == 1 && b == 1;
+    }
+    if (isHane) {
+      weight *= HANE_FACTOR;
+    }
+    if (isCut) {
+      weight *= CUT_FACTOR;
+    }
+    if (isTriangle) {
+      weight *= BAD_SHAPE_FACTOR;
+    }
+    if (side > 0 && own + opponent + diagonalStones == 0) {
+      weight *= BAD_SHAPE_FACTOR;
+    }
+    return (float) weight;
+  }
+
+  @Override
+  protected void start(SearchBoard board) {
+    int size = board.getSize();
+    fullDim = board.getFullDim();
+    if (weights[0].length != size) {
+      weights = new float[2][size];
+      rowSums = new double[2][fullDim];
+      rejected = new int[size];
+    } else {
+      for (int c = 0; c < 2; c++) {
+        Arrays.fill(weights[c], 0);
+        Arrays.fill(rowSums[c], 0);
+      }
+    }
+    totals[0] = 0;
+    totals[1] = 0;
+    for (int ind = 0; ind < size; ind++) {
+      refresh(board, ind);
+    }
+  }
+
+  @Override
+  protected void played(SearchBoard board, int move) {
+    if (move == SearchBoard.PASS) {
+      return;
+    }
+    refreshAround(board, move);
+    for (int i = 0; i < board.getCapturedCount(); i++) {
+      refreshAround(board, board.getCaptured(i));
+    }
+  }
+
+  /**
+   * Select a legal move for the colour to play that does not fill an own eye, in proportion to
+   * its weight. Points that turn out to be illegal are excluded until the move is selected.
+   */
+  @Override
+  protected int selectMove(SearchBoard board) {
+    int color = board.getToPlay();
+    int c = color - 1;
+    collectCandidates(board, color);
+    int rejectedCount = 0;
+    int move;
+    while (true) {
+      double extra = 0;
+      for (int i = 0; i < candidateCount; i++) {
+        extra += candidateWeights[i];
+      }
+      double total = totals[c] + extra;
+      if (total < MIN_TOTAL) {
+        move = SearchBoard.PASS;
+        break;
+      }
+      double r = getRandom().nextDouble() * total;
+      if (r < extra) {
+        int i = 0;
+        while (i < candidateCount - 1 && r >= candidateWeights[i]) {
+          r -= candidateWeights[i++];
+        }
+        move = candidates[i];
+      } else {
+        move = sample(c, r - extra);
+        if (move == SearchBoard.PASS) {
+          break;
+        }
+      }
+      if (!board.isEye(move, color) && board.isLegal(move)) {
+        break;
+      }
+
+      // Exclude the point from this selection
+      for (int i = candidateCount - 1; i >= 0; i--) {
+        if (candidates[i] == move) {
+          candidates[i] = candidates[--candidateCount];
+          candidateWeights[i] = candidateWeights[candidateCount];
+        }
+      }
+      if (weights[c][move] > 0) {
+        rejected[rejectedCount++] = move;
+        setWeight(c, move, 0);
+      }
+    }
+    for (int i = 0; i < rejectedCount; i++) {
+      refresh(board, rejected[i]);
+    }
+    return move;
+  }
+
+  /**
+   * Collect the tactical candidate moves: the points next to the last move, the liberty of the
+   * group of the last move if it is in atari, and the liberties of own groups next to the last
+   * move that are in atari.
+   *
+   * @param board the {@code SearchBoard}.
+   * @param color the colour to play.
+   */
+  private void collectCandidates(SearchBoard board, int color) {
+    candidateCount = 0;
+    int last = board.getLastMove();
+    if (last == SearchBoard.PASS || board.get(last) == SearchBoard.EMPTY) {
+      return;
+    }
+    float[] colorWeights = weights[color - 1];
+    for (int direction = 0; direction < 4; direction++) {
+      int neighbor = board.neighbor(last, direction);
+      int diagonal = board.diagonal(last, direction);
+      addCandidate(neighbor, (NEAR_FACTOR - 1) * colorWeights[neighbor]);
+      addCandidate(diagonal, (NEAR_FACTOR - 1) * colorWeights[diagonal]);
+    }
+    if (board.countLiberties(last, 2) == 1) {
+      addCandidate(board.findLiberty(last), CAPTURE_WEIGHT);
+    }
+    for (int direction = 0; direction < 4; direction++) {
+      int neighbor = board.neighbor(last, direction);
+      if (board.get(neighbor) == color && board.countLiberties(neighbor, 2) == 1) {
+        addCandidate(board.findLiberty(neighbor), ESCAPE_WEIGHT);
+      }
+    }
+  }
+
+  /**
+   * Add a tactical candidate move, if it has a weight.
+   *
+   * @param move the move.
+   * @param weight the weight added to the pattern weight of the move.
+   */
+  private void addCandidate(int move, double weight) {
+    if (weight > 0 && candidateCount < candidates.length) {
+      candidates[candidateCount] = move;
+      candidateWeights[candidateCount++] = weight;
+    }
+  }
+
+  /**
+   * Find the point at the specified cumulative weight.
+   *
+   * @param c the colour to play minus one.
+   * @param r the cumulative weight, less than the total weight.
+   * @return the linear index of the point, or {@code PASS} if no point has a weight.
+   */
+  private int sample(int c, double r) {
+    float[] colorWeights = weights[c];
+    double[] colorRowSums = rowSums[c];
+    int fallback = SearchBoard.PASS;
+    for (int row = 1; row < fullDim - 1; row++) {
+      if (colorRowSums[row] <= 0) {
+        continue;
+      }
+      if (r >= colorRowSums[row]) {
+        r -= colorRowSums[row];
+        continue;
+      }
+      for (int ind = row * fullDim + 1; ind < (row + 1) * fullDim - 1; ind++) {
+        if (colorWeights[ind] > 0) {
+          r -= colorWeights[ind];
+          fallback = ind;
+          if (r < 0) {
+            return ind;
+          }
+        }
+      }
+    }
+    if (fallback == SearchBoard.PASS) {
+      // Rounding left the weight past the last row
+      for (int ind = colorWeights.length - 1; ind >= 0; ind--) {
+        if (colorWeights[ind] > 0) {
+          return ind;
+        }
+      }
+    }
+    return fallback;
+  }
+
+  /**
+   * Recompute the weights of the specified point and its eight neighbours.
+   *
+   * @param board the {@code SearchBoard}.
+   * @param ind the linear index of the point.
+   */
+  private void refreshAround(SearchBoard board, int ind) {
+    refresh(board, ind);
+    for (int direction = 0; direction < 4; direction++) {
+      refresh(board, board.neighbor(ind, direction));
+      refresh(board, board.diagonal(ind, direction));
+    }
+  }
+
+  /**
+   * Recompute the weights of the specified point from its pattern, or zero if it is not empty.
+   *
+   * @param board the {@code SearchBoard}.
+   * @param ind the linear index of the point.
+   */
+  private void refresh(SearchBoard board, int ind) {
+    int point = board.get(ind);
+    if (point == SearchBoard.SIDE) {
+      return;
+    }
+    if (point == SearchBoard.EMPTY) {
+      int pattern = pattern(board, ind);
+      setWeight(0, ind, PATTERN_WEIGHTS[0][pattern]);
+      setWeight(1, ind, PATTERN_WEIGHTS[1][pattern]);
+    } else {
+      setWeight(0, ind, 0);
+      setWeight(1, ind, 0);
+    }
+  }
+
+  /**
+   * Set the weight of the specified point and update the sums.
+   *
+   * @param c the colour to play minus one.
+   * @param ind the linear index of the point.
+   * @param weight the weight.
+   */
+  private void setWeight(int c, int ind, float weight) {
+    double delta = weight - weights[c][ind];
+    if (delta != 0) {
+      weights[c][ind] = weight;
+      rowSums[c][ind / fullDim] += delta;
+      totals[c] += delta;
+    }
+  }
+}
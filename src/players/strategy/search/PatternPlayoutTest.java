@@ -0,0 +1,68 @@
+package players.strategy.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PatternPlayoutTest {
+
+  private PatternPlayout playout;
+  private SearchBoard board;
+
+  @BeforeEach
+  void setUp() {
+    playout = new PatternPlayout(new SplittableRandom(7));
+    board = new SearchBoard(9);
+  }
+
+  @Test
+  void testRun() {
+    playout.run(board);
+    assertTrue(board.isFinished() || board.getMoveCount() >= 3 * 9 * 9);
+    assertTrue(playout.getMoveCount() > 0);
+  }
+
+  @Test
+  void testPatternWeights() {
+    // An empty point surrounded by own stones is never played, one next to a stone is preferred
+    int ind = board.index(0, 0);
+    board.play(board.index(0, 1));
+    board.play(SearchBoard.PASS);
+    board.play(board.index(1, 0));
+    board.play(SearchBoard.PASS);
+    assertEquals(0f, weight(ind));
+    assertTrue(weight(board.index(2, 0)) > weight(board.index(4, 4)));
+  }
+
+  /**
+   * Get the pattern weight of the specified point for black.
+   *
+   * @param ind the linear index of the point.
+   * @return the weight.
+   */
+  private float weight(int ind) {
+    return PatternPlayout.patternWeight(PatternPlayout.pattern(board, ind), SearchBoard.BLACK);
+  }
+
+  @Test
+  void testCapturePreferred() {
+    // White plays into atari at (4, 4) and black can capture at (4, 5)
+    int[] moves = {3, 4, 0, 0, 4, 3, 8, 8, 5, 4, 4, 4};
+    for (int i = 0; i < moves.length; i += 2) {
+      assertTrue(board.play(board.index(moves[i], moves[i + 1])));
+    }
+    int capture = board.index(4, 5);
+    int captures = 0;
+    playout.start(board);
+    for (int i = 0; i < 1000; i++) {
+      if (playout.selectMove(board) == capture) {
+        captures++;
+      }
+    }
+    // A uniform policy would capture about 1000 / 74 times
+    assertTrue(captures > 200, "captures: " + captures);
+  }
+}
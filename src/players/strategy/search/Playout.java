@@ -0,0 +1,195 @@
+package players.strategy.search;
+
+import java.util.SplittableRandom;
+
+/**
+ * The playout engine of tree searches: it finishes a game on a {@code SearchBoard} by playing
+ * random moves for both colours and scores the final layout. Moves that fill an own eye are never
+ * played, so a playout ends with both colours passing once all other moves are exhausted.
+ *
+ * <p>Unless disabled, a playout stops early once its winner is clear, which is what a search needs
+ * from it. By the mercy rule, a playout stops when one colour has more stones than the other by a
+ * third of the board. A playout that runs long, which mostly happens when the board is settled but
+ * captures go on, is checked regularly by a {@code LifeAnalysis}: if the area one colour is sure to
+ * own already decides the game, the full playout would have ended with the same winner. The score
+ * of an early stop has the sign of the winner, but is otherwise only an estimate.
+ *
+ * <p>A {@code Playout} is not thread safe; every search thread needs its own instance.
+ */
+public class Playout {
+
+  /** The maximum number of playout moves per playable point, a guard against long ko fights. */
+  private static final int MAX_MOVES_PER_POINT = 3;
+
+  /** The mercy threshold as a share of the area of the board. */
+  private static final double MERCY_SHARE = 1.0 / 3;
+
+  /** The number of playout moves before the first life analysis, per point of the board. */
+  private static final double ANALYSIS_DELAY_PER_POINT = 1.25;
+
+  /** The number of playout moves between two life analyses, per board dimension. */
+  private static final int ANALYSIS_INTERVAL_PER_DIM = 2;
+
+  /** The random number generator. */
+  private final SplittableRandom random;
+
+  /** The candidate moves of the current playout move, reused between moves. */
+  private int[] candidates = new int[0];
+
+  /** The analysis of unconditional life for early termination. */
+  private final LifeAnalysis lifeAnalysis = new LifeAnalysis();
+
+  /** The total number of moves played by this {@code Playout}. */
+  private long moveCount;
+
+  /** The number of playouts stopped early. */
+  private long earlyTerminationCount;
+
+  /** The switch indicating whether or not playouts stop early once their winner is clear. */
+  private boolean isTerminatingEarly = true;
+
+  /** Instantiate a new {@code Playout} with a random seed. */
+  public Playout() {
+    this(new SplittableRandom());
+  }
+
+  /**
+   * Instantiate a new {@code Playout} with the specified random number generator.
+   *
+   * @param random the random number generator.
+   */
+  public Playout(SplittableRandom random) {
+    this.random = random;
+  }
+
+  /**
+   * Play out the game on the specified {@code SearchBoard}, which is modified, and score it.
+   *
+   * @param board the {@code SearchBoard}.
+   * @return the area score of the final layout, positive if black wins, or an estimate of it with
+   *     the same sign if the playout stopped early.
+   */
+  public double run(SearchBoard board) {
+    int area = board.getDim() * board.getDim();
+    int maxMoves = board.getMoveCount() + MAX_MOVES_PER_POINT * area;
+    int mercyThreshold = (int) Math.max(MERCY_SHARE * area, Math.abs(board.getKomi()));
+    int nextAnalysis = board.getMoveCount() + (int) (ANALYSIS_DELAY_PER_POINT * area);
+    start(board);
+    while (!board.isFinished() && board.getMoveCount() < maxMoves) {
+      if (isTerminatingEarly) {
+        int black = board.getStoneCount(SearchBoard.BLACK);
+        int white = board.getStoneCount(SearchBoard.WHITE);
+        if (Math.abs(black - white) > mercyThreshold) {
+          earlyTerminationCount++;
+          return black - white - board.getKomi();
+        }
+        if (board.getMoveCount() >= nextAnalysis) {
+          nextAnalysis = board.getMoveCount() + ANALYSIS_INTERVAL_PER_DIM * board.getDim();
+          double score = getDecidedScore(board, area);
+          if (score != 0) {
+            earlyTerminationCount++;
+            return score;
+          }
+        }
+      }
+      int move = selectMove(board);
+      board.play(move);
+      played(board, move);
+      moveCount++;
+    }
+    return board.score();
+  }
+
+  /**
+   * Get the score bound implied by the areas both colours are sure to own, if it decides the game.
+   *
+   * @param board the {@code SearchBoard}.
+   * @param area the area of the board.
+   * @return the lowest possible score if black is sure to win, the highest possible score if
+   *     white is sure to win, or zero if the game is undecided.
+   */
+  private double getDecidedScore(SearchBoard board, int area) {
+    int blackArea = lifeAnalysis.getSafeArea(board, SearchBoard.BLACK);
+    double blackBound = 2 * blackArea - area - board.getKomi();
+    if (blackBound > 0) {
+      return blackBound;
+    }
+    int whiteArea = lifeAnalysis.getSafeArea(board, SearchBoard.WHITE);
+    double whiteBound = area - 2 * whiteArea - board.getKomi();
+    return whiteBound < 0 ? whiteBound : 0;
+  }
+
+  /** @return the total number of moves played by this {@code Playout}. */
+  public long getMoveCount() {
+    return moveCount;
+  }
+
+  /** @return the number of playouts stopped early by this {@code Playout}. */
+  public long getEarlyTerminationCount() {
+    return earlyTerminationCount;
+  }
+
+  /** @return {@code true} if playouts stop early once their winner is clear. */
+  public boolean isTerminatingEarly() {
+    return isTerminatingEarly;
+  }
+
+  /**
+   * Set whether or not playouts stop early once their winner is clear.
+   *
+   * @param isTerminatingEarly {@code true} to stop early; {@code false} to play out every game.
+   */
+  public void setTerminatingEarly(boolean isTerminatingEarly) {
+    this.isTerminatingEarly = isTerminatingEarly;
+  }
+
+  /** @return the random number generator. */
+  protected SplittableRandom getRandom() {
+    return random;
+  }
+
+  /**
+   * Prepare a playout from the position of the specified {@code SearchBoard}. Subclasses that keep
+   * incremental state about the board initialise it here.
+   *
+   * @param board the {@code SearchBoard}.
+   */
+  protected void start(SearchBoard board) {}
+
+  /**
+   * Update after the specified move was played on the specified {@code SearchBoard}, whose
+   * captured points are those of that move.
+   *
+   * @param board the {@code SearchBoard}.
+   * @param move the move.
+   */
+  protected void played(SearchBoard board, int move) {}
+
+  /**
+   * Select a uniformly random legal move for the colour to play that does not fill an own eye.
+   *
+   * @param board the {@code SearchBoard}.
+   * @return the move, or {@code SearchBoard.PASS} if there is none.
+   */
+  protected int selectMove(SearchBoard board) {
+    if (candidates.length < board.getSize()) {
+      candidates = new int[board.getSize()];
+    }
+    int count = 0;
+    for (int ind = 0; ind < board.getSize(); ind++) {
+      if (board.get(ind) == SearchBoard.EMPTY) {
+        candidates[count++] = ind;
+      }
+    }
+    int color = board.getToPlay();
+    while (count > 0) {
+      int i = random.nextInt(count);
+      int move = candidates[i];
+      if (!board.isEye(move, color) && board.isLegal(move)) {
+        return move;
+      }
+      candidates[i] = candidates[--count];
+    }
+    return SearchBoard.PASS;
+  }
+}
@@ -0,0 +1,89 @@
+package players.strategy.search;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A benchmark of the playout policies: it plays out games from the empty board with the uniform
+ * {@code Playout} and the {@code PatternPlayout} and reports the playouts per second of each, so
+ * the cost of the better moves of a policy can be weighed against its speed. Every policy is
+ * measured with and without early termination, whose share of black wins should stay the same.
+ */
+public class PlayoutBenchmark {
+
+  public static final String USAGE =
+      "usage: java " + PlayoutBenchmark.class.getName() + " [<dim> [<seconds per policy>]]";
+
+  /** The default board dimension. */
+  private static final int DEFAULT_DIM = 9;
+
+  /** The default measuring time per policy in seconds. */
+  private static final int DEFAULT_SECONDS = 3;
+
+  public static void main(String[] args) {
+    if (args.length > 2) {
+      System.out.println("incorrect number of input arguments");
+      System.out.println(USAGE);
+      System.exit(0);
+    }
+    int dim = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DIM;
+    int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+
+    System.out.println("playouts on " + dim + "x" + dim + ", " + seconds + " s per policy");
+    report("uniform", new Playout(), dim, seconds);
+    report("pattern", new PatternPlayout(), dim, seconds);
+    Playout uniform = new Playout();
+    uniform.setTerminatingEarly(false);
+    report("uniform-full", uniform, dim, seconds);
+    Playout pattern = new PatternPlayout();
+    pattern.setTerminatingEarly(false);
+    report("pattern-full", pattern, dim, seconds);
+  }
+
+  /**
+   * Measure and print the speed of the specified {@code Playout}, after warming it up.
+   *
+   * @param name the name of the policy.
+   * @param playout the {@code Playout}.
+   * @param dim the board dimension.
+   * @param seconds the measuring time in seconds.
+   */
+  private static void report(String name, Playout playout, int dim, int seconds) {
+    measure(playout, dim, TimeUnit.SECONDS.toNanos(1));
+    long movesBefore = playout.getMoveCount();
+    long[] result = measure(playout, dim, TimeUnit.SECONDS.toNanos(seconds));
+    long playouts = result[0];
+    double elapsedSeconds = result[1] / 1e9;
+    System.out.printf(
+        "%-12s %10.0f playouts/s %7.1f moves/playout %6.3f black wins%n",
+        name,
+        playouts / elapsedSeconds,
+        (double) (playout.getMoveCount() - movesBefore) / playouts,
+        (double) result[2] / playouts);
+  }
+
+  /**
+   * Run playouts from the empty board for the specified time.
+   *
+   * @param playout the {@code Playout}.
+   * @param dim the board dimension.
+   * @param nanos the time in nanoseconds.
+   * @return the number of playouts, the elapsed time in nanoseconds and the number of black wins.
+   */
+  private static long[] measure(Playout playout, int dim, long nanos) {
+    SearchBoard empty = new SearchBoard(dim);
+    SearchBoard board = new SearchBoard(dim);
+    long playouts = 0;
+    long blackWins = 0;
+    long start = System.nanoTime();
+    long elapsed;
+    do {
+      board.copyFrom(empty);
+      if (playout.run(board) > 0) {
+        blackWins++;
+      }
+      playouts++;
+      elapsed = System.nanoTime() - start;
+    } while (elapsed < nanos);
+    return new long[] {playouts, elapsed, blackWins};
+  }
+}
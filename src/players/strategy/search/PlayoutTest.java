@@ -0,0 +1,41 @@
+package players.strategy.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class PlayoutTest {
+
+  @Test
+  void testMercyRule() {
+    SearchBoard board = new SearchBoard(5);
+    for (int x = 0; x < 5; x++) {
+      for (int y = 0; y < 2 - x % 2; y++) {
+        board.play(board.index(x, y));
+        board.play(SearchBoard.PASS);
+      }
+    }
+    assertEquals(8, board.getStoneCount(SearchBoard.BLACK));
+    board.play(board.index(2, 3));
+    board.play(SearchBoard.PASS);
+    Playout playout = new Playout(new SplittableRandom(1));
+    assertEquals(9 - board.getKomi(), playout.run(board));
+    assertEquals(0, playout.getMoveCount());
+    assertEquals(1, playout.getEarlyTerminationCount());
+  }
+
+  @Test
+  void testEarlyTerminationKeepsWinner() {
+    for (int seed = 0; seed < 200; seed++) {
+      Playout early = new PatternPlayout(new SplittableRandom(seed));
+      Playout full = new PatternPlayout(new SplittableRandom(seed));
+      full.setTerminatingEarly(false);
+      double earlyScore = early.run(new SearchBoard(9));
+      double fullScore = full.run(new SearchBoard(9));
+      assertEquals(fullScore > 0, earlyScore > 0, "seed: " + seed);
+      assertTrue(early.getMoveCount() <= full.getMoveCount());
+    }
+  }
+}
@@ -0,0 +1,689 @@
+package players.strategy.search;
+
+import game.action.Move;
+import game.material.Material;
+import game.material.Stone;
+import game.material.board.Board;
+import game.material.board.Zobrist;
+import java.util.Arrays;
+
+/**
+ * A mutable Go board for searching, backed by a primitive array instead of the {@code Map} of a
+ * {@code Grid}. Points are addressed by the same full grid linear indices as {@code Grid}, so a
+ * move is a single {@code int}. Playing a move captures opponent groups without liberties and
+ * keeps a {@code Zobrist} hash up to date. Unlike the game {@code Rules}, suicide is rejected
+ * instead of played, which is never worse for the player and keeps searches small.
+ *
+ * <p>All scratch memory is allocated on construction, so playing moves allocates nothing.
+ */
+public class SearchBoard {
+
+  /** The value of an empty point. */
+  public static final int EMPTY = 0;
+
+  /** The value of a point with a black stone. */
+  public static final int BLACK = 1;
+
+  /** The value of a point with a white stone. */
+  public static final int WHITE = 2;
+
+  /** The value of a point on the side of the board. */
+  public static final int SIDE = 3;
+
+  /** The pass move. Index zero is a corner of the full grid, so it is never a playable point. */
+  public static final int PASS = 0;
+
+  /** The default komi, which only serves to break ties. */
+  public static final double DEFAULT_KOMI = 0.5;
+
+  /** The single-side dimension of the playable grid. */
+  private final int dim;
+
+  /** The single-side dimension of the full grid. */
+  private final int fullDim;
+
+  /** The offsets from a linear index to its four neighbours. */
+  private final int[] neighborOffsets;
+
+  /** The offsets from a linear index to its four diagonal neighbours. */
+  private final int[] diagonalOffsets;
+
+  /** The points of the full grid. */
+  private final int[] points;
+
+  /** The number of stones on the board by point value. */
+  private final int[] stoneCounts = new int[3];
+
+  /** The flood fill marks, compared to {@code markStamp}. */
+  private final int[] marks;
+
+  /** The flood fill stack. */
+  private final int[] stack;
+
+  /** The points captured by the last move. */
+  private final int[] captured;
+
+  /** The komi added to the score of white. */
+  private double komi = DEFAULT_KOMI;
+
+  /** The current flood fill mark. */
+  private int markStamp;
+
+  /** The number of points captured by the last move. */
+  private int capturedCount;
+
+  /** The colour to play. */
+  private int toPlay;
+
+  /** The hash of the layout, excluding the colour to play. */
+  private long layoutHash;
+
+  /** The point where playing is forbidden by the simple ko rule, or {@code PASS} if none. */
+  private int koPoint = PASS;
+
+  /** The number of consecutive passes. */
+  private int passes;
+
+  /** The number of moves played on this board. */
+  private int moveCount;
+
+  /** The last move played on this board, or {@code PASS}. */
+  private int lastMove = PASS;
+
+  /**
+   * Instantiate a new empty {@code SearchBoard} of the specified dimension with black to play.
+   *
+   * @param dim the single-side dimension of the playable grid.
+   */
+  public SearchBoard(int dim) {
+    if (dim <= 0) {
+      throw new AssertionError("dim must be greater than zero");
+    }
+    this.dim = dim;
+    fullDim = dim + 2;
+    neighborOffsets = new int[] {-fullDim, 1, fullDim, -1};
+    diagonalOffsets = new int[] {-fullDim - 1, -fullDim + 1, fullDim + 1, fullDim - 1};
+    points = new int[fullDim * fullDim];
+    marks = new int[points.length];
+    stack = new int[points.length];
+    captured = new int[points.length];
+    for (int ind = 0; ind < points.length; ind++) {
+      int row = ind / fullDim;
+      int col = ind % fullDim;
+      boolean isSide = row == 0 || row == fullDim - 1 || col == 0 || col == fullDim - 1;
+      points[ind] = isSide ? SIDE : EMPTY;
+    }
+    layoutHash = Zobrist.dimensionKey(dim);
+    toPlay = BLACK;
+  }
+
+  /**
+   * Instantiate a new {@code SearchBoard} with the layout of the specified {@code Board} and the
+   * specified {@code Stone} to play.
+   *
+   * @param board the {@code Board}.
+   * @param toPlay the {@code Stone} to play.
+   */
+  public SearchBoard(Board board, Stone toPlay) {
+    this(board.getDim());
+    for (int ind = 0; ind < points.length; ind++) {
+      Material material = board.get(ind);
+      if (material instanceof Stone) {
+        put(ind, color((Stone) material));
+      }
+    }
+    this.toPlay = color(toPlay);
+  }
+
+  /**
+   * Instantiate a new {@code SearchBoard} as a copy of another.
+   *
+   * @param board the {@code SearchBoard} to copy.
+   */
+  public SearchBoard(SearchBoard board) {
+    this(board.getDim());
+    copyFrom(board);
+  }
+
+  /**
+   * Get the colour value of the specified {@code Stone}.
+   *
+   * @param stone the {@code Stone}.
+   * @return {@code BLACK} or {@code WHITE}.
+   */
+  public static int color(Stone stone) {
+    return stone == Stone.BLACK ? BLACK : WHITE;
+  }
+
+  /**
+   * Get the {@code Stone} of the specified colour value.
+   *
+   * @param color {@code BLACK} or {@code WHITE}.
+   * @return the {@code Stone}.
+   */
+  public static Stone stone(int color) {
+    return color == BLACK ? Stone.BLACK : Stone.WHITE;
+  }
+
+  /**
+   * Get the opponent colour of the specified colour.
+   *
+   * @param color {@code BLACK} or {@code WHITE}.
+   * @return the other colour.
+   */
+  public static int other(int color) {
+    return BLACK + WHITE - color;
+  }
+
+  /**
+   * Make this {@code SearchBoard} a copy of the specified one, which must have the same dimension.
+   * Nothing is allocated.
+   *
+   * @param board the {@code SearchBoard} to copy.
+   */
+  public void copyFrom(SearchBoard board) {
+    if (board.dim != dim) {
+      throw new AssertionError("boards must have equal dimensions");
+    }
+    System.arraycopy(board.points, 0, points, 0, points.length);
+    System.arraycopy(board.stoneCounts, 0, stoneCounts, 0, stoneCounts.length);
+    komi = board.komi;
+    toPlay = board.toPlay;
+    layoutHash = board.layoutHash;
+    koPoint = board.koPoint;
+    passes = board.passes;
+    moveCount = board.moveCount;
+    lastMove = board.lastMove;
+    capturedCount = 0;
+  }
+
+  /** @return the single-side dimension of the playable grid. */
+  public int getDim() {
+    return dim;
+  }
+
+  /** @return the single-side dimension of the full grid. */
+  public int getFullDim() {
+    return fullDim;
+  }
+
+  /** @return the number of points of the full grid, i.e., the exclusive upper bound of moves. */
+  public int getSize() {
+    return points.length;
+  }
+
+  /**
+   * Get the value of the point at the specified linear index.
+   *
+   * @param ind the linear index.
+   * @return {@code EMPTY}, {@code BLACK}, {@code WHITE} or {@code SIDE}.
+   */
+  public int get(int ind) {
+    return points[ind];
+  }
+
+  /** @return the colour to play. */
+  public int getToPlay() {
+    return toPlay;
+  }
+
+  /** @param toPlay the colour to play. */
+  public void setToPlay(int toPlay) {
+    this.toPlay = toPlay;
+  }
+
+  /** @return the komi. */
+  public double getKomi() {
+    return komi;
+  }
+
+  /** @param komi the komi. */
+  public void setKomi(double komi) {
+    this.komi = komi;
+  }
+
+  /** @return the hash of the layout, excluding the colour to play. */
+  public long getLayoutHash() {
+    return layoutHash;
+  }
+
+  /** @return the hash of the layout including the colour to play. */
+  public long getPositionHash() {
+    return layoutHash ^ Zobrist.toPlayKey(stone(toPlay));
+  }
+
+  /** @return the number of consecutive passes. */
+  public int getPasses() {
+    return passes;
+  }
+
+  /** @return {@code true} if the last two moves were passes; {@code false} otherwise. */
+  public boolean isFinished() {
+    return passes >= 2;
+  }
+
+  /** @return the number of moves played on this board. */
+  public int getMoveCount() {
+    return moveCount;
+  }
+
+  /** @return the last move, or {@code PASS}. */
+  public int getLastMove() {
+    return lastMove;
+  }
+
+  /** @return the simple ko point, or {@code PASS} if there is none. */
+  public int getKoPoint() {
+    return koPoint;
+  }
+
+  /**
+   * Get the number of stones of the specified colour.
+   *
+   * @param color {@code BLACK} or {@code WHITE}.
+   * @return the number of stones.
+   */
+  public int getStoneCount(int color) {
+    return stoneCounts[color];
+  }
+
+  /** @return the number of points captured by the last move. */
+  public int getCapturedCount() {
+    return capturedCount;
+  }
+
+  /**
+   * Get a point captured by the last move.
+   *
+   * @param i the index into the captured points, less than {@code getCapturedCount()}.
+   * @return the linear index of the captured point.
+   */
+  public int getCaptured(int i) {
+    return captured[i];
+  }
+
+  /**
+   * Get the linear index of the specified playable position.
+   *
+   * @param playableX the horizontal playable index.
+   * @param playableY the vertical playable index.
+   * @return the linear index.
+   */
+  public int index(int playableX, int playableY) {
+    return (playableX + 1) * fullDim + playableY + 1;
+  }
+
+  /**
+   * Get the {@code Move} of the specified {@code Stone} at the specified linear index.
+   *
+   * @param ind the linear index, not {@code PASS}.
+   * @param stone the {@code Stone}.
+   * @return the {@code Move}.
+   */
+  public Move toMove(int ind, Stone stone) {
+    return new Move(ind / fullDim - 1, ind % fullDim - 1, stone);
+  }
+
+  /**
+   * Get the linear index of the specified {@code Move}.
+   *
+   * @param move the {@code Move}, or {@code null} for a pass.
+   * @return the linear index, or {@code PASS}.
+   */
+  public int toIndex(Move move) {
+    return move == null ? PASS : index(move.getPlayableX(), move.getPlayableY());
+  }
+
+  /**
+   * Get the linear index of a neighbour of the specified point.
+   *
+   * @param ind the linear index of the point.
+   * @param direction the direction: 0 (north), 1 (east), 2 (south) or 3 (west).
+   * @return the linear index of the neighbour.
+   */
+  public int neighbor(int ind, int direction) {
+    return ind + neighborOffsets[direction];
+  }
+
+  /**
+   * Get the linear index of a diagonal neighbour of the specified point.
+   *
+   * @param ind the linear index of the point.
+   * @param direction the direction: 0 (north west), 1 (north east), 2 (south east) or 3 (south
+   *     west).
+   * @return the linear index of the diagonal neighbour.
+   */
+  public int diagonal(int ind, int direction) {
+    return ind + diagonalOffsets[direction];
+  }
+
+  /**
+   * Determine if the colour to play may play the specified move: a pass, or a move on an empty
+   * point that is not the simple ko point and is not suicide. Positional superko is left to the
+   * caller, which knows the history through {@code getLayoutHash}.
+   *
+   * @param move the move.
+   * @return {@code true} if the move is legal; {@code false} otherwise.
+   */
+  public boolean isLegal(int move) {
+    if (move == PASS) {
+      return true;
+    }
+    if (points[move] != EMPTY || move == koPoint) {
+      return false;
+    }
+    int opponent = other(toPlay);
+    for (int offset : neighborOffsets) {
+      int neighbor = move + offset;
+      int point = points[neighbor];
+      if (point == EMPTY) {
+        return true;
+      }
+      if (point == toPlay && hasLibertiesAtLeast(neighbor, 2)) {
+        return true;
+      }
+      if (point == opponent && !hasLibertiesAtLeast(neighbor, 2)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determine if the specified point is an eye of the specified colour: all its neighbours are of
+   * that colour or side, and enough diagonal neighbours are too, so that it cannot become a false
+   * eye.
+   *
+   * @param ind the linear index of the point.
+   * @param color the colour.
+   * @return {@code true} if the point is an eye; {@code false} otherwise.
+   */
+  public boolean isEye(int ind, int color) {
+    if (points[ind] != EMPTY) {
+      return false;
+    }
+    for (int offset : neighborOffsets) {
+      int point = points[ind + offset];
+      if (point != color && point != SIDE) {
+        return false;
+      }
+    }
+    int opponent = other(color);
+    int opponentDiagonals = 0;
+    int sideDiagonals = 0;
+    for (int offset : diagonalOffsets) {
+      int point = points[ind + offset];
+      if (point == opponent) {
+        opponentDiagonals++;
+      } else if (point == SIDE) {
+        sideDiagonals++;
+      }
+    }
+    return opponentDiagonals + (sideDiagonals > 0 ? 1 : 0) < 2;
+  }
+
+  /**
+   * Play the specified move for the colour to play, if it is legal as defined by {@code isLegal}.
+   * Opponent groups left without liberties are captured.
+   *
+   * @param move the move.
+   * @return {@code true} if the move was played; {@code false} if it was illegal.
+   */
+  public boolean play(int move) {
+    capturedCount = 0;
+    if (move == PASS) {
+      passes++;
+      koPoint = PASS;
+      lastMove = PASS;
+      toPlay = other(toPlay);
+      moveCount++;
+      return true;
+    }
+    if (points[move] != EMPTY || move == koPoint) {
+      return false;
+    }
+    int opponent = other(toPlay);
+    put(move, toPlay);
+    for (int offset : neighborOffsets) {
+      int neighbor = move + offset;
+      if (points[neighbor] == opponent && !hasLibertiesAtLeast(neighbor, 1)) {
+        removeGroup(neighbor);
+      }
+    }
+    if (capturedCount == 0 && !hasLibertiesAtLeast(move, 1)) {
+      // Suicide
+      remove(move);
+      return false;
+    }
+    koPoint = capturedCount == 1 && isSingleStoneInAtari(move) ? captured[0] : PASS;
+    passes = 0;
+    lastMove = move;
+    toPlay = opponent;
+    moveCount++;
+    return true;
+  }
+
+  /**
+   * Determine if the group at the specified point has at least the specified number of
+   * liberties.
+   *
+   * @param ind the linear index of a stone of the group.
+   * @param minimum the number of liberties.
+   * @return {@code true} if the group has at least {@code minimum} liberties; {@code false}
+   *     otherwise.
+   */
+  public boolean hasLibertiesAtLeast(int ind, int minimum) {
+    return countLiberties(ind, minimum) >= minimum;
+  }
+
+  /**
+   * Count the liberties of the group at the specified point, stopping once the specified maximum
+   * is reached.
+   *
+   * @param ind the linear index of a stone of the group.
+   * @param maximum the number of liberties to stop counting at.
+   * @return the number of liberties, at most {@code maximum}.
+   */
+  public int countLiberties(int ind, int maximum) {
+    int color = points[ind];
+    int stamp = nextMarkStamp();
+    int liberties = 0;
+    int size = 0;
+    stack[size++] = ind;
+    marks[ind] = stamp;
+    while (size > 0) {
+      int current = stack[--size];
+      for (int offset : neighborOffsets) {
+        int neighbor = current + offset;
+        if (marks[neighbor] == stamp) {
+          continue;
+        }
+        int point = points[neighbor];
+        if (point == EMPTY) {
+          marks[neighbor] = stamp;
+          if (++liberties >= maximum) {
+            return liberties;
+          }
+        } else if (point == color) {
+          marks[neighbor] = stamp;
+          stack[size++] = neighbor;
+        }
+      }
+    }
+    return liberties;
+  }
+
+  /**
+   * Find a liberty of the group at the specified point, e.g., the last liberty of a group in
+   * atari.
+   *
+   * @param ind the linear index of a stone of the group.
+   * @return the linear index of a liberty, or {@code PASS} if the group has none.
+   */
+  public int findLiberty(int ind) {
+    int color = points[ind];
+    int stamp = nextMarkStamp();
+    int size = 0;
+    stack[size++] = ind;
+    marks[ind] = stamp;
+    while (size > 0) {
+      int current = stack[--size];
+      for (int offset : neighborOffsets) {
+        int neighbor = current + offset;
+        int point = points[neighbor];
+        if (point == EMPTY) {
+          return neighbor;
+        }
+        if (point == color && marks[neighbor] != stamp) {
+          marks[neighbor] = stamp;
+          stack[size++] = neighbor;
+        }
+      }
+    }
+    return PASS;
+  }
+
+  /**
+   * Calculate the area score of the board: stones plus empty regions bordered by only one colour,
+   * black minus white minus komi.
+   *
+   * @return the score, positive if black wins.
+   */
+  public double score() {
+    int stamp = nextMarkStamp();
+    int blackArea = stoneCounts[BLACK];
+    int whiteArea = stoneCounts[WHITE];
+    for (int ind = fullDim + 1; ind < points.length - fullDim - 1; ind++) {
+      if (points[ind] != EMPTY || marks[ind] == stamp) {
+        continue;
+      }
+      // Flood fill the empty region and record which colours border it
+      int borders = 0;
+      int regionSize = 0;
+      int size = 0;
+      stack[size++] = ind;
+      marks[ind] = stamp;
+      while (size > 0) {
+        int current = stack[--size];
+        regionSize++;
+        for (int offset : neighborOffsets) {
+          int neighbor = current + offset;
+          int point = points[neighbor];
+          if (point == EMPTY) {
+            if (marks[neighbor] != stamp) {
+              marks[neighbor] = stamp;
+              stack[size++] = neighbor;
+            }
+          } else if (point != SIDE) {
+            borders |= point;
+          }
+        }
+      }
+      if (borders == BLACK) {
+        blackArea += regionSize;
+      } else if (borders == WHITE) {
+        whiteArea += regionSize;
+      }
+    }
+    return blackArea - whiteArea - komi;
+  }
+
+  /**
+   * Get the {@code Board} with the layout of this {@code SearchBoard}.
+   *
+   * @return the {@code Board}.
+   */
+  public Board toBoard() {
+    Board board = new Board(dim);
+    for (int ind = 0; ind < points.length; ind++) {
+      if (points[ind] == BLACK || points[ind] == WHITE) {
+        board.put(ind, stone(points[ind]));
+      }
+    }
+    return board;
+  }
+
+  /**
+   * Put a stone of the specified colour on the specified empty point.
+   *
+   * @param ind the linear index.
+   * @param color the colour.
+   */
+  private void put(int ind, int color) {
+    points[ind] = color;
+    stoneCounts[color]++;
+    layoutHash ^= Zobrist.key(color - BLACK, ind);
+  }
+
+  /**
+   * Remove the stone from the specified point.
+   *
+   * @param ind the linear index.
+   */
+  private void remove(int ind) {
+    int color = points[ind];
+    points[ind] = EMPTY;
+    stoneCounts[color]--;
+    layoutHash ^= Zobrist.key(color - BLACK, ind);
+  }
+
+  /**
+   * Remove the group at the specified point and record its points as captured.
+   *
+   * @param ind the linear index of a stone of the group.
+   */
+  private void removeGroup(int ind) {
+    int color = points[ind];
+    int size = 0;
+    stack[size++] = ind;
+    remove(ind);
+    captured[capturedCount++] = ind;
+    while (size > 0) {
+      int current = stack[--size];
+      for (int offset : neighborOffsets) {
+        int neighbor = current + offset;
+        if (points[neighbor] == color) {
+          remove(neighbor);
+          captured[capturedCount++] = neighbor;
+          stack[size++] = neighbor;
+        }
+      }
+    }
+  }
+
+  /**
+   * Determine if the stone at the specified point forms a group of its own with exactly one
+   * liberty, which makes a single capture by it a ko.
+   *
+   * @param ind the linear index.
+   * @return {@code true} if so; {@code false} otherwise.
+   */
+  private boolean isSingleStoneInAtari(int ind) {
+    int liberties = 0;
+    for (int offset : neighborOffsets) {
+      int point = points[ind + offset];
+      if (point == points[ind]) {
+        return false;
+      }
+      if (point == EMPTY) {
+        liberties++;
+      }
+    }
+    return liberties == 1;
+  }
+
+  /** @return a fresh flood fill mark. */
+  private int nextMarkStamp() {
+    if (++markStamp == Integer.MAX_VALUE) {
+      Arrays.fill(marks, 0);
+      markStamp = 1;
+    }
+    return markStamp;
+  }
+
+  /** @return the board as a {@code String}, the same as the {@code Board} with this layout. */
+  @Override
+  public String toString() {
+    return toBoard().toString();
+  }
+}
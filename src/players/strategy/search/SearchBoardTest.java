@@ -0,0 +1,108 @@
+package players.strategy.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import game.material.board.Zobrist;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SearchBoardTest {
+
+  private SearchBoard board;
+
+  @BeforeEach
+  void setUp() {
+    board = new SearchBoard(5);
+  }
+
+  /**
+   * Play the specified moves, given as pairs of playable indices, alternating colours.
+   *
+   * @param playables the playable indices.
+   */
+  private void play(int... playables) {
+    for (int i = 0; i < playables.length; i += 2) {
+      assertTrue(board.play(board.index(playables[i], playables[i + 1])));
+    }
+  }
+
+  @Test
+  void testConversion() {
+    Board gameBoard = new Board(5);
+    Move move = new Move(1, 3, Stone.WHITE);
+    gameBoard = move.apply(gameBoard);
+    SearchBoard searchBoard = new SearchBoard(gameBoard, Stone.BLACK);
+    int ind = searchBoard.toIndex(move);
+    assertEquals(SearchBoard.WHITE, searchBoard.get(ind));
+    assertEquals(1, searchBoard.toMove(ind, Stone.WHITE).getPlayableX());
+    assertEquals(3, searchBoard.toMove(ind, Stone.WHITE).getPlayableY());
+    assertEquals(Zobrist.hash(gameBoard), searchBoard.getLayoutHash());
+    assertEquals(gameBoard.toString(), searchBoard.toString());
+  }
+
+  @Test
+  void testCapture() {
+    // Black surrounds the white stone at (0, 1)
+    play(0, 0, 0, 1, 1, 1, 4, 4, 0, 2);
+    assertEquals(SearchBoard.EMPTY, board.get(board.index(0, 1)));
+    assertEquals(1, board.getCapturedCount());
+    assertEquals(1, board.getStoneCount(SearchBoard.WHITE));
+    assertEquals(Zobrist.hash(board.toBoard()), board.getLayoutHash());
+  }
+
+  @Test
+  void testSuicideAndKo() {
+    // Black stones around (0, 0); white may not play there
+    play(0, 1, 4, 4, 1, 0);
+    assertFalse(board.isLegal(board.index(0, 0)));
+    assertFalse(board.play(board.index(0, 0)));
+    assertEquals(SearchBoard.WHITE, board.getToPlay());
+
+    // Set up a ko: black captures at (1, 2), white may not recapture immediately
+    board = new SearchBoard(5);
+    play(0, 1, 0, 2, 1, 0, 1, 3, 2, 1, 2, 2, 4, 4, 1, 1, 1, 2);
+    int koPoint = board.index(1, 1);
+    assertEquals(SearchBoard.EMPTY, board.get(koPoint));
+    assertEquals(koPoint, board.getKoPoint());
+    assertFalse(board.isLegal(koPoint));
+
+    // After a move elsewhere the ko may be retaken
+    play(4, 0, 3, 0);
+    assertTrue(board.isLegal(koPoint));
+  }
+
+  @Test
+  void testEyeAndScore() {
+    // Black wall on column 2, white wall on column 3
+    for (int x = 0; x < 5; x++) {
+      play(x, 2, x, 3);
+    }
+    assertEquals(15 - 10 - SearchBoard.DEFAULT_KOMI, board.score(), 1e-9);
+
+    // A corner eye of black
+    board = new SearchBoard(5);
+    play(0, 1, 4, 4, 1, 0);
+    assertTrue(board.isEye(board.index(0, 0), SearchBoard.BLACK));
+    assertFalse(board.isEye(board.index(0, 0), SearchBoard.WHITE));
+    assertFalse(board.isEye(board.index(1, 1), SearchBoard.BLACK));
+  }
+
+  @Test
+  void testCopyAndHash() {
+    play(2, 2);
+    SearchBoard copy = new SearchBoard(board);
+    assertEquals(board.getPositionHash(), copy.getPositionHash());
+    copy.play(SearchBoard.PASS);
+    assertEquals(board.getLayoutHash(), copy.getLayoutHash());
+    assertNotEquals(board.getPositionHash(), copy.getPositionHash());
+    copy.play(SearchBoard.PASS);
+    assertTrue(copy.isFinished());
+    assertFalse(board.isFinished());
+  }
+}
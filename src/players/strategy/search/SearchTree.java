@@ -0,0 +1,552 @@
+package players.strategy.search;
+
+import java.util.Arrays;
+
+/**
+ * A Monte Carlo search tree stored in preallocated primitive arrays, one array per field, with
+ * nodes referred to by their index. Every node is the position reached by playing its move from
+ * its parent position; its statistics are kept from the perspective of the colour that played the
+ * move, i.e., the opponent of its colour to play. The moves of a node that are not yet expanded
+ * into children, and their prior probabilities, are kept in a second pair of arrays.
+ *
+ * <p>Nothing is allocated while searching, so a search can run for as long as it likes without
+ * work for the garbage collector. When the arrays are nearly full, the tree is recycled: nodes with
+ * fewer visits than a threshold keep their statistics but lose their subtrees and untried moves,
+ * with the threshold doubled until at most half of the capacity is used. The remaining nodes are
+ * compacted to the start of the arrays, in their order, so the root is always node zero and a
+ * parent always comes before its children. Compaction invalidates node indices; {@code
+ * forward(int)} translates an index from before the last compaction.
+ */
+public class SearchTree {
+
+  /** The index of no node. */
+  public static final int NONE = -1;
+
+  /** The size of a node in bytes. */
+  public static final int BYTES_PER_NODE = 49;
+
+  /** The size of an untried move in bytes. */
+  public static final int BYTES_PER_UNTRIED_MOVE = 8;
+
+  /** The parents, {@code NONE} for the root. */
+  private final int[] parents;
+
+  /** The first children, {@code NONE} if there are none. */
+  private final int[] firstChildren;
+
+  /** The next siblings, {@code NONE} for the last child. */
+  private final int[] nextSiblings;
+
+  /** The moves leading to the nodes. */
+  private final int[] moves;
+
+  /** The hashes of the positions, including the colour to play. */
+  private final long[] positionHashes;
+
+  /** The colours to play. */
+  private final byte[] toPlays;
+
+  /** The numbers of visits. */
+  private final int[] visits;
+
+  /** The sums of the values of all visits, each value between zero (loss) and one (win). */
+  private final double[] valueSums;
+
+  /** The prior probabilities of the moves leading to the nodes, or zero if unknown. */
+  private final float[] priors;
+
+  /** The starts of the untried moves of the nodes, or {@code NONE} if not generated. */
+  private final int[] untriedStarts;
+
+  /** The numbers of untried moves of the nodes. */
+  private final int[] untriedCounts;
+
+  /** The untried moves, in a range per node. */
+  private final int[] untriedMoves;
+
+  /** The prior probabilities of the untried moves. */
+  private final float[] untriedPriors;
+
+  /** The node indices after the last compaction by index before it, {@code NONE} if removed. */
+  private final int[] forwards;
+
+  /** The work space of traversals and compactions. */
+  private final long[] scratch;
+
+  /** The number of nodes. */
+  private int size;
+
+  /** The number of used elements of the untried move arrays. */
+  private int untriedSize;
+
+  /** The number of nodes added since instantiation. */
+  private long addedCount;
+
+  /** The number of times the tree was recycled. */
+  private int recycleCount;
+
+  /**
+   * Instantiate a new empty {@code SearchTree}.
+   *
+   * @param nodeCapacity the maximum number of nodes.
+   * @param untriedCapacity the maximum number of untried moves of all nodes together.
+   */
+  public SearchTree(int nodeCapacity, int untriedCapacity) {
+    if (nodeCapacity <= 0 || untriedCapacity <= 0) {
+      throw new AssertionError("capacities must be greater than zero");
+    }
+    parents = new int[nodeCapacity];
+    firstChildren = new int[nodeCapacity];
+    nextSiblings = new int[nodeCapacity];
+    moves = new int[nodeCapacity];
+    positionHashes = new long[nodeCapacity];
+    toPlays = new byte[nodeCapacity];
+    visits = new int[nodeCapacity];
+    valueSums = new double[nodeCapacity];
+    priors = new float[nodeCapacity];
+    untriedStarts = new int[nodeCapacity];
+    untriedCounts = new int[nodeCapacity];
+    forwards = new int[nodeCapacity];
+    scratch = new long[nodeCapacity];
+    untriedMoves = new int[untriedCapacity];
+    untriedPriors = new float[untriedCapacity];
+  }
+
+  /** @return the maximum number of nodes. */
+  public int getNodeCapacity() {
+    return parents.length;
+  }
+
+  /** @return the maximum number of untried moves of all nodes together. */
+  public int getUntriedCapacity() {
+    return untriedMoves.length;
+  }
+
+  /** @return the number of nodes. */
+  public int size() {
+    return size;
+  }
+
+  /** @return the number of nodes added since instantiation, including recycled ones. */
+  public long getAddedCount() {
+    return addedCount;
+  }
+
+  /** @return the number of times the tree was recycled. */
+  public int getRecycleCount() {
+    return recycleCount;
+  }
+
+  /** @return the memory of the arrays in bytes, which is allocated up front. */
+  public long getMemoryUsage() {
+    return (long) getNodeCapacity() * (BYTES_PER_NODE + 4 + 8)
+        + (long) getUntriedCapacity() * BYTES_PER_UNTRIED_MOVE;
+  }
+
+  /** @return the memory of the nodes and untried moves in use in bytes. */
+  public long getUsedMemory() {
+    return (long) size * BYTES_PER_NODE + (long) untriedSize * BYTES_PER_UNTRIED_MOVE;
+  }
+
+  /** Remove all nodes. */
+  public void clear() {
+    size = 0;
+    untriedSize = 0;
+  }
+
+  /**
+   * Remove all nodes and add a root.
+   *
+   * @param positionHash the hash of the position, including the colour to play.
+   * @param toPlay the colour to play.
+   * @return the root, i.e., zero.
+   */
+  public int setRoot(long positionHash, int toPlay) {
+    clear();
+    return add(NONE, SearchBoard.PASS, positionHash, toPlay);
+  }
+
+  /** @return the root, i.e., zero, or {@code NONE} if the tree is empty. */
+  public int getRoot() {
+    return size > 0 ? 0 : NONE;
+  }
+
+  /**
+   * Determine if a single search iteration, which adds at most one node and generates the untried
+   * moves of at most one node, could exceed the capacity.
+   *
+   * @param maxMoves the maximum number of moves of a position.
+   * @return {@code true} if the tree should be recycled first; {@code false} otherwise.
+   */
+  public boolean isFull(int maxMoves) {
+    return size + 1 > getNodeCapacity() || untriedSize + maxMoves > getUntriedCapacity();
+  }
+
+  /** @return the move leading to the node. */
+  public int getMove(int node) {
+    return moves[node];
+  }
+
+  /** @return the hash of the position of the node, including the colour to play. */
+  public long getPositionHash(int node) {
+    return positionHashes[node];
+  }
+
+  /** @return the colour to play in the position of the node. */
+  public int getToPlay(int node) {
+    return toPlays[node];
+  }
+
+  /** @return the parent of the node, or {@code NONE} for the root. */
+  public int getParent(int node) {
+    return parents[node];
+  }
+
+  /** @return the first child of the node, or {@code NONE} if there are none. */
+  public int getFirstChild(int node) {
+    return firstChildren[node];
+  }
+
+  /** @return the next sibling of the node, or {@code NONE} for the last child. */
+  public int getNextSibling(int node) {
+    return nextSiblings[node];
+  }
+
+  /** @return {@code true} if the node has children; {@code false} otherwise. */
+  public boolean hasChildren(int node) {
+    return firstChildren[node] != NONE;
+  }
+
+  /** @return the number of visits of the node. */
+  public int getVisits(int node) {
+    return visits[node];
+  }
+
+  /** @return the sum of the values of all visits of the node. */
+  public double getValueSum(int node) {
+    return valueSums[node];
+  }
+
+  /** @return the mean value of the node, or one half if never visited. */
+  public double getMeanValue(int node) {
+    return visits[node] > 0 ? valueSums[node] / visits[node] : 0.5;
+  }
+
+  /** @return the prior probability of the move leading to the node, or zero if unknown. */
+  public float getPrior(int node) {
+    return priors[node];
+  }
+
+  /**
+   * Set the prior probability of the move leading to the specified node.
+   *
+   * @param node the node.
+   * @param prior the prior probability.
+   */
+  public void setPrior(int node, float prior) {
+    priors[node] = prior;
+  }
+
+  /**
+   * Add a visit with the specified value to the specified node.
+   *
+   * @param node the node.
+   * @param value the value, between zero (loss) and one (win).
+   */
+  public void update(int node, double value) {
+    visits[node]++;
+    valueSums[node] += value;
+  }
+
+  /**
+   * Add statistics gathered elsewhere, e.g., in a {@code TranspositionTable}, to the specified
+   * node.
+   *
+   * @param node the node.
+   * @param visits the number of visits.
+   * @param valueSum the sum of the values.
+   */
+  public void add(int node, int visits, double valueSum) {
+    this.visits[node] += visits;
+    valueSums[node] += valueSum;
+  }
+
+  /**
+   * Add a child for the specified move to the specified node.
+   *
+   * @param node the node.
+   * @param move the move.
+   * @param positionHash the hash of the position after the move.
+   * @return the child.
+   * @throws IllegalStateException if the tree is full.
+   */
+  public int addChild(int node, int move, long positionHash) {
+    int child = add(node, move, positionHash, SearchBoard.other(toPlays[node]));
+    nextSiblings[child] = firstChildren[node];
+    firstChildren[node] = child;
+    return child;
+  }
+
+  /**
+   * Add a node without children or untried moves.
+   *
+   * @param parent the parent, or {@code NONE}.
+   * @param move the move.
+   * @param positionHash the hash of the position, including the colour to play.
+   * @param toPlay the colour to play.
+   * @return the node.
+   * @throws IllegalStateException if the tree is full.
+   */
+  private int add(int parent, int move, long positionHash, int toPlay) {
+    if (size == getNodeCapacity()) {
+      throw new IllegalStateException("search tree is full");
+    }
+    int node = size++;
+    parents[node] = parent;
+    firstChildren[node] = NONE;
+    nextSiblings[node] = NONE;
+    moves[node] = move;
+    positionHashes[node] = positionHash;
+    toPlays[node] = (byte) toPlay;
+    visits[node] = 0;
+    valueSums[node] = 0;
+    priors[node] = 0;
+    untriedStarts[node] = NONE;
+    untriedCounts[node] = 0;
+    addedCount++;
+    return node;
+  }
+
+  /** @return {@code true} if the untried moves of the node were generated; {@code false} else. */
+  public boolean isGenerated(int node) {
+    return untriedStarts[node] != NONE;
+  }
+
+  /**
+   * Set the moves to expand the specified node with and their prior probabilities.
+   *
+   * @param node the node.
+   * @param moves the moves, which are copied.
+   * @param priors the prior probabilities of the moves, which are copied, or {@code null}.
+   * @param count the number of valid elements of {@code moves}.
+   * @throws IllegalStateException if the tree is full.
+   */
+  public void setUntriedMoves(int node, int[] moves, float[] priors, int count) {
+    if (untriedSize + count > getUntriedCapacity()) {
+      throw new IllegalStateException("search tree is full");
+    }
+    System.arraycopy(moves, 0, untriedMoves, untriedSize, count);
+    if (priors != null) {
+      System.arraycopy(priors, 0, untriedPriors, untriedSize, count);
+    } else {
+      Arrays.fill(untriedPriors, untriedSize, untriedSize + count, 0);
+    }
+    untriedStarts[node] = untriedSize;
+    untriedCounts[node] = count;
+    untriedSize += count;
+  }
+
+  /** @return {@code true} if the node has untried moves left; {@code false} otherwise. */
+  public boolean hasUntriedMoves(int node) {
+    return untriedCounts[node] > 0;
+  }
+
+  /** @return the number of untried moves of the node left. */
+  public int getUntriedCount(int node) {
+    return untriedCounts[node];
+  }
+
+  /**
+   * Remove and return the untried move at the specified index of the specified node.
+   *
+   * @param node the node.
+   * @param i the index, less than {@code getUntriedCount(node)}.
+   * @return the move.
+   */
+  public int takeUntriedMove(int node, int i) {
+    int start = untriedStarts[node];
+    int last = start + --untriedCounts[node];
+    int move = untriedMoves[start + i];
+    untriedMoves[start + i] = untriedMoves[last];
+    untriedPriors[start + i] = untriedPriors[last];
+    return move;
+  }
+
+  /**
+   * Get the prior probability of the untried move at the specified index of the specified node.
+   *
+   * @param node the node.
+   * @param i the index, less than {@code getUntriedCount(node)}.
+   * @return the prior probability, or zero if unknown.
+   */
+  public float getUntriedPrior(int node, int i) {
+    return untriedPriors[untriedStarts[node] + i];
+  }
+
+  /** @return the index of the untried move of the node with the highest prior probability. */
+  public int getBestUntriedIndex(int node) {
+    int start = untriedStarts[node];
+    int best = 0;
+    for (int i = 1; i < untriedCounts[node]; i++) {
+      if (untriedPriors[start + i] > untriedPriors[start + best]) {
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Make the specified node the root: every node outside its subtree is removed and the subtree is
+   * compacted, so the node becomes node zero.
+   *
+   * @param node the node.
+   */
+  public void reroot(int node) {
+    compact(node, 0);
+    parents[0] = NONE;
+    nextSiblings[0] = NONE;
+  }
+
+  /**
+   * Recycle the tree: cut off the subtrees and untried moves of the nodes with the fewest visits,
+   * doubling the minimum number of visits to keep them until at most half of the capacity is used,
+   * and compact the rest.
+   */
+  public void recycle() {
+    int minVisits = 1;
+    while (minVisits < Integer.MAX_VALUE / 2 && !fitsHalf(minVisits)) {
+      minVisits *= 2;
+    }
+    compact(0, minVisits);
+    recycleCount++;
+  }
+
+  /**
+   * Translate the index of a node from before the last compaction.
+   *
+   * @param node the index before the last compaction.
+   * @return the index after it, or {@code NONE} if the node was removed.
+   */
+  public int forward(int node) {
+    return forwards[node];
+  }
+
+  /**
+   * Get the number of nodes in the subtree of the specified node, including itself.
+   *
+   * @param node the node.
+   * @return the number of nodes.
+   */
+  public int size(int node) {
+    int count = 0;
+    int top = 0;
+    scratch[top++] = node;
+    while (top > 0) {
+      int current = (int) scratch[--top];
+      count++;
+      for (int child = firstChildren[current]; child != NONE; child = nextSiblings[child]) {
+        scratch[top++] = child;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Determine if recycling with the specified minimum number of visits leaves at most half of the
+   * capacity in use.
+   *
+   * @param minVisits the minimum number of visits of a node to keep its subtree.
+   * @return {@code true} if it fits; {@code false} otherwise.
+   */
+  private boolean fitsHalf(int minVisits) {
+    long nodes = 0;
+    long untried = 0;
+    int top = 0;
+    scratch[top++] = 0;
+    while (top > 0) {
+      int node = (int) scratch[--top];
+      nodes++;
+      if (node == 0 || visits[node] >= minVisits) {
+        untried += untriedCounts[node];
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+          scratch[top++] = child;
+        }
+      }
+    }
+    return nodes <= getNodeCapacity() / 2 && untried <= getUntriedCapacity() / 2;
+  }
+
+  /**
+   * Keep the subtree of the specified node, without the subtrees and untried moves of its
+   * descendants with fewer than the specified number of visits, and compact it to the start of
+   * the arrays. Since a parent always comes before its children, the nodes can be moved in order
+   * to lower indices without overwriting a node that is still to be moved.
+   *
+   * @param root the root of the subtree to keep.
+   * @param minVisits the minimum number of visits of a descendant to keep its subtree.
+   */
+  private void compact(int root, int minVisits) {
+    // Mark the kept nodes
+    Arrays.fill(forwards, 0, size, NONE);
+    int top = 0;
+    scratch[top++] = root;
+    while (top > 0) {
+      int node = (int) scratch[--top];
+      forwards[node] = 0;
+      if (node != root && visits[node] < minVisits) {
+        firstChildren[node] = NONE;
+        untriedStarts[node] = NONE;
+        untriedCounts[node] = 0;
+      }
+      for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+        scratch[top++] = child;
+      }
+    }
+
+    // Number the kept nodes in order and list their untried moves by start
+    int kept = 0;
+    int generated = 0;
+    for (int node = 0; node < size; node++) {
+      if (forwards[node] != NONE) {
+        forwards[node] = kept++;
+        if (untriedStarts[node] != NONE) {
+          scratch[generated++] = (long) untriedStarts[node] << 32 | node;
+        }
+      }
+    }
+
+    // Move the untried moves down in order of their starts
+    Arrays.sort(scratch, 0, generated);
+    int untried = 0;
+    for (int i = 0; i < generated; i++) {
+      int node = (int) scratch[i];
+      int start = untriedStarts[node];
+      int count = untriedCounts[node];
+      System.arraycopy(untriedMoves, start, untriedMoves, untried, count);
+      System.arraycopy(untriedPriors, start, untriedPriors, untried, count);
+      untriedStarts[node] = untried;
+      untried += count;
+    }
+
+    // Move the nodes down in order and translate their links
+    for (int node = 0; node < size; node++) {
+      int target = forwards[node];
+      if (target == NONE) {
+        continue;
+      }
+      parents[target] = parents[node] == NONE ? NONE : forwards[parents[node]];
+      firstChildren[target] = firstChildren[node] == NONE ? NONE : forwards[firstChildren[node]];
+      nextSiblings[target] = nextSiblings[node] == NONE ? NONE : forwards[nextSiblings[node]];
+      moves[target] = moves[node];
+      positionHashes[target] = positionHashes[node];
+      toPlays[target] = toPlays[node];
+      visits[target] = visits[node];
+      valueSums[target] = valueSums[node];
+      priors[target] = priors[node];
+      untriedStarts[target] = untriedStarts[node];
+      untriedCounts[target] = untriedCounts[node];
+    }
+    size = kept;
+    untriedSize = untried;
+  }
+}
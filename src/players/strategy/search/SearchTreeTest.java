@@ -0,0 +1,98 @@
+package players.strategy.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SearchTreeTest {
+
+  private SearchTree tree;
+
+  @BeforeEach
+  void setUp() {
+    tree = new SearchTree(18, 64);
+  }
+
+  @Test
+  void testChildren() {
+    int root = tree.setRoot(1, SearchBoard.BLACK);
+    assertEquals(0, root);
+    int first = tree.addChild(root, 5, 2);
+    int second = tree.addChild(root, 6, 3);
+    assertEquals(root, tree.getParent(first));
+    assertEquals(SearchBoard.WHITE, tree.getToPlay(first));
+    assertEquals(second, tree.getFirstChild(root));
+    assertEquals(first, tree.getNextSibling(second));
+    assertEquals(SearchTree.NONE, tree.getNextSibling(first));
+    assertEquals(3, tree.size(root));
+  }
+
+  @Test
+  void testUntriedMoves() {
+    int root = tree.setRoot(1, SearchBoard.BLACK);
+    assertFalse(tree.isGenerated(root));
+    tree.setUntriedMoves(root, new int[] {7, 8, 9}, new float[] {0.2f, 0.5f, 0.3f}, 3);
+    assertTrue(tree.isGenerated(root));
+    assertEquals(1, tree.getBestUntriedIndex(root));
+    assertEquals(8, tree.takeUntriedMove(root, 1));
+    assertEquals(2, tree.getUntriedCount(root));
+    assertEquals(0.3f, tree.getUntriedPrior(root, 1));
+    assertEquals(7, tree.takeUntriedMove(root, 0));
+    assertEquals(9, tree.takeUntriedMove(root, 0));
+    assertFalse(tree.hasUntriedMoves(root));
+  }
+
+  @Test
+  void testReroot() {
+    int root = tree.setRoot(1, SearchBoard.BLACK);
+    int child = tree.addChild(root, 5, 2);
+    tree.addChild(root, 6, 3);
+    int grandchild = tree.addChild(child, 7, 4);
+    tree.setUntriedMoves(grandchild, new int[] {8, 9}, null, 2);
+    tree.addChild(grandchild, tree.takeUntriedMove(grandchild, 0), 5);
+    tree.update(grandchild, 1);
+
+    tree.reroot(grandchild);
+    assertEquals(2, tree.size());
+    assertEquals(0, tree.forward(grandchild));
+    assertEquals(SearchTree.NONE, tree.forward(child));
+    assertEquals(4, tree.getPositionHash(0));
+    assertEquals(SearchTree.NONE, tree.getParent(0));
+    assertEquals(1, tree.getVisits(0));
+    assertEquals(1, tree.getUntriedCount(0));
+    assertEquals(9, tree.takeUntriedMove(0, 0));
+    assertEquals(8, tree.getMove(tree.getFirstChild(0)));
+  }
+
+  @Test
+  void testRecycle() {
+    int root = tree.setRoot(1, SearchBoard.BLACK);
+    int rare = tree.addChild(root, 5, 2);
+    int frequent = tree.addChild(root, 6, 3);
+    tree.add(rare, 1, 1);
+    tree.add(frequent, 100, 50);
+    for (int i = 0; i < 6; i++) {
+      tree.add(tree.addChild(rare, 10 + i, 10 + i), 1, 0);
+      tree.add(tree.addChild(frequent, 20 + i, 20 + i), 10, 5);
+    }
+    tree.setUntriedMoves(rare, new int[] {30, 31}, null, 2);
+    tree.setUntriedMoves(frequent, new int[] {40, 41, 42}, null, 3);
+    assertTrue(tree.isFull(60));
+
+    tree.recycle();
+    assertEquals(1, tree.getRecycleCount());
+    assertEquals(9, tree.size());
+    int kept = tree.forward(frequent);
+    assertEquals(100, tree.getVisits(kept));
+    assertEquals(3, tree.getUntriedCount(kept));
+    assertEquals(7, tree.size(kept));
+    int cut = tree.forward(rare);
+    assertEquals(1, tree.getVisits(cut));
+    assertFalse(tree.hasChildren(cut));
+    assertFalse(tree.isGenerated(cut));
+    assertFalse(tree.isFull(60));
+  }
+}
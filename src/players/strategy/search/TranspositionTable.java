@@ -0,0 +1,491 @@
+package players.strategy.search;
+
+/**
+ * A fixed-size transposition table keyed by 64-bit position hashes, e.g., the hashes of {@code
+ * Zobrist}. The table is shared by searches that reach the same position through different move
+ * orders, so the work done for a position is reused instead of repeated.
+ *
+ * <p>Every entry stores both the visit and value statistics of a tree search and the depth, bound
+ * and best move of an alpha-beta search, so either kind of search can use the same table. The
+ * entries are kept in primitive arrays sized from a memory cap, so the table never grows. Entries
+ * are grouped in buckets of {@code BUCKET_SIZE}; a position is only ever stored in the bucket its
+ * hash points to. If that bucket is full, an entry is evicted according to the {@code
+ * Replacement} policy.
+ *
+ * <p>The table is thread safe. Buckets are guarded by a fixed number of striped locks, so searches
+ * on different threads rarely contend.
+ */
+public class TranspositionTable {
+
+  /** The move value of an entry without a best move. */
+  public static final int NO_MOVE = -1;
+
+  /** The number of entries per bucket. */
+  public static final int BUCKET_SIZE = 4;
+
+  /**
+   * The number of bytes used per entry: a key (8), visits (4), value sum (8), value (8), best move
+   * (4), depth (2), flags (1) and generation (1).
+   */
+  public static final int BYTES_PER_ENTRY = 36;
+
+  /** The maximum number of lock stripes. */
+  private static final int MAX_STRIPES = 256;
+
+  /** The flag bit of an occupied entry. */
+  private static final int OCCUPIED = 1 << 2;
+
+  /** The flag bit of a recently used entry, which the clock hand clears. */
+  private static final int REFERENCED = 1 << 3;
+
+  /** The flag bit of an alpha-beta value that is proven, i.e., no leaf was valued heuristically. */
+  private static final int PROVEN = 1 << 4;
+
+  /** The flag bits holding the {@code Bound} ordinal. */
+  private static final int BOUND_MASK = 0b11;
+
+  /** The {@code Bound} values by ordinal. */
+  private static final Bound[] BOUNDS = Bound.values();
+
+  /** The replacement policy of this table. */
+  private final Replacement replacement;
+
+  /** The mask from a hash to a bucket index. */
+  private final int bucketMask;
+
+  /** The mask from a bucket index to a lock stripe index. */
+  private final int stripeMask;
+
+  /** The lock stripes. */
+  private final Object[] locks;
+
+  /** The keys of the entries. */
+  private final long[] keys;
+
+  /** The number of visits of the entries. */
+  private final int[] visits;
+
+  /** The sums of the values of all visits of the entries. */
+  private final double[] valueSums;
+
+  /** The alpha-beta values of the entries. */
+  private final double[] values;
+
+  /** The best moves of the entries. */
+  private final int[] bestMoves;
+
+  /** The search depths of the entries. */
+  private final short[] depths;
+
+  /** The flags of the entries: occupied, referenced, proven and the bound. */
+  private final byte[] flags;
+
+  /** The search generation in which the entries were last written. */
+  private final byte[] generations;
+
+  /** The clock hands of the buckets, used by {@code Replacement.CLOCK}. */
+  private final byte[] hands;
+
+  /** The current search generation. */
+  private volatile byte generation;
+
+  /**
+   * Instantiate a new {@code TranspositionTable} that uses at most the specified number of bytes
+   * and replaces entries by depth.
+   *
+   * @param memoryCap the memory cap in bytes.
+   */
+  public TranspositionTable(long memoryCap) {
+    this(memoryCap, Replacement.DEPTH);
+  }
+
+  /**
+   * Instantiate a new {@code TranspositionTable} that uses at most the specified number of bytes
+   * and replaces entries according to the specified {@code Replacement} policy. The number of
+   * buckets is the largest power of two that fits the memory cap, with a minimum of one.
+   *
+   * @param memoryCap the memory cap in bytes.
+   * @param replacement the {@code Replacement} policy.
+   */
+  public TranspositionTable(long memoryCap, Replacement replacement) {
+    if (memoryCap <= 0) {
+      throw new AssertionError("memory cap must be greater than zero");
+    }
+    this.replacement = replacement;
+    long bucketBytes = (long) BYTES_PER_ENTRY * BUCKET_SIZE + 1;
+    long maxBuckets = Math.min(Math.max(memoryCap / bucketBytes, 1), 1 << 28);
+    int buckets = Integer.highestOneBit((int) maxBuckets);
+    int entries = buckets * BUCKET_SIZE;
+    bucketMask = buckets - 1;
+    int stripes = Math.min(buckets, MAX_STRIPES);
+    stripeMask = stripes - 1;
+    locks = new Object[stripes];
+    for (int i = 0; i < stripes; i++) {
+      locks[i] = new Object();
+    }
+    keys = new long[entries];
+    visits = new int[entries];
+    valueSums = new double[entries];
+    values = new double[entries];
+    bestMoves = new int[entries];
+    depths = new short[entries];
+    flags = new byte[entries];
+    generations = new byte[entries];
+    hands = new byte[buckets];
+  }
+
+  /**
+   * Instantiate a new {@code TranspositionTable} that uses at most the specified number of
+   * megabytes and replaces entries by depth.
+   *
+   * @param megabytes the memory cap in megabytes.
+   * @return the {@code TranspositionTable}.
+   */
+  public static TranspositionTable ofMegabytes(int megabytes) {
+    return new TranspositionTable(megabytes * 1024L * 1024L);
+  }
+
+  /** @return the number of entries this table can hold. */
+  public int getCapacity() {
+    return keys.length;
+  }
+
+  /** @return the number of bytes used by the entries of this table. */
+  public long getMemoryUsage() {
+    return (long) keys.length * BYTES_PER_ENTRY + hands.length;
+  }
+
+  /** @return the {@code Replacement} policy. */
+  public Replacement getReplacement() {
+    return replacement;
+  }
+
+  /**
+   * Start a new search generation. Entries written in earlier generations are considered stale and
+   * are evicted before entries of the current generation.
+   */
+  public void newSearch() {
+    generation++;
+  }
+
+  /** Remove all entries. */
+  public void clear() {
+    for (int bucket = 0; bucket <= bucketMask; bucket++) {
+      synchronized (lock(bucket)) {
+        for (int index = bucket * BUCKET_SIZE; index < (bucket + 1) * BUCKET_SIZE; index++) {
+          flags[index] = 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Look up the specified key and copy its entry into the specified {@code Entry}. Nothing is
+   * allocated, so searches can probe in their inner loop with a reused {@code Entry}.
+   *
+   * @param key the position hash.
+   * @param entry the {@code Entry} to copy into.
+   * @return {@code true} if the key was found; {@code false} otherwise.
+   */
+  public boolean probe(long key, Entry entry) {
+    int bucket = bucket(key);
+    synchronized (lock(bucket)) {
+      int index = find(bucket, key);
+      if (index < 0) {
+        return false;
+      }
+      flags[index] |= REFERENCED;
+      entry.key = key;
+      entry.visits = visits[index];
+      entry.valueSum = valueSums[index];
+      entry.value = values[index];
+      entry.bestMove = bestMoves[index];
+      entry.depth = depths[index];
+      entry.bound = BOUNDS[flags[index] & BOUND_MASK];
+      entry.isProven = (flags[index] & PROVEN) != 0;
+      return true;
+    }
+  }
+
+  /**
+   * Store an alpha-beta search result for the specified key. An existing entry for the key is only
+   * overwritten if it was searched less deep, is stale or if the new result is exact; the best move
+   * of an existing entry is kept if the new best move is {@code NO_MOVE}.
+   *
+   * @param key the position hash.
+   * @param depth the remaining search depth of the result.
+   * @param value the value of the position.
+   * @param bound the {@code Bound} type of the value.
+   * @param bestMove the best move, or {@code NO_MOVE}.
+   */
+  public void store(long key, int depth, double value, Bound bound, int bestMove) {
+    store(key, depth, value, bound, bestMove, false);
+  }
+
+  /**
+   * Store an alpha-beta search result for the specified key as {@link #store(long, int, double,
+   * Bound, int)} does. A proven result holds at any depth, so it is never overwritten by one that
+   * is not.
+   *
+   * @param key the position hash.
+   * @param depth the remaining search depth of the result.
+   * @param value the value of the position.
+   * @param bound the {@code Bound} type of the value.
+   * @param bestMove the best move, or {@code NO_MOVE}.
+   * @param isProven the switch indicating the value is proven, i.e., no leaf of the search was
+   *     valued heuristically.
+   */
+  public void store(
+      long key, int depth, double value, Bound bound, int bestMove, boolean isProven) {
+    int bucket = bucket(key);
+    synchronized (lock(bucket)) {
+      int index = find(bucket, key);
+      if (index >= 0) {
+        boolean isStoredProven = (flags[index] & PROVEN) != 0;
+        if ((isStoredProven && !isProven)
+            || (depth < depths[index]
+                && generations[index] == generation
+                && bound != Bound.EXACT)) {
+          flags[index] |= REFERENCED;
+          return;
+        }
+        if (bestMove == NO_MOVE) {
+          bestMove = bestMoves[index];
+        }
+      } else {
+        index = victim(bucket);
+        visits[index] = 0;
+        valueSums[index] = 0;
+      }
+      keys[index] = key;
+      values[index] = value;
+      bestMoves[index] = bestMove;
+      depths[index] = (short) Math.min(depth, Short.MAX_VALUE);
+      flags[index] = (byte) (OCCUPIED | REFERENCED | (isProven ? PROVEN : 0) | bound.ordinal());
+      generations[index] = generation;
+    }
+  }
+
+  /**
+   * Add tree search statistics to the entry of the specified key, creating the entry if it does
+   * not exist yet.
+   *
+   * @param key the position hash.
+   * @param visits the number of visits to add.
+   * @param valueSum the sum of the values of the visits to add.
+   */
+  public void add(long key, int visits, double valueSum) {
+    int bucket = bucket(key);
+    synchronized (lock(bucket)) {
+      int index = find(bucket, key);
+      if (index < 0) {
+        index = victim(bucket);
+        keys[index] = key;
+        this.visits[index] = 0;
+        valueSums[index] = 0;
+        values[index] = 0;
+        bestMoves[index] = NO_MOVE;
+        depths[index] = 0;
+        flags[index] = (byte) OCCUPIED;
+      }
+      this.visits[index] += visits;
+      valueSums[index] += valueSum;
+      flags[index] |= REFERENCED;
+      generations[index] = generation;
+    }
+  }
+
+  /**
+   * Get the bucket index of the specified key.
+   *
+   * @param key the key.
+   * @return the bucket index.
+   */
+  private int bucket(long key) {
+    return (int) (key ^ (key >>> 32)) & bucketMask;
+  }
+
+  /**
+   * Get the lock that guards the specified bucket.
+   *
+   * @param bucket the bucket index.
+   * @return the lock.
+   */
+  private Object lock(int bucket) {
+    return locks[bucket & stripeMask];
+  }
+
+  /**
+   * Find the entry index of the specified key in the specified bucket.
+   *
+   * @param bucket the bucket index.
+   * @param key the key.
+   * @return the entry index, or -1 if the key is not in the bucket.
+   */
+  private int find(int bucket, long key) {
+    int first = bucket * BUCKET_SIZE;
+    for (int index = first; index < first + BUCKET_SIZE; index++) {
+      if ((flags[index] & OCCUPIED) != 0 && keys[index] == key) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Select the entry index in the specified bucket to write a new key to. An unoccupied entry is
+   * always preferred; otherwise the {@code Replacement} policy decides.
+   *
+   * @param bucket the bucket index.
+   * @return the entry index.
+   */
+  private int victim(int bucket) {
+    int first = bucket * BUCKET_SIZE;
+    for (int index = first; index < first + BUCKET_SIZE; index++) {
+      if ((flags[index] & OCCUPIED) == 0) {
+        return index;
+      }
+    }
+    switch (replacement) {
+      case CLOCK:
+        return clockVictim(bucket);
+      case DEPTH:
+      default:
+        return depthVictim(bucket);
+    }
+  }
+
+  /**
+   * Select the stale entry with the least depth and visits, or the entry with the least depth and
+   * visits if no entry is stale.
+   *
+   * @param bucket the bucket index.
+   * @return the entry index.
+   */
+  private int depthVictim(int bucket) {
+    int first = bucket * BUCKET_SIZE;
+    int victim = first;
+    for (int index = first + 1; index < first + BUCKET_SIZE; index++) {
+      boolean isStale = generations[index] != generation;
+      boolean isVictimStale = generations[victim] != generation;
+      if (isStale != isVictimStale) {
+        if (isStale) {
+          victim = index;
+        }
+      } else if (depths[index] < depths[victim]
+          || (depths[index] == depths[victim] && visits[index] < visits[victim])) {
+        victim = index;
+      }
+    }
+    return victim;
+  }
+
+  /**
+   * Sweep the clock hand of the specified bucket until it points to an entry that has not been
+   * referenced since the last sweep, clearing the referenced flags it passes.
+   *
+   * @param bucket the bucket index.
+   * @return the entry index.
+   */
+  private int clockVictim(int bucket) {
+    int first = bucket * BUCKET_SIZE;
+    int hand = hands[bucket];
+    while (true) {
+      int index = first + hand;
+      hand = (hand + 1) % BUCKET_SIZE;
+      if ((flags[index] & REFERENCED) == 0 || generations[index] != generation) {
+        hands[bucket] = (byte) hand;
+        return index;
+      }
+      flags[index] &= ~REFERENCED;
+    }
+  }
+
+  /** The policy to select which entry of a full bucket is overwritten by a new key. */
+  public enum Replacement {
+    /**
+     * Evict stale entries first, then the entry searched least deep, then the entry with the
+     * fewest visits.
+     */
+    DEPTH,
+
+    /**
+     * Evict stale entries or entries not referenced since the clock hand of the bucket last passed
+     * them, approximating least recently used eviction.
+     */
+    CLOCK
+  }
+
+  /** The type of an alpha-beta value stored in an entry. */
+  public enum Bound {
+    /** No alpha-beta value; the entry only holds tree search statistics. */
+    NONE,
+
+    /** The exact value. */
+    EXACT,
+
+    /** A lower bound of the value, i.e., the search failed high. */
+    LOWER,
+
+    /** An upper bound of the value, i.e., the search failed low. */
+    UPPER
+  }
+
+  /** A copy of an entry, filled by {@code probe}. */
+  public static class Entry {
+
+    private long key;
+    private int visits;
+    private double valueSum;
+    private double value;
+    private int bestMove = NO_MOVE;
+    private int depth;
+    private Bound bound = Bound.NONE;
+    private boolean isProven;
+
+    /** @return the position hash. */
+    public long getKey() {
+      return key;
+    }
+
+    /** @return the number of tree search visits. */
+    public int getVisits() {
+      return visits;
+    }
+
+    /** @return the sum of the tree search values. */
+    public double getValueSum() {
+      return valueSum;
+    }
+
+    /** @return the mean tree search value, or zero if never visited. */
+    public double getMeanValue() {
+      return visits > 0 ? valueSum / visits : 0;
+    }
+
+    /** @return the alpha-beta value. */
+    public double getValue() {
+      return value;
+    }
+
+    /** @return the best move, or {@code NO_MOVE}. */
+    public int getBestMove() {
+      return bestMove;
+    }
+
+    /** @return the remaining alpha-beta search depth. */
+    public int getDepth() {
+      return depth;
+    }
+
+    /** @return the {@code Bound} type of the alpha-beta value. */
+    public Bound getBound() {
+      return bound;
+    }
+
+    /** @return {@code true} if the alpha-beta value is proven; {@code false} otherwise. */
+    public boolean isProven() {
+      return isProven;
+    }
+  }
+}
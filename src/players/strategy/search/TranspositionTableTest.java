@@ -0,0 +1,111 @@
+package players.strategy.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import game.material.PositionedStone;
+import game.material.Stone;
+import game.material.board.Board;
+import game.material.board.Zobrist;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import players.strategy.search.TranspositionTable.Bound;
+import players.strategy.search.TranspositionTable.Entry;
+import players.strategy.search.TranspositionTable.Replacement;
+
+class TranspositionTableTest {
+
+  private TranspositionTable table;
+  private Entry entry;
+
+  @BeforeEach
+  void setUp() {
+    table = new TranspositionTable(1 << 16);
+    entry = new Entry();
+  }
+
+  @Test
+  void testMemoryCap() {
+    long cap = 1 << 20;
+    TranspositionTable capped = new TranspositionTable(cap);
+    assertTrue(capped.getMemoryUsage() <= cap);
+    assertTrue(capped.getMemoryUsage() > cap / 2);
+  }
+
+  @Test
+  void testStoreAndProbe() {
+    assertFalse(table.probe(42, entry));
+    table.store(42, 3, 0.5, Bound.EXACT, 17);
+    assertTrue(table.probe(42, entry));
+    assertEquals(3, entry.getDepth());
+    assertEquals(0.5, entry.getValue(), 0);
+    assertEquals(Bound.EXACT, entry.getBound());
+    assertEquals(17, entry.getBestMove());
+
+    // A shallower inexact result does not overwrite a deeper one of the same search
+    table.store(42, 1, -1, Bound.LOWER, 18);
+    assertTrue(table.probe(42, entry));
+    assertEquals(3, entry.getDepth());
+    assertEquals(17, entry.getBestMove());
+
+    // A deeper result does, but keeps the best move if it has none
+    table.store(42, 5, 0.25, Bound.UPPER, TranspositionTable.NO_MOVE);
+    assertTrue(table.probe(42, entry));
+    assertEquals(5, entry.getDepth());
+    assertEquals(17, entry.getBestMove());
+  }
+
+  @Test
+  void testAddStatistics() {
+    table.add(7, 1, 1);
+    table.add(7, 2, 0.5);
+    assertTrue(table.probe(7, entry));
+    assertEquals(3, entry.getVisits());
+    assertEquals(0.5, entry.getMeanValue(), 1e-9);
+    table.clear();
+    assertFalse(table.probe(7, entry));
+  }
+
+  @Test
+  void testReplacement() {
+    for (Replacement replacement : Replacement.values()) {
+      // A table of a single bucket
+      TranspositionTable small = new TranspositionTable(1, replacement);
+      assertEquals(TranspositionTable.BUCKET_SIZE, small.getCapacity());
+      for (int key = 1; key <= 2 * small.getCapacity(); key++) {
+        small.store(key, key, key, Bound.EXACT, key);
+      }
+      int found = 0;
+      for (int key = 1; key <= 2 * small.getCapacity(); key++) {
+        found += small.probe(key, entry) ? 1 : 0;
+      }
+      assertEquals(small.getCapacity(), found);
+    }
+
+    // Stale entries are evicted before deeper entries of the current search
+    TranspositionTable small = new TranspositionTable(1);
+    for (int key = 1; key <= small.getCapacity(); key++) {
+      small.store(key, 10, 0, Bound.EXACT, key);
+    }
+    small.newSearch();
+    small.store(100, 1, 0, Bound.EXACT, 100);
+    small.store(101, 1, 0, Bound.EXACT, 101);
+    assertTrue(small.probe(100, entry));
+    assertTrue(small.probe(101, entry));
+  }
+
+  @Test
+  void testTranspositionsShareEntry() {
+    Board board1 = new Board(5);
+    board1.put(new PositionedStone(0, 0, Stone.BLACK));
+    board1.put(new PositionedStone(2, 3, Stone.WHITE));
+    Board board2 = new Board(5);
+    board2.put(new PositionedStone(2, 3, Stone.WHITE));
+    board2.put(new PositionedStone(0, 0, Stone.BLACK));
+    table.add(Zobrist.hash(board1, Stone.BLACK), 1, 1);
+    assertTrue(table.probe(Zobrist.hash(board2, Stone.BLACK), entry));
+    assertFalse(table.probe(Zobrist.hash(board2, Stone.WHITE), entry));
+    assertFalse(table.probe(Zobrist.hash(new Board(7), Stone.BLACK), entry));
+  }
+}
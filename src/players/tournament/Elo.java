@@ -0,0 +1,185 @@
+package players.tournament;
+
+import java.util.Arrays;
+
+/**
+ * Elo ratings of the participants of a tournament, estimated from the results of their games by
+ * the maximum likelihood of the Bradley-Terry model, in which a participant with a rating that is
+ * {@code d} points higher scores {@code 1 / (1 + 10^(-d / 400))} on average.
+ *
+ * <p>Every pair of participants that played is given one virtual draw, so participants that won or
+ * lost all their games still get a finite rating. The ratings are relative: their mean is zero. The
+ * error of a rating is the half-width of its approximate 95% confidence interval, derived from the
+ * curvature of the likelihood with the other ratings fixed.
+ */
+public class Elo {
+
+  /** The number of rating points per unit of the natural logarithm of the odds. */
+  public static final double SCALE = 400 / Math.log(10);
+
+  /** The quantile of the normal distribution for a 95% confidence interval. */
+  private static final double Z_95 = 1.96;
+
+  /** The maximum number of iterations of the estimation. */
+  private static final int MAX_ITERATIONS = 10_000;
+
+  /** The largest change of a strength at which the estimation has converged. */
+  private static final double TOLERANCE = 1e-10;
+
+  /** The number of games by pair of participants. */
+  private final double[][] games;
+
+  /** The score by pair of participants: one for a win and a half for a draw. */
+  private final double[][] scores;
+
+  /** The ratings, or {@code null} if not computed since the last result. */
+  private double[] ratings;
+
+  /** The errors of the ratings. */
+  private double[] errors;
+
+  /**
+   * Instantiate a new {@code Elo} for the specified number of participants.
+   *
+   * @param participants the number of participants.
+   */
+  public Elo(int participants) {
+    games = new double[participants][participants];
+    scores = new double[participants][participants];
+  }
+
+  /**
+   * Add the result of a game.
+   *
+   * @param a the first participant.
+   * @param b the second participant.
+   * @param score the score of the first participant: one for a win, a half for a draw and zero for
+   *     a loss.
+   */
+  public synchronized void add(int a, int b, double score) {
+    if (a == b) {
+      throw new AssertionError("a participant cannot play itself");
+    }
+    games[a][b]++;
+    games[b][a]++;
+    scores[a][b] += score;
+    scores[b][a] += 1 - score;
+    ratings = null;
+  }
+
+  /** @return the number of participants. */
+  public int getParticipants() {
+    return games.length;
+  }
+
+  /**
+   * Get the rating of the specified participant.
+   *
+   * @param participant the participant.
+   * @return the rating.
+   */
+  public synchronized double getRating(int participant) {
+    compute();
+    return ratings[participant];
+  }
+
+  /**
+   * Get the error of the rating of the specified participant.
+   *
+   * @param participant the participant.
+   * @return the half-width of the 95% confidence interval.
+   */
+  public synchronized double getError(int participant) {
+    compute();
+    return errors[participant];
+  }
+
+  /**
+   * Get the number of games the specified participant played.
+   *
+   * @param participant the participant.
+   * @return the number of games.
+   */
+  public synchronized int getGames(int participant) {
+    double sum = 0;
+    for (double pairGames : games[participant]) {
+      sum += pairGames;
+    }
+    return (int) sum;
+  }
+
+  /**
+   * Get the score of the specified participant.
+   *
+   * @param participant the participant.
+   * @return the sum of the scores of the games of the participant.
+   */
+  public synchronized double getScore(int participant) {
+    double sum = 0;
+    for (double pairScore : scores[participant]) {
+      sum += pairScore;
+    }
+    return sum;
+  }
+
+  /** Compute the ratings and their errors by minorization-maximization, if not yet done. */
+  private void compute() {
+    if (ratings != null) {
+      return;
+    }
+    int n = games.length;
+    double[][] priorGames = new double[n][n];
+    double[] priorScores = new double[n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        if (games[i][j] > 0) {
+          priorGames[i][j] = games[i][j] + 1;
+          priorScores[i] += scores[i][j] + 0.5;
+        }
+      }
+    }
+
+    // Estimate the strengths, i.e., exponents of the ratings
+    double[] strengths = new double[n];
+    Arrays.fill(strengths, 1);
+    for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+      double change = 0;
+      for (int i = 0; i < n; i++) {
+        double denominator = 0;
+        for (int j = 0; j < n; j++) {
+          if (priorGames[i][j] > 0) {
+            denominator += priorGames[i][j] / (strengths[i] + strengths[j]);
+          }
+        }
+        if (denominator > 0) {
+          double strength = priorScores[i] / denominator;
+          change = Math.max(change, Math.abs(strength - strengths[i]) / strengths[i]);
+          strengths[i] = strength;
+        }
+      }
+      if (change < TOLERANCE) {
+        break;
+      }
+    }
+
+    ratings = new double[n];
+    errors = new double[n];
+    double mean = 0;
+    for (int i = 0; i < n; i++) {
+      ratings[i] = SCALE * Math.log(strengths[i]);
+      mean += ratings[i] / n;
+    }
+    for (int i = 0; i < n; i++) {
+      ratings[i] -= mean;
+      double information = 0;
+      for (int j = 0; j < n; j++) {
+        if (priorGames[i][j] > 0) {
+          double p = strengths[i] / (strengths[i] + strengths[j]);
+          information += priorGames[i][j] * p * (1 - p);
+        }
+      }
+      errors[i] =
+          information > 0 ? Z_95 * SCALE / Math.sqrt(information) : Double.POSITIVE_INFINITY;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package players.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class EloTest {
+
+  @Test
+  void testRatings() {
+    Elo elo = new Elo(2);
+    for (int i = 0; i < 299; i++) {
+      elo.add(0, 1, i < 224 ? 1 : i == 224 ? 0.5 : 0);
+    }
+
+    // 224 wins, a draw and 74 losses, with the virtual draw a 75% score, or 191 points ahead
+    double difference = 400 * Math.log10(3);
+    assertEquals(difference / 2, elo.getRating(0), 1e-6);
+    assertEquals(-difference / 2, elo.getRating(1), 1e-6);
+    assertEquals(299, elo.getGames(0));
+    assertTrue(elo.getError(0) > 0 && elo.getError(0) < 100);
+  }
+
+  @Test
+  void testUnbeaten() {
+    Elo elo = new Elo(3);
+    for (int i = 0; i < 10; i++) {
+      elo.add(0, 1, 1);
+      elo.add(1, 2, 1);
+    }
+    assertTrue(elo.getRating(0) > elo.getRating(1));
+    assertTrue(elo.getRating(1) > elo.getRating(2));
+    assertEquals(0, elo.getRating(0) + elo.getRating(1) + elo.getRating(2), 1e-6);
+    assertTrue(Double.isFinite(elo.getRating(0)));
+  }
+}
@@ -0,0 +1,270 @@
+package players.tournament;
+
+import game.material.Stone;
+import game.material.board.Board;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import players.strategy.SearchStatistics;
+import players.strategy.Strategy;
+import players.strategy.search.SearchBoard;
+
+/**
+ * A profiler of strategies, which asks a {@code Strategy} for moves in a fixed suite of positions
+ * and measures its speed: the time to decide, the playouts and nodes per second, the memory of its
+ * search structures and the memory allocated per move. Search statistics are only available from
+ * strategies that implement {@code SearchStatistics}.
+ *
+ * <p>The suite consists of positions from seeded random games, so it is the same on every run and
+ * the profiles of two versions of a strategy can be compared. Every profile is printed as a single
+ * line of JSON.
+ */
+public class StrategyProfiler {
+
+  public static final String USAGE =
+      "usage: java "
+          + StrategyProfiler.class.getName()
+          + " <dim>[,<dim>...] <repeats> <strategy>...\n"
+          + "strategies: random, pass, mcts[:<playouts>], alphabeta[:<milliseconds>]";
+
+  /** The number of positions per board dimension. */
+  public static final int POSITIONS_PER_DIM = 8;
+
+  /** The number of random moves between two positions of the suite. */
+  private static final int MOVES_BETWEEN_POSITIONS = 5;
+
+  /** The seed of the random games of the suite. */
+  private static final long SEED = 0x5eed2017L;
+
+  /** The {@code ThreadMXBean} to measure allocations with. */
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  /** The positions of the suite. */
+  private final List<SearchBoard> positions = new ArrayList<>();
+
+  /**
+   * Instantiate a new {@code StrategyProfiler} with the suite of positions of the specified board
+   * dimensions.
+   *
+   * @param dims the board dimensions.
+   */
+  public StrategyProfiler(int... dims) {
+    SplittableRandom random = new SplittableRandom(SEED);
+    for (int dim : dims) {
+      SearchBoard board = new SearchBoard(dim);
+      int[] moves = new int[board.getSize()];
+      for (int position = 0; position < POSITIONS_PER_DIM; position++) {
+        positions.add(new SearchBoard(board));
+        for (int i = 0; i < MOVES_BETWEEN_POSITIONS; i++) {
+          int count = 0;
+          for (int ind = 0; ind < board.getSize(); ind++) {
+            if (board.get(ind) == SearchBoard.EMPTY
+                && !board.isEye(ind, board.getToPlay())
+                && board.isLegal(ind)) {
+              moves[count++] = ind;
+            }
+          }
+          board.play(count > 0 ? moves[random.nextInt(count)] : SearchBoard.PASS);
+        }
+      }
+    }
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 3) {
+      System.out.println("incorrect number of input arguments");
+      System.out.println(USAGE);
+      System.exit(0);
+    }
+
+    try {
+      int[] dims = Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray();
+      int repeats = Integer.parseInt(args[1]);
+      StrategyProfiler profiler = new StrategyProfiler(dims);
+      for (int i = 2; i < args.length; i++) {
+        System.out.println(profiler.profile(args[i], Tournament.parseStrategy(args[i]), repeats));
+      }
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+      System.out.println(USAGE);
+      System.exit(0);
+    }
+  }
+
+  /** @return the number of positions of the suite. */
+  public int getPositionCount() {
+    return positions.size();
+  }
+
+  /**
+   * Profile a {@code Strategy} on the suite after a warm-up pass. Every position is searched by a
+   * new {@code Strategy}, so no search reuses the results of another one.
+   *
+   * @param name the name of the profile.
+   * @param strategies the factory of the {@code Strategy}.
+   * @param repeats the number of passes over the suite.
+   * @return the {@code Profile}.
+   */
+  public Profile profile(String name, Supplier<Strategy> strategies, int repeats) {
+    run(strategies, null);
+    Profile profile = new Profile(name);
+    for (int repeat = 0; repeat < repeats; repeat++) {
+      run(strategies, profile);
+    }
+    return profile;
+  }
+
+  /**
+   * Ask a new {@code Strategy} for a move in every position of the suite.
+   *
+   * @param strategies the factory of the {@code Strategy}.
+   * @param profile the {@code Profile} to add the measurements to, or {@code null}.
+   */
+  private void run(Supplier<Strategy> strategies, Profile profile) {
+    for (SearchBoard position : positions) {
+      Board board = position.toBoard();
+      Stone stone = SearchBoard.stone(position.getToPlay());
+      Strategy strategy = strategies.get();
+      long allocated = getAllocatedBytes();
+      long start = System.nanoTime();
+      strategy.nextMove(board, stone);
+      long nanos = System.nanoTime() - start;
+      allocated = getAllocatedBytes() - allocated;
+      if (profile != null) {
+        profile.add(strategy, nanos, allocated);
+      }
+    }
+  }
+
+  /** @return the number of bytes allocated by the current thread, or zero if unavailable. */
+  private static long getAllocatedBytes() {
+    if (THREADS instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+      if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return 0;
+  }
+
+  /** The measurements of a {@code Strategy} on the suite. */
+  public static class Profile {
+
+    /** The name. */
+    private final String name;
+
+    /** The times to decide in nanoseconds. */
+    private final List<Long> decisionNanos = new ArrayList<>();
+
+    /** The total time to decide in nanoseconds. */
+    private long totalNanos;
+
+    /** The total number of nodes. */
+    private long nodes;
+
+    /** The total number of playouts. */
+    private long playouts;
+
+    /** The largest memory of the search structures in bytes. */
+    private long maxSearchMemory;
+
+    /** The total number of allocated bytes. */
+    private long allocatedBytes;
+
+    /**
+     * Instantiate a new {@code Profile}.
+     *
+     * @param name the name.
+     */
+    private Profile(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Add the measurements of a move.
+     *
+     * @param strategy the {@code Strategy} that made the move.
+     * @param nanos the time to decide in nanoseconds.
+     * @param allocated the number of bytes allocated.
+     */
+    private void add(Strategy strategy, long nanos, long allocated) {
+      decisionNanos.add(nanos);
+      totalNanos += nanos;
+      allocatedBytes += allocated;
+      if (strategy instanceof SearchStatistics) {
+        SearchStatistics statistics = (SearchStatistics) strategy;
+        nodes += statistics.getSearchedNodes();
+        playouts += statistics.getSearchedPlayouts();
+        maxSearchMemory = Math.max(maxSearchMemory, statistics.getSearchMemory());
+      }
+    }
+
+    /** @return the number of moves. */
+    public int getMoves() {
+      return decisionNanos.size();
+    }
+
+    /** @return the number of playouts per second. */
+    public double getPlayoutsPerSecond() {
+      return totalNanos > 0 ? playouts * 1e9 / totalNanos : 0;
+    }
+
+    /** @return the number of nodes per second. */
+    public double getNodesPerSecond() {
+      return totalNanos > 0 ? nodes * 1e9 / totalNanos : 0;
+    }
+
+    /** @return the largest memory of the search structures in bytes. */
+    public long getMaxSearchMemory() {
+      return maxSearchMemory;
+    }
+
+    /** @return the mean number of bytes allocated per move. */
+    public double getAllocatedBytesPerMove() {
+      return getMoves() > 0 ? (double) allocatedBytes / getMoves() : 0;
+    }
+
+    /**
+     * Get the specified percentile of the times to decide, by the nearest rank.
+     *
+     * @param percentile the percentile, between zero and one hundred.
+     * @return the time in milliseconds.
+     */
+    public double getDecisionMillis(double percentile) {
+      if (decisionNanos.isEmpty()) {
+        return 0;
+      }
+      Long[] sorted = decisionNanos.toArray(new Long[0]);
+      Arrays.sort(sorted);
+      int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+      return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1] / 1e6;
+    }
+
+    /** @return the profile as a single line of JSON. */
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.ROOT,
+          "{\"strategy\": \"%s\", \"moves\": %d, \"playoutsPerSecond\": %.1f,"
+              + " \"nodesPerSecond\": %.1f, \"maxSearchMemoryBytes\": %d,"
+              + " \"allocatedBytesPerMove\": %.0f, \"decisionMillisP50\": %.3f,"
+              + " \"decisionMillisP90\": %.3f, \"decisionMillisP99\": %.3f,"
+              + " \"decisionMillisMax\": %.3f}",
+          name.replace("\\", "\\\\").replace("\"", "\\\""),
+          getMoves(),
+          getPlayoutsPerSecond(),
+          getNodesPerSecond(),
+          getMaxSearchMemory(),
+          getAllocatedBytesPerMove(),
+          getDecisionMillis(50),
+          getDecisionMillis(90),
+          getDecisionMillis(99),
+          getDecisionMillis(100));
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package players.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import players.strategy.MonteCarloTreeSearchStrategy;
+import players.tournament.StrategyProfiler.Profile;
+
+class StrategyProfilerTest {
+
+  @Test
+  void testProfile() {
+    StrategyProfiler profiler = new StrategyProfiler(5, 7);
+    assertEquals(2 * StrategyProfiler.POSITIONS_PER_DIM, profiler.getPositionCount());
+
+    Profile profile = profiler.profile("mcts", () -> new MonteCarloTreeSearchStrategy(100), 2);
+    assertEquals(2 * profiler.getPositionCount(), profile.getMoves());
+    assertTrue(profile.getPlayoutsPerSecond() > 0);
+    assertTrue(profile.getNodesPerSecond() > 0);
+    assertTrue(profile.getMaxSearchMemory() > 0);
+    assertTrue(profile.getDecisionMillis(50) <= profile.getDecisionMillis(99));
+    assertTrue(profile.toString().startsWith("{\"strategy\": \"mcts\", \"moves\": 32,"));
+  }
+}
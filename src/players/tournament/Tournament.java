@@ -0,0 +1,490 @@
+package players.tournament;
+
+import game.GameRecord;
+import game.Go;
+import game.action.Move;
+import game.material.Stone;
+import game.material.board.Board;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import players.ComputerPlayer;
+import players.strategy.AlphaBetaStrategy;
+import players.strategy.MonteCarloTreeSearchStrategy;
+import players.strategy.PassStrategy;
+import players.strategy.RandomStrategy;
+import players.strategy.SearchBudget;
+import players.strategy.Strategy;
+import players.strategy.search.PatternPlayout;
+import players.strategy.search.SearchBoard;
+
+/**
+ * A runner of tournaments between {@code Strategy} configurations, which plays headless {@code Go}
+ * games between {@code ComputerPlayer} instances on a thread pool and rates the participants by
+ * {@code Elo}.
+ *
+ * <p>In a round robin every pair of participants plays, in a gauntlet the first participant plays
+ * every other one. Every pairing plays the same number of games on every board dimension, with
+ * alternating colours. Every game gets new {@code Strategy} instances, so strategies need not be
+ * thread-safe. A game is scored by area when both players pass. A player passes when its move is
+ * rejected by the rules, since a strategy asked again would likely repeat it, and after the move
+ * limit.
+ *
+ * <p>Results are streamed as they come in, one line per game: the names of the black and white
+ * participant followed by the {@code GameRecord}.
+ */
+public class Tournament {
+
+  public static final String USAGE =
+      "usage: java "
+          + Tournament.class.getName()
+          + " <results file> <threads> <round-robin|gauntlet> <games per pairing>"
+          + " <dim>[,<dim>...] <strategy>...\n"
+          + "strategies: random, pass, mcts[:<playouts>], mcts-pattern[:<playouts>],"
+          + " alphabeta[:<milliseconds>]";
+
+  /** The maximum number of moves of a game as a multiple of the number of positions. */
+  public static final int MAX_MOVES_FACTOR = 3;
+
+  /** The kind of tournament. */
+  public enum Mode {
+    /** Every pair of participants plays. */
+    ROUND_ROBIN,
+    /** The first participant plays every other one. */
+    GAUNTLET
+  }
+
+  /** The names of the participants. */
+  private final List<String> names;
+
+  /** The factories of the strategies of the participants. */
+  private final List<Supplier<Strategy>> strategies;
+
+  /** The {@code Mode}. */
+  private final Mode mode;
+
+  /** The board dimensions. */
+  private final int[] dims;
+
+  /** The number of games per pairing and board dimension. */
+  private final int gamesPerPairing;
+
+  /** The number of threads. */
+  private final int threads;
+
+  /** The ratings. */
+  private final Elo elo;
+
+  /** The number of games played. */
+  private long gameCount;
+
+  /** The number of moves played, including passes. */
+  private long moveCount;
+
+  /** The time from the start to the last result in nanoseconds. */
+  private long elapsedNanos;
+
+  /** The start time in {@link System#nanoTime()} time. */
+  private long startNanos = System.nanoTime();
+
+  /**
+   * Instantiate a new {@code Tournament}.
+   *
+   * @param names the names of the participants, without whitespace.
+   * @param strategies the factories of the strategies of the participants.
+   * @param mode the {@code Mode}.
+   * @param dims the board dimensions.
+   * @param gamesPerPairing the number of games per pairing and board dimension.
+   * @param threads the number of threads.
+   */
+  public Tournament(
+      List<String> names,
+      List<Supplier<Strategy>> strategies,
+      Mode mode,
+      int[] dims,
+      int gamesPerPairing,
+      int threads) {
+    if (names.size() != strategies.size() || names.size() < 2) {
+      throw new AssertionError("a tournament needs two or more named participants");
+    }
+    if (gamesPerPairing <= 0 || threads <= 0) {
+      throw new AssertionError("games per pairing and threads must be greater than zero");
+    }
+    this.names = new ArrayList<>(names);
+    this.strategies = new ArrayList<>(strategies);
+    this.mode = mode;
+    this.dims = dims.clone();
+    this.gamesPerPairing = gamesPerPairing;
+    this.threads = threads;
+    elo = new Elo(names.size());
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 7) {
+      System.out.println("incorrect number of input arguments");
+      System.out.println(USAGE);
+      System.exit(0);
+    }
+
+    List<String> names = new ArrayList<>();
+    List<Supplier<Strategy>> strategies = new ArrayList<>();
+    Tournament tournament;
+    try {
+      String[] dimArgs = args[4].split(",");
+      int[] dims = new int[dimArgs.length];
+      for (int i = 0; i < dims.length; i++) {
+        dims[i] = Integer.parseInt(dimArgs[i]);
+      }
+      for (int i = 5; i < args.length; i++) {
+        names.add(args[i]);
+        strategies.add(parseStrategy(args[i]));
+      }
+      tournament =
+          new Tournament(
+              names,
+              strategies,
+              Mode.valueOf(args[2].toUpperCase().replace('-', '_')),
+              dims,
+              Integer.parseInt(args[3]),
+              Integer.parseInt(args[1]));
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+      System.out.println(USAGE);
+      System.exit(0);
+      return;
+    }
+
+    try (Writer results = Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+      tournament.run(results);
+    } catch (IOException | InterruptedException e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+    tournament.report(System.out);
+  }
+
+  /**
+   * Parse a {@code Strategy} configuration: a strategy name in any case, optionally followed by a
+   * colon and its parameter.
+   *
+   * @param configuration the configuration, e.g., {@code "mcts:5000"}.
+   * @return the factory of the configured {@code Strategy}.
+   * @throws IllegalArgumentException if the configuration is invalid.
+   */
+  public static Supplier<Strategy> parseStrategy(String configuration)
+      throws IllegalArgumentException {
+    String[] parts = configuration.split(":", 2);
+    String name = parts[0].toLowerCase();
+    boolean hasParameter = parts.length > 1;
+    long parameter = hasParameter ? Long.parseLong(parts[1]) : 0;
+    switch (name) {
+      case "random":
+        return RandomStrategy::new;
+      case "pass":
+        return PassStrategy::new;
+      case "mcts":
+        return hasParameter
+            ? () -> new MonteCarloTreeSearchStrategy((int) parameter)
+            : MonteCarloTreeSearchStrategy::new;
+      case "mcts-pattern":
+        int playouts =
+            hasParameter ? (int) parameter : MonteCarloTreeSearchStrategy.DEFAULT_PLAYOUTS;
+        return () ->
+            new MonteCarloTreeSearchStrategy(
+                playouts,
+                MonteCarloTreeSearchStrategy.DEFAULT_EXPLORATION,
+                null,
+                null,
+                MonteCarloTreeSearchStrategy.DEFAULT_TREE_CAPACITY,
+                PatternPlayout::new);
+      case "alphabeta":
+        return hasParameter ? () -> new AlphaBetaStrategy(parameter) : AlphaBetaStrategy::new;
+      default:
+        throw new IllegalArgumentException("unknown strategy: " + configuration);
+    }
+  }
+
+  /**
+   * Play all games of the tournament and write the result of every game to the specified {@code
+   * Writer} as soon as it is finished.
+   *
+   * @param results the {@code Writer}.
+   * @return the {@code Elo} ratings.
+   * @throws IOException if writing fails.
+   * @throws InterruptedException if interrupted while waiting for games.
+   */
+  public Elo run(Writer results) throws IOException, InterruptedException {
+    Writer writer = new BufferedWriter(results);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CompletionService<GameRecord> completion = new ExecutorCompletionService<>(executor);
+    Map<Future<GameRecord>, int[]> pairings = new IdentityHashMap<>();
+    start();
+    try {
+      // The strategies are created by the game tasks, so only the running games hold them
+      for (int[] game : schedule()) {
+        Supplier<Strategy> black = strategies.get(game[0]);
+        Supplier<Strategy> white = strategies.get(game[1]);
+        pairings.put(completion.submit(() -> play(black.get(), white.get(), game[2])), game);
+      }
+      for (int i = pairings.size(); i > 0; i--) {
+        Future<GameRecord> future = completion.take();
+        int[] game = pairings.get(future);
+        addResult(game[0], game[1], future.get(), writer);
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("a game failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    return elo;
+  }
+
+  /**
+   * Get the games of the tournament: for every board dimension and pairing, the number of games
+   * per pairing with alternating colours.
+   *
+   * @return the games, each as the black participant, the white participant and the dimension.
+   */
+  public List<int[]> schedule() {
+    List<int[]> games = new ArrayList<>();
+    for (int dim : dims) {
+      for (int a = 0; a < names.size(); a++) {
+        for (int b = a + 1; b < names.size(); b++) {
+          if (mode == Mode.GAUNTLET && a > 0) {
+            break;
+          }
+          for (int game = 0; game < gamesPerPairing; game++) {
+            games.add(game % 2 == 0 ? new int[] {a, b, dim} : new int[] {b, a, dim});
+          }
+        }
+      }
+    }
+    return games;
+  }
+
+  /** Reset the counts and start the clock of the tournament. */
+  public synchronized void start() {
+    gameCount = 0;
+    moveCount = 0;
+    elapsedNanos = 0;
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Add the result of a game to the ratings and counts and write it to the specified {@code
+   * Writer}.
+   *
+   * @param black the black participant.
+   * @param white the white participant.
+   * @param record the {@code GameRecord}.
+   * @param writer the {@code Writer}.
+   * @throws IOException if writing fails.
+   */
+  public synchronized void addResult(int black, int white, GameRecord record, Writer writer)
+      throws IOException {
+    elo.add(black, white, record.getWinner() == Stone.BLACK ? 1 : 0);
+    gameCount++;
+    moveCount += record.getMoves().size();
+    elapsedNanos = System.nanoTime() - startNanos;
+    writer.write(names.get(black) + " " + names.get(white) + " " + record);
+    writer.write(System.lineSeparator());
+    writer.flush();
+  }
+
+  /**
+   * Play a headless game between the specified strategies, which must not be used elsewhere.
+   *
+   * @param black the {@code Strategy} of black.
+   * @param white the {@code Strategy} of white.
+   * @param dim the board dimension.
+   * @return the {@code GameRecord}.
+   */
+  public static GameRecord play(Strategy black, Strategy white, int dim) {
+    Game game = new Game(dim);
+    Go go =
+        new Go(
+            dim,
+            new ComputerPlayer(Stone.BLACK, game.new Recording(black)),
+            new ComputerPlayer(Stone.WHITE, game.new Recording(white)));
+    go.run();
+    double score = new SearchBoard(go.getBoard(), Stone.BLACK).score();
+    return new GameRecord(dim, game.moves, score > 0 ? Stone.BLACK : Stone.WHITE);
+  }
+
+  /** @return the names of the participants. */
+  public List<String> getNames() {
+    return names;
+  }
+
+  /**
+   * Print the ratings, sorted from high to low, and the speed of the tournament.
+   *
+   * @param out the {@code PrintStream}.
+   */
+  public void report(PrintStream out) {
+    List<Integer> order = new ArrayList<>();
+    for (int i = 0; i < names.size(); i++) {
+      order.add(i);
+    }
+    order.sort((a, b) -> Double.compare(elo.getRating(b), elo.getRating(a)));
+    out.printf("%-24s %8s %8s %8s %7s%n", "participant", "elo", "+/-", "games", "score");
+    for (int i : order) {
+      int games = elo.getGames(i);
+      out.printf(
+          "%-24s %8.1f %8.1f %8d %6.1f%%%n",
+          names.get(i),
+          elo.getRating(i),
+          elo.getError(i),
+          games,
+          games > 0 ? 100 * elo.getScore(i) / games : 0);
+    }
+    out.printf(
+        "%d games, %d moves in %.1f s: %.2f games/s, %.1f moves/s%n",
+        getGameCount(),
+        getMoveCount(),
+        getElapsedNanos() / 1e9,
+        getGamesPerSecond(),
+        getMovesPerSecond());
+  }
+
+  /** @return the {@code Elo} ratings. */
+  public Elo getElo() {
+    return elo;
+  }
+
+  /** @return the number of games played. */
+  public synchronized long getGameCount() {
+    return gameCount;
+  }
+
+  /** @return the number of moves played, including passes. */
+  public synchronized long getMoveCount() {
+    return moveCount;
+  }
+
+  /** @return the time from the start to the last result in nanoseconds. */
+  public synchronized long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /** @return the number of games per second since the start. */
+  public synchronized double getGamesPerSecond() {
+    return elapsedNanos > 0 ? gameCount * 1e9 / elapsedNanos : 0;
+  }
+
+  /** @return the number of moves per second since the start. */
+  public synchronized double getMovesPerSecond() {
+    return elapsedNanos > 0 ? moveCount * 1e9 / elapsedNanos : 0;
+  }
+
+  /** The moves of a single game, which its players record. */
+  private static class Game {
+
+    /** The board dimension. */
+    private final int dim;
+
+    /** The moves played, {@code null} for a pass. */
+    private final List<Move> moves = new ArrayList<>();
+
+    /** The {@code Board} of the last move asked for. */
+    private Board lastBoard;
+
+    /** The {@code Stone} of the last move asked for. */
+    private Stone lastStone;
+
+    /**
+     * Instantiate a new {@code Game}.
+     *
+     * @param dim the board dimension.
+     */
+    private Game(int dim) {
+      this.dim = dim;
+    }
+
+    /**
+     * Determine if the specified position was asked for last, i.e., the last move was rejected by
+     * the rules, or the move limit is reached. The player must then pass.
+     *
+     * @param board the {@code Board}.
+     * @param stone the {@code Stone}.
+     * @return {@code true} if the player must pass; {@code false} otherwise.
+     */
+    private boolean mustPass(Board board, Stone stone) {
+      return (board == lastBoard && stone == lastStone)
+          || moves.size() >= MAX_MOVES_FACTOR * dim * dim;
+    }
+
+    /**
+     * Record the specified move. If the same position was asked for last, the last move was
+     * rejected by the rules and is replaced.
+     *
+     * @param board the {@code Board}.
+     * @param stone the {@code Stone}.
+     * @param move the move, {@code null} for a pass.
+     * @return the move.
+     */
+    private Move record(Board board, Stone stone, Move move) {
+      if (board == lastBoard && stone == lastStone) {
+        moves.set(moves.size() - 1, move);
+      } else {
+        moves.add(move);
+      }
+      lastBoard = board;
+      lastStone = stone;
+      return move;
+    }
+
+    /** A participant's {@code Strategy} that records its moves and passes when it must. */
+    private class Recording implements Strategy {
+
+      /** The wrapped {@code Strategy}. */
+      private final Strategy strategy;
+
+      /**
+       * Instantiate a new {@code Recording}.
+       *
+       * @param strategy the {@code Strategy} to record.
+       */
+      private Recording(Strategy strategy) {
+        this.strategy = strategy;
+      }
+
+      @Override
+      public String getName() {
+        return strategy.getName();
+      }
+
+      @Override
+      public Move nextMove(Board board, Stone stone) {
+        Move move = mustPass(board, stone) ? null : strategy.nextMove(board, stone);
+        return record(board, stone, move);
+      }
+
+      @Override
+      public Move nextMove(Board board, Stone stone, SearchBudget budget) {
+        Move move = mustPass(board, stone) ? null : strategy.nextMove(board, stone, budget);
+        return record(board, stone, move);
+      }
+
+      @Override
+      public void cancel() {
+        strategy.cancel();
+      }
+    }
+  }
+}
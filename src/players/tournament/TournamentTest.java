@@ -0,0 +1,100 @@
+package players.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import game.GameRecord;
+import game.material.Stone;
+import game.material.board.Board;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import players.strategy.MonteCarloTreeSearchStrategy;
+import players.strategy.PassStrategy;
+import players.strategy.Strategy;
+import players.tournament.Tournament.Mode;
+
+class TournamentTest {
+
+  @Test
+  void testRoundRobin() throws IOException, InterruptedException {
+    List<String> names = Arrays.asList("random", "pass", "mcts:50");
+    List<Supplier<Strategy>> strategies =
+        Arrays.asList(
+            Tournament.parseStrategy(names.get(0)),
+            Tournament.parseStrategy(names.get(1)),
+            Tournament.parseStrategy(names.get(2)));
+    Tournament tournament =
+        new Tournament(names, strategies, Mode.ROUND_ROBIN, new int[] {5, 7}, 4, 3);
+    StringWriter results = new StringWriter();
+    Elo elo = tournament.run(results);
+
+    String[] lines = results.toString().split(System.lineSeparator());
+    assertEquals(2 * 3 * 4, lines.length);
+    assertEquals(24, tournament.getGameCount());
+    for (String line : lines) {
+      String[] fields = line.split(" ", 3);
+      assertTrue(names.contains(fields[0]) && names.contains(fields[1]));
+      GameRecord record = GameRecord.parse(fields[2]);
+      int dim = record.getDim();
+      assertTrue(record.getMoves().size() <= Tournament.MAX_MOVES_FACTOR * dim * dim + 3);
+    }
+    assertEquals(16, elo.getGames(0));
+    assertTrue(elo.getRating(2) > elo.getRating(1));
+    assertTrue(tournament.getMovesPerSecond() > 0);
+  }
+
+  @Test
+  void testParseStrategy() {
+    Strategy strategy = Tournament.parseStrategy("MCTS-Pattern:50").get();
+    assertTrue(strategy instanceof MonteCarloTreeSearchStrategy);
+    assertNotNull(strategy.nextMove(new Board(5), Stone.BLACK));
+  }
+
+  @Test
+  void testGauntlet() throws IOException, InterruptedException {
+    List<String> names = Arrays.asList("random", "pass", "pass");
+    List<Supplier<Strategy>> strategies =
+        Arrays.asList(
+            Tournament.parseStrategy("random"),
+            Tournament.parseStrategy("pass"),
+            Tournament.parseStrategy("pass"));
+    Tournament tournament = new Tournament(names, strategies, Mode.GAUNTLET, new int[] {5}, 2, 2);
+    tournament.run(new StringWriter());
+    assertEquals(4, tournament.getGameCount());
+    assertEquals(4, tournament.getElo().getGames(0));
+    assertEquals(2, tournament.getElo().getGames(1));
+  }
+
+  @Test
+  void testStrategiesCreatedByGames() throws IOException, InterruptedException {
+    // Every game creates its own strategies, so none are created while scheduling the games
+    Thread caller = Thread.currentThread();
+    AtomicInteger created = new AtomicInteger();
+    AtomicInteger createdByCaller = new AtomicInteger();
+    Supplier<Strategy> supplier =
+        () -> {
+          created.incrementAndGet();
+          if (Thread.currentThread() == caller) {
+            createdByCaller.incrementAndGet();
+          }
+          return new PassStrategy();
+        };
+    Tournament tournament =
+        new Tournament(
+            Arrays.asList("pass", "pass"),
+            Arrays.asList(supplier, supplier),
+            Mode.ROUND_ROBIN,
+            new int[] {5},
+            4,
+            2);
+    tournament.run(new StringWriter());
+    assertEquals(2 * 4, created.get());
+    assertEquals(0, createdByCaller.get());
+  }
+}